@@ -0,0 +1,234 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compare a JMH result file ({@code -rf json}) against a baseline result file of the same format and report every
+ * benchmark whose score got worse by more than a threshold. The process exits with status 1 if there are
+ * regressions, so that a build can fail on them.
+ * 
+ * <p>
+ * Usage: {@code BaselineCompare <baseline.json> <result.json> [threshold-percent]}
+ * </p>
+ */
+public final class BaselineCompare
+{
+    /**
+     * The default regression threshold in percent.
+     */
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    private static final String THROUGHPUT_MODE = "thrpt";
+
+    private BaselineCompare()
+    {
+        // Intentionally empty.
+    }
+
+    /**
+     * @param args the command line arguments.
+     * @throws IOException thrown in case of errors.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("usage: BaselineCompare <baseline.json> <result.json> [threshold-percent]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        Map<String, Score> baseline = readScores(new File(args[0]));
+        Map<String, Score> current = readScores(new File(args[1]));
+
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8.name());
+        List<String> regressions = compare(baseline, current, threshold, out);
+
+        if (!regressions.isEmpty())
+        {
+            out.printf(Locale.ENGLISH, "%d regression(s) above %.1f%%.%n", regressions.size(), threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @param baseline the baseline scores.
+     * @param current the current scores.
+     * @param threshold the regression threshold in percent.
+     * @param out the stream to print the report to.
+     * @return the keys of the regressed benchmarks.
+     */
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold,
+        PrintStream out)
+    {
+        List<String> regressions = new ArrayList<>();
+
+        for (Entry<String, Score> entry : current.entrySet())
+        {
+            Score base = baseline.get(entry.getKey());
+            Score now = entry.getValue();
+
+            if (base == null)
+            {
+                out.printf(Locale.ENGLISH, "NEW        %s %.3f %s%n", entry.getKey(), now.getValue(), now.getUnit());
+                continue;
+            }
+
+            if (!base.getUnit().equals(now.getUnit()))
+            {
+                out.printf(Locale.ENGLISH, "UNIT       %s %s != %s%n", entry.getKey(), base.getUnit(), now.getUnit());
+                continue;
+            }
+
+            double change = now.getChangeInPercent(base);
+            boolean regressed = change > threshold;
+            if (regressed)
+            {
+                regressions.add(entry.getKey());
+            }
+
+            out.printf(Locale.ENGLISH, "%-10s %s %.3f -> %.3f %s (%+.1f%%)%n",
+                regressed ? "REGRESSION" : "OK", entry.getKey(), base.getValue(), now.getValue(), now.getUnit(),
+                change);
+        }
+
+        for (String key : baseline.keySet())
+        {
+            if (!current.containsKey(key))
+            {
+                out.printf(Locale.ENGLISH, "MISSING    %s%n", key);
+            }
+        }
+
+        return regressions;
+    }
+
+    /**
+     * @param file the JMH result file in JSON format.
+     * @return the scores mapped by benchmark key.
+     * @throws IOException thrown in case of errors.
+     */
+    static Map<String, Score> readScores(File file) throws IOException
+    {
+        Map<String, Score> scores = new TreeMap<>();
+
+        for (JsonNode run : new ObjectMapper().readTree(file))
+        {
+            JsonNode metric = run.get("primaryMetric");
+            String mode = run.get("mode").asText();
+            scores.put(toKey(run, mode), new Score(metric.get("score").asDouble(),
+                metric.get("scoreUnit").asText(), THROUGHPUT_MODE.equals(mode)));
+        }
+
+        return scores;
+    }
+
+    /**
+     * @param run the JMH result of one benchmark run.
+     * @param mode the benchmark mode.
+     * @return the key identifying the benchmark, its mode and its parameters.
+     */
+    private static String toKey(JsonNode run, String mode)
+    {
+        StringBuilder key = new StringBuilder(run.get("benchmark").asText()).append(':').append(mode);
+
+        JsonNode params = run.get("params");
+        if (params != null)
+        {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Iterator<Entry<String, JsonNode>> it = params.fields(); it.hasNext();)
+            {
+                Entry<String, JsonNode> p = it.next();
+                sorted.put(p.getKey(), p.getValue().asText());
+            }
+            key.append(sorted);
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * The primary score of a benchmark run.
+     */
+    static class Score
+    {
+        private final double value;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        /**
+         * @param value the score.
+         * @param unit the unit of the score.
+         * @param higherIsBetter true if a higher score is better, e.g., in throughput mode.
+         */
+        Score(double value, String unit, boolean higherIsBetter)
+        {
+            this.value = value;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        /**
+         * @return the score.
+         */
+        double getValue()
+        {
+            return value;
+        }
+
+        /**
+         * @return the unit of the score.
+         */
+        String getUnit()
+        {
+            return unit;
+        }
+
+        /**
+         * @param base the baseline score.
+         * @return the change relative to the baseline in percent, positive values are worse.
+         */
+        double getChangeInPercent(Score base)
+        {
+            if (base.value == 0.0)
+            {
+                return 0.0;
+            }
+
+            double change = 100.0 * (value - base.value) / base.value;
+            return higherIsBetter ? -change : change;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cpcc.core.base.PolygonZone;
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.utils.WGS84;
+
+/**
+ * Benchmarks for the geometry primitives used by the mapping and scheduling code, i.e.,
+ * {@code PolygonZone.isInside()}, {@code WGS84.calculateDistance()} and {@code WGS84.walk()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark
+{
+    private static final int NUMBER_OF_POINTS = 1024;
+    private static final double CENTER_LATITUDE = 47.82203;
+    private static final double CENTER_LONGITUDE = 13.04082;
+
+    @Param({"4", "16", "64"})
+    private int vertices;
+
+    private WGS84 wgs84;
+    private PolygonZone zone;
+    private PolarCoordinate[] points;
+    private int index;
+
+    /**
+     * Build a regular polygon around the center and a set of random points in and around it.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        wgs84 = new WGS84();
+
+        PolarCoordinate[] v = new PolarCoordinate[vertices + 1];
+        for (int k = 0; k < vertices; ++k)
+        {
+            double phi = 2.0 * Math.PI * k / vertices;
+            v[k] = new PolarCoordinate(
+                CENTER_LATITUDE + 0.01 * Math.sin(phi), CENTER_LONGITUDE + 0.01 * Math.cos(phi), 0.0);
+        }
+        v[vertices] = v[0];
+        zone = new PolygonZone(v);
+
+        Random random = new Random(4711L);
+        points = new PolarCoordinate[NUMBER_OF_POINTS];
+        for (int k = 0; k < NUMBER_OF_POINTS; ++k)
+        {
+            points[k] = new PolarCoordinate(
+                CENTER_LATITUDE + 0.03 * (random.nextDouble() - 0.5),
+                CENTER_LONGITUDE + 0.03 * (random.nextDouble() - 0.5),
+                50.0 * random.nextDouble());
+        }
+    }
+
+    /**
+     * @return the next point of the prepared point set.
+     */
+    private PolarCoordinate nextPoint()
+    {
+        index = (index + 1) & (NUMBER_OF_POINTS - 1);
+        return points[index];
+    }
+
+    /**
+     * @return the result of the polygon containment test.
+     */
+    @Benchmark
+    public boolean polygonZoneIsInside()
+    {
+        return zone.isInside(nextPoint());
+    }
+
+    /**
+     * @return the distance between two consecutive points.
+     */
+    @Benchmark
+    public double wgs84CalculateDistance()
+    {
+        return wgs84.calculateDistance(nextPoint(), nextPoint());
+    }
+
+    /**
+     * @return the position reached by walking from a point.
+     */
+    @Benchmark
+    public PolarCoordinate wgs84Walk()
+    {
+        return wgs84.walk(nextPoint(), 12.5, -7.5, 3.0);
+    }
+}
@@ -0,0 +1,133 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+import cpcc.core.entities.Device;
+import cpcc.core.entities.DeviceType;
+import cpcc.core.entities.Job;
+import cpcc.core.entities.MappingAttributes;
+import cpcc.core.entities.Parameter;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.entities.RealVehicleState;
+import cpcc.core.entities.SensorDefinition;
+import cpcc.core.entities.Topic;
+import cpcc.vvrte.entities.Task;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.entities.VirtualVehicleStorage;
+import cpcc.vvrte.entities.VirtualVehicleStorageBlob;
+
+/**
+ * A private in-memory H2 database with the schema of the core and VV-RTE entities. It implements the
+ * {@code HibernateSessionManager} contract with one long-lived session, so that repository and migrator
+ * implementations can be benchmarked outside of a Tapestry registry.
+ */
+public class InMemoryDatabase implements HibernateSessionManager, AutoCloseable
+{
+    private static final Class<?>[] ENTITIES = {
+        SensorDefinition.class, Parameter.class, Topic.class, DeviceType.class, Device.class,
+        RealVehicleState.class, Job.class, RealVehicle.class, MappingAttributes.class,
+        Task.class, VirtualVehicle.class, VirtualVehicleStorage.class, VirtualVehicleStorageBlob.class
+    };
+
+    private final SessionFactory sessionFactory;
+    private final Session session;
+    private Transaction transaction;
+
+    /**
+     * @param name the name of the in-memory database.
+     */
+    public InMemoryDatabase(String name)
+    {
+        Configuration cfg = new Configuration()
+            .setProperty(AvailableSettings.DRIVER, "org.h2.Driver")
+            .setProperty(AvailableSettings.URL, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+            .setProperty(AvailableSettings.USER, "sa")
+            .setProperty(AvailableSettings.PASS, "")
+            .setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .setProperty(AvailableSettings.SHOW_SQL, "false");
+
+        for (Class<?> entity : ENTITIES)
+        {
+            cfg.addAnnotatedClass(entity);
+        }
+
+        sessionFactory = cfg.buildSessionFactory();
+        session = sessionFactory.openSession();
+        transaction = session.beginTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Session getSession()
+    {
+        return session;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commit()
+    {
+        transaction.commit();
+        transaction = session.beginTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abort()
+    {
+        transaction.rollback();
+        transaction = session.beginTransaction();
+    }
+
+    /**
+     * Detach all entities from the session to keep its first level cache from growing across invocations.
+     */
+    public void clear()
+    {
+        session.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+        if (transaction.isActive())
+        {
+            transaction.rollback();
+        }
+        session.close();
+        sessionFactory.close();
+    }
+}
@@ -0,0 +1,259 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.ServiceResources;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContinuationPending;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cpcc.vvrte.base.VirtualVehicleMappingDecision;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.entities.VirtualVehicleState;
+import cpcc.vvrte.services.js.ApplicationState;
+import cpcc.vvrte.services.js.BuiltInFunctions;
+import cpcc.vvrte.services.js.JavascriptService;
+import cpcc.vvrte.services.js.JavascriptServiceImpl;
+import cpcc.vvrte.services.js.JavascriptWorker;
+import cpcc.vvrte.services.js.SnapshotCodecImpl;
+import cpcc.vvrte.services.js.VvRteFunctions;
+
+/**
+ * Benchmark for the latency of starting a virtual vehicle until it suspends in its first task and of resuming it from
+ * the snapshot taken at that point until it finishes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JavascriptWorkerBenchmark
+{
+    private static final String VEHICLE_CODE = ""
+        + "var barometer = VV.sensor.get('barometer');\n"
+        + "var samples = [];\n"
+        + "for (var i = 0; i < 100; ++i) { samples.push({ n: i, v: Math.sqrt(i) }); }\n"
+        + "VV.task.execute({\n"
+        + "    type: 'point',\n"
+        + "    position: new VV.types.LatLngAlt(47.82203, 13.04082, 20),\n"
+        + "    tolerance: 5,\n"
+        + "    sensors: [barometer]\n"
+        + "}, function(sensorValues) { samples.push(sensorValues); });\n"
+        + "samples.length;\n";
+
+    private JavascriptService jss;
+    private VirtualVehicle vehicle;
+    private byte[] snapshot;
+
+    /**
+     * Set up the JavaScript service and take the snapshot the resume benchmark starts from.
+     * 
+     * @throws IOException thrown in case of errors.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        ServiceResources serviceResources = mock(ServiceResources.class);
+        when(serviceResources.getService(HibernateSessionManager.class))
+            .thenReturn(mock(HibernateSessionManager.class));
+        when(serviceResources.getService(PerthreadManager.class)).thenReturn(mock(PerthreadManager.class));
+
+        VvRteFunctions.setStdOut(new PrintStream(NullOutputStream.INSTANCE, true, StandardCharsets.UTF_8.name()));
+
+        jss = new JavascriptServiceImpl(serviceResources, new BenchmarkFunctions(),
+            new SnapshotCodecImpl(Deflater.BEST_SPEED));
+        jss.addAllowedClassRegex("cpcc\\.benchmarks\\.JavascriptWorkerBenchmark\\$BenchmarkFunctions");
+
+        vehicle = new VirtualVehicle();
+        vehicle.setId(4711);
+        vehicle.setName("bench-vv");
+        vehicle.setUuid("a5f1b8d2-7c1e-4c1b-9d7f-3b8e2f0c6a11");
+        vehicle.setApiVersion(1);
+        vehicle.setCode(VEHICLE_CODE);
+
+        JavascriptWorker worker = jss.createWorker(vehicle, false);
+        worker.run();
+
+        if (worker.getWorkerState() != VirtualVehicleState.INTERRUPTED)
+        {
+            throw new IllegalStateException("Vehicle did not suspend: " + worker.getWorkerState()
+                + " " + worker.getResult());
+        }
+
+        snapshot = worker.getSnapshot();
+    }
+
+    /**
+     * @return the worker after the vehicle suspended in its first task.
+     * @throws IOException thrown in case of errors.
+     */
+    @Benchmark
+    public JavascriptWorker start() throws IOException
+    {
+        vehicle.setContinuation(null);
+        JavascriptWorker worker = jss.createWorker(vehicle, false);
+        worker.run();
+        return worker;
+    }
+
+    /**
+     * @return the worker after the vehicle finished.
+     * @throws IOException thrown in case of errors.
+     */
+    @Benchmark
+    public JavascriptWorker resume() throws IOException
+    {
+        vehicle.setContinuation(snapshot);
+        JavascriptWorker worker = jss.createWorker(vehicle, true);
+        worker.run();
+        return worker;
+    }
+
+    /**
+     * Built-in functions which suspend the vehicle in its first task and let it finish after resumption.
+     */
+    public static class BenchmarkFunctions implements BuiltInFunctions
+    {
+        private final Map<String, ScriptableObject> storage = new HashMap<>();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<ScriptableObject> listSensors()
+        {
+            return Collections.emptyList();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<ScriptableObject> listActiveSensors()
+        {
+            return Collections.emptyList();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ScriptableObject getSensor(String name)
+        {
+            NativeObject sensor = new NativeObject();
+            sensor.put("name", sensor, name);
+            return sensor;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void executeTask(ScriptableObject managementParameters, ScriptableObject taskParameters)
+        {
+            managementParameters.put("repeat", managementParameters, Boolean.FALSE);
+
+            Context cx = Context.enter();
+            try
+            {
+                ContinuationPending cp = cx.captureContinuation();
+                cp.setApplicationState(new ApplicationState(new VirtualVehicleMappingDecision()));
+                throw cp;
+            }
+            finally
+            {
+                Context.exit();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ScriptableObject loadObject(String name)
+        {
+            return storage.get(name);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void storeObject(String name, ScriptableObject obj)
+        {
+            storage.put(name, obj);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<String> listObjects(String pattern)
+        {
+            List<String> result = new ArrayList<>();
+            for (String name : storage.keySet())
+            {
+                if (name.matches(pattern))
+                {
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void removeObject(String name)
+        {
+            storage.remove(name);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros.node.NodeConfiguration;
+
+import cpcc.vvrte.services.ros.MessageConverter;
+import cpcc.vvrte.services.ros.MessageConverterImpl;
+
+/**
+ * Benchmark for the conversion of ROS image messages into JavaScript objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageConverterBenchmark
+{
+    private static final int BYTES_PER_PIXEL = 3;
+
+    @Param({"160x120", "640x480", "1920x1080"})
+    private String resolution;
+
+    private MessageConverter converter;
+    private sensor_msgs.Image image;
+
+    /**
+     * Create an RGB image message of the requested resolution filled with random pixels.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        String[] size = resolution.split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+
+        byte[] data = new byte[width * height * BYTES_PER_PIXEL];
+        new Random(4711L).nextBytes(data);
+
+        image = (sensor_msgs.Image) NodeConfiguration.newPrivate().getTopicMessageFactory()
+            .newFromType(sensor_msgs.Image._TYPE);
+        image.setEncoding("rgb8");
+        image.setHeight(height);
+        image.setWidth(width);
+        image.setStep(width * BYTES_PER_PIXEL);
+        image.setIsBigendian((byte) 0);
+        image.setData(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, data));
+
+        converter = new MessageConverterImpl();
+    }
+
+    /**
+     * @return the converted image.
+     */
+    @Benchmark
+    public ScriptableObject convertImage()
+    {
+        return converter.convertMessageToJS(image);
+    }
+}
@@ -0,0 +1,221 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.ServiceResources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cpcc.com.services.CommunicationResponse;
+import cpcc.com.services.CommunicationResponse.Status;
+import cpcc.com.services.CommunicationService;
+import cpcc.core.services.RealVehicleRepository;
+import cpcc.core.services.RealVehicleRepositoryImpl;
+import cpcc.core.services.jobs.JobService;
+import cpcc.core.services.jobs.TimeService;
+import cpcc.core.services.jobs.TimeServiceImpl;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.entities.VirtualVehicleState;
+import cpcc.vvrte.entities.VirtualVehicleStorage;
+import cpcc.vvrte.services.VirtualVehicleLauncher;
+import cpcc.vvrte.services.VirtualVehicleMigratorImpl;
+import cpcc.vvrte.services.db.TaskRepositoryImpl;
+import cpcc.vvrte.services.db.VvRteRepository;
+import cpcc.vvrte.services.db.VvRteRepositoryImpl;
+import cpcc.vvrte.services.task.TaskRegistry;
+
+/**
+ * Benchmark for a complete virtual vehicle migration, i.e., {@code findChunk()} on the sending real vehicle and
+ * {@code storeChunk()} on the receiving real vehicle until the last chunk is stored. Sender and receiver use separate
+ * in-memory H2 databases; the communication service acknowledging the chunks is a stub.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationBenchmark
+{
+    private static final int WINDOW_SIZE = 4;
+    private static final long CACHE_RETENTION = 86400000L;
+
+    @Param({"10", "100"})
+    private int storageItems;
+
+    @Param({"1024", "65536"})
+    private int itemSize;
+
+    @Param({"20"})
+    private int chunkSize;
+
+    private InMemoryDatabase senderDb;
+    private InMemoryDatabase receiverDb;
+    private VirtualVehicleMigratorImpl sender;
+    private VirtualVehicleMigratorImpl receiver;
+    private VirtualVehicle vehicle;
+
+    /**
+     * Set up both databases and store the virtual vehicle to be migrated in the sender's database.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        TimeService timeService = new TimeServiceImpl();
+
+        senderDb = new InMemoryDatabase("sender");
+        receiverDb = new InMemoryDatabase("receiver");
+        sender = new VirtualVehicleMigratorImpl(mockServiceResources(senderDb, timeService), chunkSize, WINDOW_SIZE,
+            CACHE_RETENTION);
+        receiver = new VirtualVehicleMigratorImpl(mockServiceResources(receiverDb, timeService), chunkSize,
+            WINDOW_SIZE, CACHE_RETENTION);
+
+        vehicle = new VirtualVehicle();
+        vehicle.setName("bench-vv");
+        vehicle.setUuid(UUID.randomUUID().toString());
+        vehicle.setApiVersion(1);
+        vehicle.setCode("var x = 1;\n");
+        vehicle.setState(VirtualVehicleState.MIGRATING_SND);
+        vehicle.setPreMigrationState(VirtualVehicleState.INTERRUPTED);
+        vehicle.setContinuation(new byte[4096]);
+        vehicle.setStartTime(timeService.newDate());
+        senderDb.getSession().save(vehicle);
+
+        Random random = new Random(4711L);
+        for (int k = 0; k < storageItems; ++k)
+        {
+            byte[] content = new byte[itemSize];
+            random.nextBytes(content);
+
+            VirtualVehicleStorage item = new VirtualVehicleStorage();
+            item.setVirtualVehicle(vehicle);
+            item.setName(String.format("item-%06d", k));
+            item.setModificationTime(new Date(1_000_000L + k));
+            item.setContentAsByteArray(content);
+            senderDb.getSession().save(item);
+        }
+
+        senderDb.commit();
+        senderDb.clear();
+    }
+
+    /**
+     * Reset the sending vehicle and give it a fresh UUID, so that every round trip creates a new vehicle on the
+     * receiving side instead of tripping over the previous migration.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation()
+    {
+        vehicle.setUuid(UUID.randomUUID().toString());
+        vehicle.setState(VirtualVehicleState.MIGRATING_SND);
+        vehicle.setChunkName(null);
+        senderDb.clear();
+        receiverDb.clear();
+    }
+
+    /**
+     * Close both databases.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        senderDb.close();
+        receiverDb.close();
+    }
+
+    /**
+     * @return the number of migrated chunks.
+     * @throws IOException thrown in case of errors.
+     * @throws ArchiveException thrown in case of errors.
+     */
+    @Benchmark
+    public int migrationRoundTrip() throws IOException, ArchiveException
+    {
+        int chunkNumber = 0;
+
+        while (vehicle.getState() != VirtualVehicleState.MIGRATION_COMPLETED_SND)
+        {
+            byte[] chunk = sender.findChunk(vehicle, vehicle.getChunkName(), chunkNumber++);
+            receiver.storeChunk(new ByteArrayInputStream(chunk));
+        }
+
+        return chunkNumber;
+    }
+
+    /**
+     * @param db the database to use.
+     * @param timeService the time service.
+     * @return the service resources for a migrator working on the given database.
+     */
+    private static ServiceResources mockServiceResources(InMemoryDatabase db, TimeService timeService)
+    {
+        CommunicationResponse ack = new CommunicationResponse();
+        ack.setStatus(Status.OK);
+        ack.setContent("OK".getBytes(StandardCharsets.UTF_8));
+
+        CommunicationService com = mock(CommunicationService.class);
+        try
+        {
+            when(com.transfer(any(), anyString(), any(byte[].class))).thenReturn(ack);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        ServiceResources serviceResources = mock(ServiceResources.class);
+        when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(db);
+        when(serviceResources.getService(TimeService.class)).thenReturn(timeService);
+        when(serviceResources.getService(VvRteRepository.class))
+            .thenReturn(new VvRteRepositoryImpl(db, new TaskRepositoryImpl(db), timeService, mock(TaskRegistry.class)));
+        when(serviceResources.getService(RealVehicleRepository.class))
+            .thenReturn(new RealVehicleRepositoryImpl(db, null, timeService));
+        when(serviceResources.getService(VirtualVehicleLauncher.class)).thenReturn(mock(VirtualVehicleLauncher.class));
+        when(serviceResources.getService(JobService.class)).thenReturn(mock(JobService.class));
+        when(serviceResources.getService(CommunicationService.class)).thenReturn(com);
+
+        return serviceResources;
+    }
+}
@@ -0,0 +1,132 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.services.jobs.TimeServiceImpl;
+import cpcc.core.utils.WGS84;
+import cpcc.vvrte.entities.Task;
+import cpcc.vvrte.services.task.AcoTspColony;
+import cpcc.vvrte.services.task.AcoTspSimple;
+import cpcc.vvrte.services.task.HeldKarpTspSolver;
+
+/**
+ * Benchmarks for the TSP solvers used by the task scheduler at increasing task counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TspSolverBenchmark
+{
+    private static final int ACO_ITERATIONS = 3000;
+    private static final int ACO_BOOST = 3;
+
+    @Param({"5", "10", "15", "20"})
+    private int tasks;
+
+    private PolarCoordinate position;
+    private List<Task> path;
+    private double[][] costMatrix;
+    private HeldKarpTspSolver heldKarp;
+    private AcoTspColony colony;
+
+    /**
+     * Place the tasks at reproducible random positions and precompute the cost matrix for the ACO solver.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Random random = new Random(4711L);
+        WGS84 wgs84 = new WGS84();
+
+        position = new PolarCoordinate(47.82203, 13.04082, 20.0);
+        path = new ArrayList<>(tasks);
+
+        for (int k = 0; k < tasks; ++k)
+        {
+            Task task = new Task();
+            task.setPosition(wgs84.walk(position,
+                400.0 * (random.nextDouble() - 0.5), 400.0 * (random.nextDouble() - 0.5), 0.0));
+            path.add(task);
+        }
+
+        int n = tasks + 1;
+        costMatrix = new double[n][n];
+        for (int i = 0; i < n; ++i)
+        {
+            PolarCoordinate a = i == 0 ? position : path.get(i - 1).getPosition();
+            for (int j = 0; j < n; ++j)
+            {
+                PolarCoordinate b = j == 0 ? position : path.get(j - 1).getPosition();
+                costMatrix[i][j] = wgs84.calculateDistance(a, b);
+            }
+        }
+
+        heldKarp = new HeldKarpTspSolver(new TimeServiceImpl());
+        colony = new AcoTspColony();
+    }
+
+    /**
+     * @return the optimal path found by the Held-Karp solver.
+     */
+    @Benchmark
+    public List<Task> heldKarp()
+    {
+        return heldKarp.calculateBestPath(position, new ArrayList<>(path));
+    }
+
+    /**
+     * @return the path found by the ant colony optimization solver.
+     */
+    @Benchmark
+    public List<Integer> acoTspSimple()
+    {
+        return AcoTspSimple.calculateBestPath(costMatrix, ACO_ITERATIONS, ACO_BOOST);
+    }
+
+    /**
+     * @return the tour found by the parallel ant colony solver.
+     */
+    @Benchmark
+    public int[] acoTspColony()
+    {
+        return colony.calculateBestTour(costMatrix);
+    }
+}
@@ -0,0 +1,109 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cpcc.benchmarks.BaselineCompare.Score;
+
+/**
+ * BaselineCompareTest
+ */
+class BaselineCompareTest
+{
+    private static final String RESULT_FORMAT = "["
+        + "{\"benchmark\":\"cpcc.benchmarks.TspSolverBenchmark.heldKarp\",\"mode\":\"avgt\","
+        + "\"params\":{\"tasks\":\"10\"},\"primaryMetric\":{\"score\":%s,\"scoreUnit\":\"ms/op\"}},"
+        + "{\"benchmark\":\"cpcc.benchmarks.GeometryBenchmark.wgs84Walk\",\"mode\":\"thrpt\","
+        + "\"primaryMetric\":{\"score\":%s,\"scoreUnit\":\"ops/us\"}}"
+        + "]";
+
+    @TempDir
+    Path tempDir;
+
+    private File writeResult(String name, String avgt, String thrpt) throws IOException
+    {
+        Path file = tempDir.resolve(name);
+        Files.write(file, String.format(RESULT_FORMAT, avgt, thrpt).getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    @Test
+    void shouldReadScoresKeyedByBenchmarkModeAndParameters() throws IOException
+    {
+        Map<String, Score> scores = BaselineCompare.readScores(writeResult("base.json", "2.0", "50.0"));
+
+        assertThat(scores).containsOnlyKeys(
+            "cpcc.benchmarks.TspSolverBenchmark.heldKarp:avgt{tasks=10}",
+            "cpcc.benchmarks.GeometryBenchmark.wgs84Walk:thrpt");
+        assertThat(scores.get("cpcc.benchmarks.TspSolverBenchmark.heldKarp:avgt{tasks=10}").getValue())
+            .isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldAcceptChangesWithinThreshold() throws IOException
+    {
+        Map<String, Score> base = BaselineCompare.readScores(writeResult("base.json", "2.0", "50.0"));
+        Map<String, Score> current = BaselineCompare.readScores(writeResult("current.json", "2.1", "47.0"));
+
+        List<String> regressions = BaselineCompare.compare(base, current, 10.0, nullStream());
+
+        assertThat(regressions).isEmpty();
+    }
+
+    @Test
+    void shouldDetectSlowerAverageTime() throws IOException
+    {
+        Map<String, Score> base = BaselineCompare.readScores(writeResult("base.json", "2.0", "50.0"));
+        Map<String, Score> current = BaselineCompare.readScores(writeResult("current.json", "2.5", "50.0"));
+
+        List<String> regressions = BaselineCompare.compare(base, current, 10.0, nullStream());
+
+        assertThat(regressions).containsExactly("cpcc.benchmarks.TspSolverBenchmark.heldKarp:avgt{tasks=10}");
+    }
+
+    @Test
+    void shouldDetectLowerThroughput() throws IOException
+    {
+        Map<String, Score> base = BaselineCompare.readScores(writeResult("base.json", "2.0", "50.0"));
+        Map<String, Score> current = BaselineCompare.readScores(writeResult("current.json", "1.0", "40.0"));
+
+        List<String> regressions = BaselineCompare.compare(base, current, 10.0, nullStream());
+
+        assertThat(regressions).containsExactly("cpcc.benchmarks.GeometryBenchmark.wgs84Walk:thrpt");
+    }
+
+    private static PrintStream nullStream()
+    {
+        return new PrintStream(new ByteArrayOutputStream(), true);
+    }
+}
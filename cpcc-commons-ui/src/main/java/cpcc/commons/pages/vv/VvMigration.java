@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
 
 import org.apache.tapestry5.http.services.RequestGlobals;
 import org.apache.tapestry5.util.TextStreamResponse;
 
+import cpcc.com.base.CommunicationConstants;
+import cpcc.com.services.ContentCoding;
 import cpcc.vvrte.services.VirtualVehicleMigrator;
 
 /**
@@ -41,7 +44,13 @@ public class VvMigration
 
     Object onActivate() throws IOException
     {
-        InputStream inputStream = requestGlobals.getHTTPServletRequest().getInputStream();
+        HttpServletRequest request = requestGlobals.getHTTPServletRequest();
+        InputStream inputStream = ContentCoding.decode(
+            request.getHeader(CommunicationConstants.CONTENT_ENCODING), request.getInputStream());
+
+        requestGlobals.getResponse()
+            .setHeader(CommunicationConstants.ACCEPT_ENCODING, CommunicationConstants.ACCEPTED_CODINGS);
+
         migrator.queueChunk(inputStream);
         return new TextStreamResponse("text/plain", "OK");
     }
@@ -0,0 +1,61 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.com.base;
+
+/**
+ * Communication constants.
+ */
+public final class CommunicationConstants
+{
+    public static final String PROP_MAX_CONNECTIONS_PER_ROUTE = "cpcc.com.max.connections.per.route";
+    public static final String PROP_MAX_CONNECTIONS_PER_ROUTE_DEFAULT = "8";
+
+    public static final String PROP_MAX_CONNECTIONS_TOTAL = "cpcc.com.max.connections.total";
+    public static final String PROP_MAX_CONNECTIONS_TOTAL_DEFAULT = "64";
+
+    public static final String PROP_CONNECT_TIMEOUT = "cpcc.com.connect.timeout";
+    public static final String PROP_CONNECT_TIMEOUT_DEFAULT = "5000";
+
+    public static final String PROP_READ_TIMEOUT = "cpcc.com.read.timeout";
+    public static final String PROP_READ_TIMEOUT_DEFAULT = "60000";
+
+    public static final String PROP_IDLE_TIMEOUT = "cpcc.com.idle.timeout";
+    public static final String PROP_IDLE_TIMEOUT_DEFAULT = "30000";
+
+    public static final String PROP_COMPRESSION_MIN_SIZE = "cpcc.com.compression.min.size";
+    public static final String PROP_COMPRESSION_MIN_SIZE_DEFAULT = "1024";
+
+    public static final String PROP_COMPRESSION_FAST_LINK = "cpcc.com.compression.fast.link";
+    public static final String PROP_COMPRESSION_FAST_LINK_DEFAULT = "2097152";
+
+    public static final String PROP_ASYNC_THREADS = "cpcc.com.async.threads";
+    public static final String PROP_ASYNC_THREADS_DEFAULT = "16";
+
+    public static final String PROP_ASYNC_REQUESTS_PER_ROUTE = "cpcc.com.async.requests.per.route";
+    public static final String PROP_ASYNC_REQUESTS_PER_ROUTE_DEFAULT = "4";
+
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String ACCEPTED_CODINGS = "gzip, deflate";
+
+    private CommunicationConstants()
+    {
+        // Intentionally empty.
+    }
+}
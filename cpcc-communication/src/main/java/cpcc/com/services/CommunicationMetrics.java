@@ -0,0 +1,163 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.com.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfer metrics of the communication with one real vehicle.
+ */
+public class CommunicationMetrics
+{
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder asyncRequests = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder poolTimeNanos = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder codingTimeNanos = new LongAdder();
+
+    /**
+     * @param reused true if the request has been sent via a connection taken from the pool.
+     * @param poolTime the time spent acquiring the connection in nanoseconds.
+     */
+    void recordRequest(boolean reused, long poolTime)
+    {
+        requests.increment();
+        poolTimeNanos.add(poolTime);
+
+        if (reused)
+        {
+            reusedConnections.increment();
+        }
+    }
+
+    /**
+     * Record an asynchronous request.
+     */
+    void recordAsyncRequest()
+    {
+        asyncRequests.increment();
+    }
+
+    /**
+     * Record a failed transfer.
+     */
+    void recordFailure()
+    {
+        failures.increment();
+    }
+
+    /**
+     * @param payload the length of the request or response body before encoding or after decoding.
+     * @param wire the length of the body as transferred.
+     * @param cpuTime the CPU time spent encoding or decoding in nanoseconds.
+     */
+    void recordCoding(long payload, long wire, long cpuTime)
+    {
+        payloadBytes.add(payload);
+        wireBytes.add(wire);
+        codingTimeNanos.add(cpuTime);
+    }
+
+    /**
+     * @return the number of requests sent.
+     */
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of asynchronous requests sent. These are not part of the reuse ratio.
+     */
+    public long getAsyncRequests()
+    {
+        return asyncRequests.sum();
+    }
+
+    /**
+     * @return the number of requests sent via a reused connection.
+     */
+    public long getReusedConnections()
+    {
+        return reusedConnections.sum();
+    }
+
+    /**
+     * @return the ratio of requests sent via a reused connection.
+     */
+    public double getReuseRatio()
+    {
+        long total = requests.sum();
+        return total == 0 ? 0.0 : (double) reusedConnections.sum() / total;
+    }
+
+    /**
+     * @return the total time spent acquiring connections from the pool in milliseconds. This includes establishing new
+     *         connections.
+     */
+    public long getPoolTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(poolTimeNanos.sum());
+    }
+
+    /**
+     * @return the number of failed transfers.
+     */
+    public long getFailures()
+    {
+        return failures.sum();
+    }
+
+    /**
+     * @return the number of request and response body bytes before encoding or after decoding.
+     */
+    public long getPayloadBytes()
+    {
+        return payloadBytes.sum();
+    }
+
+    /**
+     * @return the number of request and response body bytes as transferred.
+     */
+    public long getWireBytes()
+    {
+        return wireBytes.sum();
+    }
+
+    /**
+     * @return the ratio of payload bytes to transferred bytes, i.e., 1.0 if nothing has been compressed.
+     */
+    public double getCompressionRatio()
+    {
+        long wire = wireBytes.sum();
+        return wire == 0 ? 1.0 : (double) payloadBytes.sum() / wire;
+    }
+
+    /**
+     * @return the total CPU time spent encoding and decoding bodies in milliseconds.
+     */
+    public long getCodingTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(codingTimeNanos.sum());
+    }
+}
@@ -18,8 +18,11 @@
 
 package cpcc.com.services;
 
-import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.commons.Configuration;
+import org.apache.tapestry5.commons.MappedConfiguration;
+import org.apache.tapestry5.ioc.ServiceBinder;
+
+import cpcc.com.base.CommunicationConstants;
 
 /**
  * CommunicationModule
@@ -49,4 +52,47 @@ public final class CommunicationModule
     {
         configuration.add("cpcc.com.entities");
     }
+
+    /**
+     * @param configuration the application configuration.
+     */
+    public static void contributeApplicationDefaults(MappedConfiguration<String, String> configuration)
+    {
+        configuration.add(
+            CommunicationConstants.PROP_MAX_CONNECTIONS_PER_ROUTE, System.getProperty(
+                CommunicationConstants.PROP_MAX_CONNECTIONS_PER_ROUTE,
+                CommunicationConstants.PROP_MAX_CONNECTIONS_PER_ROUTE_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_MAX_CONNECTIONS_TOTAL, System.getProperty(
+                CommunicationConstants.PROP_MAX_CONNECTIONS_TOTAL,
+                CommunicationConstants.PROP_MAX_CONNECTIONS_TOTAL_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_CONNECT_TIMEOUT, System.getProperty(
+                CommunicationConstants.PROP_CONNECT_TIMEOUT,
+                CommunicationConstants.PROP_CONNECT_TIMEOUT_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_READ_TIMEOUT, System.getProperty(
+                CommunicationConstants.PROP_READ_TIMEOUT,
+                CommunicationConstants.PROP_READ_TIMEOUT_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_IDLE_TIMEOUT, System.getProperty(
+                CommunicationConstants.PROP_IDLE_TIMEOUT,
+                CommunicationConstants.PROP_IDLE_TIMEOUT_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_COMPRESSION_MIN_SIZE, System.getProperty(
+                CommunicationConstants.PROP_COMPRESSION_MIN_SIZE,
+                CommunicationConstants.PROP_COMPRESSION_MIN_SIZE_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_COMPRESSION_FAST_LINK, System.getProperty(
+                CommunicationConstants.PROP_COMPRESSION_FAST_LINK,
+                CommunicationConstants.PROP_COMPRESSION_FAST_LINK_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_ASYNC_THREADS, System.getProperty(
+                CommunicationConstants.PROP_ASYNC_THREADS,
+                CommunicationConstants.PROP_ASYNC_THREADS_DEFAULT));
+        configuration.add(
+            CommunicationConstants.PROP_ASYNC_REQUESTS_PER_ROUTE, System.getProperty(
+                CommunicationConstants.PROP_ASYNC_REQUESTS_PER_ROUTE,
+                CommunicationConstants.PROP_ASYNC_REQUESTS_PER_ROUTE_DEFAULT));
+    }
 }
@@ -19,6 +19,9 @@
 package cpcc.com.services;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import cpcc.core.entities.RealVehicle;
 
@@ -41,4 +44,32 @@ public interface CommunicationService
      * @throws IOException thrown in case of errors.
      */
     CommunicationResponse transfer(RealVehicle realVehicle, String connector, byte[] data) throws IOException;
+
+    /**
+     * Transfer data without blocking the calling thread. Completion stages run on the threads of the communication
+     * service, which clean up their per-thread state after each task.
+     * 
+     * @param realVehicle the real vehicle to communicate with.
+     * @param connector the connector to be used.
+     * @param data the data chunk to be transferred.
+     * @return the future response object, completed exceptionally with an {@code IOException} in case of errors.
+     */
+    CompletableFuture<CommunicationResponse> transferAsync(RealVehicle realVehicle, String connector, byte[] data);
+
+    /**
+     * Transfer data of unknown length without blocking the calling thread. The request body is read from the stream
+     * while it is being sent, so the data never has to be held in memory as a whole.
+     * 
+     * @param realVehicle the real vehicle to communicate with.
+     * @param connector the connector to be used.
+     * @param data the stream providing the data to be transferred. The stream is closed after the transfer.
+     * @return the future response object, completed exceptionally with an {@code IOException} in case of errors.
+     */
+    CompletableFuture<CommunicationResponse> transferAsync(RealVehicle realVehicle, String connector,
+        InputStream data);
+
+    /**
+     * @return the transfer metrics per real vehicle name.
+     */
+    Map<String, CommunicationMetrics> getMetrics();
 }
@@ -18,36 +18,179 @@
 
 package cpcc.com.services;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.EntityBuilder;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import cpcc.com.base.CommunicationConstants;
 import cpcc.com.services.CommunicationResponse.Status;
 import cpcc.core.entities.RealVehicle;
+import cpcc.core.services.jobs.JobQueueThreadFactory;
 
 /**
  * Communication Service implementation.
+ * <p>
+ * All transfers share one pool of keep-alive connections, so that consecutive requests to the same real vehicle reuse
+ * an established connection instead of opening a new one each time.
+ * <p>
+ * Asynchronous transfers run on the same pooled client, executed by a bounded number of threads. Hence, they obey
+ * the same connection limits, idle eviction, read timeout and metrics as synchronous transfers. As the pooled client
+ * blocks a thread for the whole exchange, each real vehicle may occupy only a few of these threads at a time. Further
+ * asynchronous requests to the same real vehicle wait in a queue of their own without holding a thread, so that one
+ * slow real vehicle can not starve the transfers to all others.
+ * <p>
+ * Request bodies are compressed once the receiving end point has announced the codings it accepts in the
+ * {@code Accept-Encoding} header of a response (RFC 7694). The coding depends on the link: narrow links get
+ * {@code gzip}, links faster than the configured threshold get the cheaper {@code deflate}. Connectors whose payloads
+ * hardly compress are sent uncompressed, apart from an occasional probe. Response bodies are decoded according to
+ * their {@code Content-Encoding} header.
  */
 public class CommunicationServiceImpl implements CommunicationService
 {
-    private Map<String, String> connectorMap = new HashMap<>();
+    private static final Logger LOG = LoggerFactory.getLogger(CommunicationServiceImpl.class);
+
+    private static final String CONNECTION_REUSED = "cpcc.com.connection.reused";
+    private static final String CONNECTION_ACQUIRED = "cpcc.com.connection.acquired";
+
+    private static final Set<ContentCoding> IDENTITY_ONLY = Collections.singleton(ContentCoding.IDENTITY);
+    private static final double MIN_COMPRESSION_RATIO = 1.1;
+    private static final int PROBE_INTERVAL = 16;
+    private static final double SMOOTHING = 0.25;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private Map<String, String> connectorMap = new ConcurrentHashMap<>();
+    private Map<String, CommunicationMetrics> metrics = new ConcurrentHashMap<>();
+    private Map<String, Link> links = new ConcurrentHashMap<>();
+    private Map<String, Payload> payloads = new ConcurrentHashMap<>();
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private ExecutorService asyncExecutor;
+    private Executor cleaningExecutor;
+    private int compressionMinSize;
+    private long fastLinkThroughput;
+    private int asyncRequestsPerRoute;
 
     /**
-     * CommunicationServiceImpl
+     * @param shutdownHub the registry shutdown hub.
+     * @param perthreadManager the per-thread manager.
+     * @param maxConnectionsPerRoute the maximum number of pooled connections per real vehicle.
+     * @param maxConnectionsTotal the maximum number of pooled connections.
+     * @param connectTimeout the connect timeout in milliseconds.
+     * @param readTimeout the read timeout in milliseconds.
+     * @param idleTimeout the time in milliseconds after which idle connections are closed.
+     * @param compressionMinSize the minimum length of a request body in bytes to be compressed.
+     * @param fastLinkThroughput the throughput in bytes per second above which a link counts as fast.
+     * @param asyncThreads the number of threads executing asynchronous transfers.
+     * @param asyncRequestsPerRoute the maximum number of asynchronous transfers to one real vehicle executed at a
+     *            time.
      */
-    public CommunicationServiceImpl()
+    public CommunicationServiceImpl(RegistryShutdownHub shutdownHub, PerthreadManager perthreadManager,
+        @Symbol(CommunicationConstants.PROP_MAX_CONNECTIONS_PER_ROUTE) int maxConnectionsPerRoute,
+        @Symbol(CommunicationConstants.PROP_MAX_CONNECTIONS_TOTAL) int maxConnectionsTotal,
+        @Symbol(CommunicationConstants.PROP_CONNECT_TIMEOUT) int connectTimeout,
+        @Symbol(CommunicationConstants.PROP_READ_TIMEOUT) int readTimeout,
+        @Symbol(CommunicationConstants.PROP_IDLE_TIMEOUT) long idleTimeout,
+        @Symbol(CommunicationConstants.PROP_COMPRESSION_MIN_SIZE) int compressionMinSize,
+        @Symbol(CommunicationConstants.PROP_COMPRESSION_FAST_LINK) long fastLinkThroughput,
+        @Symbol(CommunicationConstants.PROP_ASYNC_THREADS) int asyncThreads,
+        @Symbol(CommunicationConstants.PROP_ASYNC_REQUESTS_PER_ROUTE) int asyncRequestsPerRoute)
     {
-        // Intentionally empty.
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setValidateAfterInactivity(1000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeout)
+            .setConnectionRequestTimeout(connectTimeout)
+            .setSocketTimeout(readTimeout)
+            .build();
+
+        httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setRequestExecutor(new MeteringRequestExecutor())
+            .disableContentCompression()
+            .evictExpiredConnections()
+            .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+            .build();
+
+        this.compressionMinSize = compressionMinSize;
+        this.fastLinkThroughput = fastLinkThroughput;
+        this.asyncRequestsPerRoute = Math.max(1, asyncRequestsPerRoute);
+
+        asyncExecutor = Executors.newFixedThreadPool(asyncThreads, new JobQueueThreadFactory("Communication"));
+        cleaningExecutor = task -> asyncExecutor.execute(() -> {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                perthreadManager.cleanup();
+            }
+        });
+
+        shutdownHub.addRegistryShutdownListener(this::shutdown);
+    }
+
+    /**
+     * Close all pooled connections.
+     */
+    void shutdown()
+    {
+        asyncExecutor.shutdown();
+
+        try
+        {
+            httpClient.close();
+        }
+        catch (IOException e)
+        {
+            LOG.error("Can not close HTTP client.", e);
+        }
     }
 
     /**
@@ -56,12 +199,10 @@ public class CommunicationServiceImpl implements CommunicationService
     @Override
     public void addConnector(String connector, String path)
     {
-        if (connectorMap.containsKey(connector))
+        if (connectorMap.putIfAbsent(connector, path) != null)
         {
             throw new IllegalStateException("Connector " + connector + " is already registered!");
         }
-
-        connectorMap.put(connector, path);
     }
 
     /**
@@ -71,27 +212,570 @@ public class CommunicationServiceImpl implements CommunicationService
     public CommunicationResponse transfer(RealVehicle realVehicle, String connector, byte[] data)
         throws IOException
     {
+        CommunicationMetrics rvMetrics = findMetrics(realVehicle);
+        ContentCoding coding = selectCoding(findLink(realVehicle), connector, data.length);
+        byte[] body = encode(coding, connector, data, rvMetrics);
+
+        return execute(realVehicle, connector, coding, EntityBuilder.create().setBinary(body), () -> body.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommunicationResponse> transferAsync(RealVehicle realVehicle, String connector,
+        byte[] data)
+    {
+        findMetrics(realVehicle).recordAsyncRequest();
+
+        return submit(findLink(realVehicle), () -> {
+            try
+            {
+                return transfer(realVehicle, connector, data);
+            }
+            catch (IOException e)
+            {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CommunicationResponse> transferAsync(RealVehicle realVehicle, String connector,
+        InputStream data)
+    {
+        findMetrics(realVehicle).recordAsyncRequest();
+
+        ContentCoding coding = selectCoding(findLink(realVehicle), connector, -1L);
+        MeteredStream payload = new MeteredStream(data, false);
+        MeteredStream wire = new MeteredStream(coding.encode(payload), coding != ContentCoding.IDENTITY);
+
+        return submit(findLink(realVehicle), () -> {
+            try
+            {
+                return execute(realVehicle, connector, coding, EntityBuilder.create().setStream(wire),
+                    wire::getBytes);
+            }
+            catch (IOException e)
+            {
+                throw new CompletionException(e);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(wire);
+                findMetrics(realVehicle).recordCoding(payload.getBytes(), wire.getBytes(), wire.getCpuTime());
+
+                if (coding != ContentCoding.IDENTITY)
+                {
+                    findPayload(connector).recordRatio(payload.getBytes(), wire.getBytes());
+                }
+            }
+        });
+    }
+
+    /**
+     * Execute an asynchronous transfer as soon as the real vehicle has fewer than the permitted number of
+     * asynchronous transfers in progress.
+     *
+     * @param link the link to the real vehicle.
+     * @param transfer the transfer.
+     * @return the future response.
+     */
+    private CompletableFuture<CommunicationResponse> submit(Link link, Supplier<CommunicationResponse> transfer)
+    {
+        CompletableFuture<CommunicationResponse> future = new CompletableFuture<>();
+
+        Runnable task = () -> {
+            try
+            {
+                future.complete(transfer.get());
+            }
+            catch (CompletionException e)
+            {
+                future.completeExceptionally(e);
+            }
+            catch (RuntimeException e)
+            {
+                future.completeExceptionally(new CompletionException(e));
+            }
+        };
+
+        if (link.enqueue(task, asyncRequestsPerRoute))
+        {
+            dispatch(link, task);
+        }
+
+        return future;
+    }
+
+    /**
+     * @param link the link to the real vehicle.
+     * @param task the transfer task to be executed.
+     */
+    private void dispatch(Link link, Runnable task)
+    {
+        cleaningExecutor.execute(() -> {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                Runnable next = link.dequeue();
+
+                if (next != null)
+                {
+                    dispatch(link, next);
+                }
+            }
+        });
+    }
+
+    /**
+     * Execute a request on the pooled HTTP client. Stream bodies are sent chunked.
+     *
+     * @param realVehicle the real vehicle to communicate with.
+     * @param connector the connector to be used.
+     * @param coding the coding of the request body.
+     * @param entityBuilder the builder holding the request body.
+     * @param bodyLength the supplier of the length of the request body after it has been sent.
+     * @return the response object.
+     * @throws IOException in case of errors.
+     */
+    private CommunicationResponse execute(RealVehicle realVehicle, String connector, ContentCoding coding,
+        EntityBuilder entityBuilder, LongSupplier bodyLength) throws IOException
+    {
+        CommunicationMetrics rvMetrics = findMetrics(realVehicle);
+        Link link = findLink(realVehicle);
+
         HttpPost request = new HttpPost(realVehicle.getUrl() + connectorMap.get(connector));
+        request.setHeader(CommunicationConstants.ACCEPT_ENCODING, CommunicationConstants.ACCEPTED_CODINGS);
+
+        if (coding != ContentCoding.IDENTITY)
+        {
+            entityBuilder.setContentEncoding(coding.getName());
+        }
 
-        HttpEntity entity = EntityBuilder.create().setBinary(data).build();
-        request.setEntity(entity);
+        request.setEntity(entityBuilder.build());
 
-        try (CloseableHttpClient httpclient = HttpClients.createDefault();
-            CloseableHttpResponse response = httpclient.execute(request))
+        HttpClientContext context = HttpClientContext.create();
+        long start = System.nanoTime();
+
+        try (CloseableHttpResponse response = httpClient.execute(request, context))
         {
+            Long acquired = context.getAttribute(CONNECTION_ACQUIRED, Long.class);
+            rvMetrics.recordRequest(Boolean.TRUE.equals(context.getAttribute(CONNECTION_REUSED, Boolean.class)),
+                acquired != null ? acquired - start : 0L);
+
             HttpEntity responseEntity = response.getEntity();
             InputStream ins = responseEntity.getContent();
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             IOUtils.copy(ins, baos);
-            byte[] content = baos.toByteArray();
+            byte[] wire = baos.toByteArray();
+
+            recordTransfer(link, bodyLength.getAsLong() + wire.length, System.nanoTime() - start);
+            link.setAccepted(connector, headerValue(response.getFirstHeader(CommunicationConstants.ACCEPT_ENCODING)));
+
+            byte[] content = decode(headerValue(response.getFirstHeader(CommunicationConstants.CONTENT_ENCODING)),
+                wire, rvMetrics);
 
             boolean ok = response.getStatusLine().getStatusCode() == 200;
 
+            if (!ok)
+            {
+                rvMetrics.recordFailure();
+            }
+
             CommunicationResponse r = new CommunicationResponse();
             r.setStatus(ok ? Status.OK : Status.NOT_OK);
             r.setContent(content);
             return r;
         }
+        catch (IOException e)
+        {
+            rvMetrics.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * @param link the link to the receiving real vehicle.
+     * @param connector the connector to be used.
+     * @param length the length of the request body, or a negative value if unknown.
+     * @return the coding to be applied to the request body.
+     */
+    private ContentCoding selectCoding(Link link, String connector, long length)
+    {
+        if (length >= 0 && length < compressionMinSize)
+        {
+            return ContentCoding.IDENTITY;
+        }
+
+        Set<ContentCoding> accepted = link.getAccepted(connector);
+
+        if (accepted.size() < 2 || !findPayload(connector).isCompressible())
+        {
+            return ContentCoding.IDENTITY;
+        }
+
+        ContentCoding preferred = link.getThroughput() >= fastLinkThroughput
+            ? ContentCoding.DEFLATE
+            : ContentCoding.GZIP;
+
+        if (accepted.contains(preferred))
+        {
+            return preferred;
+        }
+
+        return preferred == ContentCoding.GZIP ? ContentCoding.DEFLATE : ContentCoding.GZIP;
+    }
+
+    /**
+     * @param coding the coding to be applied.
+     * @param connector the connector to be used.
+     * @param data the request body.
+     * @param rvMetrics the metrics of the communication with the receiving real vehicle.
+     * @return the encoded request body.
+     * @throws IOException thrown in case of errors.
+     */
+    private byte[] encode(ContentCoding coding, String connector, byte[] data, CommunicationMetrics rvMetrics)
+        throws IOException
+    {
+        if (coding == ContentCoding.IDENTITY)
+        {
+            rvMetrics.recordCoding(data.length, data.length, 0L);
+            return data;
+        }
+
+        long cpuTime = cpuTime();
+        byte[] body;
+
+        try (InputStream in = coding.encode(new ByteArrayInputStream(data)))
+        {
+            body = IOUtils.toByteArray(in);
+        }
+
+        rvMetrics.recordCoding(data.length, body.length, cpuTime() - cpuTime);
+        findPayload(connector).recordRatio(data.length, body.length);
+        return body;
+    }
+
+    /**
+     * @param contentEncoding the value of the {@code Content-Encoding} header of the response, or null.
+     * @param wire the response body as received.
+     * @param rvMetrics the metrics of the communication with the sending real vehicle.
+     * @return the decoded response body.
+     * @throws IOException thrown in case of errors.
+     */
+    private static byte[] decode(String contentEncoding, byte[] wire, CommunicationMetrics rvMetrics)
+        throws IOException
+    {
+        if (ContentCoding.forName(contentEncoding) == ContentCoding.IDENTITY)
+        {
+            rvMetrics.recordCoding(wire.length, wire.length, 0L);
+            return wire;
+        }
+
+        long cpuTime = cpuTime();
+        byte[] content;
+
+        try (InputStream in = ContentCoding.decode(contentEncoding, new ByteArrayInputStream(wire)))
+        {
+            content = IOUtils.toByteArray(in);
+        }
+
+        rvMetrics.recordCoding(content.length, wire.length, cpuTime() - cpuTime);
+        return content;
     }
 
+    /**
+     * @param link the link to the real vehicle.
+     * @param length the number of bytes sent and received.
+     * @param nanos the duration of the exchange in nanoseconds.
+     */
+    private void recordTransfer(Link link, long length, long nanos)
+    {
+        // Short exchanges tell more about the latency than about the throughput of a link.
+        if (length >= compressionMinSize && nanos > 0)
+        {
+            link.recordTransfer(length, nanos);
+        }
+    }
+
+    /**
+     * @param header the header or null.
+     * @return the value of the header or null.
+     */
+    private static String headerValue(Header header)
+    {
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds, or the wall clock time if the JVM does not measure
+     *         CPU time.
+     */
+    private static long cpuTime()
+    {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()
+            ? THREADS.getCurrentThreadCpuTime()
+            : System.nanoTime();
+    }
+
+    /**
+     * @param realVehicle the real vehicle.
+     * @return the metrics of the communication with the real vehicle.
+     */
+    private CommunicationMetrics findMetrics(RealVehicle realVehicle)
+    {
+        return metrics.computeIfAbsent(nameOf(realVehicle), k -> new CommunicationMetrics());
+    }
+
+    /**
+     * @param realVehicle the real vehicle.
+     * @return the state of the link to the real vehicle.
+     */
+    private Link findLink(RealVehicle realVehicle)
+    {
+        return links.computeIfAbsent(nameOf(realVehicle), k -> new Link());
+    }
+
+    /**
+     * @param connector the connector.
+     * @return the compression statistics of the payloads sent via the connector.
+     */
+    private Payload findPayload(String connector)
+    {
+        return payloads.computeIfAbsent(connector, k -> new Payload());
+    }
+
+    /**
+     * @param realVehicle the real vehicle.
+     * @return the name of the real vehicle, or its URL if it has no name.
+     */
+    private static String nameOf(RealVehicle realVehicle)
+    {
+        return realVehicle.getName() != null ? realVehicle.getName() : realVehicle.getUrl();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, CommunicationMetrics> getMetrics()
+    {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * This request executor records whether the connection has been reused and when it has been acquired from the
+     * pool.
+     */
+    private static class MeteringRequestExecutor extends HttpRequestExecutor
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException
+        {
+            context.setAttribute(CONNECTION_ACQUIRED, System.nanoTime());
+            context.setAttribute(CONNECTION_REUSED, conn.getMetrics().getRequestCount() > 0);
+            return super.execute(request, conn, context);
+        }
+    }
+
+    /**
+     * The state of the link to one real vehicle, i.e., the codings its connectors accept, the estimated throughput and
+     * the asynchronous transfers in progress.
+     */
+    private static class Link
+    {
+        private final Map<String, Set<ContentCoding>> accepted = new ConcurrentHashMap<>();
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private double throughput = Double.NaN;
+        private int inProgress;
+
+        /**
+         * @param task the asynchronous transfer.
+         * @param limit the maximum number of asynchronous transfers in progress.
+         * @return true if the transfer may be executed now, false if it has been queued.
+         */
+        synchronized boolean enqueue(Runnable task, int limit)
+        {
+            if (inProgress < limit)
+            {
+                ++inProgress;
+                return true;
+            }
+
+            waiting.add(task);
+            return false;
+        }
+
+        /**
+         * Finish an asynchronous transfer.
+         *
+         * @return the queued transfer to be executed next, or null if there is none.
+         */
+        synchronized Runnable dequeue()
+        {
+            Runnable next = waiting.poll();
+
+            if (next == null)
+            {
+                --inProgress;
+            }
+
+            return next;
+        }
+
+        /**
+         * @param connector the connector.
+         * @return the codings the connector accepts for request bodies.
+         */
+        Set<ContentCoding> getAccepted(String connector)
+        {
+            return accepted.getOrDefault(connector, IDENTITY_ONLY);
+        }
+
+        /**
+         * @param connector the connector.
+         * @param acceptEncoding the value of the {@code Accept-Encoding} header of the latest response, or null.
+         */
+        void setAccepted(String connector, String acceptEncoding)
+        {
+            accepted.put(connector, ContentCoding.parseAccepted(acceptEncoding));
+        }
+
+        /**
+         * @return the estimated throughput in bytes per second, or {@code NaN} if unknown.
+         */
+        synchronized double getThroughput()
+        {
+            return throughput;
+        }
+
+        /**
+         * @param length the number of bytes sent and received.
+         * @param nanos the duration of the exchange in nanoseconds.
+         */
+        synchronized void recordTransfer(long length, long nanos)
+        {
+            double sample = length * 1.0E9 / nanos;
+            throughput = Double.isNaN(throughput) ? sample : throughput + SMOOTHING * (sample - throughput);
+        }
+    }
+
+    /**
+     * The compression statistics of the payloads sent via one connector.
+     */
+    private static class Payload
+    {
+        private double ratio = Double.NaN;
+        private int skipped;
+
+        /**
+         * @return true if the next payload should be compressed.
+         */
+        synchronized boolean isCompressible()
+        {
+            if (Double.isNaN(ratio) || ratio >= MIN_COMPRESSION_RATIO || ++skipped >= PROBE_INTERVAL)
+            {
+                skipped = 0;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * @param payload the length of the payload.
+         * @param wire the length of the compressed payload.
+         */
+        synchronized void recordRatio(long payload, long wire)
+        {
+            double sample = wire == 0 ? 1.0 : (double) payload / wire;
+            ratio = Double.isNaN(ratio) ? sample : ratio + SMOOTHING * (sample - ratio);
+        }
+    }
+
+    /**
+     * This stream counts the bytes read and, optionally, the CPU time spent reading them. Only the thread sending the
+     * request body reads from it.
+     */
+    private static class MeteredStream extends FilterInputStream
+    {
+        private final boolean measureCpuTime;
+        private volatile long bytes;
+        private volatile long cpuTimeNanos;
+
+        /**
+         * @param in the stream to be metered.
+         * @param measureCpuTime true if the CPU time spent reading should be measured.
+         */
+        MeteredStream(InputStream in, boolean measureCpuTime)
+        {
+            super(in);
+            this.measureCpuTime = measureCpuTime;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() throws IOException
+        {
+            long start = measureCpuTime ? cpuTime() : 0L;
+            int b = super.read();
+            count(b < 0 ? 0 : 1, start);
+            return b;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            long start = measureCpuTime ? cpuTime() : 0L;
+            int n = super.read(b, off, len);
+            count(Math.max(n, 0), start);
+            return n;
+        }
+
+        /**
+         * @param n the number of bytes read.
+         * @param start the CPU time before reading.
+         */
+        private void count(int n, long start)
+        {
+            bytes += n;
+
+            if (measureCpuTime)
+            {
+                cpuTimeNanos += cpuTime() - start;
+            }
+        }
+
+        /**
+         * @return the number of bytes read.
+         */
+        long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return the CPU time spent reading in nanoseconds.
+         */
+        long getCpuTime()
+        {
+            return cpuTimeNanos;
+        }
+    }
 }
@@ -0,0 +1,340 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.com.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The HTTP content codings supported for transfers between real vehicles.
+ * <p>
+ * {@code GZIP} compresses at the default level and suits narrow links, where every byte saved shortens the transfer.
+ * {@code DEFLATE} compresses at the fastest level and suits links that are fast compared to the CPU.
+ * <p>
+ * Both codings run the same deflate algorithm and differ in the compression level and in the framing only. Hence,
+ * {@code DEFLATE} is a stopgap for fast links. It saves some CPU time compared to {@code GZIP}, but it is still
+ * several times slower than codecs designed for speed, such as LZ4 or Zstandard at low levels. Such a codec needs an
+ * additional library on all real vehicles and would be added here as a coding of its own, so that peers lacking it
+ * keep negotiating one of the codings above.
+ */
+public enum ContentCoding
+{
+    IDENTITY("identity")
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream encode(InputStream in)
+        {
+            return in;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream decode(InputStream in)
+        {
+            return in;
+        }
+    },
+
+    GZIP("gzip")
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream encode(InputStream in)
+        {
+            return new GzipEncoder(in, Deflater.DEFAULT_COMPRESSION);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream decode(InputStream in) throws IOException
+        {
+            return new GZIPInputStream(in);
+        }
+    },
+
+    DEFLATE("deflate")
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream encode(InputStream in)
+        {
+            return new Deflating(in, new Deflater(Deflater.BEST_SPEED));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream decode(InputStream in)
+        {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("\\s*,\\s*");
+    private static final Pattern ZERO_QUALITY = Pattern.compile(".*;\\s*q\\s*=\\s*0(\\.0*)?\\s*$");
+
+    private final String name;
+
+    /**
+     * @param name the name of the coding as used in HTTP headers.
+     */
+    ContentCoding(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the coding as used in HTTP headers.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @param in the stream providing the data to be encoded.
+     * @return the stream providing the encoded data. Closing it closes the original stream.
+     */
+    public abstract InputStream encode(InputStream in);
+
+    /**
+     * @param in the stream providing the encoded data.
+     * @return the stream providing the decoded data. Closing it closes the original stream.
+     * @throws IOException thrown in case of errors.
+     */
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * @param name the name of the coding as used in HTTP headers, or null.
+     * @return the coding, {@code IDENTITY} if the name is null or blank, or null if the coding is not supported.
+     */
+    public static ContentCoding forName(String name)
+    {
+        if (name == null || name.isBlank())
+        {
+            return IDENTITY;
+        }
+
+        String n = name.trim().toLowerCase(Locale.ENGLISH);
+
+        for (ContentCoding coding : values())
+        {
+            if (coding.name.equals(n))
+            {
+                return coding;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param acceptEncoding the value of an {@code Accept-Encoding} header, or null.
+     * @return the supported codings the header accepts. {@code IDENTITY} is always accepted.
+     */
+    public static Set<ContentCoding> parseAccepted(String acceptEncoding)
+    {
+        Set<ContentCoding> accepted = EnumSet.of(IDENTITY);
+
+        if (acceptEncoding == null)
+        {
+            return accepted;
+        }
+
+        for (String entry : LIST_SEPARATOR.split(acceptEncoding.trim()))
+        {
+            int semicolon = entry.indexOf(';');
+            ContentCoding coding = forName(semicolon < 0 ? entry : entry.substring(0, semicolon));
+
+            if (coding != null && !ZERO_QUALITY.matcher(entry).matches())
+            {
+                accepted.add(coding);
+            }
+        }
+
+        return accepted;
+    }
+
+    /**
+     * @param contentEncoding the value of a {@code Content-Encoding} header, or null.
+     * @param in the stream providing the encoded data.
+     * @return the stream providing the decoded data.
+     * @throws IOException thrown if the coding is not supported or in case of other errors.
+     */
+    public static InputStream decode(String contentEncoding, InputStream in) throws IOException
+    {
+        ContentCoding coding = forName(contentEncoding);
+
+        if (coding == null)
+        {
+            throw new IOException("Unsupported content encoding: " + contentEncoding);
+        }
+
+        return coding.decode(in);
+    }
+
+    /**
+     * A deflating stream that releases the native resources of its deflater when closed.
+     */
+    private static class Deflating extends DeflaterInputStream
+    {
+        private long bytesRead = -1L;
+
+        /**
+         * @param in the stream providing the data to be compressed.
+         * @param deflater the deflater.
+         */
+        Deflating(InputStream in, Deflater deflater)
+        {
+            super(in, deflater);
+        }
+
+        /**
+         * @return the number of uncompressed bytes read so far. The number is kept after closing the stream.
+         */
+        long getBytesRead()
+        {
+            return bytesRead >= 0 ? bytesRead : def.getBytesRead();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if (bytesRead >= 0)
+            {
+                return;
+            }
+
+            bytesRead = def.getBytesRead();
+
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                def.end();
+            }
+        }
+    }
+
+    /**
+     * A stream producing the GZIP format (RFC 1952) from uncompressed data, i.e., a header, the deflated data, and a
+     * trailer holding the checksum and the length of the uncompressed data.
+     */
+    private static class GzipEncoder extends SequenceInputStream
+    {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        /**
+         * @param in the stream providing the data to be compressed.
+         * @param level the compression level.
+         */
+        GzipEncoder(InputStream in, int level)
+        {
+            super(parts(in, level));
+        }
+
+        /**
+         * @param in the stream providing the data to be compressed.
+         * @param level the compression level.
+         * @return the header, the deflated data, and the trailer. The trailer is created after the deflated data has
+         *         been read, because only then the checksum is known.
+         */
+        private static Enumeration<InputStream> parts(InputStream in, int level)
+        {
+            CRC32 crc = new CRC32();
+            Deflating body = new Deflating(new CheckedInputStream(in, crc), new Deflater(level, true));
+
+            return new Enumeration<InputStream>()
+            {
+                private int part;
+
+                @Override
+                public boolean hasMoreElements()
+                {
+                    return part < 3;
+                }
+
+                @Override
+                public InputStream nextElement()
+                {
+                    switch (part++)
+                    {
+                        case 0:
+                            return new ByteArrayInputStream(HEADER);
+                        case 1:
+                            return body;
+                        case 2:
+                            return new ByteArrayInputStream(trailer(crc.getValue(), body.getBytesRead()));
+                        default:
+                            throw new NoSuchElementException();
+                    }
+                }
+            };
+        }
+
+        /**
+         * @param crc the CRC-32 of the uncompressed data.
+         * @param length the length of the uncompressed data.
+         * @return the GZIP trailer.
+         */
+        private static byte[] trailer(long crc, long length)
+        {
+            byte[] trailer = new byte[8];
+
+            for (int k = 0; k < 4; ++k)
+            {
+                trailer[k] = (byte) (crc >> (8 * k));
+                trailer[4 + k] = (byte) (length >> (8 * k));
+            }
+
+            return trailer;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 package cpcc.com.services;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -26,10 +28,13 @@ import static org.mockito.Mockito.when;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 
+import org.apache.tapestry5.commons.MappedConfiguration;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.ServiceBindingOptions;
 import org.junit.jupiter.api.Test;
 
+import cpcc.com.base.CommunicationConstants;
+
 /**
  * CommunicationModuleTest
  */
@@ -58,6 +63,25 @@ class CommunicationModuleTest
         verify(binder).bind(CommunicationService.class, CommunicationServiceImpl.class);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldContributeApplicationDefaults()
+    {
+        MappedConfiguration<String, String> configuration = mock(MappedConfiguration.class);
+
+        CommunicationModule.contributeApplicationDefaults(configuration);
+
+        verify(configuration).add(eq(CommunicationConstants.PROP_MAX_CONNECTIONS_PER_ROUTE), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_MAX_CONNECTIONS_TOTAL), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_CONNECT_TIMEOUT), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_READ_TIMEOUT), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_IDLE_TIMEOUT), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_COMPRESSION_MIN_SIZE), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_COMPRESSION_FAST_LINK), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_ASYNC_THREADS), anyString());
+        verify(configuration).add(eq(CommunicationConstants.PROP_ASYNC_REQUESTS_PER_ROUTE), anyString());
+    }
+
     //    @Test
     //    void shouldContributeToHibernateEntityPackageManager()
     //    {
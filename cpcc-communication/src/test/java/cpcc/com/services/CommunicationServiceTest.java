@@ -23,12 +23,24 @@ import static com.googlecode.catchexception.CatchException.caughtException;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -47,15 +59,19 @@ import org.apache.http.localserver.LocalServerTestBase;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import cpcc.com.base.CommunicationConstants;
 import cpcc.com.services.CommunicationResponse.Status;
 import cpcc.core.entities.RealVehicle;
 
@@ -71,13 +87,21 @@ class CommunicationServiceTest
     private BasicHttpEntityEnclosingRequest request;
     private byte[] content;
     private boolean throwHttpException;
+    private String acceptEncoding;
+    private ContentCoding responseCoding;
     private CommunicationServiceImpl com;
+    private RegistryShutdownHub shutdownHub;
+    private PerthreadManager perthreadManager;
+    private CountDownLatch slowRealVehicle;
 
     @BeforeEach
     void setUp() throws Exception
     {
         content = null;
         throwHttpException = false;
+        acceptEncoding = null;
+        responseCoding = ContentCoding.IDENTITY;
+        slowRealVehicle = new CountDownLatch(1);
 
         handler = mock(HttpRequestHandler.class);
 
@@ -94,6 +118,11 @@ class CommunicationServiceTest
                 IOUtils.copy(request.getEntity().getContent(), baos);
                 content = baos.toByteArray();
 
+                if (request.getRequestLine().getUri().startsWith("/slow"))
+                {
+                    slowRealVehicle.await(30, TimeUnit.SECONDS);
+                }
+
                 if (throwHttpException)
                 {
                     throw new HttpException("HttpException thrown on purpose!");
@@ -107,10 +136,21 @@ class CommunicationServiceTest
 
                 HttpEntity entity = EntityBuilder.create()
                     .setContentType(ContentType.TEXT_PLAIN)
-                    .setText(REASON_PHRASE)
+                    .setStream(responseCoding.encode(new ByteArrayInputStream(REASON_PHRASE.getBytes())))
                     .build();
 
                 response.setEntity(entity);
+
+                if (responseCoding != ContentCoding.IDENTITY)
+                {
+                    response.setHeader(CommunicationConstants.CONTENT_ENCODING, responseCoding.getName());
+                }
+
+                if (acceptEncoding != null)
+                {
+                    response.setHeader(CommunicationConstants.ACCEPT_ENCODING, acceptEncoding);
+                }
+
                 return null;
             }
         }).when(handler).handle(any(HttpRequest.class), any(HttpResponse.class), any(HttpContext.class));
@@ -125,14 +165,22 @@ class CommunicationServiceTest
         String serverUrl = "http://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
 
         realVehicle = mock(RealVehicle.class);
+        when(realVehicle.getName()).thenReturn("rv001");
         when(realVehicle.getUrl()).thenReturn(serverUrl + "/rv001");
 
-        com = new CommunicationServiceImpl();
+        shutdownHub = mock(RegistryShutdownHub.class);
+
+        perthreadManager = mock(PerthreadManager.class);
+
+        com = new CommunicationServiceImpl(shutdownHub, perthreadManager, 2, 10, 5000, 10000, 30000L, 1024, 2097152L,
+            4, 2);
     }
 
     @AfterEach
     void tearDown() throws Exception
     {
+        slowRealVehicle.countDown();
+        com.shutdown();
         server.stop();
         server.awaitTermination(30, TimeUnit.SECONDS);
     }
@@ -184,4 +232,256 @@ class CommunicationServiceTest
 
         assertThat((Throwable) caughtException()).isInstanceOf(IllegalStateException.class);
     }
+
+    @Test
+    void shouldRegisterShutdownListener()
+    {
+        verify(shutdownHub).addRegistryShutdownListener(any(Runnable.class));
+    }
+
+    @Test
+    void shouldReusePooledConnections() throws IOException
+    {
+        for (int k = 0; k < 3; ++k)
+        {
+            CommunicationResponse response = com.transfer(realVehicle, MIGRATE, new byte[]{1, 2, 3});
+            assertThat(response.getStatus()).isEqualTo(Status.OK);
+        }
+
+        CommunicationMetrics metrics = com.getMetrics().get("rv001");
+
+        assertThat(metrics).isNotNull();
+        assertThat(metrics.getRequests()).isEqualTo(3L);
+        assertThat(metrics.getReusedConnections()).isEqualTo(2L);
+        assertThat(metrics.getReuseRatio()).isEqualTo(2.0 / 3.0);
+        assertThat(metrics.getFailures()).isZero();
+        assertThat(metrics.getPoolTime()).isNotNegative();
+    }
+
+    @Test
+    void shouldCountFailedTransfers() throws IOException
+    {
+        throwHttpException = true;
+
+        com.transfer(realVehicle, MIGRATE, new byte[]{1, 2, 3});
+
+        CommunicationMetrics metrics = com.getMetrics().get("rv001");
+
+        assertThat(metrics.getRequests()).isEqualTo(1L);
+        assertThat(metrics.getFailures()).isEqualTo(1L);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteArrayDataProvider")
+    void shouldTransferDataChunkAsynchronously(byte[] data)
+    {
+        CommunicationResponse response = com.transferAsync(realVehicle, MIGRATE, data).join();
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isNotNull().isEqualTo(Status.OK);
+        assertThat(response.getContent()).isNotNull().isEqualTo(REASON_PHRASE.getBytes());
+        assertThat(content).isEqualTo(data);
+
+        assertThat(com.getMetrics().get("rv001").getAsyncRequests()).isEqualTo(1L);
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteArrayDataProvider")
+    void shouldStreamDataChunkAsynchronously(byte[] data) throws IOException
+    {
+        InputStream stream = spy(new ByteArrayInputStream(data));
+
+        CommunicationResponse response = com.transferAsync(realVehicle, MIGRATE, stream).join();
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isNotNull().isEqualTo(Status.OK);
+        assertThat(response.getContent()).isNotNull().isEqualTo(REASON_PHRASE.getBytes());
+        assertThat(content).isEqualTo(data);
+
+        verify(stream, atLeastOnce()).close();
+    }
+
+    @Test
+    void shouldReusePooledConnectionsAsynchronously()
+    {
+        for (int k = 0; k < 3; ++k)
+        {
+            CommunicationResponse response = com.transferAsync(realVehicle, MIGRATE, new byte[]{1, 2, 3}).join();
+            assertThat(response.getStatus()).isEqualTo(Status.OK);
+        }
+
+        CommunicationMetrics metrics = com.getMetrics().get("rv001");
+
+        assertThat(metrics.getAsyncRequests()).isEqualTo(3L);
+        assertThat(metrics.getRequests()).isEqualTo(3L);
+        assertThat(metrics.getReusedConnections()).isEqualTo(2L);
+        assertThat(metrics.getPoolTime()).isNotNegative();
+
+        verify(perthreadManager, timeout(5000).atLeast(3)).cleanup();
+    }
+
+    @Test
+    void shouldNotLetOneSlowRealVehicleStarveTheOthers() throws Exception
+    {
+        String slowUrl = realVehicle.getUrl().replace("/rv001", "/slow");
+        RealVehicle slowVehicle = mock(RealVehicle.class);
+        when(slowVehicle.getName()).thenReturn("slow");
+        when(slowVehicle.getUrl()).thenReturn(slowUrl);
+
+        List<CompletableFuture<CommunicationResponse>> slowResponses = new ArrayList<>();
+
+        for (int k = 0; k < 8; ++k)
+        {
+            slowResponses.add(com.transferAsync(slowVehicle, MIGRATE, new byte[]{1, 2, 3}));
+        }
+
+        CommunicationResponse response = com.transferAsync(realVehicle, MIGRATE, new byte[]{1, 2, 3})
+            .get(10, TimeUnit.SECONDS);
+
+        assertThat(response.getStatus()).isEqualTo(Status.OK);
+        assertThat(slowResponses).noneMatch(CompletableFuture::isDone);
+
+        slowRealVehicle.countDown();
+
+        for (CompletableFuture<CommunicationResponse> slowResponse : slowResponses)
+        {
+            assertThat(slowResponse.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(Status.OK);
+        }
+
+        assertThat(com.getMetrics().get("slow").getRequests()).isEqualTo(8L);
+    }
+
+    @Test
+    void shouldDetectAsynchronousTransferProblems()
+    {
+        throwHttpException = true;
+
+        CommunicationResponse response = com.transferAsync(realVehicle, MIGRATE, new byte[]{1, 2, 3}).join();
+
+        assertThat(response.getStatus()).isNotNull().isEqualTo(Status.NOT_OK);
+        assertThat(com.getMetrics().get("rv001").getFailures()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldFailAsynchronousTransferToUnreachableRealVehicle()
+    {
+        when(realVehicle.getUrl()).thenReturn("http://localhost:1/rv001");
+
+        catchException(() -> com.transferAsync(realVehicle, MIGRATE, new byte[]{1, 2, 3}).join());
+
+        assertThat((Throwable) caughtException())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(IOException.class);
+        assertThat(com.getMetrics().get("rv001").getFailures()).isEqualTo(1L);
+    }
+
+    static Stream<Arguments> compressionDataProvider()
+    {
+        return Stream.of(
+            arguments("gzip, deflate", Long.MAX_VALUE, ContentCoding.GZIP),
+            arguments("gzip, deflate", 0L, ContentCoding.DEFLATE),
+            arguments("deflate", Long.MAX_VALUE, ContentCoding.DEFLATE),
+            arguments("gzip", 0L, ContentCoding.GZIP),
+            arguments("gzip;q=0, deflate;q=0", Long.MAX_VALUE, ContentCoding.IDENTITY),
+            arguments(null, Long.MAX_VALUE, ContentCoding.IDENTITY));
+    }
+
+    @ParameterizedTest
+    @MethodSource("compressionDataProvider")
+    void shouldCompressOnceTheReceiverAcceptsCodings(String accepted, long fastLink, ContentCoding expected)
+        throws IOException
+    {
+        com.shutdown();
+        com = new CommunicationServiceImpl(shutdownHub, perthreadManager, 2, 10, 5000, 10000, 30000L, 1024, fastLink,
+            4, 2);
+        acceptEncoding = accepted;
+        byte[] data = "Dieser Text laesst sich gut komprimieren. ".repeat(100).getBytes();
+
+        com.transfer(realVehicle, MIGRATE, data);
+
+        assertThat(request.getFirstHeader(CommunicationConstants.CONTENT_ENCODING)).isNull();
+        assertThat(request.getFirstHeader(CommunicationConstants.ACCEPT_ENCODING).getValue())
+            .isEqualTo(CommunicationConstants.ACCEPTED_CODINGS);
+        assertThat(content).isEqualTo(data);
+
+        CommunicationResponse response = com.transfer(realVehicle, MIGRATE, data);
+
+        assertThat(response.getStatus()).isEqualTo(Status.OK);
+        assertThat(ContentCoding.forName(request.getEntity().getContentEncoding() != null
+            ? request.getEntity().getContentEncoding().getValue()
+            : null)).isEqualTo(expected);
+        assertThat(expected.decode(new ByteArrayInputStream(content)).readAllBytes()).isEqualTo(data);
+
+        CommunicationMetrics metrics = com.getMetrics().get("rv001");
+
+        if (expected == ContentCoding.IDENTITY)
+        {
+            assertThat(metrics.getCompressionRatio()).isEqualTo(1.0);
+        }
+        else
+        {
+            assertThat(content.length).isLessThan(data.length / 4);
+            assertThat(metrics.getCompressionRatio()).isGreaterThan(1.0);
+        }
+
+        assertThat(metrics.getCodingTime()).isNotNegative();
+    }
+
+    @Test
+    void shouldNotCompressSmallPayloads() throws IOException
+    {
+        acceptEncoding = CommunicationConstants.ACCEPTED_CODINGS;
+        byte[] data = "Zu kurz, um sich zu lohnen. ".repeat(10).getBytes();
+
+        com.transfer(realVehicle, MIGRATE, data);
+        com.transfer(realVehicle, MIGRATE, data);
+
+        assertThat(request.getEntity().getContentEncoding()).isNull();
+        assertThat(content).isEqualTo(data);
+    }
+
+    @Test
+    void shouldStopCompressingIncompressiblePayloads() throws IOException
+    {
+        acceptEncoding = CommunicationConstants.ACCEPTED_CODINGS;
+        byte[] data = new byte[4096];
+        new Random(42).nextBytes(data);
+
+        com.transfer(realVehicle, MIGRATE, data);
+        com.transfer(realVehicle, MIGRATE, data);
+
+        assertThat(request.getEntity().getContentEncoding().getValue()).isEqualTo("gzip");
+
+        com.transfer(realVehicle, MIGRATE, data);
+
+        assertThat(request.getEntity().getContentEncoding()).isNull();
+        assertThat(content).isEqualTo(data);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ContentCoding.class)
+    void shouldDecodeResponses(ContentCoding coding) throws IOException
+    {
+        responseCoding = coding;
+
+        CommunicationResponse response = com.transfer(realVehicle, MIGRATE, new byte[]{1, 2, 3});
+        CommunicationResponse asyncResponse = com.transferAsync(realVehicle, MIGRATE, new byte[]{1, 2, 3}).join();
+
+        assertThat(response.getContent()).isEqualTo(REASON_PHRASE.getBytes());
+        assertThat(asyncResponse.getContent()).isEqualTo(REASON_PHRASE.getBytes());
+    }
+
+    @Test
+    void shouldCompressStreamedDataChunks() throws IOException
+    {
+        acceptEncoding = "deflate";
+        byte[] data = "Dieser Text laesst sich gut komprimieren. ".repeat(100).getBytes();
+
+        com.transferAsync(realVehicle, MIGRATE, new ByteArrayInputStream(data)).join();
+        com.transferAsync(realVehicle, MIGRATE, new ByteArrayInputStream(data)).join();
+
+        assertThat(request.getFirstHeader(CommunicationConstants.CONTENT_ENCODING).getValue()).isEqualTo("deflate");
+        assertThat(ContentCoding.DEFLATE.decode(new ByteArrayInputStream(content)).readAllBytes()).isEqualTo(data);
+        assertThat(com.getMetrics().get("rv001").getPayloadBytes()).isGreaterThan(2L * data.length);
+    }
 }
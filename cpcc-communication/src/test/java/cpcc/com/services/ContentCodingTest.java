@@ -0,0 +1,130 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.com.services;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * ContentCodingTest
+ */
+class ContentCodingTest
+{
+    static Stream<Arguments> roundTripDataProvider()
+    {
+        byte[] random = new byte[100000];
+        new Random(4711).nextBytes(random);
+
+        byte[] text = "Ein Text, der sich gut komprimieren laesst. ".repeat(1000).getBytes();
+
+        return Stream.of(ContentCoding.values())
+            .flatMap(coding -> Stream.of(
+                arguments(coding, new byte[0]),
+                arguments(coding, new byte[]{1, 2, 3}),
+                arguments(coding, random),
+                arguments(coding, text)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("roundTripDataProvider")
+    void shouldEncodeAndDecode(ContentCoding coding, byte[] data) throws IOException
+    {
+        byte[] encoded = coding.encode(new ByteArrayInputStream(data)).readAllBytes();
+
+        try (InputStream in = ContentCoding.decode(coding.getName(), new ByteArrayInputStream(encoded)))
+        {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void shouldProduceStandardGzipFormat() throws IOException
+    {
+        byte[] data = "Ein Text, der sich gut komprimieren laesst. ".repeat(1000).getBytes();
+        byte[] encoded = ContentCoding.GZIP.encode(new ByteArrayInputStream(data)).readAllBytes();
+
+        assertThat(encoded.length).isLessThan(data.length / 10);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded)))
+        {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+    }
+
+    static Stream<Arguments> forNameDataProvider()
+    {
+        return Stream.of(
+            arguments(null, ContentCoding.IDENTITY),
+            arguments("", ContentCoding.IDENTITY),
+            arguments("identity", ContentCoding.IDENTITY),
+            arguments(" GZIP ", ContentCoding.GZIP),
+            arguments("deflate", ContentCoding.DEFLATE),
+            arguments("br", null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("forNameDataProvider")
+    void shouldFindCodingByName(String name, ContentCoding expected)
+    {
+        assertThat(ContentCoding.forName(name)).isEqualTo(expected);
+    }
+
+    static Stream<Arguments> acceptEncodingDataProvider()
+    {
+        return Stream.of(
+            arguments(null, EnumSet.of(ContentCoding.IDENTITY)),
+            arguments("gzip, deflate", EnumSet.allOf(ContentCoding.class)),
+            arguments("gzip;q=0.5,deflate;q=0", EnumSet.of(ContentCoding.IDENTITY, ContentCoding.GZIP)),
+            arguments("br, zstd, deflate", EnumSet.of(ContentCoding.IDENTITY, ContentCoding.DEFLATE)),
+            arguments("gzip;q=0.0", EnumSet.of(ContentCoding.IDENTITY)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("acceptEncodingDataProvider")
+    void shouldParseAcceptEncoding(String acceptEncoding, Set<ContentCoding> expected)
+    {
+        assertThat(ContentCoding.parseAccepted(acceptEncoding)).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldRejectUnsupportedCodings()
+    {
+        catchException(() -> ContentCoding.decode("br", new ByteArrayInputStream(new byte[0])));
+
+        assertThat((Throwable) caughtException())
+            .isInstanceOf(IOException.class)
+            .hasMessage("Unsupported content encoding: br");
+    }
+}
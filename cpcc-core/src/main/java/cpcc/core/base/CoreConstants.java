@@ -26,6 +26,15 @@ public final class CoreConstants
     public static final String PROP_MAX_JOB_AGE = "core.max.job.age";
     public static final String DEFAULT_MAX_JOB_AGE = "3600000";
 
+    public static final String PROP_JOB_STATE_FLUSH_INTERVAL = "core.job.state.flush.interval";
+    public static final String DEFAULT_JOB_STATE_FLUSH_INTERVAL = "1000";
+
+    public static final String PROP_JOB_PAYLOAD_DIR = "core.job.payload.dir";
+    public static final String DEFAULT_JOB_PAYLOAD_DIR = "";
+
+    public static final String PROP_JOB_PAYLOAD_INLINE_LIMIT = "core.job.payload.inline.limit";
+    public static final String DEFAULT_JOB_PAYLOAD_INLINE_LIMIT = "65536";
+
     public static final String PROP_LIQUIBASE_CHANGE_LOG_FILE = "liquibase.changeLogFile";
     public static final String DEFAULT_LIQUIBASE_CHANGE_LOG_FILE = "dbchange/update.xml";
 
@@ -95,6 +95,14 @@ public class PolygonZone
             .collect(Collectors.toList());
     }
 
+    /**
+     * @return the bounding box of the polygon as {@code [minLon, minLat, maxLon, maxLat]}.
+     */
+    public double[] getBoundingBox()
+    {
+        return new double[]{minLon, minLat, maxLon, maxLat};
+    }
+
     /**
      * Find the bounding box of the polygon.
      */
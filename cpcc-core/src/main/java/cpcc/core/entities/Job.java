@@ -32,6 +32,8 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.apache.commons.codec.digest.DigestUtils;
+
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -46,6 +48,8 @@ public class Job implements Serializable
     private static final int MAX_QUEUE_LENGTH = 20;
     private static final int MAX_STATUS_LENGTH = 20;
     private static final int MAX_PARAMETERS_LENGTH = 512;
+    private static final int MAX_PAYLOAD_REF_LENGTH = 64;
+    private static final int MAX_PARAMETERS_HASH_LENGTH = 64;
 
     @Id
     @GeneratedValue
@@ -61,10 +65,20 @@ public class Job implements Serializable
     @Column(name = "parameters", nullable = false, length = MAX_PARAMETERS_LENGTH)
     private String parameters;
 
+    @Column(name = "parameters_hash", length = MAX_PARAMETERS_HASH_LENGTH)
+    private String parametersHash;
+
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "created_time", nullable = false)
     private Date created;
 
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "not_before")
+    private Date notBefore;
+
+    @Column(name = "retry_count", nullable = false)
+    private int retryCount;
+
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "queued_time")
     private Date queued;
@@ -85,6 +99,9 @@ public class Job implements Serializable
     @Column(name = "data")
     private byte[] data;
 
+    @Column(name = "payload_ref", length = MAX_PAYLOAD_REF_LENGTH)
+    private String payloadRef;
+
     /**
      * @param id the id to set.
      */
@@ -147,6 +164,15 @@ public class Job implements Serializable
     public void setParameters(String parameters)
     {
         this.parameters = parameters;
+        this.parametersHash = parameters != null ? DigestUtils.sha256Hex(parameters) : null;
+    }
+
+    /**
+     * @return the SHA-256 hash of the parameters as a hexadecimal string.
+     */
+    public String getParametersHash()
+    {
+        return parametersHash;
     }
 
     /**
@@ -167,6 +193,40 @@ public class Job implements Serializable
         this.created = created;
     }
 
+    /**
+     * @return the earliest time the job may be executed or null, if the job may be executed immediately.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Exposed on purpose")
+    public Date getNotBefore()
+    {
+        return notBefore;
+    }
+
+    /**
+     * @param notBefore the earliest time the job may be executed to set
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Exposed on purpose")
+    public void setNotBefore(Date notBefore)
+    {
+        this.notBefore = notBefore;
+    }
+
+    /**
+     * @return the number of times the job has been executed again after a failure.
+     */
+    public int getRetryCount()
+    {
+        return retryCount;
+    }
+
+    /**
+     * @param retryCount the number of times the job has been executed again after a failure to set
+     */
+    public void setRetryCount(int retryCount)
+    {
+        this.retryCount = retryCount;
+    }
+
     /**
      * @return the queued
      */
@@ -255,4 +315,19 @@ public class Job implements Serializable
         this.data = data;
     }
 
+    /**
+     * @return the reference of the job's data in the job payload store or null, if the data is stored inline.
+     */
+    public String getPayloadRef()
+    {
+        return payloadRef;
+    }
+
+    /**
+     * @param payloadRef the reference of the job's data in the job payload store to set
+     */
+    public void setPayloadRef(String payloadRef)
+    {
+        this.payloadRef = payloadRef;
+    }
 }
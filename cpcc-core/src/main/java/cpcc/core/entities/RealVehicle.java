@@ -25,6 +25,7 @@ import java.util.List;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
@@ -45,6 +46,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  * RealVehicle
  */
 @Entity
+@EntityListeners(RealVehicleChangeListener.class)
 @Table(name = "real_vehicles", uniqueConstraints = {@UniqueConstraint(columnNames = {"url"})})
 public class RealVehicle implements Serializable
 {
@@ -0,0 +1,39 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.entities;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+
+/**
+ * Counts the changes of real vehicles once more when their transaction completes.
+ */
+public class RealVehicleChangeInterceptor extends EmptyInterceptor
+{
+    private static final long serialVersionUID = 4790137282604327335L;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterTransactionCompletion(Transaction tx)
+    {
+        RealVehicleChangeListener.transactionCompleted();
+    }
+}
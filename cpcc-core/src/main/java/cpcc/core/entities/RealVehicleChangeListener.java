@@ -0,0 +1,87 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.entities;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import cpcc.core.utils.RealVehicleUtils;
+
+/**
+ * Counts the changes of real vehicles, so that data derived from the real vehicle table can detect when it is out of
+ * date.
+ * <p>
+ * A change counts twice, when it is flushed and when its transaction completes. Data derived from the real vehicle
+ * table between the two points in time may lack the change, because it is not yet committed, and is out of date after
+ * the second count.
+ */
+public class RealVehicleChangeListener
+{
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final ThreadLocal<Set<Integer>> CHANGED = new ThreadLocal<>();
+
+    /**
+     * @param realVehicle the changed real vehicle.
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void realVehicleChanged(RealVehicle realVehicle)
+    {
+        Set<Integer> changed = CHANGED.get();
+        if (changed == null)
+        {
+            changed = new HashSet<>();
+            CHANGED.set(changed);
+        }
+
+        changed.add(realVehicle.getId());
+        VERSION.incrementAndGet();
+        RealVehicleUtils.invalidateAreaOfOperation(realVehicle.getId());
+    }
+
+    /**
+     * Count the real vehicles changed by the transaction completed by the current thread once more.
+     */
+    public static void transactionCompleted()
+    {
+        Set<Integer> changed = CHANGED.get();
+        if (changed == null)
+        {
+            return;
+        }
+
+        CHANGED.remove();
+        VERSION.incrementAndGet();
+        changed.forEach(RealVehicleUtils::invalidateAreaOfOperation);
+    }
+
+    /**
+     * @return the current version of the real vehicle table.
+     */
+    public static long getVersion()
+    {
+        return VERSION.get();
+    }
+}
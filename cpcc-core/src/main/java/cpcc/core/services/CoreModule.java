@@ -34,11 +34,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cpcc.core.base.CoreConstants;
+import cpcc.core.entities.RealVehicleChangeInterceptor;
 import cpcc.core.services.jobs.JobExecutionException;
+import cpcc.core.services.jobs.JobIndex;
+import cpcc.core.services.jobs.JobIndexImpl;
+import cpcc.core.services.jobs.JobPayloadStore;
+import cpcc.core.services.jobs.JobPayloadStoreImpl;
 import cpcc.core.services.jobs.JobRepository;
 import cpcc.core.services.jobs.JobRepositoryImpl;
 import cpcc.core.services.jobs.JobService;
 import cpcc.core.services.jobs.JobServiceImpl;
+import cpcc.core.services.jobs.JobStateWriter;
+import cpcc.core.services.jobs.JobStateWriterImpl;
 import cpcc.core.services.jobs.TimeService;
 import cpcc.core.services.jobs.TimeServiceImpl;
 import cpcc.core.services.opts.OptionsParserService;
@@ -67,8 +74,12 @@ public final class CoreModule
         binder.bind(OptionsParserService.class, OptionsParserServiceImpl.class);
         binder.bind(JobService.class, JobServiceImpl.class);
         binder.bind(JobRepository.class, JobRepositoryImpl.class);
+        binder.bind(JobStateWriter.class, JobStateWriterImpl.class).eagerLoad();
+        binder.bind(JobPayloadStore.class, JobPayloadStoreImpl.class);
+        binder.bind(JobIndex.class, JobIndexImpl.class);
         binder.bind(TimeService.class, TimeServiceImpl.class);
         binder.bind(RealVehicleRepository.class, RealVehicleRepositoryImpl.class);
+        binder.bind(RealVehicleIndex.class, RealVehicleIndexImpl.class);
     }
 
     /**
@@ -81,6 +92,21 @@ public final class CoreModule
                 CoreConstants.PROP_MAX_JOB_AGE,
                 CoreConstants.DEFAULT_MAX_JOB_AGE));
 
+        configuration.add(
+            CoreConstants.PROP_JOB_STATE_FLUSH_INTERVAL, System.getProperty(
+                CoreConstants.PROP_JOB_STATE_FLUSH_INTERVAL,
+                CoreConstants.DEFAULT_JOB_STATE_FLUSH_INTERVAL));
+
+        configuration.add(
+            CoreConstants.PROP_JOB_PAYLOAD_DIR, System.getProperty(
+                CoreConstants.PROP_JOB_PAYLOAD_DIR,
+                CoreConstants.DEFAULT_JOB_PAYLOAD_DIR));
+
+        configuration.add(
+            CoreConstants.PROP_JOB_PAYLOAD_INLINE_LIMIT, System.getProperty(
+                CoreConstants.PROP_JOB_PAYLOAD_INLINE_LIMIT,
+                CoreConstants.DEFAULT_JOB_PAYLOAD_INLINE_LIMIT));
+
         configuration.add(
             CoreConstants.PROP_LIQUIBASE_CHANGE_LOG_FILE, System.getProperty(
                 CoreConstants.PROP_LIQUIBASE_CHANGE_LOG_FILE,
@@ -120,6 +146,9 @@ public final class CoreModule
             liquibaseService.update();
             LOG.info("Updating database done.");
         });
+
+        config.add("RealVehicleChangeInterceptor",
+            configuration -> configuration.setInterceptor(new RealVehicleChangeInterceptor()));
     }
 
     /**
@@ -144,7 +173,7 @@ public final class CoreModule
         jobService.resetJobs();
         jobService.removeOldJobs();
 
-        executor.addJob(new CronSchedule("* * * * * ?"), "JobService periodical execution",
+        executor.addJob(new CronSchedule("0/30 * * * * ?"), "JobService leftover job execution",
             () -> {
                 try
                 {
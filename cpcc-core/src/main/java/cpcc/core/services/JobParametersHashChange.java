@@ -0,0 +1,115 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Liquibase change filling in the parameter hashes of the jobs created before the hash column existed.
+ */
+public class JobParametersHashChange implements CustomTaskChange
+{
+    private static final String SELECT_JOBS =
+        "SELECT ID, PARAMETERS FROM JOBS WHERE PARAMETERS_HASH IS NULL AND PARAMETERS IS NOT NULL";
+
+    private static final String UPDATE_JOB = "UPDATE JOBS SET PARAMETERS_HASH = ? WHERE ID = ?";
+
+    private int count;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Database database) throws CustomChangeException
+    {
+        Connection connection = ((JdbcConnection) database.getConnection()).getWrappedConnection();
+
+        try (PreparedStatement select = connection.prepareStatement(SELECT_JOBS);
+            PreparedStatement update = connection.prepareStatement(UPDATE_JOB);
+            ResultSet jobs = select.executeQuery())
+        {
+            count = 0;
+
+            while (jobs.next())
+            {
+                update.setString(1, DigestUtils.sha256Hex(jobs.getString(2)));
+                update.setInt(2, jobs.getInt(1));
+                update.addBatch();
+                ++count;
+            }
+
+            if (count > 0)
+            {
+                update.executeBatch();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new CustomChangeException("Can not fill in job parameter hashes.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getConfirmationMessage()
+    {
+        return "Filled in " + count + " job parameter hashes.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUp()
+    {
+        // Intentionally empty.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor)
+    {
+        // Intentionally empty.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ValidationErrors validate(Database database)
+    {
+        return new ValidationErrors();
+    }
+}
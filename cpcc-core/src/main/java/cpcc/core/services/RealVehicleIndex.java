@@ -0,0 +1,58 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services;
+
+import java.util.Collection;
+import java.util.List;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.entities.SensorDefinition;
+
+/**
+ * In-memory index over the areas of operation and the sensors of all active real vehicles.
+ */
+public interface RealVehicleIndex
+{
+    /**
+     * @param position the position in question.
+     * @param sensors the required sensors.
+     * @param excludedId the identification of a real vehicle to be ignored, e.g., the own real vehicle, or null.
+     * @return the active real vehicles having the position inside their area of operation and carrying all required
+     *         sensors.
+     */
+    List<RealVehicle> findRealVehicles(PolarCoordinate position, Collection<SensorDefinition> sensors,
+        Integer excludedId);
+
+    /**
+     * @param excludedId the identification of a real vehicle to be ignored, or null.
+     * @return the active ground stations.
+     */
+    List<RealVehicle> findGroundStations(Integer excludedId);
+
+    /**
+     * @return true if there are no active real vehicles.
+     */
+    boolean isEmpty();
+
+    /**
+     * Rebuild the index on next access.
+     */
+    void invalidate();
+}
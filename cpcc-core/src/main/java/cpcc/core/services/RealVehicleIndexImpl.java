@@ -0,0 +1,393 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.core.base.PolygonZone;
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.entities.RealVehicleChangeListener;
+import cpcc.core.entities.RealVehicleType;
+import cpcc.core.entities.SensorDefinition;
+import cpcc.core.services.jobs.TimeService;
+import cpcc.core.utils.RealVehicleUtils;
+
+/**
+ * Real vehicle index implementation.
+ * <p>
+ * The polygons of all areas of operation are sorted into a uniform grid of their bounding boxes, so a position lookup
+ * tests only the polygons of one grid cell. The sensors are indexed as one bit set of real vehicles per sensor.
+ * <p>
+ * The index keeps a detached snapshot of each real vehicle, holding its scalar properties and its sensors but not its
+ * state, and a lookup hands out copies of the snapshots without querying the database. The index is rebuilt when the
+ * {@link RealVehicleChangeListener} counts a change of a real vehicle made by this process, and at least once per
+ * {@code MAX_AGE} milliseconds. Hence, a lookup misses changes made by other processes sharing the database for at
+ * most {@code MAX_AGE} milliseconds.
+ */
+public class RealVehicleIndexImpl implements RealVehicleIndex
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RealVehicleIndexImpl.class);
+
+    private static final long MAX_AGE = 60000L;
+    private static final int MAX_GRID_SIZE = 128;
+
+    private RealVehicleRepository rvRepo;
+    private TimeService timeService;
+    private volatile Index index;
+
+    /**
+     * @param rvRepo the real vehicle repository.
+     * @param timeService the time service.
+     */
+    public RealVehicleIndexImpl(RealVehicleRepository rvRepo, TimeService timeService)
+    {
+        this.rvRepo = rvRepo;
+        this.timeService = timeService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RealVehicle> findRealVehicles(PolarCoordinate position, Collection<SensorDefinition> sensors,
+        Integer excludedId)
+    {
+        Index current = currentIndex();
+        BitSet result = current.findRealVehicles(position);
+
+        if (sensors != null)
+        {
+            for (SensorDefinition sensor : sensors)
+            {
+                result.and(current.sensorIndex.getOrDefault(sensor.getId(), new BitSet()));
+            }
+        }
+
+        return resolve(current, result, excludedId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RealVehicle> findGroundStations(Integer excludedId)
+    {
+        Index current = currentIndex();
+        return resolve(current, current.groundStations, excludedId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return currentIndex().rvs.length == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate()
+    {
+        index = null;
+    }
+
+    /**
+     * @param current the current index.
+     * @param rvs the real vehicles as bit set of index positions.
+     * @param excludedId the identification of the real vehicle to be ignored, or null.
+     * @return copies of the real vehicle snapshots.
+     */
+    private static List<RealVehicle> resolve(Index current, BitSet rvs, Integer excludedId)
+    {
+        if (rvs.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        List<RealVehicle> result = new ArrayList<>(rvs.cardinality());
+
+        for (int k = rvs.nextSetBit(0); k >= 0; k = rvs.nextSetBit(k + 1))
+        {
+            RealVehicle rv = current.rvs[k];
+            if (excludedId == null || !excludedId.equals(rv.getId()))
+            {
+                result.add(copyOf(rv));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param rv the real vehicle to copy.
+     * @return a detached copy of the real vehicle, which holds its sensors in a list of its own.
+     */
+    private static RealVehicle copyOf(RealVehicle rv)
+    {
+        RealVehicle copy = new RealVehicle();
+        copy.setId(rv.getId());
+        copy.setName(rv.getName());
+        copy.setType(rv.getType());
+        copy.setUrl(rv.getUrl());
+        copy.setAreaOfOperation(rv.getAreaOfOperation());
+        copy.setSensors(rv.getSensors() != null ? new ArrayList<>(rv.getSensors()) : new ArrayList<>());
+        copy.setLastUpdate(rv.getLastUpdate());
+        copy.setDeleted(rv.getDeleted());
+        return copy;
+    }
+
+    /**
+     * @return the current index, rebuilt if out of date.
+     */
+    private Index currentIndex()
+    {
+        Index current = index;
+        long now = timeService.currentTimeMillis();
+
+        if (current != null
+            && current.version == RealVehicleChangeListener.getVersion()
+            && now - current.buildTime < MAX_AGE)
+        {
+            return current;
+        }
+
+        synchronized (this)
+        {
+            current = index;
+            if (current == null
+                || current.version != RealVehicleChangeListener.getVersion()
+                || now - current.buildTime >= MAX_AGE)
+            {
+                current = buildIndex(now);
+                index = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * @param now the current time.
+     * @return the new index.
+     */
+    private Index buildIndex(long now)
+    {
+        long version = RealVehicleChangeListener.getVersion();
+        List<RealVehicle> rvs = rvRepo.findAllActiveRealVehicles().stream()
+            .filter(rv -> rv.getId() != null)
+            .collect(Collectors.toList());
+
+        Index newIndex = new Index(version, now, rvs.size());
+        List<PolygonZone> zones = new ArrayList<>();
+        List<Integer> zoneRvs = new ArrayList<>();
+
+        for (int k = 0, l = rvs.size(); k < l; ++k)
+        {
+            RealVehicle rv = rvs.get(k);
+            newIndex.rvs[k] = copyOf(rv);
+
+            if (rv.getType() == RealVehicleType.GROUND_STATION)
+            {
+                newIndex.groundStations.set(k);
+            }
+
+            if (rv.getSensors() != null)
+            {
+                for (SensorDefinition sensor : rv.getSensors())
+                {
+                    newIndex.sensorIndex.computeIfAbsent(sensor.getId(), x -> new BitSet()).set(k);
+                }
+            }
+
+            for (PolygonZone zone : RealVehicleUtils.getAreaOfOperation(rv).getPolygons())
+            {
+                zones.add(zone);
+                zoneRvs.add(k);
+            }
+        }
+
+        newIndex.buildGrid(zones, zoneRvs);
+
+        LOG.debug("Built real vehicle index: {} real vehicles, {} polygons, {}x{} cells",
+            rvs.size(), zones.size(), newIndex.columns, newIndex.rows);
+
+        return newIndex;
+    }
+
+    /**
+     * An immutable snapshot of the real vehicle table.
+     */
+    private static class Index
+    {
+        private final long version;
+        private final long buildTime;
+        private final RealVehicle[] rvs;
+        private final BitSet groundStations = new BitSet();
+        private final Map<Integer, BitSet> sensorIndex = new HashMap<>();
+
+        private PolygonZone[] zones = new PolygonZone[0];
+        private int[] zoneRvs = new int[0];
+        private int[][] cells = new int[0][];
+        private int columns;
+        private int rows;
+        private double minLon;
+        private double minLat;
+        private double cellWidth;
+        private double cellHeight;
+
+        /**
+         * @param version the version of the real vehicle table.
+         * @param buildTime the time of creation.
+         * @param size the number of real vehicles.
+         */
+        Index(long version, long buildTime, int size)
+        {
+            this.version = version;
+            this.buildTime = buildTime;
+            this.rvs = new RealVehicle[size];
+        }
+
+        /**
+         * @param zoneList the polygons of all areas of operation.
+         * @param zoneRvList the index positions of the real vehicles owning the polygons.
+         */
+        void buildGrid(List<PolygonZone> zoneList, List<Integer> zoneRvList)
+        {
+            if (zoneList.isEmpty())
+            {
+                return;
+            }
+
+            zones = zoneList.toArray(new PolygonZone[0]);
+            zoneRvs = zoneRvList.stream().mapToInt(Integer::intValue).toArray();
+
+            double[][] boxes = new double[zones.length][];
+            double maxLon = Double.NEGATIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            minLon = Double.POSITIVE_INFINITY;
+            minLat = Double.POSITIVE_INFINITY;
+
+            for (int k = 0; k < zones.length; ++k)
+            {
+                boxes[k] = zones[k].getBoundingBox();
+                minLon = Math.min(minLon, boxes[k][0]);
+                minLat = Math.min(minLat, boxes[k][1]);
+                maxLon = Math.max(maxLon, boxes[k][2]);
+                maxLat = Math.max(maxLat, boxes[k][3]);
+            }
+
+            int size = Math.min(MAX_GRID_SIZE, 2 * (int) Math.ceil(Math.sqrt(zones.length)));
+            columns = size;
+            rows = size;
+            cellWidth = Math.max((maxLon - minLon) / columns, 1E-9);
+            cellHeight = Math.max((maxLat - minLat) / rows, 1E-9);
+
+            List<List<Integer>> cellLists = new ArrayList<>(columns * rows);
+            for (int k = 0; k < columns * rows; ++k)
+            {
+                cellLists.add(new ArrayList<>());
+            }
+
+            for (int k = 0; k < zones.length; ++k)
+            {
+                int c0 = column(boxes[k][0]);
+                int c1 = column(boxes[k][2]);
+                int r0 = row(boxes[k][1]);
+                int r1 = row(boxes[k][3]);
+
+                for (int r = r0; r <= r1; ++r)
+                {
+                    for (int c = c0; c <= c1; ++c)
+                    {
+                        cellLists.get(r * columns + c).add(k);
+                    }
+                }
+            }
+
+            cells = new int[columns * rows][];
+            for (int k = 0; k < cells.length; ++k)
+            {
+                cells[k] = cellLists.get(k).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        /**
+         * @param position the position in question.
+         * @return the real vehicles having the position inside their areas of operation.
+         */
+        BitSet findRealVehicles(PolarCoordinate position)
+        {
+            BitSet result = new BitSet();
+
+            if (position == null || cells.length == 0)
+            {
+                return result;
+            }
+
+            double lon = position.getLongitude();
+            double lat = position.getLatitude();
+
+            if (lon < minLon || lat < minLat || lon > minLon + cellWidth * columns || lat > minLat + cellHeight * rows)
+            {
+                return result;
+            }
+
+            for (int zone : cells[row(lat) * columns + column(lon)])
+            {
+                if (!result.get(zoneRvs[zone]) && zones[zone].isInside(position))
+                {
+                    result.set(zoneRvs[zone]);
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * @param lon the longitude.
+         * @return the grid column.
+         */
+        private int column(double lon)
+        {
+            return Math.max(0, Math.min(columns - 1, (int) ((lon - minLon) / cellWidth)));
+        }
+
+        /**
+         * @param lat the latitude.
+         * @return the grid row.
+         */
+        private int row(double lat)
+        {
+            return Math.max(0, Math.min(rows - 1, (int) ((lat - minLat) / cellHeight)));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A job runnable that does not occupy a job queue thread while it waits for I/O.
+ * <p>
+ * The job is finished when the returned future completes. Completion stages run on arbitrary threads, so they must
+ * commit their own database changes and must not rely on per-thread state of the starting thread.
+ */
+public interface AsyncJobRunnable extends JobRunnable
+{
+    /**
+     * Start the job.
+     * 
+     * @return the future completing when the job is done.
+     * @throws IOException in case of errors.
+     */
+    CompletableFuture<Void> start() throws IOException;
+
+    /**
+     * Run the job and wait for its completion.
+     * 
+     * @throws IOException in case of errors.
+     */
+    @Override
+    default void run() throws IOException
+    {
+        try
+        {
+            start().join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+}
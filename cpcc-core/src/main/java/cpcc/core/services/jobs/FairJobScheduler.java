@@ -0,0 +1,271 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Decides which of the jobs waiting in a job queue gets the next free pool thread.
+ * 
+ * <ul>
+ * <li>Jobs of higher priority are started first.</li>
+ * <li>Jobs of the same priority share the pool threads by the weights of their types (stride scheduling). A type
+ * that has been idle does not gain credit, so a burst of one type can not lock out the others afterwards.</li>
+ * <li>A job whose destination already runs the maximum number of jobs waits, and jobs to other destinations are
+ * started instead.</li>
+ * </ul>
+ * 
+ * <p>
+ * A job occupies a pool thread until its runnable returns and its destination until the job queue reports it as
+ * executed, which is later for asynchronous jobs.
+ * </p>
+ */
+public class FairJobScheduler
+{
+    private static final Comparator<PendingJob> JOB_ORDER = Comparator
+        .comparingInt((PendingJob x) -> -x.jobClass.getPriority())
+        .thenComparingLong(x -> x.sequence);
+
+    private final Executor executor;
+    private final int poolSize;
+    private int maxJobsPerDestination = Integer.MAX_VALUE;
+
+    private final Map<String, Integer> weights = new HashMap<>();
+    private final Map<String, NavigableSet<PendingJob>> pending = new HashMap<>();
+    private final Map<String, Double> pass = new HashMap<>();
+    private final Map<String, Integer> activeDestinations = new HashMap<>();
+    private final Map<Integer, String> runningDestinations = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int running;
+
+    /**
+     * @param executor the executor that runs the jobs.
+     * @param poolSize the number of jobs the executor runs concurrently.
+     */
+    public FairJobScheduler(Executor executor, int poolSize)
+    {
+        this.executor = executor;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * @param type the job type.
+     * @param weight the share of pool threads the job type gets relative to other types. The default is 1.
+     */
+    public synchronized void setWeight(String type, int weight)
+    {
+        if (weight < 1)
+        {
+            throw new IllegalArgumentException("Weight of job type " + type + " must be positive, but is " + weight);
+        }
+
+        weights.put(type, weight);
+    }
+
+    /**
+     * @param maxJobsPerDestination the maximum number of jobs running concurrently per destination.
+     */
+    public synchronized void setMaxJobsPerDestination(int maxJobsPerDestination)
+    {
+        if (maxJobsPerDestination < 1)
+        {
+            throw new IllegalArgumentException(
+                "Maximum jobs per destination must be positive, but is " + maxJobsPerDestination);
+        }
+
+        this.maxJobsPerDestination = maxJobsPerDestination;
+    }
+
+    /**
+     * @param jobId the job identification.
+     * @param jobClass the scheduling class of the job.
+     * @param task the job runnable.
+     */
+    public synchronized void submit(int jobId, JobClass jobClass, Runnable task)
+    {
+        NavigableSet<PendingJob> jobs = pending.computeIfAbsent(jobClass.getType(), k -> new TreeSet<>(JOB_ORDER));
+        if (jobs.isEmpty())
+        {
+            pass.merge(jobClass.getType(), virtualTime, Math::max);
+        }
+
+        jobs.add(new PendingJob(jobId, jobClass, task, sequence++));
+        dispatch();
+    }
+
+    /**
+     * Release the destination of an executed job.
+     * 
+     * @param jobId the job identification.
+     */
+    public synchronized void executed(int jobId)
+    {
+        String destination = runningDestinations.remove(jobId);
+        if (destination != null)
+        {
+            activeDestinations.computeIfPresent(destination, (k, v) -> v > 1 ? v - 1 : null);
+        }
+
+        dispatch();
+    }
+
+    /**
+     * @return the number of jobs waiting for a pool thread.
+     */
+    public synchronized int getPendingCount()
+    {
+        return pending.values().stream().mapToInt(NavigableSet::size).sum();
+    }
+
+    /**
+     * Release the pool thread of a job.
+     */
+    private synchronized void released()
+    {
+        --running;
+        dispatch();
+    }
+
+    /**
+     * Start waiting jobs as long as pool threads are free.
+     */
+    private void dispatch()
+    {
+        while (running < poolSize)
+        {
+            PendingJob next = selectNext();
+            if (next == null)
+            {
+                return;
+            }
+
+            start(next);
+        }
+    }
+
+    /**
+     * @return the job to start next or null, if no job can be started.
+     */
+    private PendingJob selectNext()
+    {
+        PendingJob best = null;
+
+        for (NavigableSet<PendingJob> jobs : pending.values())
+        {
+            PendingJob candidate = jobs.stream().filter(this::isDestinationAvailable).findFirst().orElse(null);
+
+            if (candidate != null && (best == null || isBefore(candidate, best)))
+            {
+                best = candidate;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @param job the job.
+     * @return true if the destination of the job is not yet running the maximum number of jobs.
+     */
+    private boolean isDestinationAvailable(PendingJob job)
+    {
+        String destination = job.jobClass.getDestination();
+        return destination == null || activeDestinations.getOrDefault(destination, 0) < maxJobsPerDestination;
+    }
+
+    /**
+     * @param a the first job.
+     * @param b the second job.
+     * @return true if job {@code a} should be started before job {@code b}.
+     */
+    private boolean isBefore(PendingJob a, PendingJob b)
+    {
+        if (a.jobClass.getPriority() != b.jobClass.getPriority())
+        {
+            return a.jobClass.getPriority() > b.jobClass.getPriority();
+        }
+
+        int cmp = Double.compare(pass.get(a.jobClass.getType()), pass.get(b.jobClass.getType()));
+        return cmp != 0 ? cmp < 0 : a.sequence < b.sequence;
+    }
+
+    /**
+     * @param job the job to start.
+     */
+    private void start(PendingJob job)
+    {
+        String type = job.jobClass.getType();
+        pending.get(type).remove(job);
+
+        double typePass = pass.get(type);
+        virtualTime = typePass;
+        pass.put(type, typePass + 1.0 / weights.getOrDefault(type, 1));
+
+        String destination = job.jobClass.getDestination();
+        if (destination != null)
+        {
+            activeDestinations.merge(destination, 1, Integer::sum);
+            runningDestinations.put(job.jobId, destination);
+        }
+
+        ++running;
+
+        executor.execute(() -> {
+            try
+            {
+                job.task.run();
+            }
+            finally
+            {
+                released();
+            }
+        });
+    }
+
+    /**
+     * A job waiting for a pool thread.
+     */
+    private static class PendingJob
+    {
+        private final int jobId;
+        private final JobClass jobClass;
+        private final Runnable task;
+        private final long sequence;
+
+        /**
+         * @param jobId the job identification.
+         * @param jobClass the scheduling class of the job.
+         * @param task the job runnable.
+         * @param sequence the submission sequence number.
+         */
+        PendingJob(int jobId, JobClass jobClass, Runnable task, long sequence)
+        {
+            this.jobId = jobId;
+            this.jobClass = jobClass;
+            this.task = task;
+            this.sequence = sequence;
+        }
+    }
+}
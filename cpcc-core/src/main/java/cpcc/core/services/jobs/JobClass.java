@@ -0,0 +1,81 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+/**
+ * The scheduling class of a job. Jobs of higher priority are started first. Jobs of the same priority share the pool
+ * threads of their queue by the weights of their types. The destination names the resource, usually a real vehicle,
+ * the job talks to, so that the number of concurrent jobs per destination can be capped.
+ */
+public class JobClass
+{
+    public static final String DEFAULT_TYPE = "default";
+    public static final int DEFAULT_PRIORITY = 0;
+
+    public static final JobClass DEFAULT = new JobClass(DEFAULT_TYPE, DEFAULT_PRIORITY, null);
+
+    private final String type;
+    private final int priority;
+    private final String destination;
+
+    /**
+     * @param type the job type.
+     * @param priority the job priority, higher values are started first.
+     * @param destination the destination of the job or null, if the job has none.
+     */
+    public JobClass(String type, int priority, String destination)
+    {
+        this.type = type;
+        this.priority = priority;
+        this.destination = destination;
+    }
+
+    /**
+     * @return the job type.
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return the job priority.
+     */
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * @return the destination of the job or null, if the job has none.
+     */
+    public String getDestination()
+    {
+        return destination;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return "type=" + type + ", priority=" + priority + ", destination=" + destination;
+    }
+}
@@ -19,7 +19,10 @@
 package cpcc.core.services.jobs;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
@@ -41,20 +44,23 @@ public class JobExecutor implements Runnable
     private List<JobRunnableFactory> factoryList;
     private int jobNumber;
     private JobQueueCallback callBack;
+    private JobRetryPolicy retryPolicy;
 
     /**
      * @param serviceResources the service resources.
      * @param factoryList the factory list.
      * @param jobNumber the id of the job to be executed.
      * @param callBack the job queue callback.
+     * @param retryPolicy the retry policy for failed jobs.
      */
     public JobExecutor(ServiceResources serviceResources, List<JobRunnableFactory> factoryList, int jobNumber,
-        JobQueueCallback callBack)
+        JobQueueCallback callBack, JobRetryPolicy retryPolicy)
     {
         this.serviceResources = serviceResources;
         this.factoryList = factoryList;
         this.jobNumber = jobNumber;
         this.callBack = callBack;
+        this.retryPolicy = retryPolicy;
     }
 
     /**
@@ -64,60 +70,175 @@ public class JobExecutor implements Runnable
     public void run()
     {
         PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
-        HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
         TimeService timeService = serviceResources.getService(TimeService.class);
         JobRepository jobRepository = serviceResources.getService(JobRepository.class);
+        JobStateWriter stateWriter = serviceResources.getService(JobStateWriter.class);
 
         Job job = jobRepository.findJobById(jobNumber);
-        job.setStart(timeService.newDate());
-        job.setStatus(JobStatus.RUNNING);
-        sessionManager.getSession().update(job);
-        sessionManager.commit();
+        stateWriter.running(jobNumber, timeService.newDate());
 
         LOG.debug("Executing job {} {} parameters={}", jobNumber, job.getQueueName(), job.getParameters());
 
-        job.setStatus(JobStatus.NO_FACTORY);
-
         for (JobRunnableFactory factory : factoryList)
         {
-            JobRunnable runnable = factory.createRunnable(serviceResources, job);
+            JobRunnable runnable;
+
+            try
+            {
+                runnable = factory.createRunnable(serviceResources, job);
+            }
+            catch (RuntimeException e)
+            {
+                handleFailure(job, e);
+                return;
+            }
+
             if (runnable != null)
             {
-                try
+                if (runnable instanceof AsyncJobRunnable)
                 {
-                    runnable.run();
-                    job.setStatus(JobStatus.OK);
+                    startAsync(job, (AsyncJobRunnable) runnable);
+                    tm.cleanup();
+                    return;
                 }
-                catch (IOException e)
-                {
-                    sessionManager.abort();
-                    job.setResultText(e.getMessage());
-                    job.setStatus(JobStatus.FAILED);
 
-                    LOG.error("Job failed: {} {} parameters={}. {}",
-                        jobNumber, job.getQueueName(), job.getParameters(), e.getMessage());
+                try
+                {
+                    runnable.run();
+                    finish(JobStatus.OK, null);
                 }
                 catch (Throwable e)
                 {
-                    sessionManager.abort();
-                    job.setResultText(e.getMessage());
-                    job.setStatus(JobStatus.FAILED);
-
-                    LOG.error("Job failed: {} {} parameters={}.",
-                        jobNumber, job.getQueueName(), job.getParameters(), e);
+                    handleFailure(job, e);
                 }
 
-                break;
+                return;
             }
         }
 
-        job.setEnd(timeService.newDate());
-        sessionManager.getSession().update(job);
-        sessionManager.commit();
+        finish(JobStatus.NO_FACTORY, null);
+    }
+
+    /**
+     * Start an asynchronous job runnable and finish the job as soon as it completes. A runnable that completes
+     * normally but reports that its execution did not succeed fails as well, so that the retry policy applies.
+     * 
+     * @param job the job.
+     * @param runnable the job runnable.
+     */
+    private void startAsync(Job job, AsyncJobRunnable runnable)
+    {
+        CompletableFuture<Void> future;
+
+        try
+        {
+            future = runnable.start();
+        }
+        catch (Throwable e)
+        {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((result, error) -> {
+            if (error != null)
+            {
+                handleFailure(job, error instanceof CompletionException ? error.getCause() : error);
+            }
+            else if (!runnable.executionSucceeded())
+            {
+                handleFailure(job, new IOException("Execution did not succeed."));
+            }
+            else
+            {
+                finish(JobStatus.OK, null);
+            }
+        });
+    }
+
+    /**
+     * Retry the failed job if the retry policy allows it, otherwise finish it as failed.
+     * 
+     * @param job the failed job.
+     * @param e the cause of the failure.
+     */
+    private void handleFailure(Job job, Throwable e)
+    {
+        HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
+        sessionManager.abort();
+
+        if (e instanceof IOException)
+        {
+            LOG.error("Job failed: {} {} parameters={}. {}",
+                jobNumber, job.getQueueName(), job.getParameters(), e.getMessage());
+        }
+        else
+        {
+            LOG.error("Job failed: {} {} parameters={}.",
+                jobNumber, job.getQueueName(), job.getParameters(), e);
+        }
+
+        if (retryPolicy.isRetryable(job.getRetryCount()))
+        {
+            retry(job, e.getMessage());
+        }
+        else
+        {
+            finish(JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Return the failed job to state {@code CREATED} and schedule it for execution after the backoff delay. The job
+     * keeps its entry in the job index, so that duplicates of the job are still rejected.
+     * 
+     * @param job the failed job.
+     * @param resultText the result text or null.
+     */
+    private void retry(Job job, String resultText)
+    {
+        PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
+        TimeService timeService = serviceResources.getService(TimeService.class);
+        JobStateWriter stateWriter = serviceResources.getService(JobStateWriter.class);
+        JobService jobService = serviceResources.getService(JobService.class);
+
+        int retryCount = job.getRetryCount() + 1;
+        long delay = retryPolicy.getDelay(job.getRetryCount());
+        Date notBefore = new Date(timeService.currentTimeMillis() + delay);
+
+        stateWriter.retry(jobNumber, retryCount, notBefore, resultText);
 
         tm.cleanup();
 
+        LOG.info("Retrying job {} {} parameters={} in {}ms, retry {} of {}.",
+            jobNumber, job.getQueueName(), job.getParameters(), delay, retryCount, retryPolicy.getMaxRetries());
+
+        job.setRetryCount(retryCount);
+        job.setNotBefore(notBefore);
+
         callBack.executed(jobNumber);
+
+        jobService.scheduleJob(job);
     }
 
+    /**
+     * Record the end time and the result of the job, release it from the job index and notify the job queue. The
+     * job state writer persists the result with its next group commit.
+     * 
+     * @param status the final job status.
+     * @param resultText the result text or null.
+     */
+    private void finish(JobStatus status, String resultText)
+    {
+        PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
+        TimeService timeService = serviceResources.getService(TimeService.class);
+        JobStateWriter stateWriter = serviceResources.getService(JobStateWriter.class);
+        JobIndex jobIndex = serviceResources.getService(JobIndex.class);
+
+        stateWriter.finished(jobNumber, status, resultText, timeService.newDate());
+        jobIndex.release(jobNumber);
+
+        tm.cleanup();
+
+        callBack.executed(jobNumber);
+    }
 }
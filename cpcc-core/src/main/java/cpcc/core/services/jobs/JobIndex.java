@@ -0,0 +1,67 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.Collection;
+
+import cpcc.core.entities.Job;
+
+/**
+ * Keeps track of the active jobs by queue name and parameter hash, so that adding a job does not require a database
+ * query to detect duplicates.
+ */
+public interface JobIndex
+{
+    /**
+     * Reserve the queue name and parameters of a new job.
+     * 
+     * @param job the new job.
+     * @return true if the reservation succeeded or false, if an active job with the same queue name and parameters
+     *         exists.
+     */
+    boolean reserve(Job job);
+
+    /**
+     * Assign a persisted job to its reservation.
+     * 
+     * @param job the persisted job.
+     */
+    void bind(Job job);
+
+    /**
+     * Cancel the reservation of a job that has not been persisted.
+     * 
+     * @param job the job.
+     */
+    void cancel(Job job);
+
+    /**
+     * Release a finished or removed job.
+     * 
+     * @param jobId the job identification.
+     */
+    void release(int jobId);
+
+    /**
+     * Replace the content of the index with the given active jobs.
+     * 
+     * @param activeJobs the active jobs.
+     */
+    void rebuild(Collection<Job> activeJobs);
+}
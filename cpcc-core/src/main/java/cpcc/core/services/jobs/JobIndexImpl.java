@@ -0,0 +1,104 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import cpcc.core.entities.Job;
+
+/**
+ * JobIndex implementation.
+ */
+public class JobIndexImpl implements JobIndex
+{
+    private static final Integer RESERVED = -1;
+
+    private Map<String, Integer> jobsByKey = new ConcurrentHashMap<>();
+    private Map<Integer, String> keysByJob = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserve(Job job)
+    {
+        return jobsByKey.putIfAbsent(key(job), RESERVED) == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind(Job job)
+    {
+        String key = key(job);
+        keysByJob.put(job.getId(), key);
+        jobsByKey.put(key, job.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancel(Job job)
+    {
+        jobsByKey.remove(key(job), RESERVED);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(int jobId)
+    {
+        String key = keysByJob.remove(jobId);
+        if (key != null)
+        {
+            jobsByKey.remove(key, jobId);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void rebuild(Collection<Job> activeJobs)
+    {
+        jobsByKey.clear();
+        keysByJob.clear();
+        activeJobs.forEach(this::bind);
+    }
+
+    /**
+     * @param job the job.
+     * @return the index key of the job.
+     */
+    private static String key(Job job)
+    {
+        String hash = job.getParametersHash() != null
+            ? job.getParametersHash()
+            : DigestUtils.sha256Hex(job.getParameters());
+
+        return job.getQueueName() + ":" + hash;
+    }
+}
@@ -0,0 +1,76 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import cpcc.core.entities.Job;
+
+/**
+ * Keeps large job payloads out of the job table. Payloads are stored in files named by their content hash, and the
+ * job row carries only the reference to the file.
+ */
+public interface JobPayloadStore
+{
+    /**
+     * Attach a payload to a job. Small payloads are stored inline in the job row, large ones in the store.
+     * 
+     * @param job the job.
+     * @param data the payload or null.
+     * @throws IOException if the payload can not be stored.
+     */
+    void attach(Job job, byte[] data) throws IOException;
+
+    /**
+     * @param job the job.
+     * @return the payload as a read-only buffer, which is memory-mapped for stored payloads, or null, if the job has
+     *         no payload.
+     * @throws UncheckedIOException if the stored payload can not be read.
+     */
+    ByteBuffer getPayload(Job job);
+
+    /**
+     * @param job the job.
+     * @return a stream reading the payload from the buffer {@link #getPayload(Job)} returns, so that a stored payload
+     *         is read from the memory map without being copied onto the heap, or null, if the job has no payload.
+     * @throws UncheckedIOException if the stored payload can not be read.
+     */
+    InputStream getPayloadStream(Job job);
+
+    /**
+     * Copies a stored payload onto the heap. Meant for small payloads, e.g. acknowledgments. Large payloads should be
+     * read through {@link #getPayloadStream(Job)} instead.
+     * 
+     * @param job the job.
+     * @return the payload or null, if the job has no payload.
+     * @throws UncheckedIOException if the stored payload can not be read.
+     */
+    byte[] getData(Job job);
+
+    /**
+     * Delete the stored payloads that no job references anymore.
+     * 
+     * @param references the payload references of all existing jobs.
+     */
+    void removeUnreferenced(Collection<String> references);
+}
@@ -0,0 +1,304 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.core.base.CoreConstants;
+import cpcc.core.entities.Job;
+
+/**
+ * JobPayloadStore implementation.
+ * 
+ * <p>
+ * Each stored payload is a file named by the SHA-256 hash of its content, so jobs carrying the same payload share one
+ * file. Files are written to a temporary name first and renamed, so a reader never sees a partial payload. The store
+ * is disabled, and all payloads are stored inline, as long as no payload directory is configured. There is no default
+ * directory, because several real vehicles may run on one host, and one instance would remove the payloads of another
+ * from a shared directory.
+ * </p>
+ * 
+ * <p>
+ * Stored payloads are memory-mapped. Consumers of large payloads read them through {@link #getPayloadStream(Job)},
+ * which does not copy them onto the heap.
+ * </p>
+ */
+public class JobPayloadStoreImpl implements JobPayloadStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JobPayloadStoreImpl.class);
+
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Unreferenced files younger than this are kept, because the job referencing them may not yet be committed.
+     */
+    private static final long REMOVAL_GRACE_PERIOD = 60000;
+
+    private Path directory;
+    private int inlineLimit;
+
+    /**
+     * @param directory the payload directory or an empty string to store all payloads inline.
+     * @param inlineLimit the size in bytes up to which payloads are stored inline.
+     */
+    public JobPayloadStoreImpl(@Symbol(CoreConstants.PROP_JOB_PAYLOAD_DIR) String directory,
+        @Symbol(CoreConstants.PROP_JOB_PAYLOAD_INLINE_LIMIT) int inlineLimit)
+    {
+        this.directory = StringUtils.isBlank(directory) ? null : Paths.get(directory);
+        this.inlineLimit = inlineLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attach(Job job, byte[] data) throws IOException
+    {
+        if (directory == null || ArrayUtils.getLength(data) <= inlineLimit)
+        {
+            job.setData(data);
+            job.setPayloadRef(null);
+            return;
+        }
+
+        job.setData(null);
+        job.setPayloadRef(store(data));
+    }
+
+    /**
+     * @param data the payload.
+     * @return the reference of the stored payload.
+     * @throws IOException if the payload can not be stored.
+     */
+    private String store(byte[] data) throws IOException
+    {
+        String reference = DigestUtils.sha256Hex(data);
+        Path file = directory.resolve(reference);
+
+        if (Files.exists(file))
+        {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return reference;
+        }
+
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, reference, ".tmp");
+
+        try
+        {
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+
+        return reference;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer getPayload(Job job)
+    {
+        String reference = job.getPayloadRef();
+        if (reference == null)
+        {
+            return job.getData() != null ? ByteBuffer.wrap(job.getData()).asReadOnlyBuffer() : null;
+        }
+
+        try (FileChannel channel = FileChannel.open(resolve(reference), StandardOpenOption.READ))
+        {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Can not read payload " + reference + " of job " + job.getId(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getPayloadStream(Job job)
+    {
+        ByteBuffer payload = getPayload(job);
+        return payload != null ? new ByteBufferInputStream(payload) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getData(Job job)
+    {
+        if (job.getPayloadRef() == null)
+        {
+            return job.getData();
+        }
+
+        ByteBuffer payload = getPayload(job);
+        byte[] data = new byte[payload.remaining()];
+        payload.get(data);
+        return data;
+    }
+
+    /**
+     * @param reference the payload reference.
+     * @return the path of the payload file.
+     * @throws IOException if the reference is invalid or the store is disabled.
+     */
+    private Path resolve(String reference) throws IOException
+    {
+        if (directory == null)
+        {
+            throw new IOException("No job payload directory configured.");
+        }
+
+        if (!REFERENCE_PATTERN.matcher(reference).matches())
+        {
+            throw new IOException("Invalid payload reference " + reference);
+        }
+
+        return directory.resolve(reference);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeUnreferenced(Collection<String> references)
+    {
+        if (directory == null || !Files.isDirectory(directory))
+        {
+            return;
+        }
+
+        Set<String> referenced = new HashSet<>(references);
+        long limit = System.currentTimeMillis() - REMOVAL_GRACE_PERIOD;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                if (!referenced.contains(file.getFileName().toString())
+                    && Files.getLastModifiedTime(file).toMillis() < limit)
+                {
+                    LOG.debug("Removing unreferenced job payload {}", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.error("Can not remove unreferenced job payloads from {}", directory, e);
+        }
+    }
+
+    /**
+     * An input stream reading the remaining bytes of a buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private ByteBuffer buffer;
+
+        /**
+         * @param buffer the buffer to read.
+         */
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining())
+            {
+                return -1;
+            }
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long skip(long n)
+        {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+}
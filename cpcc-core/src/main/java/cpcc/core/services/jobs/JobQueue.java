@@ -26,41 +26,40 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
 
 import cpcc.core.entities.Job;
-import cpcc.core.entities.JobStatus;
 
 /**
- * JobQueue implementation.
+ * JobQueue implementation. The {@link FairJobScheduler} decides the order in which queued jobs get the pool threads,
+ * based on the {@link JobClass} the job runnable factories assign to the jobs.
  */
 public class JobQueue implements JobQueueCallback
 {
-    private HibernateSessionManager sessionManager;
     private TimeService timeService;
     private List<JobRunnableFactory> factoryList;
     private ExecutorService executorService;
+    private FairJobScheduler scheduler;
     private ServiceResources serviceResources;
+    private JobRetryPolicy retryPolicy = JobRetryPolicy.NONE;
 
     private Map<Integer, Runnable> taskMap = Collections.synchronizedMap(new HashMap<>());
     private List<Integer> doneList = new ArrayList<>();
 
     /**
      * @param queueName the (unique) name of this queue.
-     * @param sessionManager the Hibernate session manager.
      * @param timeService the time service.
      * @param factoryList the factory list.
      * @param numberOfPoolThreads the number of pool threads to be used.
      */
-    public JobQueue(String queueName, HibernateSessionManager sessionManager, TimeService timeService,
-        List<JobRunnableFactory> factoryList, int numberOfPoolThreads)
+    public JobQueue(String queueName, TimeService timeService, List<JobRunnableFactory> factoryList,
+        int numberOfPoolThreads)
     {
-        this.sessionManager = sessionManager;
         this.timeService = timeService;
         this.factoryList = factoryList;
 
         executorService = Executors.newFixedThreadPool(numberOfPoolThreads, new JobQueueThreadFactory(queueName));
+        scheduler = new FairJobScheduler(executorService, numberOfPoolThreads);
     }
 
     /**
@@ -71,6 +70,31 @@ public class JobQueue implements JobQueueCallback
         this.serviceResources = serviceResources;
     }
 
+    /**
+     * @param type the job type.
+     * @param weight the share of pool threads jobs of this type get relative to other types. The default is 1.
+     */
+    public void setTypeWeight(String type, int weight)
+    {
+        scheduler.setWeight(type, weight);
+    }
+
+    /**
+     * @param maxJobsPerDestination the maximum number of jobs running concurrently per destination.
+     */
+    public void setMaxJobsPerDestination(int maxJobsPerDestination)
+    {
+        scheduler.setMaxJobsPerDestination(maxJobsPerDestination);
+    }
+
+    /**
+     * @param retryPolicy the retry policy for failed jobs. The default is not to retry failed jobs.
+     */
+    public void setRetryPolicy(JobRetryPolicy retryPolicy)
+    {
+        this.retryPolicy = retryPolicy;
+    }
+
     /**
      * @param job the job to execute.
      * @throws JobExecutionException on errors.
@@ -79,25 +103,40 @@ public class JobQueue implements JobQueueCallback
     {
         cleanupTaskMap();
 
-        if (taskMap.containsKey(job.getId()))
+        JobExecutor executor = new JobExecutor(serviceResources, factoryList, job.getId(), this, retryPolicy);
+
+        synchronized (taskMap)
         {
-            throw new JobExecutionException("Job " + job.getId() + " is already executing! "
-                + "Status is " + job.getStatus());
+            if (taskMap.containsKey(job.getId()))
+            {
+                throw new JobExecutionException("Job " + job.getId() + " is already executing! "
+                    + "Status is " + job.getStatus());
+            }
+
+            taskMap.put(job.getId(), executor);
         }
 
-        job.setQueued(timeService.newDate());
-        job.setStatus(JobStatus.QUEUED);
-        sessionManager.getSession().update(job);
-        sessionManager.commit();
+        serviceResources.getService(JobStateWriter.class).queued(job.getId(), timeService.newDate());
 
-        JobExecutor executor = new JobExecutor(serviceResources, factoryList, job.getId(), this);
+        scheduler.submit(job.getId(), classify(job), executor);
+    }
 
-        synchronized (taskMap)
+    /**
+     * @param job the job.
+     * @return the scheduling class the first factory assigns to the job or the default class.
+     */
+    private JobClass classify(Job job)
+    {
+        for (JobRunnableFactory factory : factoryList)
         {
-            taskMap.put(job.getId(), executor);
+            JobClass jobClass = factory.classify(serviceResources, job);
+            if (jobClass != null)
+            {
+                return jobClass;
+            }
         }
 
-        executorService.execute(executor);
+        return JobClass.DEFAULT;
     }
 
     /**
@@ -129,5 +168,7 @@ public class JobQueue implements JobQueueCallback
         {
             doneList.add(jobId);
         }
+
+        scheduler.executed(jobId);
     }
 }
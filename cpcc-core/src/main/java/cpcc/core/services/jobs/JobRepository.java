@@ -18,6 +18,7 @@
 
 package cpcc.core.services.jobs;
 
+import java.util.Collection;
 import java.util.List;
 
 import cpcc.core.entities.Job;
@@ -39,11 +40,15 @@ public interface JobRepository
     Job findJobById(int id);
 
     /**
-     * @param queueName the execution queue name.
-     * @param parameters the job parameters.
-     * @return a list of existing jobs matching queue name and parameters.
+     * @param ids the job identifications.
+     * @return the jobs found.
      */
-    List<Job> findOtherRunningJob(String queueName, String parameters);
+    List<Job> findJobsByIds(Collection<Integer> ids);
+
+    /**
+     * @return the list of all jobs not yet finished.
+     */
+    List<Job> findActiveJobs();
 
     /**
      * @return the next job for execution.
@@ -57,7 +62,14 @@ public interface JobRepository
 
     /**
      * Remove old jobs from the history.
+     * 
+     * @return the identifications of the removed jobs.
+     */
+    List<Integer> removeOldJobs();
+
+    /**
+     * @return the payload references of all jobs having their payload in the job payload store.
      */
-    void removeOldJobs();
+    List<String> findPayloadReferences();
 
 }
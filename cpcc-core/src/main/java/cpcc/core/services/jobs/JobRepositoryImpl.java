@@ -18,7 +18,9 @@
 
 package cpcc.core.services.jobs;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -38,10 +40,9 @@ public class JobRepositoryImpl implements JobRepository
 {
     private static final Logger LOG = LoggerFactory.getLogger(JobRepositoryImpl.class);
 
-    private static final String PARAMETERS = "parameters";
     private static final String STATUS = "status";
-    private static final String QUEUE_NAME = "queueName";
     private static final String ID = "id";
+    private static final String IDS = "ids";
 
     private static final JobStatus[] ACTIVE_JOB_STATES = {JobStatus.CREATED, JobStatus.QUEUED, JobStatus.RUNNING};
 
@@ -87,15 +88,22 @@ public class JobRepositoryImpl implements JobRepository
      * {@inheritDoc}
      */
     @Override
-    public List<Job> findOtherRunningJob(String queueName, String parameters)
+    public List<Job> findJobsByIds(Collection<Integer> ids)
     {
         return sessionManager.getSession()
-            .createQuery("FROM Job "
-                + "WHERE queueName = :queueName "
-                + "AND parameters = :parameters "
-                + "AND status IN (:status)", Job.class)
-            .setParameter(QUEUE_NAME, queueName)
-            .setParameter(PARAMETERS, parameters)
+            .createQuery("FROM Job WHERE id IN (:ids)", Job.class)
+            .setParameterList(IDS, ids)
+            .list();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Job> findActiveJobs()
+    {
+        return sessionManager.getSession()
+            .createQuery("FROM Job WHERE status IN (:status)", Job.class)
             .setParameterList(STATUS, ACTIVE_JOB_STATES)
             .list();
     }
@@ -140,7 +148,7 @@ public class JobRepositoryImpl implements JobRepository
      * {@inheritDoc}
      */
     @Override
-    public void removeOldJobs()
+    public List<Integer> removeOldJobs()
     {
         Date jobAgeLimit = new Date(System.currentTimeMillis() - maxJobAge);
         Date halfMinuteLimit = new Date(System.currentTimeMillis() - 30000);
@@ -155,12 +163,28 @@ public class JobRepositoryImpl implements JobRepository
             .setParameterList("endedStatus", new Object[]{JobStatus.OK, JobStatus.FAILED, JobStatus.NO_FACTORY})
             .list();
 
+        List<Integer> removedJobIds = new ArrayList<>();
+
         for (Job job : oldJobs)
         {
             LOG.debug("Removing old job {} {} {} {}",
                 job.getId(), job.getQueued(), job.getQueueName(), job.getParameters());
 
             sessionManager.getSession().delete(job);
+            removedJobIds.add(job.getId());
         }
+
+        return removedJobIds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findPayloadReferences()
+    {
+        return sessionManager.getSession()
+            .createQuery("SELECT DISTINCT payloadRef FROM Job WHERE payloadRef IS NOT NULL", String.class)
+            .list();
     }
 }
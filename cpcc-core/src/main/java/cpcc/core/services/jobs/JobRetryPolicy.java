@@ -0,0 +1,78 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed job runs again. The delay before a retry grows exponentially with the number of
+ * retries up to a maximum. The actual delay is drawn at random from the upper half of this range, so that jobs
+ * failing at the same time do not retry at the same time.
+ */
+public class JobRetryPolicy
+{
+    public static final JobRetryPolicy NONE = new JobRetryPolicy(0, 0, 0);
+
+    private static final int MAX_SHIFT = 30;
+
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+
+    /**
+     * @param maxRetries the maximum number of retries of a job.
+     * @param baseDelay the delay before the first retry in milliseconds.
+     * @param maxDelay the maximum delay before a retry in milliseconds.
+     */
+    public JobRetryPolicy(int maxRetries, long baseDelay, long maxDelay)
+    {
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @return the maximum number of retries of a job.
+     */
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    /**
+     * @param retryCount the number of retries the job already had.
+     * @return true if the job may run again.
+     */
+    public boolean isRetryable(int retryCount)
+    {
+        return retryCount < maxRetries;
+    }
+
+    /**
+     * @param retryCount the number of retries the job already had.
+     * @return the delay before the next retry in milliseconds.
+     */
+    public long getDelay(int retryCount)
+    {
+        long delay = Math.min(maxDelay, baseDelay << Math.min(retryCount, MAX_SHIFT));
+        long half = delay / 2;
+
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+}
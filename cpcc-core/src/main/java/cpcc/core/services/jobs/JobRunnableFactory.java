@@ -33,4 +33,14 @@ public interface JobRunnableFactory
      * @return a newly created {@code JobRunnable}.
      */
     JobRunnable createRunnable(ServiceResources serviceResources, Job job);
+
+    /**
+     * @param serviceResources the service resources.
+     * @param job the job entry in the database.
+     * @return the scheduling class of the job or null, if this factory does not classify the job.
+     */
+    default JobClass classify(ServiceResources serviceResources, Job job)
+    {
+        return null;
+    }
 }
@@ -18,12 +18,18 @@
 
 package cpcc.core.services.jobs;
 
+import java.util.Date;
+
+import cpcc.core.entities.Job;
+
 /**
  * JobService interface.
  */
 public interface JobService
 {
     /**
+     * Persist a new job and hand it over to its queue for immediate execution.
+     * 
      * @param queueName the name of the queue for executing the job.
      * @param parameters the job parameters.
      * @throws JobCreationException in case of errors.
@@ -46,6 +52,17 @@ public interface JobService
      */
     void addJob(String queueName, String parameters, byte[] data) throws JobCreationException;
 
+    /**
+     * Persist a new job and hand it over to its queue as soon as the given time has come.
+     * 
+     * @param queueName the name of the queue for executing the job.
+     * @param parameters the job parameters.
+     * @param data the job data.
+     * @param notBefore the earliest time of execution or null, to execute the job immediately.
+     * @throws JobCreationException in case of errors.
+     */
+    void addJob(String queueName, String parameters, byte[] data, Date notBefore) throws JobCreationException;
+
     /**
      * Add a job if it is not already queued.
      * 
@@ -56,12 +73,21 @@ public interface JobService
     void addJobIfNotExists(String queueName, String parameters, byte[] data);
     
     /**
-     * Execute pending jobs. This method should be invoked periodically by the {@code PeriodicExecutor}.
+     * Execute pending jobs left over in the database, e.g., after a restart. Jobs added by {@code addJob()} are
+     * dispatched immediately and do not depend on this method. This method should be invoked at a low rate by the
+     * {@code PeriodicExecutor}.
      * 
      * @throws JobExecutionException in case of errors.
      */
     void executeJobs() throws JobExecutionException;
 
+    /**
+     * Hand over a persisted job to its queue as soon as its not-before time has come, e.g., to retry a failed job.
+     * 
+     * @param job the job.
+     */
+    void scheduleJob(Job job);
+
     /**
      * @param name the name of the job queue to add.
      * @param jobQueue the job queue to add.
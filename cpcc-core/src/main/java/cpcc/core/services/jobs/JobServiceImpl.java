@@ -18,14 +18,18 @@
 
 package cpcc.core.services.jobs;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,25 +43,44 @@ public class JobServiceImpl implements JobService
 {
     private static final Logger LOG = LoggerFactory.getLogger(JobServiceImpl.class);
 
+    private static final long DISPATCH_GRACE_PERIOD = 10000;
+    private static final long TIMER_TICK_DURATION = 100;
+    private static final int TIMER_TICKS_PER_WHEEL = 512;
+
     private ServiceResources serviceResources;
     private HibernateSessionManager sessionManager;
     private JobRepository jobRepository;
     private TimeService timeService;
-    private Map<String, JobQueue> queueMap = new HashMap<>();
+    private JobStateWriter stateWriter;
+    private JobPayloadStore payloadStore;
+    private JobIndex jobIndex;
+    private Map<String, JobQueue> queueMap = new ConcurrentHashMap<>();
+    private JobTimerWheel timerWheel = new JobTimerWheel("Job Timer", TIMER_TICK_DURATION, TIMER_TICKS_PER_WHEEL);
 
     /**
      * @param serviceResources the service resources.
+     * @param shutdownHub the registry shutdown hub.
      * @param sessionManager the Hibernate session manager.
      * @param jobRepository the job repository.
      * @param timeService the time service.
+     * @param stateWriter the job state writer.
+     * @param payloadStore the job payload store.
+     * @param jobIndex the index of active jobs.
      */
-    public JobServiceImpl(ServiceResources serviceResources, HibernateSessionManager sessionManager,
-        JobRepository jobRepository, TimeService timeService)
+    public JobServiceImpl(ServiceResources serviceResources, RegistryShutdownHub shutdownHub,
+        HibernateSessionManager sessionManager, JobRepository jobRepository, TimeService timeService,
+        JobStateWriter stateWriter, JobPayloadStore payloadStore, JobIndex jobIndex)
     {
         this.serviceResources = serviceResources;
         this.sessionManager = sessionManager;
         this.jobRepository = jobRepository;
         this.timeService = timeService;
+        this.stateWriter = stateWriter;
+        this.payloadStore = payloadStore;
+        this.jobIndex = jobIndex;
+
+        Runnable shutdown = timerWheel::stop;
+        shutdownHub.addRegistryShutdownListener(shutdown);
     }
 
     /**
@@ -115,7 +138,16 @@ public class JobServiceImpl implements JobService
      * {@inheritDoc}
      */
     @Override
-    public void addJob(String queueName, String params, byte[] data) throws JobCreationException
+    public void addJob(String queueName, String parameters, byte[] data) throws JobCreationException
+    {
+        addJob(queueName, parameters, data, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addJob(String queueName, String params, byte[] data, Date notBefore) throws JobCreationException
     {
         if (!queueMap.containsKey(queueName))
         {
@@ -126,22 +158,100 @@ public class JobServiceImpl implements JobService
             ? params
             : params + ",len=" + data.length + ",md5=" + DigestUtils.md5Hex(data);
 
-        List<Job> jobList = jobRepository.findOtherRunningJob(queueName, parameters);
-        if (!jobList.isEmpty())
-        {
-            throw new JobCreationException("Job already executing in queue='" + queueName + "', parameters='"
-                + parameters + "'");
-        }
-
         Job job = new Job();
         job.setStatus(JobStatus.CREATED);
         job.setCreated(timeService.newDate());
         job.setQueueName(queueName);
         job.setParameters(parameters);
-        job.setData(data);
+        job.setNotBefore(notBefore);
 
-        sessionManager.getSession().save(job);
-        sessionManager.commit();
+        if (!jobIndex.reserve(job))
+        {
+            throw new JobCreationException("Job already executing in queue='" + queueName + "', parameters='"
+                + parameters + "'");
+        }
+
+        try
+        {
+            payloadStore.attach(job, data);
+            sessionManager.getSession().save(job);
+            sessionManager.commit();
+        }
+        catch (IOException e)
+        {
+            jobIndex.cancel(job);
+            throw new JobCreationException("Can not store payload of job in queue='" + queueName + "', parameters='"
+                + parameters + "'", e);
+        }
+        catch (RuntimeException e)
+        {
+            jobIndex.cancel(job);
+            throw e;
+        }
+
+        jobIndex.bind(job);
+
+        dispatch(job);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void scheduleJob(Job job)
+    {
+        dispatch(job);
+    }
+
+    /**
+     * Hand over a persisted job to its queue as soon as its not-before time has come. Jobs failing here remain in the
+     * database in state {@code CREATED} and will be picked up by {@code executeJobs()}.
+     * 
+     * @param job the job to dispatch.
+     */
+    private void dispatch(Job job)
+    {
+        if (job.getNotBefore() == null || job.getNotBefore().getTime() <= timeService.currentTimeMillis())
+        {
+            dispatchNow(job);
+            return;
+        }
+
+        timerWheel.schedule(job.getNotBefore().getTime(), () -> {
+            try
+            {
+                dispatchNow(job);
+            }
+            finally
+            {
+                serviceResources.getService(PerthreadManager.class).cleanup();
+            }
+        });
+    }
+
+    /**
+     * @param job the job to hand over to its queue for immediate execution.
+     */
+    private void dispatchNow(Job job)
+    {
+        JobQueue queue = queueMap.get(job.getQueueName());
+        if (queue == null)
+        {
+            LOG.warn("No queue {} registered for job {}, parameters={}",
+                job.getQueueName(), job.getId(), job.getParameters());
+            return;
+        }
+
+        try
+        {
+            queue.execute(job);
+            LOG.debug("Dispatched job: {}, queue: {}, params: {}", job.getId(), job.getQueueName(),
+                job.getParameters());
+        }
+        catch (JobExecutionException e)
+        {
+            LOG.error("Buggerit!", e);
+        }
     }
 
     /**
@@ -150,21 +260,24 @@ public class JobServiceImpl implements JobService
     @Override
     public void executeJobs() throws JobExecutionException
     {
-        synchronized (JobService.class)
+        long dispatchLimit = timeService.currentTimeMillis() - DISPATCH_GRACE_PERIOD;
+
+        for (Job job : jobRepository.findNextScheduledJobs())
         {
-            for (Job job : jobRepository.findNextScheduledJobs())
+            Date due = job.getNotBefore() != null ? job.getNotBefore() : job.getCreated();
+            if (due != null && due.getTime() > dispatchLimit)
+            {
+                // Freshly created jobs are being dispatched by addJob(), delayed jobs by the timer wheel.
+                continue;
+            }
+
+            if (stateWriter.getPendingStatus(job.getId()) != null)
             {
-                try
-                {
-                    queueMap.get(job.getQueueName()).execute(job);
-                    LOG.debug("Executed job: {}, queue: {}, params: {}, result: {}",
-                        job.getId(), job.getQueueName(), job.getParameters(), job.getResultText());
-                }
-                catch (JobExecutionException e)
-                {
-                    LOG.error("Buggerit!", e);
-                }
+                // The job has already been dispatched, but its new state is not yet committed.
+                continue;
             }
+
+            dispatch(job);
         }
     }
 
@@ -174,8 +287,17 @@ public class JobServiceImpl implements JobService
     @Override
     public void resetJobs()
     {
+        stateWriter.flush();
         jobRepository.resetJobs();
         sessionManager.commit();
+
+        List<Job> activeJobs = jobRepository.findActiveJobs();
+        jobIndex.rebuild(activeJobs);
+
+        long now = timeService.currentTimeMillis();
+        activeJobs.stream()
+            .filter(x -> x.getNotBefore() != null && x.getNotBefore().getTime() > now)
+            .forEach(this::dispatch);
     }
 
     /**
@@ -184,7 +306,9 @@ public class JobServiceImpl implements JobService
     @Override
     public void removeOldJobs()
     {
-        jobRepository.removeOldJobs();
+        List<Integer> removedJobIds = jobRepository.removeOldJobs();
         sessionManager.commit();
+        removedJobIds.forEach(jobIndex::release);
+        payloadStore.removeUnreferenced(jobRepository.findPayloadReferences());
     }
 }
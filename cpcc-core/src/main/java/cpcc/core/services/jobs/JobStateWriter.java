@@ -0,0 +1,78 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.Date;
+
+import cpcc.core.entities.JobStatus;
+
+/**
+ * Collects the status transitions of jobs from all job queues and persists them in periodic group commits instead of
+ * committing each transition on its own.
+ */
+public interface JobStateWriter
+{
+    /**
+     * Record that a job has been handed over to its queue.
+     * 
+     * @param jobId the job identification.
+     * @param queued the time the job was queued.
+     */
+    void queued(int jobId, Date queued);
+
+    /**
+     * Record that a job has been started.
+     * 
+     * @param jobId the job identification.
+     * @param start the time the job was started.
+     */
+    void running(int jobId, Date start);
+
+    /**
+     * Record that a job has been finished.
+     * 
+     * @param jobId the job identification.
+     * @param status the final job status.
+     * @param resultText the result text or null.
+     * @param end the time the job was finished.
+     */
+    void finished(int jobId, JobStatus status, String resultText, Date end);
+
+    /**
+     * Record that a failed job will be executed again. The job returns to state {@code CREATED}.
+     * 
+     * @param jobId the job identification.
+     * @param retryCount the number of retries including this one.
+     * @param notBefore the earliest time of the retry.
+     * @param resultText the result text of the failed execution or null.
+     */
+    void retry(int jobId, int retryCount, Date notBefore, String resultText);
+
+    /**
+     * @param jobId the job identification.
+     * @return the status not yet committed to the database or null, if there is none.
+     */
+    JobStatus getPendingStatus(int jobId);
+
+    /**
+     * Persist all pending status transitions in one transaction. The transaction is committed in the session of the
+     * calling thread, which stays open afterwards.
+     */
+    void flush();
+}
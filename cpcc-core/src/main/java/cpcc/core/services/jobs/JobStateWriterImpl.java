@@ -0,0 +1,296 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.core.base.CoreConstants;
+import cpcc.core.entities.Job;
+import cpcc.core.entities.JobStatus;
+
+/**
+ * JobStateWriter implementation.
+ * 
+ * <p>
+ * Transitions of the same job are coalesced, so a job that is queued, started and finished within one flush interval
+ * costs a single update. A background thread flushes the pending transitions every flush interval, which bounds the
+ * staleness of the job table. A failed flush keeps its transitions for the next attempt. Transitions lost in a crash
+ * leave the jobs in state {@code CREATED}, {@code QUEUED} or {@code RUNNING}, which {@code JobService.resetJobs()}
+ * turns into {@code CREATED} again.
+ * </p>
+ */
+public class JobStateWriterImpl implements JobStateWriter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JobStateWriterImpl.class);
+
+    private HibernateSessionManager sessionManager;
+    private PerthreadManager perthreadManager;
+    private JobRepository jobRepository;
+
+    private final Object flushLock = new Object();
+    private Map<Integer, PendingState> pending = new HashMap<>();
+    private Map<Integer, PendingState> inFlight = Collections.emptyMap();
+
+    /**
+     * @param sessionManager the Hibernate session manager.
+     * @param perthreadManager the per-thread manager.
+     * @param jobRepository the job repository.
+     * @param shutdownHub the registry shutdown hub.
+     * @param flushInterval the time between two flushes in milliseconds.
+     */
+    public JobStateWriterImpl(HibernateSessionManager sessionManager, PerthreadManager perthreadManager,
+        JobRepository jobRepository, RegistryShutdownHub shutdownHub,
+        @Symbol(CoreConstants.PROP_JOB_STATE_FLUSH_INTERVAL) long flushInterval)
+    {
+        this.sessionManager = sessionManager;
+        this.perthreadManager = perthreadManager;
+        this.jobRepository = jobRepository;
+
+        ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new JobQueueThreadFactory("Job State Writer"));
+        executor.scheduleWithFixedDelay(this::flushInBackground, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+        shutdownHub.addRegistryShutdownListener(() -> {
+            executor.shutdownNow();
+            flushInBackground();
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void queued(int jobId, Date queued)
+    {
+        record(jobId, new PendingState(JobStatus.QUEUED, queued, null, null, null, null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void running(int jobId, Date start)
+    {
+        record(jobId, new PendingState(JobStatus.RUNNING, null, start, null, null, null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void finished(int jobId, JobStatus status, String resultText, Date end)
+    {
+        record(jobId, new PendingState(status, null, null, end, resultText, null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void retry(int jobId, int retryCount, Date notBefore, String resultText)
+    {
+        record(jobId, new PendingState(JobStatus.CREATED, null, null, null, resultText, retryCount, notBefore));
+    }
+
+    /**
+     * @param jobId the job identification.
+     * @param state the new state of the job.
+     */
+    private synchronized void record(int jobId, PendingState state)
+    {
+        pending.merge(jobId, state, PendingState::merge);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized JobStatus getPendingStatus(int jobId)
+    {
+        PendingState state = pending.get(jobId);
+        if (state == null)
+        {
+            state = inFlight.get(jobId);
+        }
+
+        return state != null ? state.status : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush()
+    {
+        synchronized (flushLock)
+        {
+            Map<Integer, PendingState> snapshot = takePending();
+            if (snapshot.isEmpty())
+            {
+                return;
+            }
+
+            boolean committed = false;
+
+            try
+            {
+                for (Job job : jobRepository.findJobsByIds(snapshot.keySet()))
+                {
+                    snapshot.get(job.getId()).applyTo(job);
+                    sessionManager.getSession().update(job);
+                }
+
+                sessionManager.commit();
+                committed = true;
+                LOG.debug("Flushed {} job state transitions.", snapshot.size());
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("Flushing {} job state transitions failed.", snapshot.size(), e);
+                sessionManager.abort();
+            }
+            finally
+            {
+                release(snapshot, committed);
+            }
+        }
+    }
+
+    /**
+     * Flush on the writer thread, which owns its per-thread resources. Callers of {@code flush()} keep theirs.
+     */
+    private void flushInBackground()
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            perthreadManager.cleanup();
+        }
+    }
+
+    /**
+     * @return the pending transitions, which are in flight until released.
+     */
+    private synchronized Map<Integer, PendingState> takePending()
+    {
+        if (pending.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+
+        inFlight = pending;
+        pending = new HashMap<>();
+        return inFlight;
+    }
+
+    /**
+     * @param snapshot the transitions in flight.
+     * @param committed true if the transitions have been committed.
+     */
+    private synchronized void release(Map<Integer, PendingState> snapshot, boolean committed)
+    {
+        inFlight = Collections.emptyMap();
+
+        if (!committed)
+        {
+            snapshot.forEach((jobId, state) -> pending.merge(jobId, state, (newer, older) -> older.merge(newer)));
+        }
+    }
+
+    /**
+     * The coalesced state changes of a job. Fields that are null leave the job unchanged.
+     */
+    private static class PendingState
+    {
+        private JobStatus status;
+        private Date queued;
+        private Date start;
+        private Date end;
+        private String resultText;
+        private Integer retryCount;
+        private Date notBefore;
+
+        /**
+         * @param status the job status.
+         * @param queued the time the job was queued.
+         * @param start the time the job was started.
+         * @param end the time the job was finished.
+         * @param resultText the result text.
+         * @param retryCount the number of retries.
+         * @param notBefore the earliest time of the next execution.
+         */
+        PendingState(JobStatus status, Date queued, Date start, Date end, String resultText, Integer retryCount,
+            Date notBefore)
+        {
+            this.status = status;
+            this.queued = queued;
+            this.start = start;
+            this.end = end;
+            this.resultText = resultText;
+            this.retryCount = retryCount;
+            this.notBefore = notBefore;
+        }
+
+        /**
+         * @param newer the more recent state changes.
+         * @return this instance, updated by the more recent state changes.
+         */
+        PendingState merge(PendingState newer)
+        {
+            status = newer.status != null ? newer.status : status;
+            queued = newer.queued != null ? newer.queued : queued;
+            start = newer.start != null ? newer.start : start;
+            end = newer.end != null ? newer.end : end;
+            resultText = newer.resultText != null ? newer.resultText : resultText;
+            retryCount = newer.retryCount != null ? newer.retryCount : retryCount;
+            notBefore = newer.notBefore != null ? newer.notBefore : notBefore;
+            return this;
+        }
+
+        /**
+         * @param job the job to be updated.
+         */
+        void applyTo(Job job)
+        {
+            job.setStatus(status != null ? status : job.getStatus());
+            job.setQueued(queued != null ? queued : job.getQueued());
+            job.setStart(start != null ? start : job.getStart());
+            job.setEnd(end != null ? end : job.getEnd());
+            job.setResultText(resultText != null ? resultText : job.getResultText());
+            job.setRetryCount(retryCount != null ? retryCount : job.getRetryCount());
+            job.setNotBefore(notBefore != null ? notBefore : job.getNotBefore());
+        }
+    }
+}
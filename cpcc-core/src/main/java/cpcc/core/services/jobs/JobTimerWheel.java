@@ -0,0 +1,210 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timer wheel that runs tasks at their deadlines.
+ * 
+ * <p>
+ * The wheel consists of a ring of buckets, each covering one tick. A task goes into the bucket of its deadline and
+ * carries the number of full wheel rounds left until it is due. A single thread advances the wheel by one bucket per
+ * tick and runs the due tasks of that bucket, so scheduling a task costs O(1) no matter how many tasks are waiting.
+ * Tasks run on the wheel thread and should only hand over work to other threads.
+ * </p>
+ */
+public class JobTimerWheel
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JobTimerWheel.class);
+
+    private final String name;
+    private final long tickDuration;
+    private final Deque<Timeout>[] buckets;
+    private final int mask;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+    private Thread worker;
+    private long startTime;
+    private long tick;
+
+    /**
+     * @param name the name of the wheel thread.
+     * @param tickDuration the duration of a tick in milliseconds.
+     * @param ticksPerWheel the number of buckets, rounded up to the next power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public JobTimerWheel(String name, long tickDuration, int ticksPerWheel)
+    {
+        if (tickDuration < 1 || ticksPerWheel < 1)
+        {
+            throw new IllegalArgumentException("Invalid tick duration " + tickDuration
+                + " or ticks per wheel " + ticksPerWheel);
+        }
+
+        this.name = name;
+        this.tickDuration = tickDuration;
+
+        int size = Integer.highestOneBit(ticksPerWheel);
+        size = size < ticksPerWheel ? size << 1 : size;
+
+        buckets = new Deque[size];
+        for (int k = 0; k < size; ++k)
+        {
+            buckets[k] = new ArrayDeque<>();
+        }
+
+        mask = size - 1;
+    }
+
+    /**
+     * Run a task as soon as its deadline has passed. Deadlines in the past run the task with the next tick.
+     * 
+     * @param deadline the deadline in milliseconds since the epoch.
+     * @param task the task.
+     */
+    public void schedule(long deadline, Runnable task)
+    {
+        newTimeouts.add(new Timeout(deadline, task));
+        start();
+    }
+
+    /**
+     * Stop the wheel thread. Tasks not yet run are discarded.
+     */
+    public synchronized void stop()
+    {
+        if (worker != null)
+        {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Start the wheel thread on first use.
+     */
+    private synchronized void start()
+    {
+        if (worker != null)
+        {
+            return;
+        }
+
+        startTime = System.currentTimeMillis();
+        worker = new JobQueueThreadFactory(name).newThread(this::run);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * The loop of the wheel thread.
+     */
+    private void run()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            long sleepTime = startTime + (tick + 1) * tickDuration - System.currentTimeMillis();
+
+            if (sleepTime > 0)
+            {
+                try
+                {
+                    Thread.sleep(sleepTime);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            transferTimeouts();
+            expireTimeouts(buckets[(int) (tick & mask)]);
+            ++tick;
+        }
+    }
+
+    /**
+     * Move the newly scheduled tasks into the buckets of their deadlines.
+     */
+    private void transferTimeouts()
+    {
+        for (Timeout timeout = newTimeouts.poll(); timeout != null; timeout = newTimeouts.poll())
+        {
+            long calculated = Math.max(0, (timeout.deadline - startTime) / tickDuration);
+            timeout.remainingRounds = (calculated - tick) / buckets.length;
+            buckets[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * @param bucket the bucket of the current tick.
+     */
+    private static void expireTimeouts(Deque<Timeout> bucket)
+    {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext();)
+        {
+            Timeout timeout = it.next();
+
+            if (timeout.remainingRounds > 0)
+            {
+                --timeout.remainingRounds;
+                continue;
+            }
+
+            it.remove();
+
+            try
+            {
+                timeout.task.run();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("Timer task failed.", e);
+            }
+        }
+    }
+
+    /**
+     * A scheduled task.
+     */
+    private static class Timeout
+    {
+        private final long deadline;
+        private final Runnable task;
+        private long remainingRounds;
+
+        /**
+         * @param deadline the deadline in milliseconds since the epoch.
+         * @param task the task.
+         */
+        Timeout(long deadline, Runnable task)
+        {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
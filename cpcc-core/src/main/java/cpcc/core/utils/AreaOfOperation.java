@@ -0,0 +1,93 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import cpcc.core.base.PolygonZone;
+import cpcc.core.entities.PolarCoordinate;
+
+/**
+ * The parsed area of operation of a real vehicle.
+ */
+public class AreaOfOperation
+{
+    public static final AreaOfOperation EMPTY = new AreaOfOperation(Collections.emptyList(), Collections.emptyList(),
+        new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN});
+
+    private final List<PolygonZone> polygons;
+    private final List<PolarCoordinate> depotPositions;
+    private final double[] boundingBox;
+
+    /**
+     * @param polygons the polygons of the area of operation.
+     * @param depotPositions the depot positions.
+     * @param boundingBox the bounding box of all features.
+     */
+    public AreaOfOperation(List<PolygonZone> polygons, List<PolarCoordinate> depotPositions, double[] boundingBox)
+    {
+        this.polygons = Collections.unmodifiableList(polygons);
+        this.depotPositions = Collections.unmodifiableList(depotPositions);
+        this.boundingBox = ArrayUtils.clone(boundingBox);
+    }
+
+    /**
+     * @return the polygons of the area of operation.
+     */
+    public List<PolygonZone> getPolygons()
+    {
+        return polygons;
+    }
+
+    /**
+     * @return the depot positions.
+     */
+    public List<PolarCoordinate> getDepotPositions()
+    {
+        return depotPositions;
+    }
+
+    /**
+     * @return the bounding box of all features.
+     */
+    public double[] getBoundingBox()
+    {
+        return ArrayUtils.clone(boundingBox);
+    }
+
+    /**
+     * @param position the position in question.
+     * @return true if the position is inside one of the polygons.
+     */
+    public boolean isInside(PolarCoordinate position)
+    {
+        for (PolygonZone zone : polygons)
+        {
+            if (zone.isInside(position))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.geojson.Feature;
@@ -41,11 +43,19 @@ import cpcc.core.entities.RealVehicle;
 
 /**
  * Real Vehicle Utils implementation.
+ * <p>
+ * The methods taking a {@code RealVehicle} use a cache of parsed areas of operation, keyed by the real vehicle
+ * identification. A cache entry is valid as long as the last update time stamp and the content of the area of
+ * operation of the real vehicle remain unchanged.
  */
 public final class RealVehicleUtils
 {
     private static final Logger LOG = LoggerFactory.getLogger(RealVehicleUtils.class);
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Map<Integer, CacheEntry> AOO_CACHE = new ConcurrentHashMap<>();
+
     private RealVehicleUtils()
     {
         // Intentionally empty.
@@ -64,8 +74,7 @@ public final class RealVehicleUtils
         }
 
         List<PolarCoordinate> list = new ArrayList<>();
-        FeatureCollection fc =
-            new ObjectMapper().readValue(areaOfOperation.replace("\\n", "\n"), FeatureCollection.class);
+        FeatureCollection fc = MAPPER.readValue(areaOfOperation.replace("\\n", "\n"), FeatureCollection.class);
 
         for (Feature feature : fc.getFeatures())
         {
@@ -99,7 +108,7 @@ public final class RealVehicleUtils
 
         try
         {
-            FeatureCollection fc = new ObjectMapper().readValue(aooString, FeatureCollection.class);
+            FeatureCollection fc = MAPPER.readValue(aooString, FeatureCollection.class);
 
             for (Feature feature : fc.getFeatures())
             {
@@ -145,39 +154,169 @@ public final class RealVehicleUtils
     }
 
     /**
-     * @param rvList the list of real vehicles.
-     * @return the bounding box of all areas of operation.
+     * @param rv the real vehicle.
+     * @param position the position in question.
+     * @return true if the position is inside the area of operation of the real vehicle.
      */
-    public static double[] findBoundingBox(List<RealVehicle> rvList)
+    public static boolean isInsideAreaOfOperation(RealVehicle rv, PolarCoordinate position)
     {
-        double[] bbox = new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        return getAreaOfOperation(rv).isInside(position);
+    }
 
-        for (RealVehicle rv : rvList)
+    /**
+     * @param rv the real vehicle.
+     * @return the list of depot positions of the real vehicle.
+     */
+    public static List<PolarCoordinate> getDepotPositions(RealVehicle rv)
+    {
+        return getAreaOfOperation(rv).getDepotPositions();
+    }
+
+    /**
+     * @param rv the real vehicle.
+     * @return the parsed area of operation of the real vehicle.
+     */
+    public static AreaOfOperation getAreaOfOperation(RealVehicle rv)
+    {
+        if (rv == null || StringUtils.isBlank(rv.getAreaOfOperation()))
         {
-            if (StringUtils.isBlank(rv.getAreaOfOperation()))
-            {
-                continue;
-            }
+            return AreaOfOperation.EMPTY;
+        }
+
+        if (rv.getId() == null)
+        {
+            return parseAreaOfOperation(rv);
+        }
+
+        long lastUpdate = rv.getLastUpdate() != null ? rv.getLastUpdate().getTime() : -1L;
+        String aoo = rv.getAreaOfOperation();
+
+        CacheEntry entry = AOO_CACHE.get(rv.getId());
+        if (entry != null && entry.matches(lastUpdate, aoo))
+        {
+            return entry.getAreaOfOperation();
+        }
+
+        AreaOfOperation result = parseAreaOfOperation(rv);
+        AOO_CACHE.put(rv.getId(), new CacheEntry(lastUpdate, aoo, result));
+        return result;
+    }
+
+    /**
+     * Remove the cached area of operation of a real vehicle.
+     * 
+     * @param rvId the real vehicle identification.
+     */
+    public static void invalidateAreaOfOperation(Integer rvId)
+    {
+        if (rvId != null)
+        {
+            AOO_CACHE.remove(rvId);
+        }
+    }
+
+    /**
+     * @param rv the real vehicle.
+     * @return the parsed area of operation.
+     */
+    private static AreaOfOperation parseAreaOfOperation(RealVehicle rv)
+    {
+        String aooString = rv.getAreaOfOperation().replace("\\n", "\n");
+
+        try
+        {
+            FeatureCollection fc = MAPPER.readValue(aooString, FeatureCollection.class);
 
-            try
+            List<PolygonZone> polygons = new ArrayList<>();
+            List<PolarCoordinate> depots = new ArrayList<>();
+            double[] bbox = new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+
+            for (Feature feature : fc.getFeatures())
             {
-                FeatureCollection collection =
-                    new ObjectMapper().readValue(rv.getAreaOfOperation(), FeatureCollection.class);
+                GeoJsonObject geom = feature.getGeometry();
 
-                for (Feature feature : collection)
+                if (geom instanceof Polygon)
                 {
-                    double[] b = GeoJsonUtils.findBoundingBox(feature.getGeometry());
-                    GeoJsonUtils.mergeBoundingBoxes(bbox, b);
+                    polygons.add(new PolygonZone(((Polygon) geom).getCoordinates().get(0)));
+                }
+                else if (geom instanceof Point && "depot".equals(feature.getProperty("type")))
+                {
+                    LngLatAlt coordinates = ((Point) geom).getCoordinates();
+                    depots.add(new PolarCoordinate(coordinates.getLatitude(), coordinates.getLongitude(), 0.0));
                 }
 
+                double[] b = GeoJsonUtils.findBoundingBox(geom);
+                if (b.length == 4)
+                {
+                    GeoJsonUtils.mergeBoundingBoxes(bbox, b);
+                }
             }
-            catch (IOException e)
-            {
-                LOG.error("Can not de-serialize area of operation {} of RV {} ({})",
-                    rv.getAreaOfOperation(), rv.getName(), rv.getId(), e);
-            }
+
+            return new AreaOfOperation(polygons, depots, bbox);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Can not de-serialize area of operation {} of RV {} ({})",
+                aooString, rv.getName(), rv.getId(), e);
+            return AreaOfOperation.EMPTY;
+        }
+    }
+
+    /**
+     * @param rvList the list of real vehicles.
+     * @return the bounding box of all areas of operation.
+     */
+    public static double[] findBoundingBox(List<RealVehicle> rvList)
+    {
+        double[] bbox = new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+
+        for (RealVehicle rv : rvList)
+        {
+            GeoJsonUtils.mergeBoundingBoxes(bbox, getAreaOfOperation(rv).getBoundingBox());
         }
 
         return bbox;
     }
+
+    /**
+     * A cached area of operation.
+     */
+    private static class CacheEntry
+    {
+        private final long lastUpdate;
+        private final int length;
+        private final int hash;
+        private final AreaOfOperation areaOfOperation;
+
+        /**
+         * @param lastUpdate the last update time stamp of the real vehicle.
+         * @param aoo the area of operation as a {@code String}.
+         * @param areaOfOperation the parsed area of operation.
+         */
+        CacheEntry(long lastUpdate, String aoo, AreaOfOperation areaOfOperation)
+        {
+            this.lastUpdate = lastUpdate;
+            this.length = aoo.length();
+            this.hash = aoo.hashCode();
+            this.areaOfOperation = areaOfOperation;
+        }
+
+        /**
+         * @param otherLastUpdate the last update time stamp of the real vehicle.
+         * @param aoo the area of operation as a {@code String}.
+         * @return true if this entry is valid for the given data.
+         */
+        boolean matches(long otherLastUpdate, String aoo)
+        {
+            return lastUpdate == otherLastUpdate && length == aoo.length() && hash == aoo.hashCode();
+        }
+
+        /**
+         * @return the parsed area of operation.
+         */
+        AreaOfOperation getAreaOfOperation()
+        {
+            return areaOfOperation;
+        }
+    }
 }
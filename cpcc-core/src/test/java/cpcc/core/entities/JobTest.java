@@ -24,6 +24,7 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 import java.util.Date;
 import java.util.stream.Stream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -60,6 +61,9 @@ class JobTest
         sut.setData(data);
         sut.setQueueName(queueName);
         sut.setResultText(resultText);
+        sut.setPayloadRef(parameters + "-ref");
+        sut.setNotBefore(end);
+        sut.setRetryCount(id + 2);
 
         assertThat(sut.getId()).describedAs("id").isEqualTo(id);
         assertThat(sut.getCreated()).describedAs("created").isEqualTo(created);
@@ -68,8 +72,12 @@ class JobTest
         assertThat(sut.getEnd()).describedAs("end").isEqualTo(end);
         assertThat(sut.getStatus()).describedAs("status").isEqualTo(status);
         assertThat(sut.getParameters()).describedAs("parameters").isEqualTo(parameters);
+        assertThat(sut.getParametersHash()).describedAs("parametersHash").isEqualTo(DigestUtils.sha256Hex(parameters));
         assertThat(sut.getData()).describedAs("data").isEqualTo(data);
         assertThat(sut.getQueueName()).describedAs("queueName").isEqualTo(queueName);
         assertThat(sut.getResultText()).describedAs("resultText").isEqualTo(resultText);
+        assertThat(sut.getPayloadRef()).describedAs("payloadRef").isEqualTo(parameters + "-ref");
+        assertThat(sut.getNotBefore()).describedAs("notBefore").isEqualTo(end);
+        assertThat(sut.getRetryCount()).describedAs("retryCount").isEqualTo(id + 2);
     }
 }
@@ -49,8 +49,11 @@ import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import cpcc.core.base.CoreConstants;
+import cpcc.core.entities.RealVehicleChangeInterceptor;
 import cpcc.core.services.jobs.JobExecutionException;
 import cpcc.core.services.jobs.JobService;
+import cpcc.core.services.jobs.JobStateWriter;
+import cpcc.core.services.jobs.JobStateWriterImpl;
 import cpcc.core.services.opts.OptionsParserService;
 import cpcc.core.services.opts.OptionsParserServiceImpl;
 
@@ -76,13 +79,15 @@ class CoreModuleTest
         when(binder.bind(QueryManager.class, QueryManagerImpl.class)).thenReturn(options);
         when(binder.bind(CoreJsonConverter.class, CoreJsonConverterImpl.class)).thenReturn(options);
         when(binder.bind(OptionsParserService.class, OptionsParserServiceImpl.class)).thenReturn(options);
+        when(binder.bind(JobStateWriter.class, JobStateWriterImpl.class)).thenReturn(options);
 
         CoreModule.bind(binder);
 
         verify(binder).bind(QueryManager.class, QueryManagerImpl.class);
         verify(binder).bind(CoreJsonConverter.class, CoreJsonConverterImpl.class);
         verify(binder).bind(OptionsParserService.class, OptionsParserServiceImpl.class);
-        verify(options, times(1)).eagerLoad();
+        verify(binder).bind(JobStateWriter.class, JobStateWriterImpl.class);
+        verify(options, times(2)).eagerLoad();
     }
 
     @Test
@@ -94,6 +99,9 @@ class CoreModuleTest
         CoreModule.contributeApplicationDefaults(configuration);
 
         verify(configuration).add(eq(CoreConstants.PROP_MAX_JOB_AGE), anyString());
+        verify(configuration).add(eq(CoreConstants.PROP_JOB_STATE_FLUSH_INTERVAL), anyString());
+        verify(configuration).add(eq(CoreConstants.PROP_JOB_PAYLOAD_DIR), anyString());
+        verify(configuration).add(eq(CoreConstants.PROP_JOB_PAYLOAD_INLINE_LIMIT), anyString());
     }
 
     @Test
@@ -136,6 +144,12 @@ class CoreModuleTest
         argument.getValue().configure(confMock);
 
         verify(liquibaseService).update();
+
+        verify(configuration).add(eq("RealVehicleChangeInterceptor"), argument.capture());
+
+        argument.getValue().configure(confMock);
+
+        verify(confMock).setInterceptor(any(RealVehicleChangeInterceptor.class));
     }
 
     @Test
@@ -0,0 +1,117 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+
+/**
+ * JobParametersHashChangeTest
+ */
+class JobParametersHashChangeTest
+{
+    private Database database;
+    private Connection connection;
+    private PreparedStatement select;
+    private PreparedStatement update;
+    private ResultSet jobs;
+    private JobParametersHashChange sut;
+
+    @BeforeEach
+    void setUp() throws SQLException
+    {
+        jobs = mock(ResultSet.class);
+
+        select = mock(PreparedStatement.class);
+        when(select.executeQuery()).thenReturn(jobs);
+
+        update = mock(PreparedStatement.class);
+
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(
+            "SELECT ID, PARAMETERS FROM JOBS WHERE PARAMETERS_HASH IS NULL AND PARAMETERS IS NOT NULL"))
+                .thenReturn(select);
+        when(connection.prepareStatement("UPDATE JOBS SET PARAMETERS_HASH = ? WHERE ID = ?")).thenReturn(update);
+
+        database = mock(Database.class);
+        when(database.getConnection()).thenReturn(new JdbcConnection(connection));
+
+        sut = new JobParametersHashChange();
+    }
+
+    @Test
+    void shouldFillInParameterHashes() throws Exception
+    {
+        when(jobs.next()).thenReturn(true, true, false);
+        when(jobs.getInt(1)).thenReturn(11, 12);
+        when(jobs.getString(2)).thenReturn("mode=a", "mode=b");
+
+        sut.setUp();
+        sut.setFileOpener(null);
+        sut.execute(database);
+
+        verify(update).setString(1, DigestUtils.sha256Hex("mode=a"));
+        verify(update).setInt(2, 11);
+        verify(update).setString(1, DigestUtils.sha256Hex("mode=b"));
+        verify(update).setInt(2, 12);
+        verify(update).executeBatch();
+        verify(jobs).close();
+
+        assertThat(sut.getConfirmationMessage()).isEqualTo("Filled in 2 job parameter hashes.");
+        assertThat(sut.validate(database).hasErrors()).isFalse();
+    }
+
+    @Test
+    void shouldSkipEmptyJobTable() throws Exception
+    {
+        when(jobs.next()).thenReturn(false);
+
+        sut.execute(database);
+
+        verify(update, never()).executeBatch();
+        assertThat(sut.getConfirmationMessage()).isEqualTo("Filled in 0 job parameter hashes.");
+    }
+
+    @Test
+    void shouldReportDatabaseErrors() throws Exception
+    {
+        when(jobs.next()).thenThrow(new SQLException("broken"));
+
+        Throwable thrown = catchThrowable(() -> sut.execute(database));
+
+        assertThat(thrown).isInstanceOf(CustomChangeException.class).hasRootCauseMessage("broken");
+    }
+}
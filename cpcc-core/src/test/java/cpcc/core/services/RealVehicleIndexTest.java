@@ -0,0 +1,214 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.entities.RealVehicleChangeListener;
+import cpcc.core.entities.RealVehicleType;
+import cpcc.core.entities.SensorDefinition;
+import cpcc.core.services.jobs.TimeService;
+
+/**
+ * RealVehicleIndexTest
+ */
+class RealVehicleIndexTest
+{
+    private static final String AREA_OF_OPERATION_RV1 =
+        "{\"type\":\"FeatureCollection\",\"features\":["
+            + "{\"type\":\"Feature\",\"properties\":{\"minAlt\":20,\"maxAlt\":50},"
+            + "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[13,47],[14,47],[14,48],[13,48],[13,47]]]}}]}";
+
+    private static final String AREA_OF_OPERATION_RV2 =
+        "{\"type\":\"FeatureCollection\",\"features\":["
+            + "{\"type\":\"Feature\",\"properties\":{\"minAlt\":20,\"maxAlt\":50},"
+            + "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[14,47],[15,47],[15,48],[14,48],[14,47]]]}}]}";
+
+    private SensorDefinition altimeter;
+    private SensorDefinition co2Sensor;
+    private RealVehicle gs;
+    private RealVehicle rv1;
+    private RealVehicle rv2;
+    private RealVehicleRepository rvRepo;
+    private TimeService timeService;
+    private RealVehicleIndexImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        altimeter = new SensorDefinition();
+        altimeter.setId(101);
+
+        co2Sensor = new SensorDefinition();
+        co2Sensor.setId(102);
+
+        gs = mockRealVehicle(1001, RealVehicleType.GROUND_STATION, null);
+        rv1 = mockRealVehicle(1002, RealVehicleType.QUADROCOPTER, AREA_OF_OPERATION_RV1, altimeter, co2Sensor);
+        rv2 = mockRealVehicle(1003, RealVehicleType.QUADROCOPTER, AREA_OF_OPERATION_RV2, altimeter);
+
+        rvRepo = mock(RealVehicleRepository.class);
+        when(rvRepo.findAllActiveRealVehicles()).thenReturn(Arrays.asList(gs, rv1, rv2));
+
+        timeService = mock(TimeService.class);
+        when(timeService.currentTimeMillis()).thenReturn(1000L);
+
+        sut = new RealVehicleIndexImpl(rvRepo, timeService);
+    }
+
+    private static RealVehicle mockRealVehicle(int id, RealVehicleType type, String areaOfOperation,
+        SensorDefinition... sensors)
+    {
+        RealVehicle rv = mock(RealVehicle.class);
+        when(rv.getId()).thenReturn(id);
+        when(rv.getName()).thenReturn("rv" + id);
+        when(rv.getType()).thenReturn(type);
+        when(rv.getAreaOfOperation()).thenReturn(areaOfOperation);
+        when(rv.getLastUpdate()).thenReturn(new Date(id));
+        when(rv.getSensors()).thenReturn(Arrays.asList(sensors));
+        return rv;
+    }
+
+    @Test
+    void shouldFindRealVehiclesByPosition()
+    {
+        assertThat(sut.isEmpty()).isFalse();
+
+        assertThat(sut.findRealVehicles(new PolarCoordinate(47.5, 13.5, 10), null, null))
+            .extracting(RealVehicle::getId).containsExactly(1002);
+        assertThat(sut.findRealVehicles(new PolarCoordinate(47.5, 14.5, 10), null, null))
+            .extracting(RealVehicle::getId).containsExactly(1003);
+        assertThat(sut.findRealVehicles(new PolarCoordinate(46.5, 14.5, 10), null, null)).isEmpty();
+        assertThat(sut.findRealVehicles(new PolarCoordinate(47.5, 16.5, 10), null, null)).isEmpty();
+        assertThat(sut.findRealVehicles(null, null, null)).isEmpty();
+
+        verify(rvRepo, times(1)).findAllActiveRealVehicles();
+        verifyNoMoreInteractions(rvRepo);
+    }
+
+    @Test
+    void shouldFilterRealVehiclesBySensors()
+    {
+        PolarCoordinate inside1 = new PolarCoordinate(47.5, 13.5, 10);
+        PolarCoordinate inside2 = new PolarCoordinate(47.5, 14.5, 10);
+
+        assertThat(sut.findRealVehicles(inside1, Arrays.asList(altimeter, co2Sensor), null))
+            .extracting(RealVehicle::getId).containsExactly(1002);
+        assertThat(sut.findRealVehicles(inside2, Arrays.asList(altimeter), null))
+            .extracting(RealVehicle::getId).containsExactly(1003);
+        assertThat(sut.findRealVehicles(inside2, Arrays.asList(co2Sensor), null)).isEmpty();
+        assertThat(sut.findRealVehicles(inside2, Collections.emptyList(), null))
+            .extracting(RealVehicle::getId).containsExactly(1003);
+    }
+
+    @Test
+    void shouldExcludeRealVehicle()
+    {
+        assertThat(sut.findRealVehicles(new PolarCoordinate(47.5, 13.5, 10), null, 1002)).isEmpty();
+        assertThat(sut.findGroundStations(null))
+            .extracting(RealVehicle::getId).containsExactly(1001);
+        assertThat(sut.findGroundStations(1001)).isEmpty();
+    }
+
+    @Test
+    void shouldHandOutCopiesOfRealVehicles()
+    {
+        RealVehicle found = sut.findRealVehicles(new PolarCoordinate(47.5, 13.5, 10), null, null).get(0);
+
+        assertThat(found).isNotSameAs(rv1);
+        assertThat(found.getName()).isEqualTo("rv1002");
+        assertThat(found.getSensors()).containsExactly(altimeter, co2Sensor);
+
+        found.setName("changed");
+        found.getSensors().clear();
+
+        RealVehicle again = sut.findRealVehicles(new PolarCoordinate(47.5, 13.5, 10), null, null).get(0);
+
+        assertThat(again.getName()).isEqualTo("rv1002");
+        assertThat(again.getSensors()).containsExactly(altimeter, co2Sensor);
+    }
+
+    @Test
+    void shouldReuseIndexUntilRealVehiclesChange()
+    {
+        sut.findGroundStations(null);
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(1)).findAllActiveRealVehicles();
+
+        new RealVehicleChangeListener().realVehicleChanged(rv1);
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(2)).findAllActiveRealVehicles();
+
+        RealVehicleChangeListener.transactionCompleted();
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(3)).findAllActiveRealVehicles();
+
+        RealVehicleChangeListener.transactionCompleted();
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(3)).findAllActiveRealVehicles();
+
+        sut.invalidate();
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(4)).findAllActiveRealVehicles();
+    }
+
+    @Test
+    void shouldRebuildOutdatedIndex()
+    {
+        sut.findGroundStations(null);
+
+        when(timeService.currentTimeMillis()).thenReturn(60999L);
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(1)).findAllActiveRealVehicles();
+
+        when(timeService.currentTimeMillis()).thenReturn(61000L);
+        sut.findGroundStations(null);
+
+        verify(rvRepo, times(2)).findAllActiveRealVehicles();
+    }
+
+    @Test
+    void shouldHandleEmptyRealVehicleTable()
+    {
+        when(rvRepo.findAllActiveRealVehicles()).thenReturn(Collections.emptyList());
+
+        assertThat(sut.isEmpty()).isTrue();
+        assertThat(sut.findRealVehicles(new PolarCoordinate(47.5, 13.5, 10), null, null)).isEmpty();
+        assertThat(sut.findGroundStations(null)).isEmpty();
+    }
+}
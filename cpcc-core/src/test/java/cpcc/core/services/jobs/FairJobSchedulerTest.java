@@ -0,0 +1,204 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FairJobSchedulerTest
+{
+    private List<Runnable> started;
+    private List<String> order;
+    private int jobId;
+
+    @BeforeEach
+    void setUp()
+    {
+        started = new ArrayList<>();
+        order = new ArrayList<>();
+        jobId = 0;
+    }
+
+    private void submit(FairJobScheduler sut, String label, JobClass jobClass)
+    {
+        sut.submit(++jobId, jobClass, () -> order.add(label));
+    }
+
+    private void runAll()
+    {
+        while (!started.isEmpty())
+        {
+            started.remove(0).run();
+        }
+    }
+
+    @Test
+    void shouldStartJobsUpToPoolSize()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 2);
+
+        submit(sut, "j1", JobClass.DEFAULT);
+        submit(sut, "j2", JobClass.DEFAULT);
+        submit(sut, "j3", JobClass.DEFAULT);
+
+        assertThat(started).hasSize(2);
+        assertThat(sut.getPendingCount()).isEqualTo(1);
+
+        started.remove(0).run();
+
+        assertThat(started).hasSize(2);
+        assertThat(sut.getPendingCount()).isZero();
+
+        runAll();
+
+        assertThat(order).containsExactly("j1", "j2", "j3");
+    }
+
+    @Test
+    void shouldStartJobsOfHigherPriorityFirst()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 1);
+
+        submit(sut, "blocker", JobClass.DEFAULT);
+        submit(sut, "low", new JobClass("a", -10, null));
+        submit(sut, "normal", new JobClass("b", 0, null));
+        submit(sut, "high", new JobClass("a", 10, null));
+
+        runAll();
+
+        assertThat(order).containsExactly("blocker", "high", "normal", "low");
+    }
+
+    @Test
+    void shouldShareThreadsByWeight()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 1);
+        sut.setWeight("a", 2);
+
+        JobClass a = new JobClass("a", 0, null);
+        JobClass b = new JobClass("b", 0, null);
+
+        for (int k = 1; k <= 6; ++k)
+        {
+            submit(sut, "a" + k, a);
+        }
+
+        for (int k = 1; k <= 3; ++k)
+        {
+            submit(sut, "b" + k, b);
+        }
+
+        runAll();
+
+        assertThat(order).containsExactly("a1", "b1", "a2", "a3", "b2", "a4", "a5", "b3", "a6");
+    }
+
+    @Test
+    void shouldNotGiveCreditToIdleTypes()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 1);
+
+        JobClass a = new JobClass("a", 0, null);
+        JobClass b = new JobClass("b", 0, null);
+
+        submit(sut, "b0", b);
+        runAll();
+
+        for (int k = 1; k <= 4; ++k)
+        {
+            submit(sut, "a" + k, a);
+        }
+
+        runAll();
+
+        submit(sut, "a5", a);
+        submit(sut, "a6", a);
+        submit(sut, "b1", b);
+        submit(sut, "b2", b);
+        runAll();
+
+        assertThat(order).containsExactly("b0", "a1", "a2", "a3", "a4", "a5", "b1", "a6", "b2");
+    }
+
+    @Test
+    void shouldCapJobsPerDestination()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 3);
+        sut.setMaxJobsPerDestination(1);
+
+        JobClass slow = new JobClass("migration", 0, "rv=1");
+        JobClass fast = new JobClass("migration", 0, "rv=2");
+
+        submit(sut, "slow1", slow);
+        submit(sut, "slow2", slow);
+        submit(sut, "fast1", fast);
+
+        assertThat(started).hasSize(2);
+        assertThat(sut.getPendingCount()).isEqualTo(1);
+
+        runAll();
+
+        assertThat(order).containsExactly("slow1", "fast1");
+        assertThat(sut.getPendingCount()).isEqualTo(1);
+
+        sut.executed(1);
+
+        assertThat(started).hasSize(1);
+
+        runAll();
+
+        assertThat(order).containsExactly("slow1", "fast1", "slow2");
+        assertThat(sut.getPendingCount()).isZero();
+    }
+
+    @Test
+    void shouldReleaseThreadIfJobFails()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 1);
+
+        sut.submit(1, JobClass.DEFAULT, () -> {
+            throw new IllegalStateException();
+        });
+        submit(sut, "j2", JobClass.DEFAULT);
+
+        catchException(() -> started.remove(0).run());
+
+        assertThat((Throwable) caughtException()).isInstanceOf(IllegalStateException.class);
+        assertThat(started).hasSize(1);
+    }
+
+    @Test
+    void shouldRejectInvalidSettings()
+    {
+        FairJobScheduler sut = new FairJobScheduler(started::add, 1);
+
+        catchException(() -> sut.setWeight("a", 0));
+        assertThat((Throwable) caughtException()).isInstanceOf(IllegalArgumentException.class);
+
+        catchException(() -> sut.setMaxJobsPerDestination(0));
+        assertThat((Throwable) caughtException()).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -18,19 +18,30 @@
 
 package cpcc.core.services.jobs;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
-import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -46,6 +57,7 @@ class JobExecutorTest
     private static final Integer FAILING_JOB_ID = 2002;
     private static final Integer HAS_NO_FACTORY_JOB_ID = 3003;
     private static final Integer CRASHING_JOB_ID = 4004;
+    private static final Integer ASYNC_JOB_ID = 5005;
 
     private Date startDate;
     private Date endDate;
@@ -54,14 +66,18 @@ class JobExecutorTest
     private PerthreadManager perthreadManager;
     private HibernateSessionManager sessionManager;
     private JobRepository jobRepository;
-    private Session session;
+    private JobStateWriter stateWriter;
+    private JobIndex jobIndex;
+    private JobService jobService;
     private Job succeedingJob;
     private Job failingJob;
     private Job hasNoFactoryJob;
     private Job crashingJob;
+    private Job asyncJob;
     private JobRunnable succeedingRunnable;
     private JobRunnable failingRunnable;
     private JobRunnable crashingRunnable;
+    private AsyncJobRunnable asyncRunnable;
     private JobRunnableFactory factory;
     private Logger logger;
     private JobQueueCallback callBack;
@@ -87,7 +103,9 @@ class JobExecutorTest
             }
         });
 
-        session = mock(Session.class);
+        stateWriter = mock(JobStateWriter.class);
+        jobIndex = mock(JobIndex.class);
+        jobService = mock(JobService.class);
 
         succeedingJob = mock(Job.class);
         when(succeedingJob.getId()).thenReturn(SUCCEEDING_JOB_ID);
@@ -101,6 +119,9 @@ class JobExecutorTest
         crashingJob = mock(Job.class);
         when(crashingJob.getId()).thenReturn(CRASHING_JOB_ID);
 
+        asyncJob = mock(Job.class);
+        when(asyncJob.getId()).thenReturn(ASYNC_JOB_ID);
+
         succeedingRunnable = mock(JobRunnable.class);
 
         failingRunnable = mock(JobRunnable.class);
@@ -109,125 +130,239 @@ class JobExecutorTest
         crashingRunnable = mock(JobRunnable.class);
         doThrow(IllegalArgumentException.class).when(crashingRunnable).run();
 
+        asyncRunnable = mock(AsyncJobRunnable.class);
+        when(asyncRunnable.executionSucceeded()).thenReturn(true);
+
         perthreadManager = mock(PerthreadManager.class);
 
         sessionManager = mock(HibernateSessionManager.class);
-        when(sessionManager.getSession()).thenReturn(session);
 
         jobRepository = mock(JobRepository.class);
         when(jobRepository.findJobById(SUCCEEDING_JOB_ID)).thenReturn(succeedingJob);
         when(jobRepository.findJobById(FAILING_JOB_ID)).thenReturn(failingJob);
         when(jobRepository.findJobById(HAS_NO_FACTORY_JOB_ID)).thenReturn(hasNoFactoryJob);
         when(jobRepository.findJobById(CRASHING_JOB_ID)).thenReturn(crashingJob);
+        when(jobRepository.findJobById(ASYNC_JOB_ID)).thenReturn(asyncJob);
 
         serviceResources = mock(ServiceResources.class);
         when(serviceResources.getService(PerthreadManager.class)).thenReturn(perthreadManager);
         when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(sessionManager);
         when(serviceResources.getService(TimeService.class)).thenReturn(timeService);
         when(serviceResources.getService(JobRepository.class)).thenReturn(jobRepository);
+        when(serviceResources.getService(JobStateWriter.class)).thenReturn(stateWriter);
+        when(serviceResources.getService(JobIndex.class)).thenReturn(jobIndex);
+        when(serviceResources.getService(JobService.class)).thenReturn(jobService);
 
         factory = mock(JobRunnableFactory.class);
         when(factory.createRunnable(serviceResources, succeedingJob)).thenReturn(succeedingRunnable);
         when(factory.createRunnable(serviceResources, failingJob)).thenReturn(failingRunnable);
         when(factory.createRunnable(serviceResources, hasNoFactoryJob)).thenReturn(null);
         when(factory.createRunnable(serviceResources, crashingJob)).thenReturn(crashingRunnable);
+        when(factory.createRunnable(serviceResources, asyncJob)).thenReturn(asyncRunnable);
     }
 
     @Test
     void shouldExecuteSucceedingRunnable() throws Exception
     {
-        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), SUCCEEDING_JOB_ID, callBack);
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), SUCCEEDING_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
 
         sut.run();
 
         final InOrder inOrder =
-            Mockito.inOrder(jobRepository, session, sessionManager, factory, succeedingJob, succeedingRunnable);
+            Mockito.inOrder(jobRepository, stateWriter, jobIndex, factory, succeedingRunnable, perthreadManager,
+                callBack);
 
         inOrder.verify(jobRepository).findJobById(SUCCEEDING_JOB_ID);
-
-        inOrder.verify(succeedingJob).setStart(startDate);
-        inOrder.verify(succeedingJob).setStatus(JobStatus.RUNNING);
-        inOrder.verify(session).update(succeedingJob);
-        inOrder.verify(sessionManager).commit();
-
-        inOrder.verify(succeedingJob).setStatus(JobStatus.NO_FACTORY);
-
+        inOrder.verify(stateWriter).running(SUCCEEDING_JOB_ID, startDate);
         inOrder.verify(factory).createRunnable(serviceResources, succeedingJob);
         inOrder.verify(succeedingRunnable).run();
-        inOrder.verify(succeedingJob).setStatus(JobStatus.OK);
+        inOrder.verify(stateWriter).finished(SUCCEEDING_JOB_ID, JobStatus.OK, null, endDate);
+        inOrder.verify(jobIndex).release(SUCCEEDING_JOB_ID);
+        inOrder.verify(perthreadManager).cleanup();
+        inOrder.verify(callBack).executed(SUCCEEDING_JOB_ID);
 
-        inOrder.verify(succeedingJob).setEnd(endDate);
-        inOrder.verify(session).update(succeedingJob);
-        inOrder.verify(sessionManager).commit();
+        verify(sessionManager, never()).commit();
+        verify(succeedingJob, never()).setStatus(any(JobStatus.class));
     }
 
     @Test
     void shouldExecuteFailingRunnable() throws Exception
     {
-        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), FAILING_JOB_ID, callBack);
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), FAILING_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
 
         sut.run();
 
         final InOrder inOrder =
-            Mockito.inOrder(logger, session, sessionManager, factory, failingJob, failingRunnable);
-        inOrder.verify(failingJob).setStart(startDate);
-        inOrder.verify(failingJob).setStatus(JobStatus.RUNNING);
-        inOrder.verify(session).update(failingJob);
-        inOrder.verify(sessionManager).commit();
-        inOrder.verify(failingJob).setStatus(JobStatus.NO_FACTORY);
-
+            Mockito.inOrder(logger, stateWriter, sessionManager, factory, failingRunnable, callBack);
+        inOrder.verify(stateWriter).running(FAILING_JOB_ID, startDate);
         inOrder.verify(factory).createRunnable(serviceResources, failingJob);
         inOrder.verify(failingRunnable).run();
         inOrder.verify(sessionManager).abort();
-        inOrder.verify(failingJob).setStatus(JobStatus.FAILED);
-        inOrder.verify(failingJob).setEnd(endDate);
-        inOrder.verify(session).update(failingJob);
-        inOrder.verify(sessionManager).commit();
+        inOrder.verify(stateWriter).finished(FAILING_JOB_ID, JobStatus.FAILED, null, endDate);
+        inOrder.verify(callBack).executed(FAILING_JOB_ID);
+
+        verify(sessionManager, never()).commit();
+    }
+
+    @Test
+    void shouldRetryFailingRunnable() throws Exception
+    {
+        JobRetryPolicy retryPolicy = new JobRetryPolicy(3, 1000, 1000);
+        when(timeService.currentTimeMillis()).thenReturn(100000L);
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), FAILING_JOB_ID, callBack,
+            retryPolicy);
+
+        sut.run();
+
+        ArgumentCaptor<Date> notBefore = ArgumentCaptor.forClass(Date.class);
+
+        final InOrder inOrder = Mockito.inOrder(stateWriter, sessionManager, failingJob, callBack, jobService);
+        inOrder.verify(stateWriter).running(FAILING_JOB_ID, startDate);
+        inOrder.verify(sessionManager).abort();
+        inOrder.verify(stateWriter).retry(eq(FAILING_JOB_ID), eq(1), notBefore.capture(), isNull());
+        inOrder.verify(failingJob).setRetryCount(1);
+        inOrder.verify(failingJob).setNotBefore(notBefore.getValue());
+        inOrder.verify(callBack).executed(FAILING_JOB_ID);
+        inOrder.verify(jobService).scheduleJob(failingJob);
+
+        assertThat(notBefore.getValue().getTime()).isBetween(100500L, 101000L);
+
+        verify(stateWriter, never()).finished(anyInt(), any(JobStatus.class), any(), any(Date.class));
+        verify(jobIndex, never()).release(anyInt());
+    }
+
+    @Test
+    void shouldFailJobAfterLastRetry() throws Exception
+    {
+        when(failingJob.getRetryCount()).thenReturn(3);
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), FAILING_JOB_ID, callBack,
+            new JobRetryPolicy(3, 1000, 1000));
+
+        sut.run();
+
+        final InOrder inOrder = Mockito.inOrder(stateWriter, jobIndex, callBack);
+        inOrder.verify(stateWriter).finished(FAILING_JOB_ID, JobStatus.FAILED, null, endDate);
+        inOrder.verify(jobIndex).release(FAILING_JOB_ID);
+        inOrder.verify(callBack).executed(FAILING_JOB_ID);
+
+        verify(stateWriter, never()).retry(anyInt(), anyInt(), any(Date.class), any());
+        verifyNoInteractions(jobService);
     }
 
     @Test
     void shouldExecuteCrashingRunnable() throws Exception
     {
-        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), CRASHING_JOB_ID, callBack);
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), CRASHING_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
 
         sut.run();
 
         final InOrder inOrder =
-            Mockito.inOrder(logger, session, sessionManager, factory, crashingJob, crashingRunnable);
-        inOrder.verify(crashingJob).setStart(startDate);
-        inOrder.verify(crashingJob).setStatus(JobStatus.RUNNING);
-        inOrder.verify(session).update(crashingJob);
-        inOrder.verify(sessionManager).commit();
-        inOrder.verify(crashingJob).setStatus(JobStatus.NO_FACTORY);
-
+            Mockito.inOrder(logger, stateWriter, sessionManager, factory, crashingRunnable, callBack);
+        inOrder.verify(stateWriter).running(CRASHING_JOB_ID, startDate);
         inOrder.verify(factory).createRunnable(serviceResources, crashingJob);
         inOrder.verify(crashingRunnable).run();
         inOrder.verify(sessionManager).abort();
-        inOrder.verify(crashingJob).setStatus(JobStatus.FAILED);
-        inOrder.verify(crashingJob).setEnd(endDate);
-        inOrder.verify(session).update(crashingJob);
-        inOrder.verify(sessionManager).commit();
+        inOrder.verify(stateWriter).finished(CRASHING_JOB_ID, JobStatus.FAILED, null, endDate);
+        inOrder.verify(callBack).executed(CRASHING_JOB_ID);
+
+        verify(sessionManager, never()).commit();
     }
 
     @Test
     void shouldHandleFactoriesThatDoNotCreateJob() throws Exception
     {
-        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), HAS_NO_FACTORY_JOB_ID, callBack);
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), HAS_NO_FACTORY_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
 
         sut.run();
 
-        final InOrder inOrder = Mockito.inOrder(session, sessionManager, factory, hasNoFactoryJob);
-        inOrder.verify(hasNoFactoryJob).setStart(startDate);
-        inOrder.verify(hasNoFactoryJob).setStatus(JobStatus.RUNNING);
-        inOrder.verify(session).update(hasNoFactoryJob);
-        inOrder.verify(sessionManager).commit();
-        inOrder.verify(hasNoFactoryJob).setStatus(JobStatus.NO_FACTORY);
-
+        final InOrder inOrder = Mockito.inOrder(stateWriter, factory, callBack);
+        inOrder.verify(stateWriter).running(HAS_NO_FACTORY_JOB_ID, startDate);
         inOrder.verify(factory).createRunnable(serviceResources, hasNoFactoryJob);
+        inOrder.verify(stateWriter).finished(HAS_NO_FACTORY_JOB_ID, JobStatus.NO_FACTORY, null, endDate);
+        inOrder.verify(callBack).executed(HAS_NO_FACTORY_JOB_ID);
+
+        verify(sessionManager, never()).commit();
+    }
+
+    @Test
+    void shouldFinishAsyncRunnableOnCompletion() throws Exception
+    {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        when(asyncRunnable.start()).thenReturn(future);
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), ASYNC_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
+
+        sut.run();
+
+        verify(asyncRunnable, never()).run();
+        verify(stateWriter).running(ASYNC_JOB_ID, startDate);
+        verify(stateWriter, never()).finished(anyInt(), any(JobStatus.class), any(), any(Date.class));
+        verify(callBack, never()).executed(anyInt());
+
+        future.complete(null);
+
+        final InOrder inOrder = Mockito.inOrder(stateWriter, callBack);
+        inOrder.verify(stateWriter).finished(ASYNC_JOB_ID, JobStatus.OK, null, endDate);
+        inOrder.verify(callBack).executed(ASYNC_JOB_ID);
+    }
+
+    @Test
+    void shouldFailAsyncRunnableOnExceptionalCompletion() throws Exception
+    {
+        when(asyncRunnable.start()).thenReturn(CompletableFuture.failedFuture(new IOException("failed")));
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), ASYNC_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
+
+        sut.run();
+
+        final InOrder inOrder = Mockito.inOrder(sessionManager, stateWriter, callBack);
+        inOrder.verify(sessionManager).abort();
+        inOrder.verify(stateWriter).finished(ASYNC_JOB_ID, JobStatus.FAILED, "failed", endDate);
+        inOrder.verify(callBack).executed(ASYNC_JOB_ID);
+    }
+
+    @Test
+    void shouldFailAsyncRunnableThatDidNotSucceed() throws Exception
+    {
+        when(asyncRunnable.start()).thenReturn(CompletableFuture.completedFuture(null));
+        when(asyncRunnable.executionSucceeded()).thenReturn(false);
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), ASYNC_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
 
-        inOrder.verify(hasNoFactoryJob).setEnd(endDate);
-        inOrder.verify(session).update(hasNoFactoryJob);
-        inOrder.verify(sessionManager).commit();
+        sut.run();
+
+        final InOrder inOrder = Mockito.inOrder(sessionManager, stateWriter, callBack);
+        inOrder.verify(sessionManager).abort();
+        inOrder.verify(stateWriter)
+            .finished(ASYNC_JOB_ID, JobStatus.FAILED, "Execution did not succeed.", endDate);
+        inOrder.verify(callBack).executed(ASYNC_JOB_ID);
     }
 
+    @Test
+    void shouldFailJobIfFactoryCanNotCreateRunnable() throws Exception
+    {
+        when(factory.createRunnable(serviceResources, succeedingJob))
+            .thenThrow(new UncheckedIOException("payload missing", new IOException()));
+
+        JobExecutor sut = new JobExecutor(serviceResources, Arrays.asList(factory), SUCCEEDING_JOB_ID, callBack,
+            JobRetryPolicy.NONE);
+
+        sut.run();
+
+        final InOrder inOrder = Mockito.inOrder(sessionManager, stateWriter, callBack);
+        inOrder.verify(sessionManager).abort();
+        inOrder.verify(stateWriter).finished(SUCCEEDING_JOB_ID, JobStatus.FAILED, "payload missing", endDate);
+        inOrder.verify(callBack).executed(SUCCEEDING_JOB_ID);
+
+        verify(succeedingRunnable, never()).run();
+    }
 }
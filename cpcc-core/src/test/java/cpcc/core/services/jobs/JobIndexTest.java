@@ -0,0 +1,132 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.Job;
+
+class JobIndexTest
+{
+    private JobIndexImpl sut;
+    private Job job1;
+    private Job job2;
+
+    @BeforeEach
+    void setUp()
+    {
+        job1 = createJob(1, "queue1", "mode=migration-send,id=1");
+        job2 = createJob(2, "queue1", "mode=migration-send,id=2");
+
+        sut = new JobIndexImpl();
+    }
+
+    private static Job createJob(Integer id, String queueName, String parameters)
+    {
+        Job job = new Job();
+        job.setId(id);
+        job.setQueueName(queueName);
+        job.setParameters(parameters);
+        return job;
+    }
+
+    @Test
+    void shouldRejectDuplicateReservations()
+    {
+        assertThat(sut.reserve(job1)).isTrue();
+        assertThat(sut.reserve(createJob(null, "queue1", "mode=migration-send,id=1"))).isFalse();
+        assertThat(sut.reserve(job2)).isTrue();
+        assertThat(sut.reserve(createJob(null, "queue2", "mode=migration-send,id=1"))).isTrue();
+    }
+
+    @Test
+    void shouldCancelReservations()
+    {
+        assertThat(sut.reserve(job1)).isTrue();
+
+        sut.cancel(job1);
+
+        assertThat(sut.reserve(job1)).isTrue();
+    }
+
+    @Test
+    void shouldNotCancelBoundJobs()
+    {
+        assertThat(sut.reserve(job1)).isTrue();
+        sut.bind(job1);
+
+        sut.cancel(job1);
+
+        assertThat(sut.reserve(job1)).isFalse();
+    }
+
+    @Test
+    void shouldReleaseBoundJobs()
+    {
+        assertThat(sut.reserve(job1)).isTrue();
+        sut.bind(job1);
+
+        sut.release(2);
+
+        assertThat(sut.reserve(job1)).isFalse();
+
+        sut.release(1);
+
+        assertThat(sut.reserve(job1)).isTrue();
+    }
+
+    @Test
+    void shouldRebuildIndex()
+    {
+        assertThat(sut.reserve(job1)).isTrue();
+        sut.bind(job1);
+
+        sut.rebuild(Arrays.asList(job2));
+
+        assertThat(sut.reserve(job1)).isTrue();
+        assertThat(sut.reserve(job2)).isFalse();
+    }
+
+    @Test
+    void shouldHashParametersOfJobsWithoutStoredHash()
+    {
+        Job legacyJob = new Job()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getParametersHash()
+            {
+                return null;
+            }
+        };
+        legacyJob.setId(3);
+        legacyJob.setQueueName("queue1");
+        legacyJob.setParameters("mode=migration-send,id=1");
+
+        sut.rebuild(Arrays.asList(legacyJob));
+
+        assertThat(sut.reserve(job1)).isFalse();
+    }
+}
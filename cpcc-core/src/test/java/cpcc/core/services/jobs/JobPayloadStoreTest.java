@@ -0,0 +1,222 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cpcc.core.entities.Job;
+
+class JobPayloadStoreTest
+{
+    private static final int INLINE_LIMIT = 8;
+
+    @TempDir
+    Path directory;
+
+    private JobPayloadStoreImpl sut;
+    private byte[] small;
+    private byte[] large;
+
+    @BeforeEach
+    void setUp()
+    {
+        small = new byte[]{1, 2, 3, 4, 5, 6, 7, 8};
+        large = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+
+        sut = new JobPayloadStoreImpl(directory.toString(), INLINE_LIMIT);
+    }
+
+    @Test
+    void shouldStoreSmallPayloadsInline() throws IOException
+    {
+        Job job = new Job();
+
+        sut.attach(job, small);
+
+        assertThat(job.getData()).isEqualTo(small);
+        assertThat(job.getPayloadRef()).isNull();
+        assertThat(sut.getData(job)).isEqualTo(small);
+        assertThat(sut.getPayload(job).isReadOnly()).isTrue();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldStoreAllPayloadsInlineIfNoDirectoryIsConfigured() throws IOException
+    {
+        JobPayloadStoreImpl disabled = new JobPayloadStoreImpl("", INLINE_LIMIT);
+        Job job = new Job();
+
+        disabled.attach(job, large);
+
+        assertThat(job.getData()).isEqualTo(large);
+        assertThat(job.getPayloadRef()).isNull();
+    }
+
+    @Test
+    void shouldHandleJobsWithoutPayload() throws IOException
+    {
+        Job job = new Job();
+
+        sut.attach(job, null);
+
+        assertThat(job.getData()).isNull();
+        assertThat(job.getPayloadRef()).isNull();
+        assertThat(sut.getData(job)).isNull();
+        assertThat(sut.getPayload(job)).isNull();
+    }
+
+    @Test
+    void shouldStoreLargePayloadsInFiles() throws IOException
+    {
+        Job job = new Job();
+
+        sut.attach(job, large);
+
+        String reference = DigestUtils.sha256Hex(large);
+        assertThat(job.getData()).isNull();
+        assertThat(job.getPayloadRef()).isEqualTo(reference);
+        assertThat(directory.resolve(reference)).hasBinaryContent(large);
+        assertThat(sut.getData(job)).isEqualTo(large);
+
+        ByteBuffer payload = sut.getPayload(job);
+        assertThat(payload.isReadOnly()).isTrue();
+        assertThat(payload.remaining()).isEqualTo(large.length);
+    }
+
+    @Test
+    void shouldStreamPayloads() throws IOException
+    {
+        Job inline = new Job();
+        Job stored = new Job();
+
+        sut.attach(inline, small);
+        sut.attach(stored, large);
+
+        try (InputStream in = sut.getPayloadStream(inline))
+        {
+            assertThat(in).hasBinaryContent(small);
+        }
+
+        try (InputStream in = sut.getPayloadStream(stored))
+        {
+            assertThat(in.available()).isEqualTo(large.length);
+            assertThat(in.read()).isEqualTo(1);
+            assertThat(in.skip(3)).isEqualTo(3);
+
+            byte[] rest = new byte[16];
+            assertThat(in.read(rest, 0, rest.length)).isEqualTo(large.length - 4);
+            assertThat(Arrays.copyOf(rest, large.length - 4)).isEqualTo(Arrays.copyOfRange(large, 4, large.length));
+            assertThat(in.read()).isEqualTo(-1);
+            assertThat(in.read(rest, 0, rest.length)).isEqualTo(-1);
+        }
+
+        assertThat(sut.getPayloadStream(new Job())).isNull();
+    }
+
+    @Test
+    void shouldShareFilesOfEqualPayloads() throws IOException
+    {
+        Job job1 = new Job();
+        Job job2 = new Job();
+
+        sut.attach(job1, large);
+        sut.attach(job2, large.clone());
+
+        assertThat(job1.getPayloadRef()).isEqualTo(job2.getPayloadRef());
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void shouldRemoveUnreferencedPayloadsAfterGracePeriod() throws IOException
+    {
+        Job referenced = new Job();
+        Job unreferenced = new Job();
+        Job fresh = new Job();
+        byte[] other = Arrays.copyOf(large, 20);
+        byte[] recent = Arrays.copyOf(large, 30);
+
+        sut.attach(referenced, large);
+        sut.attach(unreferenced, other);
+        sut.attach(fresh, recent);
+
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 3600000);
+        Files.setLastModifiedTime(directory.resolve(referenced.getPayloadRef()), old);
+        Files.setLastModifiedTime(directory.resolve(unreferenced.getPayloadRef()), old);
+
+        sut.removeUnreferenced(Collections.singletonList(referenced.getPayloadRef()));
+
+        assertThat(directory.resolve(referenced.getPayloadRef())).exists();
+        assertThat(directory.resolve(unreferenced.getPayloadRef())).doesNotExist();
+        assertThat(directory.resolve(fresh.getPayloadRef())).exists();
+    }
+
+    @Test
+    void shouldIgnoreRemovalIfNoDirectoryExists()
+    {
+        JobPayloadStoreImpl missing = new JobPayloadStoreImpl(directory.resolve("missing").toString(), INLINE_LIMIT);
+
+        missing.removeUnreferenced(Collections.emptyList());
+
+        assertThat(directory.resolve("missing")).doesNotExist();
+    }
+
+    @Test
+    void shouldFailOnMissingPayload() throws IOException
+    {
+        Job job = new Job();
+        sut.attach(job, large);
+        Files.delete(directory.resolve(job.getPayloadRef()));
+
+        catchException(() -> sut.getData(job));
+
+        assertThat((Throwable) caughtException()).isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidReferences()
+    {
+        Job job = new Job();
+        job.setPayloadRef("../../etc/passwd");
+
+        catchException(() -> sut.getPayload(job));
+
+        assertThat((Throwable) caughtException()).isInstanceOf(UncheckedIOException.class);
+    }
+}
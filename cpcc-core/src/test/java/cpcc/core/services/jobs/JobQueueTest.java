@@ -23,8 +23,12 @@ import static com.googlecode.catchexception.CatchException.caughtException;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,7 +41,6 @@ import java.util.concurrent.TimeUnit;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
-import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
@@ -63,7 +66,8 @@ class JobQueueTest
     private Date startDate;
     private Date endDate;
     private TimeService timeService;
-    private Session session;
+    private JobStateWriter stateWriter;
+    private JobIndex jobIndex;
     private JobRunnableFactory factory;
     private JobRunnable quickJobRunnable;
     private JobRunnable slowJobRunnable;
@@ -95,10 +99,7 @@ class JobQueueTest
             }
         });
 
-        session = mock(Session.class);
-
         sessionManager = mock(HibernateSessionManager.class);
-        when(sessionManager.getSession()).thenReturn(session);
 
         perthreadManager = mock(PerthreadManager.class);
 
@@ -106,6 +107,9 @@ class JobQueueTest
         when(quickJob.getId()).thenReturn(QUICK_JOB_ID);
 
         quickJobRunnable = mock(JobRunnable.class);
+
+        stateWriter = mock(JobStateWriter.class);
+        jobIndex = mock(JobIndex.class);
         doAnswer(new Answer<Void>()
         {
             @Override
@@ -114,7 +118,7 @@ class JobQueueTest
                 jobEnded = true;
                 return null;
             }
-        }).when(quickJob).setEnd(any(Date.class));
+        }).when(stateWriter).finished(eq(QUICK_JOB_ID), any(JobStatus.class), isNull(), any(Date.class));
 
         slowJob = mock(Job.class);
         when(slowJob.getId()).thenReturn(SLOW_JOB_ID);
@@ -139,12 +143,14 @@ class JobQueueTest
         when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(sessionManager);
         when(serviceResources.getService(TimeService.class)).thenReturn(timeService);
         when(serviceResources.getService(JobRepository.class)).thenReturn(jobRepository);
+        when(serviceResources.getService(JobStateWriter.class)).thenReturn(stateWriter);
+        when(serviceResources.getService(JobIndex.class)).thenReturn(jobIndex);
 
         factory = mock(JobRunnableFactory.class);
         when(factory.createRunnable(serviceResources, quickJob)).thenReturn(quickJobRunnable);
         when(factory.createRunnable(serviceResources, slowJob)).thenReturn(slowJobRunnable);
 
-        sut = new JobQueue("JQ", sessionManager, timeService, Arrays.asList(factory), numberOfPoolThreads);
+        sut = new JobQueue("JQ", timeService, Arrays.asList(factory), numberOfPoolThreads);
         sut.setServiceResources(serviceResources);
     }
 
@@ -163,21 +169,15 @@ class JobQueueTest
             .overridingErrorMessage("Job did not terminate within %.1f seconds!", counter / 10.0)
             .isTrue();
 
-        final InOrder inOrder = Mockito.inOrder(session, sessionManager, factory, quickJob);
-        inOrder.verify(quickJob).setQueued(queuedDate);
-        inOrder.verify(quickJob).setStatus(JobStatus.QUEUED);
-        inOrder.verify(session).update(quickJob);
-        inOrder.verify(sessionManager).commit();
-
-        inOrder.verify(quickJob).setStart(startDate);
-        inOrder.verify(quickJob).setStatus(JobStatus.RUNNING);
-        inOrder.verify(session).update(quickJob);
-        inOrder.verify(sessionManager).commit();
-
-        inOrder.verify(quickJob).setStatus(JobStatus.OK);
-        inOrder.verify(quickJob).setEnd(endDate);
-        inOrder.verify(session).update(quickJob);
-        inOrder.verify(sessionManager).commit();
+        final InOrder inOrder = Mockito.inOrder(stateWriter, factory, quickJobRunnable);
+        inOrder.verify(stateWriter).queued(QUICK_JOB_ID, queuedDate);
+        inOrder.verify(factory).classify(serviceResources, quickJob);
+        inOrder.verify(stateWriter).running(QUICK_JOB_ID, startDate);
+        inOrder.verify(factory).createRunnable(serviceResources, quickJob);
+        inOrder.verify(quickJobRunnable).run();
+        inOrder.verify(stateWriter).finished(QUICK_JOB_ID, JobStatus.OK, null, endDate);
+
+        verify(sessionManager, never()).commit();
     }
 
     @Test
@@ -207,24 +207,19 @@ class JobQueueTest
 
         sut.execute(reusableJob);
 
+        verify(stateWriter, timeout(1000)).finished(REUSABLE_JOB_ID, JobStatus.OK, null, endDate);
+
         await()
             .atMost(Duration.ofSeconds(1))
-            .until(() -> reusableJob.getEnd() != null);
+            .untilAsserted(() -> sut.execute(reusableJob));
 
-        sut.execute(reusableJob);
-
-        await()
-            .atMost(Duration.ofSeconds(2))
-            .until(() -> reusableJob.getEnd() != null);
+        verify(stateWriter, timeout(2000).times(2)).finished(REUSABLE_JOB_ID, JobStatus.OK, null, endDate);
 
         verify(reusableJobRunnable, times(2)).run();
+        verify(stateWriter, times(2)).queued(REUSABLE_JOB_ID, queuedDate);
+        verify(stateWriter, times(2)).running(REUSABLE_JOB_ID, startDate);
+        verify(sessionManager, never()).commit();
 
-        verify(session, times(6)).update(reusableJob);
-        verify(sessionManager, times(6)).commit();
-
-        assertThat(reusableJob.getQueued()).isEqualTo(queuedDate);
-        assertThat(reusableJob.getStart()).isEqualTo(startDate);
-        assertThat(reusableJob.getEnd()).isEqualTo(endDate);
-        assertThat(reusableJob.getStatus()).isEqualTo(JobStatus.OK);
+        assertThat(reusableJob.getStatus()).isNull();
     }
 }
@@ -0,0 +1,68 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class JobRetryPolicyTest
+{
+    @Test
+    void shouldNotRetryByDefault()
+    {
+        assertThat(JobRetryPolicy.NONE.getMaxRetries()).isZero();
+        assertThat(JobRetryPolicy.NONE.isRetryable(0)).isFalse();
+    }
+
+    @Test
+    void shouldLimitTheNumberOfRetries()
+    {
+        JobRetryPolicy sut = new JobRetryPolicy(3, 1000, 60000);
+
+        assertThat(sut.isRetryable(0)).isTrue();
+        assertThat(sut.isRetryable(2)).isTrue();
+        assertThat(sut.isRetryable(3)).isFalse();
+    }
+
+    @Test
+    void shouldBackOffExponentiallyWithJitter()
+    {
+        JobRetryPolicy sut = new JobRetryPolicy(10, 1000, 60000);
+
+        for (int k = 0; k < 100; ++k)
+        {
+            assertThat(sut.getDelay(0)).isBetween(500L, 1000L);
+            assertThat(sut.getDelay(1)).isBetween(1000L, 2000L);
+            assertThat(sut.getDelay(3)).isBetween(4000L, 8000L);
+        }
+    }
+
+    @Test
+    void shouldCapTheDelay()
+    {
+        JobRetryPolicy sut = new JobRetryPolicy(100, 1000, 60000);
+
+        for (int k = 0; k < 100; ++k)
+        {
+            assertThat(sut.getDelay(10)).isBetween(30000L, 60000L);
+            assertThat(sut.getDelay(99)).isBetween(30000L, 60000L);
+        }
+    }
+}
@@ -21,23 +21,33 @@ package cpcc.core.services.jobs;
 import static com.googlecode.catchexception.CatchException.catchException;
 import static com.googlecode.catchexception.CatchException.caughtException;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -68,6 +78,11 @@ class JobServiceTest
     private JobQueue jobQueue01;
     private JobQueue jobQueue02;
     private ServiceResources serviceResources;
+    private PerthreadManager perthreadManager;
+    private JobStateWriter stateWriter;
+    private JobPayloadStore payloadStore;
+    private JobIndex jobIndex;
+    private RegistryShutdownHub shutdownHub;
 
     @BeforeEach
     void setUp() throws JobExecutionException, NoSuchAlgorithmException
@@ -79,12 +94,29 @@ class JobServiceTest
         createdDate2 = mock(Date.class);
 
         session = mock(Session.class);
+        when(session.save(any(Job.class))).thenAnswer(new Answer<Integer>()
+        {
+            int nextId = 1;
+
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable
+            {
+                Job job = invocation.getArgument(0);
+                job.setId(nextId++);
+                return job.getId();
+            }
+        });
 
         sessionManager = mock(HibernateSessionManager.class);
         when(sessionManager.getSession()).thenReturn(session);
 
         timeService = mock(TimeService.class);
 
+        perthreadManager = mock(PerthreadManager.class);
+
+        serviceResources = mock(ServiceResources.class);
+        when(serviceResources.getService(PerthreadManager.class)).thenReturn(perthreadManager);
+
         jobRepository = mock(JobRepository.class);
 
         existingJob = mock(Job.class);
@@ -101,7 +133,24 @@ class JobServiceTest
         jobQueue02 = mock(JobQueue.class);
         doThrow(JobExecutionException.class).when(jobQueue02).execute(failingJob);
 
-        sut = new JobServiceImpl(serviceResources, sessionManager, jobRepository, timeService);
+        stateWriter = mock(JobStateWriter.class);
+
+        payloadStore = spy(new JobPayloadStoreImpl("", 65536));
+
+        jobIndex = spy(new JobIndexImpl());
+
+        shutdownHub = mock(RegistryShutdownHub.class);
+
+        sut = new JobServiceImpl(serviceResources, shutdownHub, sessionManager, jobRepository, timeService,
+            stateWriter, payloadStore, jobIndex);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(shutdownHub, atLeastOnce()).addRegistryShutdownListener(captor.capture());
+        captor.getAllValues().forEach(Runnable::run);
     }
 
     @Test
@@ -123,12 +172,14 @@ class JobServiceTest
 
         sut.addJob(QUEUE_NAME_01, parameters01);
 
-        verify(jobRepository).findOtherRunningJob(QUEUE_NAME_01, parameters01);
+        verifyNoInteractions(jobRepository);
 
         ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
         verify(session).save(argument.capture());
         Job actual = argument.getValue();
 
+        verify(jobIndex).bind(actual);
+
         assertThat(actual.getCreated())
             .describedAs("Job queued time")
             .isEqualTo(createdDate1);
@@ -173,8 +224,6 @@ class JobServiceTest
 
         InOrder inOrder = Mockito.inOrder(timeService, jobQueue01, jobRepository, session);
 
-        inOrder.verify(jobRepository).findOtherRunningJob(eq(QUEUE_NAME_01), matches(parameterRegex));
-
         ArgumentCaptor<Job> argument1 = ArgumentCaptor.forClass(Job.class);
         inOrder.verify(session).save(argument1.capture());
         Job actual1 = argument1.getValue();
@@ -222,6 +271,8 @@ class JobServiceTest
         assertThat(actual2.getData())
             .describedAs("Data Two")
             .isEqualTo(data2);
+
+        verifyNoInteractions(jobRepository);
     }
 
     @Test
@@ -243,7 +294,7 @@ class JobServiceTest
 
         sut.addJobIfNotExists(QUEUE_NAME_01, parameters01);
 
-        verify(jobRepository).findOtherRunningJob(QUEUE_NAME_01, parameters01);
+        verifyNoInteractions(jobRepository);
 
         ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
         verify(session).save(argument.capture());
@@ -289,7 +340,7 @@ class JobServiceTest
 
         sut.addJobIfNotExists(QUEUE_NAME_01, parameters01, data);
 
-        verify(jobRepository).findOtherRunningJob(QUEUE_NAME_01, parameterWithMd5);
+        verifyNoInteractions(jobRepository);
 
         ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
         verify(session).save(argument.capture());
@@ -315,10 +366,6 @@ class JobServiceTest
     @Test
     void shouldNotAddJobIfExists() throws JobCreationException
     {
-        Job existingJob = mock(Job.class);
-
-        when(jobRepository.findOtherRunningJob(QUEUE_NAME_01, parameters01)).thenReturn(Arrays.asList(existingJob));
-
         when(timeService.newDate()).thenAnswer(new Answer<Date>()
         {
             int counter = 0;
@@ -333,9 +380,11 @@ class JobServiceTest
 
         sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
 
+        sut.addJobIfNotExists(QUEUE_NAME_01, parameters01);
         sut.addJobIfNotExists(QUEUE_NAME_01, parameters01);
 
-        verify(jobRepository).findOtherRunningJob(QUEUE_NAME_01, parameters01);
+        verify(session, times(1)).save(any(Job.class));
+        verifyNoInteractions(jobRepository);
     }
 
     @Test
@@ -343,11 +392,6 @@ class JobServiceTest
     {
         byte[] data = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
 
-        Job existingJob = mock(Job.class);
-        String parameterWithMd5 = parameters01 + ",len=10,md5=70903e79b7575e3f4e7ffa15c2608ac7";
-
-        when(jobRepository.findOtherRunningJob(QUEUE_NAME_01, parameterWithMd5)).thenReturn(Arrays.asList(existingJob));
-
         when(timeService.newDate()).thenAnswer(new Answer<Date>()
         {
             int counter = 0;
@@ -362,17 +406,18 @@ class JobServiceTest
 
         sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
 
+        sut.addJobIfNotExists(QUEUE_NAME_01, parameters01, data);
         sut.addJobIfNotExists(QUEUE_NAME_01, parameters01, data);
 
-        verify(jobRepository).findOtherRunningJob(QUEUE_NAME_01, parameterWithMd5);
+        verify(session, times(1)).save(any(Job.class));
+        verifyNoInteractions(jobRepository);
     }
 
     @Test
     void shouldThrowJobCreationExceptionIfJobIsAlreadyActive() throws JobCreationException
     {
-        when(jobRepository.findOtherRunningJob(QUEUE_NAME_01, parameters01)).thenReturn(Arrays.asList(existingJob));
-
         sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+        sut.addJob(QUEUE_NAME_01, parameters01);
 
         catchException(() -> sut.addJob(QUEUE_NAME_01, parameters01));
 
@@ -385,6 +430,77 @@ class JobServiceTest
             .isEqualTo("Job already executing in queue='queueName01', parameters='parameters01'");
     }
 
+    @Test
+    void shouldAddJobInOtherQueueWithSameParameters() throws JobCreationException
+    {
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+        sut.addJobQueue(QUEUE_NAME_02, jobQueue02);
+
+        sut.addJob(QUEUE_NAME_01, parameters01);
+        sut.addJob(QUEUE_NAME_02, parameters01);
+
+        verify(session, times(2)).save(any(Job.class));
+    }
+
+    @Test
+    void shouldAddJobAgainAfterActiveJobHasBeenReleased() throws JobCreationException, JobExecutionException
+    {
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.addJob(QUEUE_NAME_01, parameters01);
+
+        ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        verify(session).save(argument.capture());
+
+        jobIndex.release(argument.getValue().getId());
+
+        sut.addJob(QUEUE_NAME_01, parameters01);
+
+        verify(session, times(2)).save(any(Job.class));
+        verify(jobQueue01, times(2)).execute(any(Job.class));
+    }
+
+    @Test
+    void shouldNotAddJobIfOtherJobHasBeenReleased() throws JobCreationException
+    {
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.addJob(QUEUE_NAME_01, parameters01);
+        sut.addJob(QUEUE_NAME_01, parameters02);
+
+        jobIndex.release(2);
+
+        catchException(() -> sut.addJob(QUEUE_NAME_01, parameters01));
+
+        assertThat((Throwable) caughtException())
+            .describedAs("Thrown exception")
+            .isInstanceOf(JobCreationException.class);
+    }
+
+    @Test
+    void shouldThrowJobCreationExceptionIfPayloadCanNotBeStored() throws Exception
+    {
+        byte[] data = new byte[]{1, 2, 3};
+        doThrow(IOException.class).when(payloadStore).attach(any(Job.class), eq(data));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        catchException(() -> sut.addJob(QUEUE_NAME_01, parameters01, data));
+
+        assertThat((Throwable) caughtException())
+            .describedAs("Thrown exception")
+            .isInstanceOf(JobCreationException.class)
+            .hasCauseInstanceOf(IOException.class);
+
+        verifyNoInteractions(session);
+        verify(jobQueue01, never()).execute(any(Job.class));
+        verify(jobIndex).cancel(any(Job.class));
+
+        sut.addJob(QUEUE_NAME_01, parameters01, new byte[]{4, 5, 6});
+
+        verify(session).save(any(Job.class));
+    }
+
     @Test
     void shouldDoNothingIfThereAreNoQueuedJobs() throws JobExecutionException
     {
@@ -414,6 +530,155 @@ class JobServiceTest
         verifyNoMoreInteractions(jobQueue01, jobQueue02);
     }
 
+    @Test
+    void shouldDispatchAddedJobToQueueImmediately() throws JobCreationException, JobExecutionException
+    {
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.addJob(QUEUE_NAME_01, parameters01);
+
+        ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        InOrder inOrder = Mockito.inOrder(session, sessionManager, jobQueue01);
+        inOrder.verify(session).save(argument.capture());
+        inOrder.verify(sessionManager).commit();
+        inOrder.verify(jobQueue01).execute(argument.getValue());
+
+        verifyNoInteractions(jobQueue02);
+    }
+
+    @Test
+    void shouldNotDispatchFreshlyCreatedJobsInExecuteJobs() throws JobExecutionException
+    {
+        Date fresh = new Date(100000L);
+        when(existingJob.getCreated()).thenReturn(fresh);
+        when(timeService.currentTimeMillis()).thenReturn(105000L);
+        when(jobRepository.findNextScheduledJobs()).thenReturn(Arrays.asList(existingJob));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.executeJobs();
+
+        verify(jobQueue01).setServiceResources(serviceResources);
+        verifyNoMoreInteractions(jobQueue01);
+    }
+
+    @Test
+    void shouldDispatchLeftoverJobsInExecuteJobs() throws JobExecutionException
+    {
+        Date old = new Date(100000L);
+        when(existingJob.getCreated()).thenReturn(old);
+        when(timeService.currentTimeMillis()).thenReturn(200000L);
+        when(jobRepository.findNextScheduledJobs()).thenReturn(Arrays.asList(existingJob));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.executeJobs();
+
+        verify(jobQueue01).execute(existingJob);
+    }
+
+    @Test
+    void shouldNotDispatchJobsWithUncommittedStateInExecuteJobs() throws JobExecutionException
+    {
+        Date old = new Date(100000L);
+        when(existingJob.getId()).thenReturn(17);
+        when(existingJob.getCreated()).thenReturn(old);
+        when(timeService.currentTimeMillis()).thenReturn(200000L);
+        when(jobRepository.findNextScheduledJobs()).thenReturn(Arrays.asList(existingJob));
+        when(stateWriter.getPendingStatus(17)).thenReturn(JobStatus.QUEUED);
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.executeJobs();
+
+        verify(jobQueue01).setServiceResources(serviceResources);
+        verifyNoMoreInteractions(jobQueue01);
+    }
+
+    @Test
+    void shouldNotDispatchJobsBeforeTheirNotBeforeTimeInExecuteJobs() throws JobExecutionException
+    {
+        when(existingJob.getCreated()).thenReturn(new Date(100000L));
+        when(existingJob.getNotBefore()).thenReturn(new Date(300000L));
+        when(timeService.currentTimeMillis()).thenReturn(200000L);
+        when(jobRepository.findNextScheduledJobs()).thenReturn(Arrays.asList(existingJob));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.executeJobs();
+
+        verify(jobQueue01).setServiceResources(serviceResources);
+        verifyNoMoreInteractions(jobQueue01);
+    }
+
+    @Test
+    void shouldDispatchOverdueDelayedJobsInExecuteJobs() throws JobExecutionException
+    {
+        when(existingJob.getCreated()).thenReturn(new Date(100000L));
+        when(existingJob.getNotBefore()).thenReturn(new Date(150000L));
+        when(timeService.currentTimeMillis()).thenReturn(200000L);
+        when(jobRepository.findNextScheduledJobs()).thenReturn(Arrays.asList(existingJob));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.executeJobs();
+
+        verify(jobQueue01).execute(existingJob);
+    }
+
+    @Test
+    void shouldDispatchDelayedJobWhenDue() throws JobCreationException, JobExecutionException
+    {
+        long now = System.currentTimeMillis();
+        when(timeService.currentTimeMillis()).thenReturn(now);
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.addJob(QUEUE_NAME_01, parameters01, null, new Date(now + 300));
+
+        ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        verify(session).save(argument.capture());
+
+        assertThat(argument.getValue().getNotBefore()).isEqualTo(new Date(now + 300));
+
+        verify(jobQueue01, timeout(5000)).execute(argument.getValue());
+        verify(perthreadManager, timeout(5000)).cleanup();
+
+        assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(now + 300);
+    }
+
+    @Test
+    void shouldNotDispatchDelayedJobBeforeDue() throws JobCreationException, JobExecutionException
+    {
+        long now = System.currentTimeMillis();
+        when(timeService.currentTimeMillis()).thenReturn(now);
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.addJob(QUEUE_NAME_01, parameters01, null, new Date(now + 3600000L));
+
+        verify(session).save(any(Job.class));
+        verify(jobQueue01, after(500).never()).execute(any(Job.class));
+    }
+
+    @Test
+    void shouldScheduleRetriedJob() throws JobExecutionException
+    {
+        Job retriedJob = new Job();
+        retriedJob.setId(17);
+        retriedJob.setQueueName(QUEUE_NAME_01);
+        retriedJob.setParameters(parameters01);
+        retriedJob.setNotBefore(new Date(System.currentTimeMillis() + 200));
+        when(timeService.currentTimeMillis()).thenReturn(System.currentTimeMillis());
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        sut.scheduleJob(retriedJob);
+
+        verify(jobQueue01, never()).execute(retriedJob);
+        verify(jobQueue01, timeout(5000)).execute(retriedJob);
+    }
+
     @Test
     void shouldThrowExceptionIfJobQueueIsNotRegistered() throws JobCreationException
     {
@@ -431,17 +696,45 @@ class JobServiceTest
     @Test
     void shouldResetJobs()
     {
+        Job activeJob = new Job();
+        activeJob.setId(17);
+        activeJob.setQueueName(QUEUE_NAME_01);
+        activeJob.setParameters(parameters01);
+        when(jobRepository.findActiveJobs()).thenReturn(Arrays.asList(activeJob));
+
         sut.resetJobs();
 
-        verify(jobRepository).resetJobs();
+        InOrder inOrder = Mockito.inOrder(stateWriter, jobRepository, sessionManager, jobIndex);
+        inOrder.verify(stateWriter).flush();
+        inOrder.verify(jobRepository).resetJobs();
+        inOrder.verify(sessionManager).commit();
+        inOrder.verify(jobRepository).findActiveJobs();
+        inOrder.verify(jobIndex).rebuild(Arrays.asList(activeJob));
+
+        sut.addJobQueue(QUEUE_NAME_01, jobQueue01);
+
+        catchException(() -> sut.addJob(QUEUE_NAME_01, parameters01));
+
+        assertThat((Throwable) caughtException())
+            .describedAs("Thrown exception")
+            .isInstanceOf(JobCreationException.class);
     }
 
     @Test
     void shouldRemoveOldJobs()
     {
+        List<String> references = Arrays.asList("ref1", "ref2");
+        when(jobRepository.findPayloadReferences()).thenReturn(references);
+        when(jobRepository.removeOldJobs()).thenReturn(Arrays.asList(17, 18));
+
         sut.removeOldJobs();
 
-        verify(jobRepository).removeOldJobs();
+        InOrder inOrder = Mockito.inOrder(jobRepository, sessionManager, jobIndex, payloadStore);
+        inOrder.verify(jobRepository).removeOldJobs();
+        inOrder.verify(sessionManager).commit();
+        inOrder.verify(jobIndex).release(17);
+        inOrder.verify(jobIndex).release(18);
+        inOrder.verify(payloadStore).removeUnreferenced(references);
     }
 
     @Test
@@ -0,0 +1,279 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import cpcc.core.entities.Job;
+import cpcc.core.entities.JobStatus;
+
+class JobStateWriterTest
+{
+    private static final long FLUSH_INTERVAL = 3600000L;
+
+    private HibernateSessionManager sessionManager;
+    private Session session;
+    private PerthreadManager perthreadManager;
+    private JobRepository jobRepository;
+    private RegistryShutdownHub shutdownHub;
+    private Job job1;
+    private Job job2;
+    private JobStateWriterImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        session = mock(Session.class);
+        sessionManager = mock(HibernateSessionManager.class);
+        when(sessionManager.getSession()).thenReturn(session);
+
+        perthreadManager = mock(PerthreadManager.class);
+        shutdownHub = mock(RegistryShutdownHub.class);
+
+        job1 = new Job();
+        job1.setId(1);
+        job1.setStatus(JobStatus.CREATED);
+
+        job2 = new Job();
+        job2.setId(2);
+        job2.setStatus(JobStatus.CREATED);
+
+        jobRepository = mock(JobRepository.class);
+        when(jobRepository.findJobsByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return Arrays.asList(job1, job2).stream()
+                .filter(x -> ids.contains(x.getId()))
+                .collect(Collectors.toList());
+        });
+
+        sut = new JobStateWriterImpl(sessionManager, perthreadManager, jobRepository, shutdownHub, FLUSH_INTERVAL);
+    }
+
+    @Test
+    void shouldNotTouchTheDatabaseIfNothingIsPending()
+    {
+        sut.flush();
+
+        verifyNoInteractions(jobRepository, sessionManager, perthreadManager);
+    }
+
+    @Test
+    void shouldCoalesceTransitionsOfAJobIntoOneUpdate()
+    {
+        Date queued = new Date(1000);
+        Date start = new Date(2000);
+        Date end = new Date(3000);
+
+        sut.queued(1, queued);
+        sut.running(1, start);
+        sut.finished(1, JobStatus.FAILED, "failed", end);
+
+        verifyNoInteractions(jobRepository, sessionManager);
+
+        sut.flush();
+
+        InOrder inOrder = Mockito.inOrder(jobRepository, session, sessionManager);
+        inOrder.verify(jobRepository).findJobsByIds(argThat(ids -> ids.size() == 1 && ids.contains(1)));
+        inOrder.verify(session).update(job1);
+        inOrder.verify(sessionManager).commit();
+        verifyNoInteractions(perthreadManager);
+
+        assertThat(job1.getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(job1.getQueued()).isEqualTo(queued);
+        assertThat(job1.getStart()).isEqualTo(start);
+        assertThat(job1.getEnd()).isEqualTo(end);
+        assertThat(job1.getResultText()).isEqualTo("failed");
+    }
+
+    @Test
+    void shouldReturnRetriedJobToCreatedState()
+    {
+        Date queued = new Date(1000);
+        Date start = new Date(2000);
+        Date notBefore = new Date(5000);
+
+        sut.queued(1, queued);
+        sut.running(1, start);
+        sut.retry(1, 1, notBefore, "failed");
+
+        assertThat(sut.getPendingStatus(1)).isEqualTo(JobStatus.CREATED);
+
+        sut.flush();
+
+        verify(session).update(job1);
+
+        assertThat(job1.getStatus()).isEqualTo(JobStatus.CREATED);
+        assertThat(job1.getRetryCount()).isEqualTo(1);
+        assertThat(job1.getNotBefore()).isEqualTo(notBefore);
+        assertThat(job1.getResultText()).isEqualTo("failed");
+        assertThat(job1.getEnd()).isNull();
+    }
+
+    @Test
+    void shouldCommitTransitionsOfSeveralJobsTogether()
+    {
+        Date queued = new Date(1000);
+        Date start = new Date(2000);
+
+        sut.queued(1, queued);
+        sut.queued(2, queued);
+        sut.running(2, start);
+
+        sut.flush();
+
+        verify(jobRepository).findJobsByIds(argThat(ids -> ids.size() == 2 && ids.containsAll(Arrays.asList(1, 2))));
+        verify(session).update(job1);
+        verify(session).update(job2);
+        verify(sessionManager, times(1)).commit();
+
+        assertThat(job1.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job1.getQueued()).isEqualTo(queued);
+        assertThat(job1.getStart()).isNull();
+        assertThat(job2.getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(job2.getStart()).isEqualTo(start);
+    }
+
+    @Test
+    void shouldReportPendingStatusUntilFlushed()
+    {
+        assertThat(sut.getPendingStatus(1)).isNull();
+
+        sut.queued(1, new Date());
+        assertThat(sut.getPendingStatus(1)).isEqualTo(JobStatus.QUEUED);
+
+        sut.finished(1, JobStatus.OK, null, new Date());
+        assertThat(sut.getPendingStatus(1)).isEqualTo(JobStatus.OK);
+
+        sut.flush();
+
+        assertThat(sut.getPendingStatus(1)).isNull();
+    }
+
+    @Test
+    void shouldReportPendingStatusWhileFlushing()
+    {
+        List<JobStatus> statusDuringFlush = new ArrayList<>();
+        when(jobRepository.findJobsByIds(anyCollection())).thenAnswer(invocation -> {
+            statusDuringFlush.add(sut.getPendingStatus(1));
+            return Arrays.asList(job1);
+        });
+
+        sut.running(1, new Date());
+        sut.flush();
+
+        assertThat(statusDuringFlush).containsExactly(JobStatus.RUNNING);
+        assertThat(sut.getPendingStatus(1)).isNull();
+    }
+
+    @Test
+    void shouldKeepTransitionsOfFailedFlushForTheNextFlush()
+    {
+        Date queued = new Date(1000);
+        Date end = new Date(3000);
+
+        doThrow(IllegalStateException.class).doNothing().when(sessionManager).commit();
+
+        sut.queued(1, queued);
+        sut.flush();
+
+        verify(sessionManager).abort();
+        verifyNoInteractions(perthreadManager);
+        assertThat(sut.getPendingStatus(1)).isEqualTo(JobStatus.QUEUED);
+
+        sut.finished(1, JobStatus.OK, null, end);
+
+        job1.setStatus(JobStatus.CREATED);
+        job1.setQueued(null);
+
+        sut.flush();
+
+        verify(sessionManager, times(2)).commit();
+        assertThat(sut.getPendingStatus(1)).isNull();
+        assertThat(job1.getStatus()).isEqualTo(JobStatus.OK);
+        assertThat(job1.getQueued()).isEqualTo(queued);
+        assertThat(job1.getEnd()).isEqualTo(end);
+    }
+
+    @Test
+    void shouldIgnoreTransitionsOfDeletedJobs()
+    {
+        sut.running(3, new Date());
+
+        sut.flush();
+
+        verify(session, times(0)).update(any(Job.class));
+        verify(sessionManager).commit();
+        assertThat(sut.getPendingStatus(3)).isNull();
+    }
+
+    @Test
+    void shouldFlushOnRegistryShutdown()
+    {
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(shutdownHub).addRegistryShutdownListener(listener.capture());
+
+        sut.running(1, new Date());
+
+        listener.getValue().run();
+
+        verify(session).update(job1);
+        verify(sessionManager).commit();
+        verify(perthreadManager).cleanup();
+        assertThat(job1.getStatus()).isEqualTo(JobStatus.RUNNING);
+    }
+
+    @Test
+    void shouldFlushPeriodically()
+    {
+        JobStateWriterImpl writer = new JobStateWriterImpl(sessionManager, perthreadManager, jobRepository,
+            shutdownHub, 10L);
+
+        writer.running(2, new Date());
+
+        verify(sessionManager, Mockito.timeout(2000)).commit();
+        verify(perthreadManager, Mockito.timeout(2000).atLeastOnce()).cleanup();
+        assertThat(job2.getStatus()).isEqualTo(JobStatus.RUNNING);
+    }
+}
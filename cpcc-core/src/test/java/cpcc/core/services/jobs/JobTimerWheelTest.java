@@ -0,0 +1,118 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.core.services.jobs;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JobTimerWheelTest
+{
+    private JobTimerWheel sut;
+    private List<String> executed;
+
+    @BeforeEach
+    void setUp()
+    {
+        executed = new CopyOnWriteArrayList<>();
+        sut = new JobTimerWheel("Test Timer", 10, 5);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        sut.stop();
+    }
+
+    @Test
+    void shouldRejectInvalidParameters()
+    {
+        catchException(() -> new JobTimerWheel("Test Timer", 0, 5));
+
+        assertThat((Throwable) caughtException()).isInstanceOf(IllegalArgumentException.class);
+
+        catchException(() -> new JobTimerWheel("Test Timer", 10, 0));
+
+        assertThat((Throwable) caughtException()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRunTasksInOrderOfTheirDeadlines()
+    {
+        long now = System.currentTimeMillis();
+
+        sut.schedule(now + 200, () -> executed.add("third"));
+        sut.schedule(now + 30, () -> executed.add("second"));
+        sut.schedule(now - 1000, () -> executed.add("first"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 3);
+
+        assertThat(executed).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void shouldNotRunTasksBeforeTheirDeadlines()
+    {
+        long now = System.currentTimeMillis();
+        AtomicLong runTime = new AtomicLong();
+
+        // The deadline lies several wheel rounds ahead.
+        sut.schedule(now + 250, () -> runTime.set(System.currentTimeMillis()));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runTime.get() != 0);
+
+        assertThat(runTime.get()).isGreaterThanOrEqualTo(now + 250);
+    }
+
+    @Test
+    void shouldSurviveFailingTasks()
+    {
+        long now = System.currentTimeMillis();
+
+        sut.schedule(now, () -> {
+            throw new IllegalStateException("failed");
+        });
+        sut.schedule(now + 20, () -> executed.add("after failure"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executed.size() == 1);
+    }
+
+    @Test
+    void shouldDiscardTasksAfterStop() throws InterruptedException
+    {
+        long now = System.currentTimeMillis();
+
+        sut.schedule(now + 200, () -> executed.add("task"));
+        sut.stop();
+
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        assertThat(executed).isEmpty();
+    }
+}
@@ -29,6 +29,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -215,6 +216,71 @@ class RealVehicleUtilsTest
         assertThat(actual).isEqualTo(expectedResult);
     }
 
+    @ParameterizedTest
+    @MethodSource("positionDataProvider")
+    void shouldCheckIfPositionsAreInsideTheAreaOfOperationOfRealVehicle(String areaOfOperation,
+        PolarCoordinate position, boolean expectedResult)
+    {
+        RealVehicle rv = mock(RealVehicle.class);
+        when(rv.getId()).thenReturn(1001);
+        when(rv.getLastUpdate()).thenReturn(new Date(1000L));
+        when(rv.getAreaOfOperation()).thenReturn(areaOfOperation);
+
+        boolean actual = RealVehicleUtils.isInsideAreaOfOperation(rv, position);
+
+        assertThat(actual).isEqualTo(expectedResult);
+    }
+
+    @Test
+    void shouldCacheParsedAreaOfOperation()
+    {
+        RealVehicle rv = mock(RealVehicle.class);
+        when(rv.getId()).thenReturn(1002);
+        when(rv.getLastUpdate()).thenReturn(new Date(1000L));
+        when(rv.getAreaOfOperation()).thenReturn(AOO_001);
+
+        AreaOfOperation first = RealVehicleUtils.getAreaOfOperation(rv);
+        AreaOfOperation second = RealVehicleUtils.getAreaOfOperation(rv);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getPolygons()).hasSize(AOO_001_POLYGONS.size());
+        assertThat(RealVehicleUtils.getDepotPositions(rv)).hasSize(AOO_001_DEPOT.size());
+    }
+
+    @Test
+    void shouldReparseChangedAreaOfOperation()
+    {
+        RealVehicle rv = mock(RealVehicle.class);
+        when(rv.getId()).thenReturn(1003);
+        when(rv.getLastUpdate()).thenReturn(new Date(1000L));
+        when(rv.getAreaOfOperation()).thenReturn(AOO_001);
+
+        AreaOfOperation first = RealVehicleUtils.getAreaOfOperation(rv);
+
+        when(rv.getAreaOfOperation()).thenReturn(AOO_003);
+        AreaOfOperation second = RealVehicleUtils.getAreaOfOperation(rv);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getDepotPositions()).isEmpty();
+
+        when(rv.getLastUpdate()).thenReturn(new Date(2000L));
+        AreaOfOperation third = RealVehicleUtils.getAreaOfOperation(rv);
+
+        assertThat(third).isNotSameAs(second);
+
+        RealVehicleUtils.invalidateAreaOfOperation(1003);
+        AreaOfOperation fourth = RealVehicleUtils.getAreaOfOperation(rv);
+
+        assertThat(fourth).isNotSameAs(third);
+    }
+
+    @Test
+    void shouldReturnEmptyAreaOfOperationForMissingRealVehicle()
+    {
+        assertThat(RealVehicleUtils.getAreaOfOperation(null)).isSameAs(AreaOfOperation.EMPTY);
+        assertThat(RealVehicleUtils.getAreaOfOperation(mock(RealVehicle.class))).isSameAs(AreaOfOperation.EMPTY);
+    }
+
     static Stream<Arguments> failingInsideCheckDataProvider()
     {
         return Stream.of(
@@ -22,6 +22,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.ros.message.MessageListener;
 
 /**
  * AbstractGpsSensorAdapter
@@ -29,6 +32,7 @@ import java.util.Map;
 public abstract class AbstractGpsSensorAdapter extends AbstractSensorAdapter
 {
     private sensor_msgs.NavSatFix position;
+    private List<MessageListener<sensor_msgs.NavSatFix>> positionListeners = new CopyOnWriteArrayList<>();
 
     /**
      * {@inheritDoc}
@@ -53,6 +57,27 @@ public abstract class AbstractGpsSensorAdapter extends AbstractSensorAdapter
     protected void setPosition(sensor_msgs.NavSatFix position)
     {
         this.position = position;
+
+        if (position != null)
+        {
+            positionListeners.stream().forEach(listener -> listener.onNewMessage(position));
+        }
+    }
+
+    /**
+     * @param listener the listener to be notified on each new GPS position.
+     */
+    public void addPositionListener(MessageListener<sensor_msgs.NavSatFix> listener)
+    {
+        positionListeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to be removed.
+     */
+    public void removePositionListener(MessageListener<sensor_msgs.NavSatFix> listener)
+    {
+        positionListeners.remove(listener);
     }
 
     /**
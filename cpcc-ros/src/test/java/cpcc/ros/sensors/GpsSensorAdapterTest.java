@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
@@ -150,4 +151,22 @@ class GpsSensorAdapterTest
         assertThat(sut.getValue()).isNull();
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldNotifyPositionListeners()
+    {
+        MessageListener<sensor_msgs.NavSatFix> listener = mock(MessageListener.class);
+        sensor_msgs.NavSatFix position = mock(sensor_msgs.NavSatFix.class);
+
+        sut.addPositionListener(listener);
+        sut.setPosition(position);
+        sut.setPosition(null);
+
+        verify(listener).onNewMessage(position);
+
+        sut.removePositionListener(listener);
+        sut.setPosition(message1);
+
+        verifyNoMoreInteractions(listener);
+    }
 }
@@ -22,11 +22,14 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tapestry5.http.services.RequestGlobals;
 import org.apache.tapestry5.json.JSONObject;
 
+import cpcc.com.base.CommunicationConstants;
+import cpcc.com.services.ContentCoding;
 import cpcc.core.utils.JsonStreamResponse;
 import cpcc.rv.base.services.StateSynchronizer;
 
@@ -43,7 +46,13 @@ public class UpdateConfiguration
 
     Object onActivate() throws IOException
     {
-        InputStream inputStream = requestGlobals.getHTTPServletRequest().getInputStream();
+        HttpServletRequest request = requestGlobals.getHTTPServletRequest();
+        InputStream inputStream = ContentCoding.decode(
+            request.getHeader(CommunicationConstants.CONTENT_ENCODING), request.getInputStream());
+
+        requestGlobals.getResponse()
+            .setHeader(CommunicationConstants.ACCEPT_ENCODING, CommunicationConstants.ACCEPTED_CODINGS);
+
         byte[] requestData = IOUtils.toByteArray(inputStream);
 
         synchronizer.importConfiguration(requestData);
@@ -18,6 +18,7 @@
 
 package cpcc.rv.base.services;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -38,6 +39,7 @@ import cpcc.core.entities.SensorDefinition;
 import cpcc.core.services.QueryManager;
 import cpcc.core.services.RealVehicleRepository;
 import cpcc.core.services.jobs.JobRunnable;
+import cpcc.core.utils.RealVehicleUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -47,7 +49,7 @@ public class ConfigImportJobRunnable implements JobRunnable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ConfigImportJobRunnable.class);
 
-    private byte[] data;
+    private InputStream payload;
 
     private ServiceResources serviceResources;
     private Genson genson;
@@ -57,13 +59,13 @@ public class ConfigImportJobRunnable implements JobRunnable
 
     /**
      * @param serviceResources the service resources.
-     * @param data the data to import.
+     * @param payload the stream reading the data to import.
      */
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Exposed on purpose.")
-    public ConfigImportJobRunnable(ServiceResources serviceResources, byte[] data)
+    public ConfigImportJobRunnable(ServiceResources serviceResources, InputStream payload)
     {
         this.serviceResources = serviceResources;
-        this.data = data;
+        this.payload = payload;
         genson = new Genson();
     }
 
@@ -77,7 +79,7 @@ public class ConfigImportJobRunnable implements JobRunnable
         sessionManager = serviceResources.getService(HibernateSessionManager.class);
         rvRepo = serviceResources.getService(RealVehicleRepository.class);
 
-        ConfigSyncData syncData = genson.deserialize(data, ConfigSyncData.class);
+        ConfigSyncData syncData = genson.deserialize(payload, ConfigSyncData.class);
 
         syncSensorDefinitionConfig(syncData.getSen());
         syncRealVehicleConfig(syncData.getRvs());
@@ -126,6 +128,7 @@ public class ConfigImportJobRunnable implements JobRunnable
 
             if (updated == 1)
             {
+                RealVehicleUtils.invalidateAreaOfOperation(rdId);
                 updateSensorDefinitions(dbRv, rv);
                 if (saveOnly)
                 {
@@ -18,11 +18,13 @@
 
 package cpcc.rv.base.services;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.tapestry5.ioc.ServiceResources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.owlike.genson.Genson;
 
@@ -31,13 +33,15 @@ import cpcc.core.entities.RealVehicle;
 import cpcc.core.entities.SensorDefinition;
 import cpcc.core.services.QueryManager;
 import cpcc.core.services.RealVehicleRepository;
-import cpcc.core.services.jobs.JobRunnable;
+import cpcc.core.services.jobs.AsyncJobRunnable;
 
 /**
  * Configuration synchronization job runnable.
  */
-public class ConfigPushJobRunnable implements JobRunnable
+public class ConfigPushJobRunnable implements AsyncJobRunnable
 {
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigPushJobRunnable.class);
+
     private int id;
     private Genson genson;
     private ServiceResources serviceResources;
@@ -58,7 +62,7 @@ public class ConfigPushJobRunnable implements JobRunnable
      * {@inheritDoc}
      */
     @Override
-    public void run() throws IOException
+    public CompletableFuture<Void> start()
     {
         QueryManager queryManager = serviceResources.getService(QueryManager.class);
         CommunicationService com = serviceResources.getService(CommunicationService.class);
@@ -71,9 +75,10 @@ public class ConfigPushJobRunnable implements JobRunnable
         ConfigSyncData syncData = new ConfigSyncData(sds, rvs);
         byte[] data = genson.serializeBytes(syncData);
 
-        com.transfer(target, RealVehicleBaseConstants.CONFIGURATION_UPDATE_CONNECTOR, data);
+        return com.transferAsync(target, RealVehicleBaseConstants.CONFIGURATION_UPDATE_CONNECTOR, data)
+            .thenAccept(response -> LOG.debug("Configuration pushed to {}: {}",
+                target.getName(), response.getStatus()));
     }
-    
 
     /**
      * {@inheritDoc}
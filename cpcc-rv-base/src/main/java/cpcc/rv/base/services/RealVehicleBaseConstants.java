@@ -34,6 +34,12 @@ public final class RealVehicleBaseConstants
     public static final String RV_BASE_JOB_POOL_THREADS = "rv-base.job.pool.threads";
     public static final String RV_BASE_JOB_POOL_THREADS_DEFAULT = "5";
 
+    public static final String RV_BASE_JOB_MAX_PER_RV = "rv-base.job.max.per.rv";
+    public static final String RV_BASE_JOB_MAX_PER_RV_DEFAULT = "1";
+
+    public static final String RV_BASE_JOB_STATUS_WEIGHT = "rv-base.job.status.weight";
+    public static final String RV_BASE_JOB_STATUS_WEIGHT_DEFAULT = "2";
+
     public static final String JOB_MODE_CONFIG = "config";
     public static final String JOB_MODE_IMPORT = "import";
     public static final String JOB_MODE_STATUS = "status";
@@ -22,7 +22,6 @@ import java.util.Arrays;
 
 import org.apache.tapestry5.commons.Configuration;
 import org.apache.tapestry5.commons.MappedConfiguration;
-import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.annotations.Startup;
 import org.apache.tapestry5.ioc.annotations.Symbol;
@@ -71,6 +70,16 @@ public final class RealVehicleBaseModule
             RealVehicleBaseConstants.RV_BASE_JOB_POOL_THREADS, System.getProperty(
                 RealVehicleBaseConstants.RV_BASE_JOB_POOL_THREADS,
                 RealVehicleBaseConstants.RV_BASE_JOB_POOL_THREADS_DEFAULT));
+
+        configuration.add(
+            RealVehicleBaseConstants.RV_BASE_JOB_MAX_PER_RV, System.getProperty(
+                RealVehicleBaseConstants.RV_BASE_JOB_MAX_PER_RV,
+                RealVehicleBaseConstants.RV_BASE_JOB_MAX_PER_RV_DEFAULT));
+
+        configuration.add(
+            RealVehicleBaseConstants.RV_BASE_JOB_STATUS_WEIGHT, System.getProperty(
+                RealVehicleBaseConstants.RV_BASE_JOB_STATUS_WEIGHT,
+                RealVehicleBaseConstants.RV_BASE_JOB_STATUS_WEIGHT_DEFAULT));
     }
 
     /**
@@ -111,24 +120,29 @@ public final class RealVehicleBaseModule
 
     /**
      * @param jobService the job service instance.
-     * @param sessionManager the session manager instance.
      * @param timeService the time service.
      * @param jobRepository the job repository
      * @param numberOfPoolThreads the number of job queue pool threads.
+     * @param maxJobsPerRv the maximum number of concurrent jobs per real vehicle.
+     * @param statusWeight the share of pool threads status updates get relative to configuration pushes.
      */
     @Startup
-    public static void setupJobQueues(JobService jobService, HibernateSessionManager sessionManager,
-        TimeService timeService, JobRepository jobRepository,
-        @Symbol(RealVehicleBaseConstants.RV_BASE_JOB_POOL_THREADS) int numberOfPoolThreads)
+    public static void setupJobQueues(JobService jobService, TimeService timeService, JobRepository jobRepository,
+        @Symbol(RealVehicleBaseConstants.RV_BASE_JOB_POOL_THREADS) int numberOfPoolThreads,
+        @Symbol(RealVehicleBaseConstants.RV_BASE_JOB_MAX_PER_RV) int maxJobsPerRv,
+        @Symbol(RealVehicleBaseConstants.RV_BASE_JOB_STATUS_WEIGHT) int statusWeight)
     {
         LOG.info("Creating job queue '{}' having {} pool threads.",
             RealVehicleBaseConstants.JOB_QUEUE_NAME, numberOfPoolThreads);
 
         JobRunnableFactory factory = new RealVehicleJobRunnableFactory();
 
-        jobService.addJobQueue(RealVehicleBaseConstants.JOB_QUEUE_NAME, new JobQueue(
-            RealVehicleBaseConstants.JOB_QUEUE_NAME, sessionManager, timeService, Arrays.asList(factory),
-            numberOfPoolThreads));
+        JobQueue queue = new JobQueue(RealVehicleBaseConstants.JOB_QUEUE_NAME, timeService, Arrays.asList(factory),
+            numberOfPoolThreads);
+        queue.setMaxJobsPerDestination(maxJobsPerRv);
+        queue.setTypeWeight(RealVehicleBaseConstants.JOB_MODE_STATUS, statusWeight);
+
+        jobService.addJobQueue(RealVehicleBaseConstants.JOB_QUEUE_NAME, queue);
 
         jobService.addJobIfNotExists(RealVehicleBaseConstants.JOB_QUEUE_NAME,
             "mode=" + RealVehicleBaseConstants.JOB_MODE_INIT);
@@ -26,6 +26,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cpcc.core.entities.Job;
+import cpcc.core.services.jobs.JobClass;
+import cpcc.core.services.jobs.JobPayloadStore;
 import cpcc.core.services.jobs.JobRunnable;
 import cpcc.core.services.jobs.JobRunnableFactory;
 
@@ -36,19 +38,15 @@ public class RealVehicleJobRunnableFactory implements JobRunnableFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(RealVehicleJobRunnableFactory.class);
 
+    private static final int PRIORITY_HIGH = 10;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public JobRunnable createRunnable(ServiceResources serviceResources, Job job)
     {
-        Map<String, String> parameters = new HashMap<>();
-
-        for (String param : job.getParameters().trim().split("\\s*,\\s*"))
-        {
-            String[] kv = param.split("=", 2);
-            parameters.put(kv[0], kv[1]);
-        }
+        Map<String, String> parameters = parseParameters(job);
 
         String mode = parameters.get("mode");
 
@@ -59,7 +57,8 @@ public class RealVehicleJobRunnableFactory implements JobRunnableFactory
 
         if (RealVehicleBaseConstants.JOB_MODE_IMPORT.equals(mode))
         {
-            return new ConfigImportJobRunnable(serviceResources, job.getData());
+            JobPayloadStore payloadStore = serviceResources.getService(JobPayloadStore.class);
+            return new ConfigImportJobRunnable(serviceResources, payloadStore.getPayloadStream(job));
         }
 
         if (RealVehicleBaseConstants.JOB_MODE_STATUS.equals(mode))
@@ -76,4 +75,49 @@ public class RealVehicleJobRunnableFactory implements JobRunnableFactory
             mode, parameters);
         return null;
     }
+
+    /**
+     * Initialization and configuration imports run first. Configuration pushes and status updates are capped per
+     * real vehicle, so that an unreachable real vehicle does not hold up the others.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public JobClass classify(ServiceResources serviceResources, Job job)
+    {
+        Map<String, String> parameters = parseParameters(job);
+        String mode = parameters.get("mode");
+
+        if (RealVehicleBaseConstants.JOB_MODE_INIT.equals(mode)
+            || RealVehicleBaseConstants.JOB_MODE_IMPORT.equals(mode))
+        {
+            return new JobClass(mode, PRIORITY_HIGH, null);
+        }
+
+        if (RealVehicleBaseConstants.JOB_MODE_CONFIG.equals(mode)
+            || RealVehicleBaseConstants.JOB_MODE_STATUS.equals(mode))
+        {
+            String rv = parameters.get("rv");
+            return new JobClass(mode, JobClass.DEFAULT_PRIORITY, rv != null ? "rv=" + rv : null);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param job the job.
+     * @return the job parameters.
+     */
+    private static Map<String, String> parseParameters(Job job)
+    {
+        Map<String, String> parameters = new HashMap<>();
+
+        for (String param : job.getParameters().trim().split("\\s*,\\s*"))
+        {
+            String[] kv = param.split("=", 2);
+            parameters.put(kv[0], kv[1]);
+        }
+
+        return parameters;
+    }
 }
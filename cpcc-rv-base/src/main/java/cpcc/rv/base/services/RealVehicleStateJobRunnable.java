@@ -18,9 +18,9 @@
 
 package cpcc.rv.base.services;
 
-import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
@@ -33,12 +33,12 @@ import cpcc.com.services.CommunicationService;
 import cpcc.core.entities.RealVehicle;
 import cpcc.core.entities.RealVehicleState;
 import cpcc.core.services.RealVehicleRepository;
-import cpcc.core.services.jobs.JobRunnable;
+import cpcc.core.services.jobs.AsyncJobRunnable;
 
 /**
  * Real vehicle state job runnable.
  */
-public class RealVehicleStateJobRunnable implements JobRunnable
+public class RealVehicleStateJobRunnable implements AsyncJobRunnable
 {
     private static final Logger LOG = LoggerFactory.getLogger(RealVehicleStateJobRunnable.class);
 
@@ -61,42 +61,60 @@ public class RealVehicleStateJobRunnable implements JobRunnable
      * {@inheritDoc}
      */
     @Override
-    public void run()
+    public CompletableFuture<Void> start()
     {
-        HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
         CommunicationService com = serviceResources.getService(CommunicationService.class);
         RealVehicleRepository rvRepo = serviceResources.getService(RealVehicleRepository.class);
 
         RealVehicle target = rvRepo.findRealVehicleById(id);
+        String targetName = target.getName();
+
+        return com
+            .transferAsync(target, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY)
+            .handle((result, error) -> {
+                if (error != null)
+                {
+                    LOG.debug("Real vehicle state query to {} did not work.", targetName, error);
+                    executedSuccessful = false;
+                }
+                else
+                {
+                    storeRealVehicleState(targetName, result);
+                }
+                return null;
+            });
+    }
 
-        try
-        {
-            CommunicationResponse result = com
-                .transfer(target, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY);
+    /**
+     * @param targetName the name of the queried real vehicle.
+     * @param result the response of the real vehicle.
+     */
+    private void storeRealVehicleState(String targetName, CommunicationResponse result)
+    {
+        HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
+        RealVehicleRepository rvRepo = serviceResources.getService(RealVehicleRepository.class);
 
-            RealVehicleState rvState = rvRepo.findRealVehicleStateById(id);
-            if (rvState == null)
-            {
-                rvState = new RealVehicleState();
-                rvState.setId(id);
-            }
+        RealVehicleState rvState = rvRepo.findRealVehicleStateById(id);
+        if (rvState == null)
+        {
+            rvState = new RealVehicleState();
+            rvState.setId(id);
+        }
 
-            String stateString = org.apache.commons.codec.binary.StringUtils.newStringUtf8(result.getContent());
-            rvState.setLastUpdate(new Date());
-            rvState.setRealVehicleName(target.getName());
-            rvState.setState(stateString);
+        String stateString = org.apache.commons.codec.binary.StringUtils.newStringUtf8(result.getContent());
+        rvState.setLastUpdate(new Date());
+        rvState.setRealVehicleName(targetName);
+        rvState.setState(stateString);
 
-            LOG.info("RealVehicleState: ;{};{};", target.getName(), stateString);
+        LOG.info("RealVehicleState: ;{};{};", targetName, stateString);
 
-            sessionManager.getSession().saveOrUpdate(rvState);
-        }
-        catch (IOException e)
-        {
-            LOG.debug("Real vehicle state query to {} did not work.", target.getName(), e);
-            executedSuccessful = false;
-        }
+        sessionManager.getSession().saveOrUpdate(rvState);
+        sessionManager.commit();
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public boolean executionSucceeded()
     {
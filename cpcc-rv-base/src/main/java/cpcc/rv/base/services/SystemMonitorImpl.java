@@ -28,6 +28,7 @@ import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,6 +38,12 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cpcc.com.services.CommunicationMetrics;
+import cpcc.com.services.CommunicationService;
+import cpcc.vvrte.services.VirtualVehicleScheduler;
+import cpcc.vvrte.services.js.SnapshotCodec;
+import cpcc.vvrte.services.js.SnapshotMetrics;
+
 /**
  * SystemMonitorImpl implementation.
  */
@@ -59,12 +66,22 @@ public class SystemMonitorImpl implements SystemMonitor
     private ThreadMXBean threadBean;
     private String header = "";
     private MxBeanUtils mxb = new MxBeanUtils();
+    private CommunicationService com;
+    private VirtualVehicleScheduler scheduler;
+    private SnapshotCodec snapshotCodec;
 
     /**
      * @param configuration the service configuration.
+     * @param com the communication service.
+     * @param scheduler the virtual vehicle scheduler.
+     * @param snapshotCodec the continuation snapshot codec.
      */
-    public SystemMonitorImpl(Map<String, Object> configuration)
+    public SystemMonitorImpl(Map<String, Object> configuration, CommunicationService com,
+        VirtualVehicleScheduler scheduler, SnapshotCodec snapshotCodec)
     {
+        this.com = com;
+        this.scheduler = scheduler;
+        this.snapshotCodec = snapshotCodec;
         runtime = Runtime.getRuntime();
         memBean = ManagementFactory.getMemoryMXBean();
         gcBean = ManagementFactory.getGarbageCollectorMXBeans();
@@ -128,6 +145,7 @@ public class SystemMonitorImpl implements SystemMonitor
     public void writeLogEntry()
     {
         List<Pair<String, String>> entries = new ArrayList<>();
+        SnapshotMetrics snapshotMetrics = snapshotCodec.getMetrics();
 
         entries.addAll(Stream
             .of(Pair.of("time", Long.toString(System.currentTimeMillis())),
@@ -161,7 +179,12 @@ public class SystemMonitorImpl implements SystemMonitor
                 Pair.of("nonheap.committed", Long.toString(memBean.getNonHeapMemoryUsage().getCommitted())),
 
                 Pair.of("objPendingFinCount", Integer.toString(memBean.getObjectPendingFinalizationCount())),
-                Pair.of("sysLoadAvg", Double.toString(opsysBean.getSystemLoadAverage())))
+                Pair.of("sysLoadAvg", Double.toString(opsysBean.getSystemLoadAverage())),
+
+                Pair.of("vvQueueDepth", Integer.toString(scheduler.getQueueDepth())),
+                Pair.of("vvSnapshots", Long.toString(snapshotMetrics.getSnapshots())),
+                Pair.of("vvSnapshotRawBytes", Long.toString(snapshotMetrics.getRawBytes())),
+                Pair.of("vvSnapshotEncodedBytes", Long.toString(snapshotMetrics.getEncodedBytes())))
             .collect(Collectors.toList()));
 
         for (GarbageCollectorMXBean bean : gcBean)
@@ -192,6 +215,23 @@ public class SystemMonitorImpl implements SystemMonitor
             }
         }
 
+        for (Map.Entry<String, CommunicationMetrics> entry : new TreeMap<>(com.getMetrics()).entrySet())
+        {
+            String prefix = "com." + entry.getKey().replace(' ', '_');
+            CommunicationMetrics metrics = entry.getValue();
+
+            entries.addAll(Stream
+                .of(Pair.of(prefix + ".requests", Long.toString(metrics.getRequests())),
+                    Pair.of(prefix + ".asyncRequests", Long.toString(metrics.getAsyncRequests())),
+                    Pair.of(prefix + ".reusedConnections", Long.toString(metrics.getReusedConnections())),
+                    Pair.of(prefix + ".poolTime", Long.toString(metrics.getPoolTime())),
+                    Pair.of(prefix + ".failures", Long.toString(metrics.getFailures())),
+                    Pair.of(prefix + ".payloadBytes", Long.toString(metrics.getPayloadBytes())),
+                    Pair.of(prefix + ".wireBytes", Long.toString(metrics.getWireBytes())),
+                    Pair.of(prefix + ".codingTime", Long.toString(metrics.getCodingTime())))
+                .collect(Collectors.toList()));
+        }
+
         String newHeader = ";H;" + entries.stream().map(Pair::getLeft).collect(Collectors.joining(";"));
 
         if (!header.equals(newHeader))
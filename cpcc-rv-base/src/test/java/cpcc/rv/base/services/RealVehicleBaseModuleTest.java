@@ -31,7 +31,6 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 
 import org.apache.tapestry5.commons.Configuration;
-import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.services.cron.CronSchedule;
 import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
@@ -127,11 +126,10 @@ class RealVehicleBaseModuleTest
     void shouldSetupJobQueues()
     {
         JobService jobService = mock(JobService.class);
-        HibernateSessionManager sessionManager = mock(HibernateSessionManager.class);
         TimeService timeService = mock(TimeService.class);
         JobRepository jobRepository = mock(JobRepository.class);
 
-        RealVehicleBaseModule.setupJobQueues(jobService, sessionManager, timeService, jobRepository, 10);
+        RealVehicleBaseModule.setupJobQueues(jobService, timeService, jobRepository, 10, 1, 2);
 
         verify(jobService).addJobQueue(eq(RealVehicleBaseConstants.JOB_QUEUE_NAME), any(JobQueue.class));
         verify(jobService).addJobIfNotExists(RealVehicleBaseConstants.JOB_QUEUE_NAME, "mode=init");
@@ -19,14 +19,23 @@
 package cpcc.rv.base.services;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.util.stream.Stream;
+
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
 import cpcc.core.entities.Job;
+import cpcc.core.services.jobs.JobClass;
+import cpcc.core.services.jobs.JobPayloadStore;
 import cpcc.core.services.jobs.JobRunnable;
 
 class RealVehicleJobRunnableFactoryTest
@@ -81,6 +90,10 @@ class RealVehicleJobRunnableFactoryTest
         Job job = mock(Job.class);
         when(job.getParameters()).thenReturn("mode=import");
 
+        JobPayloadStore payloadStore = mock(JobPayloadStore.class);
+        when(payloadStore.getPayloadStream(job)).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(serviceResources.getService(JobPayloadStore.class)).thenReturn(payloadStore);
+
         JobRunnable actual = sut.createRunnable(serviceResources, job);
 
         assertThat(actual).isNotNull().isInstanceOf(ConfigImportJobRunnable.class);
@@ -97,4 +110,38 @@ class RealVehicleJobRunnableFactoryTest
         assertThat(actual).isNull();
     }
 
+    static Stream<Arguments> classifyDataProvider()
+    {
+        return Stream.of(
+            arguments("mode=init", "init", 10, null),
+            arguments("mode=import", "import", 10, null),
+            arguments("mode=config,rv=2002", "config", 0, "rv=2002"),
+            arguments("mode=status,rv=2002", "status", 0, "rv=2002"),
+            arguments("mode=status", "status", 0, null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("classifyDataProvider")
+    void shouldClassifyJobs(String parameters, String expectedType, int expectedPriority,
+        String expectedDestination)
+    {
+        Job job = mock(Job.class);
+        when(job.getParameters()).thenReturn(parameters);
+
+        JobClass actual = sut.classify(serviceResources, job);
+
+        assertThat(actual).isNotNull();
+        assertThat(actual.getType()).isEqualTo(expectedType);
+        assertThat(actual.getPriority()).isEqualTo(expectedPriority);
+        assertThat(actual.getDestination()).isEqualTo(expectedDestination);
+    }
+
+    @Test
+    void shouldNotClassifyUnknownMode()
+    {
+        Job job = mock(Job.class);
+        when(job.getParameters()).thenReturn("mode=unknown,rv=2002");
+
+        assertThat(sut.classify(serviceResources, job)).isNull();
+    }
 }
@@ -27,6 +27,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.http.client.ClientProtocolException;
@@ -97,8 +98,8 @@ class RealVehicleStateJobRunnableTest
     @Test
     void shouldHandleExistingRvState() throws ClientProtocolException, IOException
     {
-        when(com.transfer(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
-            .thenReturn(response);
+        when(com.transferAsync(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
+            .thenReturn(CompletableFuture.completedFuture(response));
 
         RealVehicleState rvState = mock(RealVehicleState.class);
         when(rvRepo.findRealVehicleStateById(RV_ID)).thenReturn(rvState);
@@ -118,13 +119,14 @@ class RealVehicleStateJobRunnableTest
         verifyNoMoreInteractions(rvState);
 
         verify(session).saveOrUpdate(rvState);
+        verify(sessionManager).commit();
     }
 
     @Test
     void shouldHandleMissingRvState() throws ClientProtocolException, IOException
     {
-        when(com.transfer(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
-            .thenReturn(response);
+        when(com.transferAsync(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
+            .thenReturn(CompletableFuture.completedFuture(response));
 
         Date now = new Date();
         sut.run();
@@ -145,8 +147,8 @@ class RealVehicleStateJobRunnableTest
     @Test
     void shouldLogFailingConnections() throws ClientProtocolException, IOException
     {
-        when(com.transfer(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
-            .thenThrow(IOException.class);
+        when(com.transferAsync(rv, RealVehicleBaseConstants.REAL_VEHICLE_STATUS_CONNECTOR, ArrayUtils.EMPTY_BYTE_ARRAY))
+            .thenReturn(CompletableFuture.failedFuture(new IOException("unreachable")));
 
         sut.run();
 
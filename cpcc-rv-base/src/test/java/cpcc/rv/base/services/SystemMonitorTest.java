@@ -0,0 +1,101 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.rv.base.services;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.com.services.CommunicationMetrics;
+import cpcc.com.services.CommunicationService;
+import cpcc.vvrte.services.VirtualVehicleScheduler;
+import cpcc.vvrte.services.js.SnapshotCodec;
+import cpcc.vvrte.services.js.SnapshotMetrics;
+
+/**
+ * SystemMonitorTest implementation.
+ */
+class SystemMonitorTest
+{
+    private CommunicationMetrics metrics;
+    private CommunicationService com;
+    private VirtualVehicleScheduler scheduler;
+    private SnapshotMetrics snapshotMetrics;
+    private SnapshotCodec snapshotCodec;
+    private SystemMonitorImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        metrics = mock(CommunicationMetrics.class);
+
+        com = mock(CommunicationService.class);
+        when(com.getMetrics()).thenReturn(Collections.singletonMap("rv 1", metrics));
+
+        scheduler = mock(VirtualVehicleScheduler.class);
+
+        snapshotMetrics = mock(SnapshotMetrics.class);
+        snapshotCodec = mock(SnapshotCodec.class);
+        when(snapshotCodec.getMetrics()).thenReturn(snapshotMetrics);
+
+        sut = new SystemMonitorImpl(Collections.emptyMap(), com, scheduler, snapshotCodec);
+    }
+
+    @Test
+    void shouldLogCommunicationMetrics()
+    {
+        sut.writeLogEntry();
+        sut.writeLogEntry();
+
+        verify(com, times(2)).getMetrics();
+        verify(metrics, times(2)).getRequests();
+        verify(metrics, times(2)).getAsyncRequests();
+        verify(metrics, times(2)).getReusedConnections();
+        verify(metrics, times(2)).getPoolTime();
+        verify(metrics, times(2)).getFailures();
+        verify(metrics, times(2)).getPayloadBytes();
+        verify(metrics, times(2)).getWireBytes();
+        verify(metrics, times(2)).getCodingTime();
+    }
+
+    @Test
+    void shouldLogQueueDepthOfVirtualVehicleScheduler()
+    {
+        sut.writeLogEntry();
+
+        verify(scheduler).getQueueDepth();
+    }
+
+    @Test
+    void shouldLogSnapshotMetrics()
+    {
+        sut.writeLogEntry();
+
+        verify(snapshotCodec).getMetrics();
+        verify(snapshotMetrics).getSnapshots();
+        verify(snapshotMetrics).getRawBytes();
+        verify(snapshotMetrics).getEncodedBytes();
+    }
+}
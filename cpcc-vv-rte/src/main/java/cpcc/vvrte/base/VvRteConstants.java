@@ -31,6 +31,9 @@ public final class VvRteConstants
     public static final String MIGRATION_ACK_CONNECTOR = "migration-ack";
     public static final String MIGRATION_ACK_PATH = "/commons/vv/migrationAck";
 
+    public static final String MIGRATION_MANIFEST_CONNECTOR = "migration-manifest";
+    public static final String MIGRATION_MANIFEST_PATH = "/commons/vv/migrationManifest";
+
     public static final String PROP_SCHEDULER_CLASS_NAME = "vvrte.default.scheduler";
     public static final String PROP_SCHEDULER_CLASS_NAME_DEFAULT =
         "cpcc.vvrte.services.task.GatedTspSchedulingAlgorithm";
@@ -38,6 +41,12 @@ public final class VvRteConstants
     public static final String PROP_GTSP_MAX_TASKS = "cpcc.vv-rte.gtsp-max-tasks";
     public static final String PROP_GTSP_MAX_TASKS_DEFAULT = "30";
 
+    public static final String PROP_INSERTION_MAX_MOVES = "cpcc.vv-rte.insertion-max-moves";
+    public static final String PROP_INSERTION_MAX_MOVES_DEFAULT = "200";
+
+    public static final String PROP_GPS_DRIVEN_TASK_EXECUTION = "cpcc.vv-rte.gps-driven-task-execution";
+    public static final String PROP_GPS_DRIVEN_TASK_EXECUTION_DEFAULT = "false";
+
     public static final String PROP_MIN_TOLERANCE_DISTANCE = "cpcc.vvrte.task.minimumToleranceDistance";
     public static final String PROP_MIN_TOLERANCE_DISTANCE_DEFAULT = "1.0";
 
@@ -45,9 +54,48 @@ public final class VvRteConstants
     public static final String NUMBER_OF_MIGRATION_POOL_THREADS = "vvrte.mig.job.pool.threads";
     public static final String NUMBER_OF_MIGRATION_POOL_THREADS_DEFAULT = "5";
 
+    public static final String MIGRATION_MAX_JOBS_PER_DESTINATION = "vvrte.migration.max.jobs.per.destination";
+    public static final String MIGRATION_MAX_JOBS_PER_DESTINATION_DEFAULT = "2";
+
+    public static final String MIGRATION_MAX_RETRIES = "vvrte.migration.max.retries";
+    public static final String MIGRATION_MAX_RETRIES_DEFAULT = "5";
+
+    public static final String MIGRATION_RETRY_BASE_DELAY = "vvrte.migration.retry.base.delay";
+    public static final String MIGRATION_RETRY_BASE_DELAY_DEFAULT = "1000";
+
+    public static final String MIGRATION_RETRY_MAX_DELAY = "vvrte.migration.retry.max.delay";
+    public static final String MIGRATION_RETRY_MAX_DELAY_DEFAULT = "30000";
+
     public static final String MIGRATION_CHUNK_SIZE = "vvrte.migration.chunk.size";
     public static final String MIGRATION_CHUNK_SIZE_DEFAULT = "1000";
 
+    public static final String MIGRATION_WINDOW_SIZE = "vvrte.migration.window.size";
+    public static final String MIGRATION_WINDOW_SIZE_DEFAULT = "4";
+
+    public static final String MIGRATION_CHUNK_MIN_BYTES = "vvrte.migration.chunk.min.bytes";
+    public static final String MIGRATION_CHUNK_MIN_BYTES_DEFAULT = "65536";
+
+    public static final String MIGRATION_CHUNK_MAX_BYTES = "vvrte.migration.chunk.max.bytes";
+    public static final String MIGRATION_CHUNK_MAX_BYTES_DEFAULT = "16777216";
+
+    public static final String MIGRATION_CHUNK_TARGET_TIME = "vvrte.migration.chunk.target.time";
+    public static final String MIGRATION_CHUNK_TARGET_TIME_DEFAULT = "2000";
+
+    public static final String MIGRATION_CACHE_RETENTION = "vvrte.migration.cache.retention";
+    public static final String MIGRATION_CACHE_RETENTION_DEFAULT = "86400000";
+
+    public static final String NUMBER_OF_MIGRATION_WRITER_THREADS = "vvrte.migration.writer.threads";
+    public static final String NUMBER_OF_MIGRATION_WRITER_THREADS_DEFAULT = "4";
+
+    public static final String NUMBER_OF_VV_POOL_THREADS = "vvrte.vv.pool.threads";
+    public static final String NUMBER_OF_VV_POOL_THREADS_DEFAULT = "8";
+
+    public static final String VV_LONG_RUN_THRESHOLD = "vvrte.vv.long.run.threshold";
+    public static final String VV_LONG_RUN_THRESHOLD_DEFAULT = "10000";
+
+    public static final String SNAPSHOT_COMPRESSION_LEVEL = "vvrte.snapshot.compression.level";
+    public static final String SNAPSHOT_COMPRESSION_LEVEL_DEFAULT = "1";
+
     public static final String MIGRATION_MODE_SEND = "migration-send";
     public static final String MIGRATION_FORMAT_SEND = MODE + MIGRATION_MODE_SEND + ",id=%d";
 
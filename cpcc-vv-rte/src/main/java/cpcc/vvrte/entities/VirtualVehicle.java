@@ -84,6 +84,9 @@ public class VirtualVehicle implements Serializable
     @Column(name = "chunk_number")
     private Integer chunkNumber;
 
+    @Column(name = "chunk_name", length = 136)
+    private String chunkName;
+
     @Temporal(TemporalType.TIMESTAMP)
     @Column(name = "migration_start_time")
     private java.util.Date migrationStartTime;
@@ -274,6 +277,22 @@ public class VirtualVehicle implements Serializable
         this.chunkNumber = chunkNumber;
     }
 
+    /**
+     * @return the name of the last storage entry in the current migration chunk or null.
+     */
+    public String getChunkName()
+    {
+        return chunkName;
+    }
+
+    /**
+     * @param chunkName the name of the last storage entry in the current migration chunk to set.
+     */
+    public void setChunkName(String chunkName)
+    {
+        this.chunkName = chunkName;
+    }
+
     /**
      * @return the start time of the current migration.
      */
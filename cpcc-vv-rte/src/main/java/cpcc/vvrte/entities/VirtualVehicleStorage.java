@@ -18,7 +18,10 @@
 
 package cpcc.vvrte.entities;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.sql.Blob;
+import java.sql.SQLException;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -26,17 +29,23 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
+import javax.persistence.PersistenceException;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.SerializationUtils;
+import org.hibernate.engine.jdbc.BlobProxy;
 import org.mozilla.javascript.ScriptableObject;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * VirtualVehicleStorage
+ * <p>
+ * The content is mapped as a blob, so that the migration streams it between the database and the network instead of
+ * loading it whole. The content is readable only while the session that loaded the item is open.
  */
 @Entity
 @Table(name = "virtual_vehicle_storage")
@@ -59,7 +68,11 @@ public class VirtualVehicleStorage implements Serializable
     private String name;
 
     @Lob
-    private byte[] content;
+    @SuppressFBWarnings(value = "SE_BAD_FIELD", justification = "Storage items are not serialized")
+    private Blob content;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
 
     /**
      * @return the identification.
@@ -132,7 +145,7 @@ public class VirtualVehicleStorage implements Serializable
      */
     public ScriptableObject getContent()
     {
-        return (ScriptableObject) SerializationUtils.deserialize(content);
+        return (ScriptableObject) SerializationUtils.deserialize(getContentAsStream());
     }
 
     /**
@@ -140,21 +153,81 @@ public class VirtualVehicleStorage implements Serializable
      */
     public void setContent(ScriptableObject content)
     {
-        this.content = SerializationUtils.serialize(content);
+        setContentAsByteArray(SerializationUtils.serialize(content));
     }
 
     /**
      * @return the content as an array of bytes.
      */
-    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "This is exposed on purpose")
     public byte[] getContentAsByteArray()
     {
-        return content;
+        try
+        {
+            return content != null ? content.getBytes(1, (int) content.length()) : null;
+        }
+        catch (SQLException e)
+        {
+            throw new PersistenceException("Can not read content of storage item " + name, e);
+        }
     }
 
-    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "This is exposed on purpose")
+    /**
+     * @param newContent the content as an array of bytes to set.
+     */
     public void setContentAsByteArray(byte[] newContent)
     {
-        this.content = newContent;
+        this.content = newContent != null ? BlobProxy.generateProxy(newContent) : null;
+        this.contentHash = newContent != null ? DigestUtils.sha256Hex(newContent) : null;
+    }
+
+    /**
+     * @return the content as a stream or null if there is no content.
+     */
+    public InputStream getContentAsStream()
+    {
+        try
+        {
+            return content != null ? content.getBinaryStream() : null;
+        }
+        catch (SQLException e)
+        {
+            throw new PersistenceException("Can not read content of storage item " + name, e);
+        }
+    }
+
+    /**
+     * @return the length of the content in bytes or zero if there is no content.
+     */
+    public long getContentLength()
+    {
+        try
+        {
+            return content != null ? content.length() : 0L;
+        }
+        catch (SQLException e)
+        {
+            throw new PersistenceException("Can not read content of storage item " + name, e);
+        }
+    }
+
+    /**
+     * Set the content from a stream. The stream is read once, when the session flushes this item.
+     * 
+     * @param stream the stream delivering the content.
+     * @param length the length of the content in bytes.
+     * @param newContentHash the SHA-256 hash of the content as a hexadecimal string.
+     */
+    public void setContentAsStream(InputStream stream, long length, String newContentHash)
+    {
+        this.content = BlobProxy.generateProxy(stream, length);
+        this.contentHash = newContentHash;
+    }
+
+    /**
+     * @return the SHA-256 hash of the content as a hexadecimal string or null if there is no content.
+     */
+    public String getContentHash()
+    {
+        return contentHash;
     }
 }
@@ -0,0 +1,105 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * VirtualVehicleStorageBlob keeps the content of a storage item of a virtual vehicle that has left this real vehicle,
+ * so that the content need not be transferred again if the virtual vehicle returns.
+ */
+@Entity
+@Table(name = "virtual_vehicle_storage_blobs")
+public class VirtualVehicleStorageBlob implements Serializable
+{
+    private static final long serialVersionUID = 3460851339263750196L;
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Lob
+    private byte[] content;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "last_used")
+    private java.util.Date lastUsed;
+
+    /**
+     * @return the SHA-256 hash of the content as a hexadecimal string.
+     */
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+    /**
+     * @param contentHash the SHA-256 hash of the content as a hexadecimal string to set.
+     */
+    public void setContentHash(String contentHash)
+    {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return the content as an array of bytes.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "This is exposed on purpose")
+    public byte[] getContent()
+    {
+        return content;
+    }
+
+    /**
+     * @param content the content as an array of bytes to set.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "This is exposed on purpose")
+    public void setContent(byte[] content)
+    {
+        this.content = content;
+    }
+
+    /**
+     * @return the time the content has been used last.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "This is exposed on purpose")
+    public java.util.Date getLastUsed()
+    {
+        return lastUsed;
+    }
+
+    /**
+     * @param lastUsed the time the content has been used last to set.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "This is exposed on purpose")
+    public void setLastUsed(java.util.Date lastUsed)
+    {
+        this.lastUsed = lastUsed;
+    }
+}
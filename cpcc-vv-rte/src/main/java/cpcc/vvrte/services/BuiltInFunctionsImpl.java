@@ -49,6 +49,7 @@ import cpcc.vvrte.services.db.VvRteRepository;
 import cpcc.vvrte.services.js.ApplicationState;
 import cpcc.vvrte.services.js.BuiltInFunctions;
 import cpcc.vvrte.services.task.TaskAnalyzer;
+import cpcc.vvrte.services.task.TaskRegistry;
 
 /**
  * BuiltInFunctionsImpl
@@ -77,6 +78,7 @@ public class BuiltInFunctionsImpl implements BuiltInFunctions
     private VvRteRepository vvRteRepo;
     private QueryManager qm;
     private HibernateSessionManager sessionManager;
+    private TaskRegistry taskRegistry;
 
     /**
      * @param opts the options parser service-
@@ -85,9 +87,10 @@ public class BuiltInFunctionsImpl implements BuiltInFunctions
      * @param vvRteRepo the virtual vehicle repository.
      * @param qm the query manager.
      * @param sessionManager the Hibernate session manager.
+     * @param taskRegistry the task registry.
      */
     public BuiltInFunctionsImpl(OptionsParserService opts, VirtualVehicleMapper mapper, TaskAnalyzer taskAnalyzer,
-        VvRteRepository vvRteRepo, QueryManager qm, HibernateSessionManager sessionManager)
+        VvRteRepository vvRteRepo, QueryManager qm, HibernateSessionManager sessionManager, TaskRegistry taskRegistry)
     {
         this.opts = opts;
         this.mapper = mapper;
@@ -95,6 +98,7 @@ public class BuiltInFunctionsImpl implements BuiltInFunctions
         this.vvRteRepo = vvRteRepo;
         this.qm = qm;
         this.sessionManager = sessionManager;
+        this.taskRegistry = taskRegistry;
     }
 
     /**
@@ -260,6 +264,7 @@ public class BuiltInFunctionsImpl implements BuiltInFunctions
             task.setVehicle(vehicle);
             sessionManager.getSession().saveOrUpdate(vehicle);
             sessionManager.getSession().saveOrUpdate(task);
+            taskRegistry.addTask(task);
             initiateTaskExecution(taskParameters, task);
         }
     }
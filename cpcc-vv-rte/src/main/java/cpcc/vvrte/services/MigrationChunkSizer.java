@@ -0,0 +1,45 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import cpcc.core.entities.RealVehicle;
+
+/**
+ * Determine the size of migration chunks in bytes from the measured transfers to each migration destination.
+ */
+public interface MigrationChunkSizer
+{
+    /**
+     * @param destination the migration destination.
+     * @return the number of storage bytes the next chunk to the destination should carry.
+     */
+    long getChunkBudget(RealVehicle destination);
+
+    /**
+     * @param destination the migration destination.
+     * @param bytes the size of the transferred chunk in bytes.
+     * @param nanos the time from the start of the transfer to the response in nanoseconds.
+     */
+    void recordTransfer(RealVehicle destination, long bytes, long nanos);
+
+    /**
+     * @param destination the migration destination a chunk transfer has failed for.
+     */
+    void recordFailure(RealVehicle destination);
+}
@@ -0,0 +1,196 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tapestry5.ioc.annotations.Symbol;
+
+import cpcc.core.entities.RealVehicle;
+import cpcc.vvrte.base.VvRteConstants;
+
+/**
+ * Migration chunk sizer implementation.
+ * <p>
+ * The transfer time of a chunk is modeled as {@code rtt + bytes / throughput}. A least squares fit over the last
+ * transfers to a destination estimates both parameters. The budget of the next chunk is the number of bytes that can
+ * be transferred in the target time, but at least the number of bytes that keeps the round trip time below a fifth of
+ * the transfer time, so that small chunks on high latency links are avoided.
+ * <p>
+ * The budget of a destination starts at the minimum chunk size and grows at most twofold per transfer. A failed
+ * transfer halves it.
+ */
+public class MigrationChunkSizerImpl implements MigrationChunkSizer
+{
+    private static final int SAMPLES = 8;
+    private static final double RTT_FACTOR = 4.0;
+    private static final double MIN_SPREAD = 0.1;
+
+    private final Map<String, LinkEstimate> links = new ConcurrentHashMap<>();
+    private final long minBytes;
+    private final long maxBytes;
+    private final double targetTime;
+
+    /**
+     * @param minBytes the minimum chunk budget in bytes.
+     * @param maxBytes the maximum chunk budget in bytes.
+     * @param targetTime the time in milliseconds the transfer of a chunk should take.
+     */
+    public MigrationChunkSizerImpl(
+        @Symbol(VvRteConstants.MIGRATION_CHUNK_MIN_BYTES) long minBytes,
+        @Symbol(VvRteConstants.MIGRATION_CHUNK_MAX_BYTES) long maxBytes,
+        @Symbol(VvRteConstants.MIGRATION_CHUNK_TARGET_TIME) long targetTime)
+    {
+        this.minBytes = Math.max(1L, minBytes);
+        this.maxBytes = Math.max(this.minBytes, maxBytes);
+        this.targetTime = targetTime / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getChunkBudget(RealVehicle destination)
+    {
+        return findLink(destination).getBudget();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordTransfer(RealVehicle destination, long bytes, long nanos)
+    {
+        findLink(destination).record(bytes, nanos / 1.0E9);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordFailure(RealVehicle destination)
+    {
+        findLink(destination).fail();
+    }
+
+    /**
+     * @param destination the migration destination.
+     * @return the link estimate of the destination.
+     */
+    private LinkEstimate findLink(RealVehicle destination)
+    {
+        String name = destination.getName() != null ? destination.getName() : destination.getUrl();
+        return links.computeIfAbsent(name, k -> new LinkEstimate());
+    }
+
+    /**
+     * The estimated round trip time and throughput of the link to one destination.
+     */
+    private class LinkEstimate
+    {
+        private final long[] sampleBytes = new long[SAMPLES];
+        private final double[] sampleTimes = new double[SAMPLES];
+        private int samples = 0;
+        private int nextSample = 0;
+        private double rtt = 0.0;
+        private long budget = minBytes;
+
+        /**
+         * @return the current chunk budget in bytes.
+         */
+        synchronized long getBudget()
+        {
+            return budget;
+        }
+
+        /**
+         * @param bytes the size of the transferred chunk in bytes.
+         * @param seconds the transfer time in seconds.
+         */
+        synchronized void record(long bytes, double seconds)
+        {
+            sampleBytes[nextSample] = bytes;
+            sampleTimes[nextSample] = seconds;
+            nextSample = (nextSample + 1) % SAMPLES;
+            samples = Math.min(samples + 1, SAMPLES);
+
+            double throughput = fitThroughput();
+            double time = Math.max(targetTime - rtt, RTT_FACTOR * rtt);
+            double newBudget = Math.min(throughput * time, 2.0 * budget);
+
+            budget = Math.max(minBytes, Math.min(maxBytes, (long) newBudget));
+        }
+
+        /**
+         * Forget the measured transfers and halve the budget.
+         */
+        synchronized void fail()
+        {
+            samples = 0;
+            nextSample = 0;
+            budget = Math.max(minBytes, budget / 2);
+        }
+
+        /**
+         * Fit the round trip time and the throughput to the recorded transfers. The round trip time is kept if the
+         * chunk sizes are too similar to tell it apart from the throughput.
+         * 
+         * @return the throughput in bytes per second.
+         */
+        private double fitThroughput()
+        {
+            double meanBytes = 0.0;
+            double meanTime = 0.0;
+
+            for (int k = 0; k < samples; ++k)
+            {
+                meanBytes += sampleBytes[k];
+                meanTime += sampleTimes[k];
+            }
+
+            meanBytes /= samples;
+            meanTime /= samples;
+
+            double covariance = 0.0;
+            double variance = 0.0;
+
+            for (int k = 0; k < samples; ++k)
+            {
+                double deltaBytes = sampleBytes[k] - meanBytes;
+                covariance += deltaBytes * (sampleTimes[k] - meanTime);
+                variance += deltaBytes * deltaBytes;
+            }
+
+            double secondsPerByte;
+
+            if (covariance > 0.0 && Math.sqrt(variance / samples) >= MIN_SPREAD * meanBytes)
+            {
+                secondsPerByte = covariance / variance;
+                rtt = Math.max(0.0, meanTime - secondsPerByte * meanBytes);
+            }
+            else
+            {
+                secondsPerByte = meanBytes > 0.0 ? (meanTime - rtt) / meanBytes : 0.0;
+            }
+
+            return secondsPerByte > 0.0 ? 1.0 / secondsPerByte : Double.POSITIVE_INFINITY;
+        }
+    }
+}
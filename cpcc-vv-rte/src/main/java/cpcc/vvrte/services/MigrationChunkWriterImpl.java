@@ -0,0 +1,72 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+
+import cpcc.core.services.jobs.JobQueueThreadFactory;
+import cpcc.vvrte.base.VvRteConstants;
+
+/**
+ * Migration chunk writer implementation.
+ */
+public class MigrationChunkWriterImpl implements MigrationChunkWriter
+{
+    private final ExecutorService executorService;
+    private final PerthreadManager perthreadManager;
+
+    /**
+     * @param shutdownHub the registry shutdown hub.
+     * @param perthreadManager the per-thread manager.
+     * @param numberOfThreads the number of writer threads.
+     */
+    public MigrationChunkWriterImpl(RegistryShutdownHub shutdownHub, PerthreadManager perthreadManager,
+        @Symbol(VvRteConstants.NUMBER_OF_MIGRATION_WRITER_THREADS) int numberOfThreads)
+    {
+        this.perthreadManager = perthreadManager;
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, numberOfThreads),
+            new JobQueueThreadFactory("Migration Chunk Writer"));
+
+        Runnable shutdown = executorService::shutdownNow;
+        shutdownHub.addRegistryShutdownListener(shutdown);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable command)
+    {
+        executorService.execute(() -> {
+            try
+            {
+                command.run();
+            }
+            finally
+            {
+                perthreadManager.cleanup();
+            }
+        });
+    }
+}
@@ -18,7 +18,6 @@
 
 package cpcc.vvrte.services;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 import org.apache.tapestry5.ioc.ServiceResources;
@@ -37,19 +36,19 @@ public class MigrationReceiveJobRunnable implements JobRunnable
     private static final Logger LOG = LoggerFactory.getLogger(MigrationReceiveJobRunnable.class);
 
     private ServiceResources serviceResources;
-    private byte[] data;
+    private InputStream payload;
 
     private boolean succeeded = true;
 
     /**
      * @param serviceResources the service resources.
-     * @param data the job data.
+     * @param payload the stream reading the received chunk.
      */
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "This is exposed on purpose")
-    public MigrationReceiveJobRunnable(ServiceResources serviceResources, byte[] data)
+    public MigrationReceiveJobRunnable(ServiceResources serviceResources, InputStream payload)
     {
         this.serviceResources = serviceResources;
-        this.data = data;
+        this.payload = payload;
     }
 
     /**
@@ -64,7 +63,7 @@ public class MigrationReceiveJobRunnable implements JobRunnable
         String name = Thread.currentThread().getName();
         Thread.currentThread().setName("MIG-RCV-" + name);
 
-        try (InputStream inStream = new ByteArrayInputStream(data))
+        try (InputStream inStream = payload)
         {
             migrator.storeChunk(inStream);
         }
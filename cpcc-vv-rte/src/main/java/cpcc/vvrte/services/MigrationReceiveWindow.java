@@ -0,0 +1,92 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The receive window of a virtual vehicle. The window keeps the chunks received out of order until all their
+ * predecessors have arrived, so that the receiver always acknowledges the last chunk received in sequence.
+ * <p>
+ * The {@code MigrationWindows} service keeps the receive windows. They are accessed while holding its receive lock
+ * only.
+ */
+public class MigrationReceiveWindow
+{
+    private SortedMap<Integer, String> pendingChunks = new TreeMap<>();
+    private int lastChunkNumber = -1;
+
+    /**
+     * Record a received chunk and advance the position of the receiver over the chunks received in sequence.
+     * 
+     * @param ackedChunkNumber the number of the last chunk received in sequence, or -1 if there is none.
+     * @param ackedChunkName the name of the last storage entry received in sequence, or null.
+     * @param chunkNumber the number of the received chunk.
+     * @param lastStorageName the name of the last storage entry of the received chunk, or null.
+     * @param lastChunk true if the received chunk is the last chunk of the migration.
+     * @return the number and the storage entry name of the last chunk received in sequence.
+     */
+    public Pair<Integer, String> advance(int ackedChunkNumber, String ackedChunkName, int chunkNumber,
+        String lastStorageName, boolean lastChunk)
+    {
+        if (lastChunk)
+        {
+            lastChunkNumber = chunkNumber;
+        }
+
+        if (chunkNumber > ackedChunkNumber)
+        {
+            pendingChunks.put(chunkNumber, lastStorageName);
+        }
+
+        int number = ackedChunkNumber;
+        String name = ackedChunkName;
+
+        while (pendingChunks.containsKey(number + 1))
+        {
+            String chunkName = pendingChunks.remove(++number);
+            if (chunkName != null)
+            {
+                name = chunkName;
+            }
+        }
+
+        return Pair.of(number, name);
+    }
+
+    /**
+     * @param ackedChunkNumber the number of the last chunk received in sequence.
+     * @return true if all chunks of the migration have been received.
+     */
+    public boolean isCompleted(int ackedChunkNumber)
+    {
+        return lastChunkNumber >= 0 && ackedChunkNumber >= lastChunkNumber;
+    }
+
+    /**
+     * @return the number of chunks received out of order.
+     */
+    public int getPendingChunkCount()
+    {
+        return pendingChunks.size();
+    }
+}
@@ -19,16 +19,29 @@
 package cpcc.vvrte.services;
 
 import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
-import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.json.JSONArray;
 import org.apache.tapestry5.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +49,8 @@ import org.slf4j.LoggerFactory;
 import cpcc.com.services.CommunicationResponse;
 import cpcc.com.services.CommunicationResponse.Status;
 import cpcc.com.services.CommunicationService;
-import cpcc.core.services.jobs.JobRunnable;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.services.jobs.AsyncJobRunnable;
 import cpcc.core.services.jobs.TimeService;
 import cpcc.vvrte.base.VvRteConstants;
 import cpcc.vvrte.entities.VirtualVehicle;
@@ -46,18 +60,45 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * MigrationSendJobRunnable implementation.
+ * <p>
+ * The sender keeps up to {@code VirtualVehicleMigrator.getWindowSize()} unacknowledged chunks in flight. Each
+ * acknowledgement carries the number and the last storage entry name of the chunks the receiver got in sequence, which
+ * advances the window.
+ * <p>
+ * Before the first chunk the sender exchanges a manifest of the content hashes of the storage entries with the
+ * receiver. The receiver answers with the hashes it already holds, whose entries are then sent as references only,
+ * and with its position if it still holds an interrupted migration of the vehicle, which resumes from there. A receiver
+ * without manifest support gets all entries, and a restarted migration sends the first chunk again, which makes the
+ * receiver report its position, so that only the missing chunks are transferred again.
+ * <p>
+ * A chunk is written through a small pipe into the body of the transfer while it is being sent, so a migration never
+ * holds a whole chunk in memory. The threads of the {@code MigrationChunkWriter} write the chunks. The
+ * {@code MigrationChunkSizer} determines the number of bytes a chunk carries from the measured transfers to the
+ * destination. The {@code MigrationWindows} service keeps the send windows and discards them when a migration
+ * completes or fails.
+ * <p>
+ * A failed transfer interrupts the migration and completes the job exceptionally, so that the retry policy of the
+ * migration queue restarts it.
  */
-public class MigrationSendJobRunnable implements JobRunnable
+public class MigrationSendJobRunnable implements AsyncJobRunnable
 {
     private static final Logger LOG = LoggerFactory.getLogger(MigrationSendJobRunnable.class);
 
+    private static final int PIPE_SIZE = 64 * 1024;
+
     private ServiceResources serviceResources;
     private VirtualVehicleMigrator migrator;
+    private MigrationChunkSizer chunkSizer;
+    private MigrationChunkWriter chunkWriter;
+    private MigrationWindows windows;
     private HibernateSessionManager sessionManager;
     private TimeService timeService;
+    private CommunicationService com;
+    private VvRteRepository vvRepository;
     private Map<String, String> parameters;
-    private int chunkNumber = 0;
-    private String dataString = null;
+    private MigrationSendWindow window;
+    private int ackedChunkNumber = -1;
+    private String ackedChunkName = null;
     private String uuid = null;
     private boolean succeeded = false;
 
@@ -74,7 +115,7 @@ public class MigrationSendJobRunnable implements JobRunnable
 
         if (ArrayUtils.isNotEmpty(data))
         {
-            dataString = org.apache.commons.codec.binary.StringUtils.newStringUtf8(data);
+            String dataString = org.apache.commons.codec.binary.StringUtils.newStringUtf8(data);
 
             if (dataString.length() == 0 || dataString.charAt(0) != '{')
             {
@@ -83,7 +124,8 @@ public class MigrationSendJobRunnable implements JobRunnable
 
             JSONObject obj = new JSONObject(dataString);
             uuid = obj.getString("uuid");
-            chunkNumber = obj.getInt("chunk");
+            ackedChunkNumber = obj.getInt("chunk");
+            ackedChunkName = obj.has("name") ? obj.getString("name") : null;
         }
     }
 
@@ -91,21 +133,101 @@ public class MigrationSendJobRunnable implements JobRunnable
      * {@inheritDoc}
      */
     @Override
-    public void run()
+    public CompletableFuture<Void> start()
     {
-        PerthreadManager perthreadManager = serviceResources.getService(PerthreadManager.class);
+        vvRepository = serviceResources.getService(VvRteRepository.class);
+        com = serviceResources.getService(CommunicationService.class);
+        migrator = serviceResources.getService(VirtualVehicleMigrator.class);
+        chunkSizer = serviceResources.getService(MigrationChunkSizer.class);
+        chunkWriter = serviceResources.getService(MigrationChunkWriter.class);
+        windows = serviceResources.getService(MigrationWindows.class);
+        sessionManager = serviceResources.getService(HibernateSessionManager.class);
+        timeService = serviceResources.getService(TimeService.class);
+
+        String id = parameters.get("id");
+        if (StringUtils.isBlank(id))
+        {
+            LOG.error("Can not migrate virtual vehicle, parameters={}", parameters);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int vvId = Integer.parseInt(id);
+        VirtualVehicle vehicle = vvId != 0
+            ? vvRepository.findVirtualVehicleById(vvId)
+            : vvRepository.findVirtualVehicleByUUID(uuid);
+
+        if (vehicle == null)
+        {
+            LOG.error("Can not find VV for ID {} UUID {}", vvId, uuid);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String vehicleUuid = vehicle.getUuid();
+        window = windows.enterSendWindow(vehicleUuid, vvId == 0, ackedChunkNumber, ackedChunkName,
+            Math.max(1, migrator.getWindowSize()));
+
+        if (window == null)
+        {
+            LOG.debug("Migration of virtual vehicle {} is in progress, acked={}, parameters={}",
+                vehicle.getName(), ackedChunkNumber, parameters);
+            succeeded = true;
+            return CompletableFuture.completedFuture(null);
+        }
 
-        String name = Thread.currentThread().getName();
+        int vehicleId = vehicle.getId();
+        CompletableFuture<Void> future;
 
         try
         {
-            runMigration();
+            sessionManager.getSession().refresh(vehicle);
+            future = startMigration(vehicle, vvId == 0);
         }
-        finally
+        catch (RuntimeException e)
+        {
+            windows.leaveSendWindow(vehicleUuid, window);
+            throw e;
+        }
+
+        return future
+            .thenCompose(result -> continueMigration(vehicleUuid, vehicleId))
+            .whenComplete((result, error) -> {
+                if (error != null)
+                {
+                    windows.leaveSendWindow(vehicleUuid, window);
+                }
+            });
+    }
+
+    /**
+     * Handle the acknowledgements that arrived while the migration was in progress. The send window is discarded when
+     * no more acknowledgements are pending.
+     * 
+     * @param vehicleUuid the virtual vehicle UUID.
+     * @param vehicleId the virtual vehicle identification.
+     * @return the future completing when no more acknowledgements are pending.
+     */
+    private CompletableFuture<Void> continueMigration(String vehicleUuid, int vehicleId)
+    {
+        Pair<Integer, String> ack = windows.takeAcknowledgement(vehicleUuid, window);
+
+        if (ack == null)
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ackedChunkNumber = ack.getLeft();
+        ackedChunkName = ack.getRight();
+
+        VirtualVehicle vehicle = vvRepository.findVirtualVehicleById(vehicleId);
+
+        if (vehicle == null)
         {
-            perthreadManager.cleanup();
-            Thread.currentThread().setName(name);
+            LOG.error("Virtual vehicle {} vanished during migration.", vehicleId);
+            return continueMigration(vehicleUuid, vehicleId);
         }
+
+        return startMigration(vehicle, true)
+            .thenCompose(result -> continueMigration(vehicleUuid, vehicleId));
     }
 
     /**
@@ -118,111 +240,347 @@ public class MigrationSendJobRunnable implements JobRunnable
     }
 
     /**
-     * Run the migration job.
+     * @param vehicle the virtual vehicle.
+     * @param acknowledgement true if this job handles an acknowledgement of the receiver.
+     * @return the future completing when all chunks of the current window have been transferred.
      */
-    private void runMigration()
+    private CompletableFuture<Void> startMigration(VirtualVehicle vehicle, boolean acknowledgement)
     {
-        VvRteRepository vvRepository = serviceResources.getService(VvRteRepository.class);
-        CommunicationService com = serviceResources.getService(CommunicationService.class);
-        migrator = serviceResources.getService(VirtualVehicleMigrator.class);
-        sessionManager = serviceResources.getService(HibernateSessionManager.class);
-        timeService = serviceResources.getService(TimeService.class);
+        if (acknowledgement && vehicle.getState() == VirtualVehicleState.MIGRATION_COMPLETED_SND)
+        {
+            if (vehicle.getChunkNumber() != null && ackedChunkNumber < vehicle.getChunkNumber())
+            {
+                LOG.debug("VV Migration of {} UUID {} awaits acknowledgement of chunks {} to {}",
+                    vehicle.getName(), uuid, ackedChunkNumber + 1, vehicle.getChunkNumber());
+                succeeded = true;
+                return CompletableFuture.completedFuture(null);
+            }
 
-        String id = parameters.get("id");
-        if (StringUtils.isBlank(id))
+            LOG.info("VV Migration completed for {} UUID {}", vehicle.getName(), uuid);
+            windows.setHeldContentHashes(vehicle.getUuid(), Collections.emptySet());
+            vvRepository.deleteVirtualVehicleById(vehicle);
+            sessionManager.commit();
+            succeeded = true;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!verifyVehicleStatus(vehicle))
         {
-            LOG.error("Can not migrate virtual vehicle, parameters={}", parameters);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        int vvId = Integer.parseInt(id);
-        VirtualVehicle vehicle = vvId != 0
-            ? vvRepository.findVirtualVehicleById(vvId)
-            : vvRepository.findVirtualVehicleByUUID(uuid);
+        int lastChunkInWindow = openWindow(vehicle, acknowledgement);
+        sessionManager.getSession().saveOrUpdate(vehicle);
+        sessionManager.commit();
 
-        if (vehicle == null)
+        if (acknowledgement)
         {
-            LOG.error("Can not find VV for ID {} UUID {}", vvId, uuid);
-            return;
+            return sendChunks(vehicle.getId(), lastChunkInWindow);
         }
 
-        if (vvId == 0 && vehicle.getState() == VirtualVehicleState.MIGRATION_COMPLETED_SND)
+        int vehicleId = vehicle.getId();
+
+        return exchangeManifest(vehicle)
+            .thenCompose(answer -> sendChunks(vehicleId, applyManifestAnswer(vehicleId, answer, lastChunkInWindow)));
+    }
+
+    /**
+     * Send the manifest of the migration to the destination.
+     * 
+     * @param vehicle the virtual vehicle.
+     * @return the future answer of the destination, completing with null if the destination does not support
+     *         manifests, or completing exceptionally if the transfer failed.
+     */
+    private CompletableFuture<JSONObject> exchangeManifest(VirtualVehicle vehicle)
+    {
+        byte[] manifest = migrator.createManifest(vehicle);
+        sessionManager.commit();
+
+        int vehicleId = vehicle.getId();
+        String name = vehicle.getName();
+
+        return com
+            .transferAsync(vehicle.getMigrationDestination(), VvRteConstants.MIGRATION_MANIFEST_CONNECTOR, manifest)
+            .handle((response, error) -> {
+                if (error != null)
+                {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    VirtualVehicle v = vvRepository.findVirtualVehicleById(vehicleId);
+
+                    if (v != null)
+                    {
+                        abortMigration(v, cause);
+                    }
+
+                    throw new CompletionException(cause);
+                }
+
+                if (response.getStatus() != Status.OK)
+                {
+                    LOG.info("No migration manifest answer for virtual vehicle {}, transferring all storage entries.",
+                        name);
+                    return null;
+                }
+
+                String content = org.apache.commons.codec.binary.StringUtils.newStringUtf8(response.getContent());
+                return StringUtils.startsWith(content, "{") ? new JSONObject(content) : null;
+            });
+    }
+
+    /**
+     * Apply the answer of the destination to a migration manifest.
+     * 
+     * @param vehicleId the virtual vehicle identification.
+     * @param answer the answer of the destination or null.
+     * @param lastChunkInWindow the number of the last chunk that may be sent without an answer.
+     * @return the number of the last chunk that may be sent.
+     */
+    private int applyManifestAnswer(int vehicleId, JSONObject answer, int lastChunkInWindow)
+    {
+        VirtualVehicle vehicle = vvRepository.findVirtualVehicleById(vehicleId);
+
+        if (vehicle == null || answer == null)
         {
-            LOG.info("VV Migration completed for ID {} {} UUID {}", vvId, vehicle.getName(), uuid);
-            vvRepository.deleteVirtualVehicleById(vehicle);
-            sessionManager.commit();
-            return;
+            return lastChunkInWindow;
         }
 
-        if (!verifyVehicleStatus(vehicle))
+        JSONArray hashArray = answer.getJSONArray("hashes");
+        Set<String> held = new HashSet<>();
+        for (int k = 0; k < hashArray.length(); ++k)
         {
-            return;
+            held.add(hashArray.getString(k));
         }
 
-        Thread.currentThread().setName(
-            "MIG-SND-" + vehicle.getName() + "-" + vehicle.getMigrationDestination().getName());
+        windows.setHeldContentHashes(vehicle.getUuid(), held);
 
-        try
+        int windowSize = Math.max(1, migrator.getWindowSize());
+
+        if (!answer.has("chunk"))
         {
-            byte[] chunk = findVvChunk(vehicle);
+            LOG.info("Migrating virtual vehicle {} from the start, {} contents held by the destination.",
+                vehicle.getName(), held.size());
+            return windowSize - 1;
+        }
 
-            CommunicationResponse response = com.transfer(
-                vehicle.getMigrationDestination(), VvRteConstants.MIGRATION_CONNECTOR, chunk);
+        int position = answer.getInt("chunk");
+        vehicle.setChunkNumber(position);
+        vehicle.setChunkName(answer.has("name") ? answer.getString("name") : null);
+        vehicle.setUpdateTime(timeService.newDate());
+        sessionManager.getSession().saveOrUpdate(vehicle);
+        sessionManager.commit();
 
-            setVehicleState(vehicle, response);
+        LOG.info("Resuming migration of virtual vehicle {} after chunk {}, {} contents held by the destination.",
+            vehicle.getName(), position, held.size());
 
-            String content = org.apache.commons.codec.binary.StringUtils.newStringUtf8(response.getContent());
+        return position + windowSize;
+    }
 
-            LOG.info("Migration done! Virtual vehicle: {} ({}) {} {}",
-                vehicle.getName(), vehicle.getUuid(), response.getStatus(), content);
+    /**
+     * Transfer the chunks following the last sent chunk, up to the given chunk number. A chunk is written as soon as
+     * its predecessor has been written, without waiting for the response to its predecessor, so all chunks of the
+     * window are in flight at once. Acknowledgements arriving meanwhile extend the window. The migration chunk writer
+     * writes the chunks, so no thread completing a transfer blocks on writing the next one.
+     * 
+     * @param vehicleId the virtual vehicle identification.
+     * @param lastChunkInWindow the number of the last chunk that may be sent.
+     * @return the future completing when the chunks have been transferred.
+     */
+    private CompletableFuture<Void> sendChunks(int vehicleId, int lastChunkInWindow)
+    {
+        CompletableFuture<Void> idle = window.open(lastChunkInWindow, () -> writeChunks(vehicleId));
+        writeChunks(vehicleId);
+        return idle;
+    }
+
+    /**
+     * Have the migration chunk writer write the next chunk, unless a chunk is being written or the window is full.
+     * 
+     * @param vehicleId the virtual vehicle identification.
+     */
+    private void writeChunks(int vehicleId)
+    {
+        if (window.startWriting())
+        {
+            chunkWriter.execute(() -> {
+                try
+                {
+                    writeNextChunk(vehicleId);
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.error("Writing a migration chunk of virtual vehicle " + vehicleId + " failed.", e);
+                    window.stopWriting(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Write the chunk following the last sent chunk into its transfer. Runs on a migration chunk writer thread.
+     * 
+     * @param vehicleId the virtual vehicle identification.
+     */
+    private void writeNextChunk(int vehicleId)
+    {
+        VirtualVehicle vehicle = vvRepository.findVirtualVehicleById(vehicleId);
 
+        if (vehicle == null || vehicle.getState() != VirtualVehicleState.MIGRATING_SND)
+        {
             succeeded = true;
+            window.stopWriting(null);
+            return;
         }
-        catch (IOException | ArchiveException e)
+
+        int chunkNumber = vehicle.getChunkNumber() + 1;
+
+        if (!window.mayWrite(chunkNumber))
         {
-            LOG.error("Migration aborted! Virtual vehicle: {} ({}) {}",
-                vehicle.getName(), vehicle.getUuid(), e.getMessage());
-            sessionManager.abort();
+            succeeded = true;
+            return;
+        }
+
+        RealVehicle destination = vehicle.getMigrationDestination();
+        long maxBytes = chunkSizer.getChunkBudget(destination);
+        long start = System.nanoTime();
+        ChunkPipe body = new ChunkPipe();
+        PipedOutputStream pipe = new PipedOutputStream();
+        MessageDigest md5 = DigestUtils.getMd5Digest();
+        CompletableFuture<CommunicationResponse> transfer;
+        long length;
 
-            vehicle.setState(VirtualVehicleState.MIGRATION_INTERRUPTED_SND);
-            vehicle.setStateInfo(ExceptionUtils.getStackTrace(e));
+        try
+        {
+            body.connect(pipe);
+            transfer = com.transferAsync(destination, VvRteConstants.MIGRATION_CONNECTOR, body);
+
+            CountingOutputStream out = new CountingOutputStream(new DigestOutputStream(pipe, md5));
+            migrator.writeChunk(vehicle, chunkNumber == 0 ? null : vehicle.getChunkName(), chunkNumber, maxBytes,
+                out);
+            out.flush();
+            length = out.getByteCount();
+        }
+        catch (IOException | ArchiveException e)
+        {
+            body.abort();
+            abortMigration(vehicle, e);
+            window.stopWriting(e);
+            return;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(pipe);
         }
 
+        // writeChunk() may have changed the state of the vehicle.
+        vehicle.setChunkNumber(chunkNumber);
+        vehicle.setUpdateTime(timeService.newDate());
         sessionManager.getSession().saveOrUpdate(vehicle);
         sessionManager.commit();
+
+        LOG.info("Sending migration chunk of virtual vehicle {}, chunk={}, parameters={}, len={}, budget={}, md5={}",
+            vehicle.getName(), chunkNumber, parameters, length, maxBytes, Hex.encodeHexString(md5.digest()));
+
+        long chunkLength = length;
+        window.chunkWritten(chunkNumber);
+
+        transfer
+            .whenComplete((response, error) -> measureTransfer(destination, chunkLength, start, response, error))
+            .handle((response, error) -> chunkSent(vehicleId, response, error))
+            .thenAccept(failure -> {
+                window.chunkDone(failure);
+                writeChunks(vehicleId);
+            });
+
+        writeChunks(vehicleId);
     }
 
     /**
-     * @param vehicle the virtual vehicle.
-     * @param response the communication response.
+     * Handle the response to a chunk. The number of the last sent chunk has been recorded when the chunk was written,
+     * because the responses to the chunks in flight may arrive in any order.
+     * 
+     * @param vehicleId the virtual vehicle identification.
+     * @param response the response of the migration destination.
+     * @param error the transfer error or null.
+     * @return the cause of the failure, or null if the chunk has been transferred successfully or the virtual vehicle
+     *         vanished.
      */
-    private void setVehicleState(VirtualVehicle vehicle, CommunicationResponse response)
+    private Throwable chunkSent(int vehicleId, CommunicationResponse response, Throwable error)
     {
+        if (error == null && response.getStatus() == Status.OK)
+        {
+            return null;
+        }
+
+        VirtualVehicle vehicle = vvRepository.findVirtualVehicleById(vehicleId);
+
+        if (vehicle == null)
+        {
+            LOG.error("Virtual vehicle {} vanished during migration.", vehicleId);
+            return null;
+        }
+
+        if (error != null)
+        {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            abortMigration(vehicle, cause);
+            return cause;
+        }
+
         String stateInfo = org.apache.commons.codec.binary.StringUtils.newStringUtf8(response.getContent());
 
-        if (response.getStatus() == Status.OK)
+        LOG.error("Migration failed! Virtual vehicle: {} ({}) {}", vehicle.getName(), vehicle.getUuid(), stateInfo);
+        vehicle.setState(VirtualVehicleState.MIGRATION_INTERRUPTED_SND);
+        vehicle.setStateInfo(stateInfo);
+        sessionManager.getSession().saveOrUpdate(vehicle);
+        sessionManager.commit();
+        return new IOException("Migration chunk rejected: " + stateInfo);
+    }
+
+    /**
+     * @param destination the migration destination.
+     * @param length the length of the transferred chunk in bytes.
+     * @param start the start time of the transfer in nanoseconds.
+     * @param response the response of the migration destination.
+     * @param error the transfer error or null.
+     */
+    private void measureTransfer(RealVehicle destination, long length, long start, CommunicationResponse response,
+        Throwable error)
+    {
+        if (error == null && response.getStatus() == Status.OK)
         {
-            vehicle.setChunkNumber(chunkNumber);
-            vehicle.setStateInfo(stateInfo);
+            chunkSizer.recordTransfer(destination, length, System.nanoTime() - start);
         }
         else
         {
-            LOG.error("Migration failed! Virtual vehicle: {} ({}) {}",
-                vehicle.getName(), vehicle.getUuid(), stateInfo);
-            vehicle.setState(VirtualVehicleState.MIGRATION_INTERRUPTED_SND);
-            vehicle.setStateInfo(stateInfo);
+            chunkSizer.recordFailure(destination);
         }
     }
 
     /**
      * @param vehicle the virtual vehicle.
-     * @return the chunk.
-     * @throws IOException in case of errors.
-     * @throws ArchiveException in case of errors.
+     * @param e the cause of the abort.
+     */
+    private void abortMigration(VirtualVehicle vehicle, Throwable e)
+    {
+        LOG.error("Migration aborted! Virtual vehicle: {} ({}) {}",
+            vehicle.getName(), vehicle.getUuid(), e.getMessage());
+        sessionManager.abort();
+
+        VirtualVehicle v = vvRepository.findVirtualVehicleById(vehicle.getId());
+        v.setState(VirtualVehicleState.MIGRATION_INTERRUPTED_SND);
+        v.setStateInfo(ExceptionUtils.getStackTrace(e));
+        sessionManager.getSession().saveOrUpdate(v);
+        sessionManager.commit();
+    }
+
+    /**
+     * @param vehicle the virtual vehicle.
+     * @param acknowledgement true if this job handles an acknowledgement of the receiver.
+     * @return the number of the last chunk that may be sent.
      */
-    private byte[] findVvChunk(VirtualVehicle vehicle) throws IOException, ArchiveException
+    private int openWindow(VirtualVehicle vehicle, boolean acknowledgement)
     {
-        byte[] chunk;
+        int windowSize = Math.max(1, migrator.getWindowSize());
 
         if (VirtualVehicleState.MIGRATING_SND != vehicle.getState())
         {
@@ -230,27 +588,37 @@ public class MigrationSendJobRunnable implements JobRunnable
             vehicle.setPreMigrationState(vehicle.getState());
             vehicle.setState(VirtualVehicleState.MIGRATING_SND);
             vehicle.setMigrationStartTime(timeService.newDate());
-            vehicle.setChunkNumber(chunkNumber);
-            sessionManager.getSession().saveOrUpdate(vehicle);
-            sessionManager.commit();
-            chunk = migrator.findChunk(vehicle, dataString, chunkNumber);
+            vehicle.setChunkNumber(-1);
+            vehicle.setChunkName(null);
+
+            LOG.info("Initiating migration of virtual vehicle {}, window={}, parameters={}",
+                vehicle.getName(), windowSize, parameters);
 
-            String md5sum = DigestUtils.md5Hex(chunk);
-            LOG.info("Initiating migration of virtual vehicle {}, chunk={}, parameters={}, len={}, md5={}",
-                vehicle.getName(), chunkNumber, parameters, chunk.length, md5sum);
+            return windowSize - 1;
         }
-        else
+
+        if (!acknowledgement)
         {
-            // Migration continues.
-            chunkNumber = vehicle.getChunkNumber() + 1;
-            chunk = migrator.findChunk(vehicle, dataString, chunkNumber);
+            // Migration stalled. Send the first chunk again to learn the position of the receiver.
+            vehicle.setChunkNumber(-1);
+            vehicle.setChunkName(null);
+
+            LOG.info("Restarting migration of virtual vehicle {}, parameters={}", vehicle.getName(), parameters);
+
+            return 0;
+        }
 
-            String md5sum = DigestUtils.md5Hex(chunk);
-            LOG.info("Continuing migration of virtual vehicle {}, chunk={}, parameters={}, len={}, md5={}",
-                vehicle.getName(), chunkNumber, parameters, chunk.length, md5sum);
+        // Migration continues.
+        if (vehicle.getChunkNumber() == null || ackedChunkNumber > vehicle.getChunkNumber())
+        {
+            vehicle.setChunkNumber(ackedChunkNumber);
+            vehicle.setChunkName(ackedChunkName);
         }
 
-        return chunk;
+        LOG.debug("Continuing migration of virtual vehicle {}, acked={}, sent={}, parameters={}",
+            vehicle.getName(), ackedChunkNumber, vehicle.getChunkNumber(), parameters);
+
+        return ackedChunkNumber + windowSize;
     }
 
     /**
@@ -286,4 +654,62 @@ public class MigrationSendJobRunnable implements JobRunnable
 
         return true;
     }
+
+    /**
+     * The receiving end of the pipe a chunk is written to. An aborted chunk ends with an error instead of the end of
+     * the stream, so that the transfer fails instead of sending an incomplete chunk.
+     */
+    private static class ChunkPipe extends PipedInputStream
+    {
+        private volatile boolean aborted = false;
+
+        /**
+         * Create an unconnected pipe.
+         */
+        ChunkPipe()
+        {
+            super(PIPE_SIZE);
+        }
+
+        /**
+         * Abort the chunk. Must be called before the writing end of the pipe is closed.
+         */
+        void abort()
+        {
+            aborted = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized int read() throws IOException
+        {
+            return verify(super.read());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException
+        {
+            return verify(super.read(b, off, len));
+        }
+
+        /**
+         * @param result the result of a read operation.
+         * @return the result of the read operation.
+         * @throws IOException if the end of an aborted chunk has been reached.
+         */
+        private int verify(int result) throws IOException
+        {
+            if (result < 0 && aborted)
+            {
+                throw new IOException("Migration chunk aborted.");
+            }
+
+            return result;
+        }
+    }
 }
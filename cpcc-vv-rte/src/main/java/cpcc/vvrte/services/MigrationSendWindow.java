@@ -0,0 +1,292 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The send window of a virtual vehicle. One job at a time drives the migration of a virtual vehicle. Jobs handling
+ * acknowledgements that arrive meanwhile record them here, extend the window and finish at once, instead of waiting
+ * for the running job. The running job handles the recorded acknowledgements when its transfers are done.
+ * <p>
+ * The window also tracks the chunks in flight. At most one chunk is written at a time, but the transfers of all
+ * written chunks up to the last chunk in the window run concurrently.
+ * <p>
+ * The {@code MigrationWindows} service keeps the send windows and hands them out to the migration jobs.
+ */
+public class MigrationSendWindow
+{
+    private boolean active = false;
+    private int pendingChunkNumber = -1;
+    private String pendingChunkName = null;
+    private boolean pending = false;
+    private int limit = -1;
+    private int sent = Integer.MIN_VALUE;
+    private int inFlight = 0;
+    private boolean writing = false;
+    private boolean exhausted = false;
+    private Throwable failure = null;
+    private CompletableFuture<Void> idle = null;
+    private Runnable writer = null;
+
+    /**
+     * @param acknowledgement true if the entering job handles an acknowledgement of the receiver.
+     * @param chunkNumber the number of the last chunk the receiver got in sequence.
+     * @param chunkName the name of the last storage entry the receiver got in sequence.
+     * @param windowSize the number of chunks that may be sent beyond the acknowledged chunk.
+     * @return true if the job drives the migration from now on, false if another job does so.
+     */
+    public synchronized boolean enter(boolean acknowledgement, int chunkNumber, String chunkName, int windowSize)
+    {
+        if (!active)
+        {
+            active = true;
+            return true;
+        }
+
+        if (acknowledgement && chunkNumber > pendingChunkNumber)
+        {
+            pendingChunkNumber = chunkNumber;
+            pendingChunkName = chunkName;
+            pending = true;
+            limit = Math.max(limit, chunkNumber + windowSize);
+        }
+
+        return false;
+    }
+
+    /**
+     * Have the driving job write the chunks an extended window permits.
+     */
+    public void resume()
+    {
+        Runnable r;
+
+        synchronized (this)
+        {
+            r = idle != null && !idle.isDone() ? writer : null;
+        }
+
+        if (r != null)
+        {
+            r.run();
+        }
+    }
+
+    /**
+     * Open the window for sending chunks.
+     * 
+     * @param lastChunkInWindow the number of the last chunk that may be sent.
+     * @param chunkWriter writes the chunks the window permits.
+     * @return the future completing when no chunk is in flight and no more chunks may be sent.
+     */
+    public synchronized CompletableFuture<Void> open(int lastChunkInWindow, Runnable chunkWriter)
+    {
+        limit = lastChunkInWindow;
+        sent = Integer.MIN_VALUE;
+        exhausted = false;
+        failure = null;
+        writer = chunkWriter;
+        idle = new CompletableFuture<>();
+        return idle;
+    }
+
+    /**
+     * @return true if the caller may write the next chunk.
+     */
+    public synchronized boolean startWriting()
+    {
+        if (writing || exhausted || idle == null || sent >= limit)
+        {
+            return false;
+        }
+
+        writing = true;
+        return true;
+    }
+
+    /**
+     * @param chunkNumber the number of the chunk to be written.
+     * @return true if the chunk lies within the window, false if the writer has to stop.
+     */
+    public boolean mayWrite(int chunkNumber)
+    {
+        CompletableFuture<Void> done;
+        Throwable cause;
+
+        synchronized (this)
+        {
+            if (chunkNumber <= limit)
+            {
+                return true;
+            }
+
+            sent = chunkNumber - 1;
+            writing = false;
+            cause = failure;
+            done = takeIdle();
+        }
+
+        complete(done, cause);
+        return false;
+    }
+
+    /**
+     * @param chunkNumber the number of the chunk written into its transfer.
+     */
+    public synchronized void chunkWritten(int chunkNumber)
+    {
+        sent = chunkNumber;
+        ++inFlight;
+        writing = false;
+    }
+
+    /**
+     * Stop writing, because there are no more chunks to send or the migration failed.
+     * 
+     * @param cause the cause of the failure, or null if there are no more chunks to send.
+     */
+    public void stopWriting(Throwable cause)
+    {
+        CompletableFuture<Void> done;
+        Throwable error;
+
+        synchronized (this)
+        {
+            exhausted = true;
+            writing = false;
+            error = recordFailure(cause);
+            done = takeIdle();
+        }
+
+        complete(done, error);
+    }
+
+    /**
+     * @param cause the cause of the failure, or null if the chunk has been transferred successfully.
+     */
+    public void chunkDone(Throwable cause)
+    {
+        CompletableFuture<Void> done;
+        Throwable error;
+
+        synchronized (this)
+        {
+            --inFlight;
+            exhausted |= cause != null;
+            error = recordFailure(cause);
+            done = takeIdle();
+        }
+
+        complete(done, error);
+    }
+
+    /**
+     * Keep the first failure of the window.
+     * 
+     * @param cause the cause of a failure or null.
+     * @return the first failure of the window or null.
+     */
+    private Throwable recordFailure(Throwable cause)
+    {
+        if (failure == null)
+        {
+            failure = cause;
+        }
+
+        return failure;
+    }
+
+    /**
+     * Take the idle future if no chunk is in flight and no more chunks may be sent.
+     * 
+     * @return the idle future or null.
+     */
+    private CompletableFuture<Void> takeIdle()
+    {
+        if (writing || inFlight > 0 || !(exhausted || sent >= limit))
+        {
+            return null;
+        }
+
+        CompletableFuture<Void> done = idle;
+        idle = null;
+        writer = null;
+        return done;
+    }
+
+    /**
+     * @param done the idle future to complete outside the monitor, or null.
+     * @param cause the failure to complete the future with, or null.
+     */
+    private static void complete(CompletableFuture<Void> done, Throwable cause)
+    {
+        if (done == null)
+        {
+            return;
+        }
+
+        if (cause != null)
+        {
+            done.completeExceptionally(cause);
+        }
+        else
+        {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Take the latest recorded acknowledgement, or leave the window if there is none.
+     * 
+     * @return the number and the storage entry name of the acknowledged chunk or null.
+     */
+    public synchronized Pair<Integer, String> takeAcknowledgement()
+    {
+        if (!pending)
+        {
+            leave();
+            return null;
+        }
+
+        pending = false;
+        return Pair.of(pendingChunkNumber, pendingChunkName);
+    }
+
+    /**
+     * Leave the window, so that the next job drives the migration.
+     */
+    public synchronized void leave()
+    {
+        active = false;
+        pending = false;
+        pendingChunkNumber = -1;
+        pendingChunkName = null;
+        limit = -1;
+        sent = Integer.MIN_VALUE;
+        inFlight = 0;
+        writing = false;
+        exhausted = false;
+        failure = null;
+        idle = null;
+        writer = null;
+    }
+}
@@ -0,0 +1,98 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Keep the send and receive windows of the migrations in progress and the content hashes the migration destinations
+ * hold. The migration jobs and the per-thread migrator share this state, so it lives in a single service.
+ */
+public interface MigrationWindows
+{
+    /**
+     * Enter the send window of a virtual vehicle. The first job entering the window drives the migration until it
+     * leaves the window. Another job entering meanwhile records its acknowledgement, extends the window and resumes
+     * the driving job.
+     * 
+     * @param uuid the virtual vehicle UUID.
+     * @param acknowledgement true if the entering job handles an acknowledgement of the receiver.
+     * @param chunkNumber the number of the last chunk the receiver got in sequence.
+     * @param chunkName the name of the last storage entry the receiver got in sequence.
+     * @param windowSize the number of chunks that may be sent beyond the acknowledged chunk.
+     * @return the send window if the job drives the migration from now on, null if another job does so.
+     */
+    MigrationSendWindow enterSendWindow(String uuid, boolean acknowledgement, int chunkNumber, String chunkName,
+        int windowSize);
+
+    /**
+     * Take the latest acknowledgement recorded in the send window. If there is none, the driving job leaves the
+     * window and the window is discarded.
+     * 
+     * @param uuid the virtual vehicle UUID.
+     * @param window the send window of the driving job.
+     * @return the number and the storage entry name of the acknowledged chunk or null.
+     */
+    Pair<Integer, String> takeAcknowledgement(String uuid, MigrationSendWindow window);
+
+    /**
+     * Leave and discard the send window and the held content hashes of a failed migration.
+     * 
+     * @param uuid the virtual vehicle UUID.
+     * @param window the send window of the driving job.
+     */
+    void leaveSendWindow(String uuid, MigrationSendWindow window);
+
+    /**
+     * @return the lock serializing the storing of received chunks and the access to the receive windows.
+     */
+    Lock getReceiveLock();
+
+    /**
+     * Must be called while holding the receive lock.
+     * 
+     * @param uuid the virtual vehicle UUID.
+     * @return the receive window of the virtual vehicle, which is created if necessary.
+     */
+    MigrationReceiveWindow getReceiveWindow(String uuid);
+
+    /**
+     * Discard the receive window of a completed, restarted or interrupted migration. Must be called while holding the
+     * receive lock.
+     * 
+     * @param uuid the virtual vehicle UUID.
+     */
+    void removeReceiveWindow(String uuid);
+
+    /**
+     * @param uuid the virtual vehicle UUID.
+     * @return the content hashes the migration destination of the virtual vehicle already holds.
+     */
+    Set<String> getHeldContentHashes(String uuid);
+
+    /**
+     * @param uuid the virtual vehicle UUID.
+     * @param contentHashes the content hashes the migration destination already holds, or an empty set to forget
+     *            them.
+     */
+    void setHeldContentHashes(String uuid, Set<String> contentHashes);
+}
@@ -0,0 +1,150 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * MigrationWindowsImpl
+ */
+public class MigrationWindowsImpl implements MigrationWindows
+{
+    private final Map<String, MigrationSendWindow> sendWindows = new HashMap<>();
+    private final ReentrantLock receiveLock = new ReentrantLock(true);
+    private final Map<String, MigrationReceiveWindow> receiveWindows = new HashMap<>();
+    private final Map<String, Set<String>> heldContentHashes = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MigrationSendWindow enterSendWindow(String uuid, boolean acknowledgement, int chunkNumber,
+        String chunkName, int windowSize)
+    {
+        MigrationSendWindow window;
+
+        synchronized (sendWindows)
+        {
+            window = sendWindows.computeIfAbsent(uuid, k -> new MigrationSendWindow());
+
+            if (window.enter(acknowledgement, chunkNumber, chunkName, windowSize))
+            {
+                return window;
+            }
+        }
+
+        window.resume();
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pair<Integer, String> takeAcknowledgement(String uuid, MigrationSendWindow window)
+    {
+        synchronized (sendWindows)
+        {
+            Pair<Integer, String> ack = window.takeAcknowledgement();
+
+            if (ack == null)
+            {
+                sendWindows.remove(uuid, window);
+            }
+
+            return ack;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void leaveSendWindow(String uuid, MigrationSendWindow window)
+    {
+        synchronized (sendWindows)
+        {
+            window.leave();
+            sendWindows.remove(uuid, window);
+        }
+
+        heldContentHashes.remove(uuid);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Lock getReceiveLock()
+    {
+        return receiveLock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MigrationReceiveWindow getReceiveWindow(String uuid)
+    {
+        return receiveWindows.computeIfAbsent(uuid, k -> new MigrationReceiveWindow());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeReceiveWindow(String uuid)
+    {
+        receiveWindows.remove(uuid);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getHeldContentHashes(String uuid)
+    {
+        return heldContentHashes.getOrDefault(uuid, Collections.emptySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeldContentHashes(String uuid, Set<String> contentHashes)
+    {
+        if (contentHashes == null || contentHashes.isEmpty())
+        {
+            heldContentHashes.remove(uuid);
+        }
+        else
+        {
+            heldContentHashes.put(uuid, Collections.unmodifiableSet(new HashSet<>(contentHashes)));
+        }
+    }
+}
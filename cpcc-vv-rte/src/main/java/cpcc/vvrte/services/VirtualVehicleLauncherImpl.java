@@ -69,6 +69,7 @@ public class VirtualVehicleLauncherImpl implements VirtualVehicleLauncher
         Collections.synchronizedMap(new HashMap<JavascriptWorker, Integer>());
     private TaskRepository taskRepository;
     private JobService jobService;
+    private VirtualVehicleScheduler scheduler;
 
     /**
      * @param serviceResources the service resources.
@@ -83,6 +84,7 @@ public class VirtualVehicleLauncherImpl implements VirtualVehicleLauncher
         this.timeService = serviceResources.getService(TimeService.class);
         this.taskRepository = serviceResources.getService(TaskRepository.class);
         this.jobService = serviceResources.getService(JobService.class);
+        this.scheduler = serviceResources.getService(VirtualVehicleScheduler.class);
 
         jss.addAllowedClassRegex("\\$BuiltInFunctions_.*");
     }
@@ -190,7 +192,7 @@ public class VirtualVehicleLauncherImpl implements VirtualVehicleLauncher
             JavascriptWorker worker = jss.createWorker(vehicle, useContinuation);
             worker.addStateListener(this);
             vehicleMap.put(worker, vehicle.getId());
-            worker.start();
+            scheduler.submit(vehicle.getId(), worker);
         }
         catch (IOException e)
         {
@@ -239,8 +241,9 @@ public class VirtualVehicleLauncherImpl implements VirtualVehicleLauncher
     @Override
     public void notify(JavascriptWorker worker, VirtualVehicleState vehicleState)
     {
-        LOG.debug("notify(): worker={}, state={}", worker.getName(), vehicleState);
-        VirtualVehicle vehicle = vvRteRepository.findVirtualVehicleById(vehicleMap.get(worker));
+        Integer vehicleId = vehicleMap.get(worker);
+        LOG.debug("notify(): vehicle={}, state={}", vehicleId, vehicleState);
+        VirtualVehicle vehicle = vvRteRepository.findVirtualVehicleById(vehicleId);
 
         if (vehicle == null || vehicleState == null)
         {
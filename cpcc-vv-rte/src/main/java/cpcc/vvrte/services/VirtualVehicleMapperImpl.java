@@ -19,14 +19,15 @@
 package cpcc.vvrte.services;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cpcc.core.entities.RealVehicle;
-import cpcc.core.entities.RealVehicleType;
 import cpcc.core.entities.SensorDefinition;
+import cpcc.core.services.RealVehicleIndex;
 import cpcc.core.services.RealVehicleRepository;
 import cpcc.core.utils.RealVehicleUtils;
 import cpcc.vvrte.base.VirtualVehicleMappingDecision;
@@ -40,13 +41,16 @@ public class VirtualVehicleMapperImpl implements VirtualVehicleMapper
     private static final Logger LOG = LoggerFactory.getLogger(VirtualVehicleMapperImpl.class);
 
     private RealVehicleRepository rvRepo;
+    private RealVehicleIndex rvIndex;
 
     /**
      * @param rvRepo the real vehicle repository.
+     * @param rvIndex the real vehicle index.
      */
-    public VirtualVehicleMapperImpl(RealVehicleRepository rvRepo)
+    public VirtualVehicleMapperImpl(RealVehicleRepository rvRepo, RealVehicleIndex rvIndex)
     {
         this.rvRepo = rvRepo;
+        this.rvIndex = rvIndex;
     }
 
     /**
@@ -62,14 +66,14 @@ public class VirtualVehicleMapperImpl implements VirtualVehicleMapper
         RealVehicle rv = rvRepo.findOwnRealVehicle();
         if (rv == null)
         {
-            return migrateTask(decision);
+            return migrateTask(decision, null);
         }
 
-        boolean migration = !RealVehicleUtils.isInsideAreaOfOperation(rv.getAreaOfOperation(), task.getPosition());
+        boolean migration = !RealVehicleUtils.isInsideAreaOfOperation(rv, task.getPosition());
 
         if (migration || !rv.getSensors().containsAll(task.getSensors()))
         {
-            return migrateTask(decision);
+            return migrateTask(decision, rv.getId());
         }
 
         return decision.setMigration(false);
@@ -77,42 +81,40 @@ public class VirtualVehicleMapperImpl implements VirtualVehicleMapper
 
     /**
      * @param decision the migration decision.
+     * @param ownId the identification of the own real vehicle, or null.
      * @return the migration decision.
      */
-    private VirtualVehicleMappingDecision migrateTask(VirtualVehicleMappingDecision decision)
+    private VirtualVehicleMappingDecision migrateTask(VirtualVehicleMappingDecision decision, Integer ownId)
     {
+        if (rvIndex.isEmpty())
+        {
+            return decision.setRealVehicles(Collections.emptyList());
+        }
+
         Task task = decision.getTask();
-        List<RealVehicle> groundStations = new ArrayList<>();
         List<RealVehicle> destinationRealVehicles = new ArrayList<>();
 
-        for (RealVehicle rv : rvRepo.findAllActiveRealVehiclesExceptOwn())
+        for (RealVehicle rv : rvIndex.findRealVehicles(task.getPosition(), task.getSensors(), ownId))
         {
-            if (rv.getType() == RealVehicleType.GROUND_STATION)
+            if (rv.getSensors().containsAll(task.getSensors()))
             {
-                groundStations.add(rv);
-            }
-
-            if (RealVehicleUtils.isInsideAreaOfOperation(rv.getAreaOfOperation(), task.getPosition()))
-            {
-                if (rv.getSensors().containsAll(task.getSensors()))
-                {
-                    LOG.info("Found migration candidate {} for task at {}", rv.getName(), task.getPosition());
-                    destinationRealVehicles.add(rv);
-                }
-                else
-                {
-                    String sensorString = getSensorString(task.getSensors(), rv.getSensors());
-                    LOG.debug("Migrate not to {} because of sensors {}", rv.getName(), sensorString);
-                }
+                LOG.info("Found migration candidate {} for task at {}", rv.getName(), task.getPosition());
+                destinationRealVehicles.add(rv);
             }
             else
             {
-                LOG.debug("Migrate not to {} because of position {}", rv.getName(), task.getPosition());
+                String sensorString = getSensorString(task.getSensors(), rv.getSensors());
+                LOG.debug("Migrate not to {} because of sensors {}", rv.getName(), sensorString);
             }
         }
 
-        decision.setRealVehicles(destinationRealVehicles.isEmpty() ? groundStations : destinationRealVehicles);
-        return decision;
+        if (destinationRealVehicles.isEmpty())
+        {
+            LOG.debug("No migration candidate for task at {}, falling back to ground stations", task.getPosition());
+            return decision.setRealVehicles(rvIndex.findGroundStations(ownId));
+        }
+
+        return decision.setRealVehicles(destinationRealVehicles);
     }
 
     /**
@@ -20,6 +20,7 @@ package cpcc.vvrte.services;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.compress.archivers.ArchiveException;
 
@@ -36,8 +37,16 @@ public interface VirtualVehicleMigrator
     void initiateMigration(VirtualVehicle vehicle);
 
     /**
+     * @return the maximum number of unacknowledged migration chunks in flight.
+     */
+    int getWindowSize();
+
+    /**
+     * Build a migration chunk. The name of the last storage entry in the chunk is kept in the virtual vehicle's chunk
+     * name and is the start point for the following chunk.
+     * 
      * @param virtualVehicle the virtual vehicle to be migrated.
-     * @param lastStorageName the name of the last successfully migrated storage entry.
+     * @param lastStorageName the name of the last storage entry of the previous chunk.
      * @param chunkNumber the chunk number.
      * @return the virtual vehicle chunk as byte array.
      * @throws IOException in case of errors.
@@ -47,6 +56,51 @@ public interface VirtualVehicleMigrator
         throws IOException, ArchiveException;
 
     /**
+     * Write a migration chunk to an output stream. The storage entries are loaded one at a time and written straight
+     * to the stream, so the heap usage does not depend on the chunk size. The name of the last storage entry in the
+     * chunk is kept in the virtual vehicle's chunk name and is the start point for the following chunk.
+     * <p>
+     * A chunk holds storage entries until their content would exceed the given number of bytes, but at least one
+     * entry. An entry whose content the migration destination holds already is written as a reference to its content
+     * hash.
+     * 
+     * @param virtualVehicle the virtual vehicle to be migrated.
+     * @param lastStorageName the name of the last storage entry of the previous chunk.
+     * @param chunkNumber the chunk number.
+     * @param maxBytes the maximum number of storage bytes in the chunk.
+     * @param outStream the output stream to write the chunk to. The stream is not closed.
+     * @throws IOException in case of errors.
+     * @throws ArchiveException in case of errors.
+     */
+    void writeChunk(VirtualVehicle virtualVehicle, String lastStorageName, int chunkNumber, long maxBytes,
+        OutputStream outStream) throws IOException, ArchiveException;
+
+    /**
+     * Build the manifest of a migration. It lists the content hashes of all storage entries of the virtual vehicle, so
+     * that the migration destination can report the contents it already holds. Missing hashes of entries stored before
+     * content hashes were introduced are computed and stored.
+     * 
+     * @param virtualVehicle the virtual vehicle to be migrated.
+     * @return the manifest as a JSON object in UTF-8.
+     */
+    byte[] createManifest(VirtualVehicle virtualVehicle);
+
+    /**
+     * Answer the manifest of a migration to this real vehicle. The answer lists the content hashes of the manifest
+     * this real vehicle holds already. If an interrupted migration of the virtual vehicle from the same source is
+     * pending, the answer also carries the number and the last storage entry name of the chunks received in sequence,
+     * so that the migration resumes from there.
+     * 
+     * @param inputStream the input stream containing the migration manifest.
+     * @return the answer as a JSON object in UTF-8.
+     * @throws IOException in case of errors.
+     */
+    byte[] answerManifest(InputStream inputStream) throws IOException;
+
+    /**
+     * Store a received chunk and acknowledge all chunks received in sequence so far. Chunks may arrive out of order.
+     * The acknowledgement is sent asynchronously, so the chunk's own response does not wait for it.
+     * 
      * @param inStream the input stream containing the virtual vehicle chunk to be stored in the database.
      * @throws ArchiveException thrown in case of errors.
      * @throws IOException thrown in case of errors.
@@ -54,6 +108,9 @@ public interface VirtualVehicleMigrator
     void storeChunk(InputStream inStream) throws ArchiveException, IOException;
 
     /**
+     * Store a chunk while it is being received. The contents of the archive entries are spooled to a temporary file
+     * beyond a small buffer, so the chunk is never held in memory as a whole.
+     * 
      * @param inputStream the input stream containing the virtual vehicle chunk to be stored in the database.
      * @throws IOException in case of errors.
      */
@@ -18,24 +18,42 @@
 
 package cpcc.vvrte.services;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.utils.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.json.JSONArray;
 import org.apache.tapestry5.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,13 +88,19 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     private static final String API_VERSION = "api.version";
     private static final String UUID = "uuid";
     private static final String NAME = "name";
+    private static final String SOURCE = "source";
+    private static final String HASHES = "hashes";
     private static final String CPCC = "cpcc";
     private static final String VVRTE = "vvrte";
     private static final String STORAGE = "storage/";
+    private static final String STORAGE_REF = "storage-ref/";
+    private static final int STORAGE_REF_SIZE = 64;
     private static final String DATA_VV_PROPERTIES = "vv/vv.properties";
     private static final String DATA_VV_SOURCE_JS = "vv/vv-source.js";
     private static final String DATA_VV_CONTINUATION_JS = "vv/vv-continuation.js";
 
+    private static final int SPOOL_THRESHOLD = 64 * 1024;
+
     private HibernateSessionManager sessionManager;
     private VvRteRepository vvRepository;
     private VirtualVehicleLauncher launcher;
@@ -84,7 +108,10 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     private TimeService timeService;
     private RealVehicleRepository rvRepository;
     private CommunicationService com;
+    private MigrationWindows windows;
     private int chunkSize;
+    private int windowSize;
+    private long cacheRetention;
 
     /**
      * @param sessionManager the Hibernate session manager.
@@ -95,9 +122,13 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
      * @param rvRepository the real vehicle repository.
      * @param com the communication service.
      * @param chunkSize the migration chunk size.
+     * @param windowSize the maximum number of unacknowledged migration chunks in flight.
+     * @param cacheRetention the time in milliseconds the content of departed virtual vehicles is retained.
      */
     public VirtualVehicleMigratorImpl(ServiceResources serviceResources,
-        @Symbol(VvRteConstants.MIGRATION_CHUNK_SIZE) int chunkSize)
+        @Symbol(VvRteConstants.MIGRATION_CHUNK_SIZE) int chunkSize,
+        @Symbol(VvRteConstants.MIGRATION_WINDOW_SIZE) int windowSize,
+        @Symbol(VvRteConstants.MIGRATION_CACHE_RETENTION) long cacheRetention)
     {
         this.sessionManager = serviceResources.getService(HibernateSessionManager.class);
         this.vvRepository = serviceResources.getService(VvRteRepository.class);
@@ -106,8 +137,11 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
         this.timeService = serviceResources.getService(TimeService.class);
         this.rvRepository = serviceResources.getService(RealVehicleRepository.class);
         this.com = serviceResources.getService(CommunicationService.class);
+        this.windows = serviceResources.getService(MigrationWindows.class);
 
         this.chunkSize = chunkSize;
+        this.windowSize = windowSize;
+        this.cacheRetention = cacheRetention;
     }
 
     /**
@@ -118,6 +152,15 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
         this.chunkSize = chunkSize;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWindowSize()
+    {
+        return windowSize;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -134,37 +177,76 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     @Override
     public byte[] findChunk(VirtualVehicle virtualVehicle, String lastStorageName, int chunkNumber)
         throws IOException, ArchiveException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeChunk(virtualVehicle, lastStorageName, chunkNumber, Long.MAX_VALUE, baos);
+        baos.close();
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeChunk(VirtualVehicle virtualVehicle, String lastStorageName, int chunkNumber, long maxBytes,
+        OutputStream outStream) throws IOException, ArchiveException
     {
         String name = lastStorageName != null && lastStorageName.startsWith(STORAGE)
             ? lastStorageName.substring(8) : "";
 
-        List<VirtualVehicleStorage> storageChunk =
-            vvRepository.findStorageItemsByVirtualVehicle(virtualVehicle.getId(), name, chunkSize);
+        Map<String, Long> storageSizes =
+            vvRepository.findStorageItemSizesByVirtualVehicle(virtualVehicle.getId(), name, chunkSize);
+
+        Set<String> held = virtualVehicle.getUuid() != null
+            ? windows.getHeldContentHashes(virtualVehicle.getUuid())
+            : Collections.emptySet();
+        Map<String, String> storageHashes = held.isEmpty()
+            ? Collections.emptyMap()
+            : vvRepository.findStorageItemHashesByVirtualVehicle(virtualVehicle.getId(), name, chunkSize);
+
+        long bytes = chunkNumber == 0 && virtualVehicle.getContinuation() != null
+            ? virtualVehicle.getContinuation().length : 0L;
+        int entries = 0;
+
+        for (Map.Entry<String, Long> storageSize : storageSizes.entrySet())
+        {
+            long size = held.contains(storageHashes.get(storageSize.getKey()))
+                ? STORAGE_REF_SIZE
+                : storageSize.getValue();
+
+            if (entries > 0 && bytes + size > maxBytes)
+            {
+                break;
+            }
+
+            bytes += size;
+            ++entries;
+        }
 
-        boolean lastChunk = storageChunk.isEmpty() || storageChunk.size() < chunkSize;
+        boolean lastChunk = entries == storageSizes.size() && storageSizes.size() < chunkSize;
 
         ArchiveStreamFactory factory = new ArchiveStreamFactory(StandardCharsets.UTF_8.name());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ArchiveOutputStream<TarArchiveEntry> outStream = factory.createArchiveOutputStream("tar", baos);
+        ArchiveOutputStream<TarArchiveEntry> os = factory.createArchiveOutputStream("tar", outStream);
 
-        writeVirtualVehicleProperties(virtualVehicle, outStream, chunkNumber, lastChunk);
+        writeVirtualVehicleProperties(virtualVehicle, os, chunkNumber, lastChunk);
         if (chunkNumber == 0)
         {
-            writeVirtualVehicleSourceCode(virtualVehicle, outStream, chunkNumber);
-            writeVirtualVehicleContinuation(virtualVehicle, outStream, chunkNumber);
+            writeVirtualVehicleSourceCode(virtualVehicle, os, chunkNumber);
+            writeVirtualVehicleContinuation(virtualVehicle, os, chunkNumber);
         }
 
-        writeVirtualVehicleStorageChunk(outStream, chunkNumber, storageChunk);
+        String storageName = writeVirtualVehicleStorageChunk(virtualVehicle, os, chunkNumber, name, entries, held);
 
-        outStream.close();
-        baos.close();
+        os.finish();
+        os.flush();
+
+        virtualVehicle.setChunkName(storageName.equals(name) ? lastStorageName : STORAGE + storageName);
 
         if (lastChunk)
         {
             virtualVehicle.setState(VirtualVehicleState.MIGRATION_COMPLETED_SND);
         }
-
-        return baos.toByteArray();
     }
 
     /**
@@ -249,29 +331,61 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     }
 
     /**
+     * Write the storage entries of a chunk. The entries are loaded and written one at a time and are evicted from the
+     * session afterwards. Their contents are streamed from the database into the archive, so that no content is held
+     * in memory as a whole. An entry whose content the migration destination holds already is written as a reference
+     * carrying the content hash only.
+     * 
+     * @param virtualVehicle the virtual vehicle.
      * @param os the output stream to write to.
      * @param chunkNumber the chunk number.
-     * @param storageChunk the storage chunk.
+     * @param startName the name of the last storage entry of the previous chunk.
+     * @param maxEntries the maximum number of storage entries to write.
+     * @param held the content hashes the migration destination holds already.
+     * @return the name of the last storage entry written, or the start name if none has been written.
      * @throws IOException thrown in case of errors.
      */
-    private void writeVirtualVehicleStorageChunk(ArchiveOutputStream<TarArchiveEntry> os, int chunkNumber,
-        List<VirtualVehicleStorage> storageChunk) throws IOException
+    private String writeVirtualVehicleStorageChunk(VirtualVehicle virtualVehicle,
+        ArchiveOutputStream<TarArchiveEntry> os, int chunkNumber, String startName, int maxEntries, Set<String> held)
+        throws IOException
     {
-        for (VirtualVehicleStorage se : storageChunk)
+        String storageName = startName;
+
+        for (int k = 0; k < maxEntries; ++k)
         {
-            LOG.debug("Writing storage entry '{}'", se.getName());
+            List<VirtualVehicleStorage> items =
+                vvRepository.findStorageItemsByVirtualVehicle(virtualVehicle.getId(), storageName, 1);
 
-            byte[] content = se.getContentAsByteArray();
-            TarArchiveEntry entry = new TarArchiveEntry(STORAGE + se.getName());
+            if (items.isEmpty())
+            {
+                break;
+            }
+
+            VirtualVehicleStorage se = items.get(0);
+            boolean reference = held.contains(se.getContentHash());
+            LOG.debug("Writing storage entry '{}'{}", se.getName(), reference ? " as reference" : "");
+
+            byte[] hash = reference
+                ? org.apache.commons.codec.binary.StringUtils.getBytesUtf8(se.getContentHash())
+                : null;
+            TarArchiveEntry entry = new TarArchiveEntry((reference ? STORAGE_REF : STORAGE) + se.getName());
             entry.setModTime(se.getModificationTime());
-            entry.setSize(content.length);
+            entry.setSize(reference ? hash.length : se.getContentLength());
             entry.setIds(se.getId(), chunkNumber);
             entry.setNames(VVRTE, CPCC);
 
             os.putArchiveEntry(entry);
-            os.write(content);
+            try (InputStream content = reference ? new ByteArrayInputStream(hash) : se.getContentAsStream())
+            {
+                IOUtils.copy(content, os);
+            }
             os.closeArchiveEntry();
+
+            storageName = se.getName();
+            sessionManager.getSession().evict(se);
         }
+
+        return storageName;
     }
 
     /**
@@ -316,51 +430,213 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
      * {@inheritDoc}
      */
     @Override
-    public void storeChunk(InputStream inStream) throws ArchiveException, IOException
+    public byte[] createManifest(VirtualVehicle virtualVehicle)
     {
-        boolean lastChunk = false;
-        String chunkName = "unknown-" + System.currentTimeMillis();
-        ArchiveStreamFactory f = new ArchiveStreamFactory();
-
-        VirtualVehicleHolder virtualVehicleHolder = new VirtualVehicleHolder();
+        Set<String> hashes = new LinkedHashSet<>();
+        String name = "";
 
-        try (ArchiveInputStream<TarArchiveEntry> ais = f.createArchiveInputStream("tar", inStream))
+        for (Map<String, String> page = vvRepository.findStorageItemHashesByVirtualVehicle(virtualVehicle.getId(),
+            name, chunkSize); !page.isEmpty(); page =
+                vvRepository.findStorageItemHashesByVirtualVehicle(virtualVehicle.getId(), name, chunkSize))
         {
-            for (TarArchiveEntry entry = (TarArchiveEntry) ais.getNextEntry(); entry != null; entry =
-                (TarArchiveEntry) ais.getNextEntry())
+            for (Map.Entry<String, String> item : page.entrySet())
             {
-                chunkName = entry.getName();
+                String hash = item.getValue() != null
+                    ? item.getValue()
+                    : storeContentHash(virtualVehicle, item.getKey());
 
-                if (chunkName.startsWith("vv/"))
+                if (hash != null)
                 {
-                    lastChunk |= storeVirtualVehicleEntry(ais, entry, virtualVehicleHolder);
-                    logMigratedChunk(chunkName, virtualVehicleHolder.getVirtualVehicle(), lastChunk);
+                    hashes.add(hash);
                 }
-                else if (chunkName.startsWith(STORAGE))
+
+                name = item.getKey();
+            }
+        }
+
+        JSONObject manifest = new JSONObject(UUID, virtualVehicle.getUuid(), HASHES, new JSONArray(hashes.toArray()));
+        if (virtualVehicle.getMigrationSource() != null)
+        {
+            manifest.put(SOURCE, virtualVehicle.getMigrationSource().getName());
+        }
+
+        return org.apache.commons.codec.binary.StringUtils.getBytesUtf8(manifest.toCompactString());
+    }
+
+    /**
+     * @param virtualVehicle the virtual vehicle.
+     * @param name the name of a storage entry stored before content hashes were introduced.
+     * @return the content hash of the storage entry or null if the entry has no content.
+     */
+    private String storeContentHash(VirtualVehicle virtualVehicle, String name)
+    {
+        VirtualVehicleStorage item = vvRepository.findStorageItemByVirtualVehicleAndName(virtualVehicle, name);
+        if (item == null)
+        {
+            return null;
+        }
+
+        item.setContentAsByteArray(item.getContentAsByteArray());
+        sessionManager.getSession().saveOrUpdate(item);
+        sessionManager.getSession().flush();
+        sessionManager.getSession().evict(item);
+
+        return item.getContentHash();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] answerManifest(InputStream inputStream) throws IOException
+    {
+        byte[] data = IOUtils.toByteArray(inputStream);
+        if (data.length == 0)
+        {
+            throw new IOException("No data!");
+        }
+
+        JSONObject manifest = new JSONObject(org.apache.commons.codec.binary.StringUtils.newStringUtf8(data));
+        String uuid = manifest.getString(UUID);
+        String source = manifest.has(SOURCE) ? manifest.getString(SOURCE) : null;
+        JSONArray hashArray = manifest.getJSONArray(HASHES);
+
+        List<String> hashes = new ArrayList<>();
+        for (int k = 0; k < hashArray.length(); ++k)
+        {
+            hashes.add(hashArray.getString(k));
+        }
+
+        vvRepository.deleteStorageBlobsUnusedSince(new Date(timeService.currentTimeMillis() - cacheRetention));
+        Set<String> known = vvRepository.findKnownContentHashes(hashes);
+
+        JSONObject answer = new JSONObject(UUID, uuid, HASHES, new JSONArray(known.toArray()));
+
+        windows.getReceiveLock().lock();
+        try
+        {
+            VirtualVehicle vv = vvRepository.findVirtualVehicleByUUID(uuid);
+
+            if (vv != null
+                && vv.getState() == VirtualVehicleState.MIGRATING_RCV
+                && vv.getMigrationSource() != null
+                && vv.getMigrationSource().getName().equals(source)
+                && vv.getChunkNumber() != null
+                && vv.getChunkNumber() >= 0)
+            {
+                // The sender resumes after the chunks received in sequence and builds its chunks anew.
+                answer.put(CHUNK, vv.getChunkNumber());
+                if (vv.getChunkName() != null)
                 {
-                    storeStorageEntry(ais, entry, virtualVehicleHolder.getVirtualVehicle());
-                    logMigratedChunk(chunkName, virtualVehicleHolder.getVirtualVehicle(), lastChunk);
+                    answer.put(NAME, vv.getChunkName());
                 }
-                // TODO message queue
-                else
+
+                windows.removeReceiveWindow(uuid);
+                vv.setUpdateTime(timeService.newDate());
+                sessionManager.getSession().saveOrUpdate(vv);
+            }
+        }
+        finally
+        {
+            windows.getReceiveLock().unlock();
+        }
+
+        LOG.debug("Migration manifest of {}: {} of {} contents known, position={}",
+            uuid, known.size(), hashes.size(), answer.has(CHUNK) ? answer.get(CHUNK) : "none");
+
+        return org.apache.commons.codec.binary.StringUtils.getBytesUtf8(answer.toCompactString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeChunk(InputStream inStream) throws ArchiveException, IOException
+    {
+        VirtualVehicleHolder virtualVehicleHolder = new VirtualVehicleHolder();
+        boolean completed;
+
+        DeferredFileOutputStream spool = DeferredFileOutputStream.builder()
+            .setThreshold(SPOOL_THRESHOLD)
+            .setPrefix("cpcc-chunk-")
+            .setSuffix(".spool")
+            .get();
+
+        try
+        {
+            List<Triple<TarArchiveEntry, Long, String>> entries = readChunk(inStream, spool);
+
+            windows.getReceiveLock().lock();
+            try (InputStream contents = spool.toInputStream())
+            {
+                storeChunkEntries(entries, contents, virtualVehicleHolder);
+
+                if (virtualVehicleHolder.getVirtualVehicle() == null)
                 {
-                    throw new IOException("Can not store unknown type of entry " + chunkName);
+                    throw new IOException("No data!");
                 }
+
+                sessionManager.commit();
+
+                completed = advanceReceiveWindow(virtualVehicleHolder);
+            }
+            finally
+            {
+                windows.getReceiveLock().unlock();
+            }
+        }
+        finally
+        {
+            if (!spool.isInMemory())
+            {
+                Files.deleteIfExists(spool.getPath());
             }
         }
-
-        sessionManager.commit();
 
         VirtualVehicle vv = virtualVehicleHolder.getVirtualVehicle();
 
-        String result = new JSONObject(UUID, vv.getUuid(), CHUNK, vv.getChunkNumber()).toCompactString();
+        if (virtualVehicleHolder.getAckedChunkNumber() < 0)
+        {
+            LOG.debug("Chunk {} of {} ({}) received out of order, nothing to acknowledge yet.",
+                virtualVehicleHolder.getChunkNumber(), vv.getName(), vv.getUuid());
+            return;
+        }
 
-        CommunicationResponse response = com.transfer(vv.getMigrationSource(), VvRteConstants.MIGRATION_ACK_CONNECTOR,
-            org.apache.commons.codec.binary.StringUtils.getBytesUtf8(result));
+        JSONObject ack = new JSONObject(UUID, vv.getUuid(), CHUNK, virtualVehicleHolder.getAckedChunkNumber());
+        if (virtualVehicleHolder.getAckedChunkName() != null)
+        {
+            ack.put(NAME, virtualVehicleHolder.getAckedChunkName());
+        }
 
-        if (response.getStatus() == Status.OK)
+        Integer vvId = vv.getId();
+
+        com.transferAsync(vv.getMigrationSource(), VvRteConstants.MIGRATION_ACK_CONNECTOR,
+            org.apache.commons.codec.binary.StringUtils.getBytesUtf8(ack.toCompactString()))
+            .whenComplete((response, error) -> ackSent(vvId, completed, response, error));
+    }
+
+    /**
+     * Complete the migration after the source has accepted the acknowledgement of the last chunk, or interrupt it
+     * if the acknowledgement failed. Runs on the thread completing the transfer.
+     * 
+     * @param vvId the virtual vehicle identification.
+     * @param completed true if all chunks of the migration have been received.
+     * @param response the response of the migration source.
+     * @param error the transfer error or null.
+     */
+    private void ackSent(Integer vvId, boolean completed, CommunicationResponse response, Throwable error)
+    {
+        VirtualVehicle vv = vvRepository.findVirtualVehicleById(vvId);
+
+        if (vv == null)
+        {
+            LOG.error("Virtual vehicle {} vanished during migration.", vvId);
+            return;
+        }
+
+        if (error == null && response.getStatus() == Status.OK)
         {
-            if (lastChunk)
+            if (completed)
             {
                 VirtualVehicleState newState =
                     VirtualVehicleState.VV_NO_CHANGE_AFTER_MIGRATION.contains(vv.getPreMigrationState())
@@ -371,14 +647,146 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
                 updateStateAndCommit(vv, newState, null);
                 launcher.stateChange(vv.getId(), vv.getState());
             }
+
+            return;
         }
-        else
+
+        String content = error != null
+            ? ExceptionUtils.getRootCauseMessage(error)
+            : org.apache.commons.codec.binary.StringUtils.newStringUtf8(response.getContent());
+
+        LOG.error("Migration ACK failed! Virtual vehicle: {} ({}) {}", vv.getName(), vv.getUuid(), content);
+        updateStateAndCommit(vv, VirtualVehicleState.MIGRATION_INTERRUPTED_RCV, content);
+
+        // An interrupted migration starts over with the next chunk, so the chunks received out of order are void.
+        windows.getReceiveLock().lock();
+        try
+        {
+            windows.removeReceiveWindow(vv.getUuid());
+        }
+        finally
+        {
+            windows.getReceiveLock().unlock();
+        }
+    }
+
+    /**
+     * Read a chunk from the network and spool the contents of its entries, so that a slow transfer does not hold the
+     * receive lock. Small chunks stay in memory, larger ones are spooled to a temporary file. The content hashes are
+     * computed while spooling, because the storage items stream their contents from the spool into the database.
+     * 
+     * @param inStream the input stream containing the virtual vehicle chunk.
+     * @param spool the spool receiving the contents of the entries one after the other.
+     * @return the archive entries of the chunk along with the lengths and the SHA-256 hashes of their contents.
+     * @throws ArchiveException thrown in case of errors.
+     * @throws IOException thrown in case of errors.
+     */
+    private static List<Triple<TarArchiveEntry, Long, String>> readChunk(InputStream inStream, OutputStream spool)
+        throws ArchiveException, IOException
+    {
+        List<Triple<TarArchiveEntry, Long, String>> entries = new ArrayList<>();
+        ArchiveStreamFactory f = new ArchiveStreamFactory();
+
+        try (OutputStream out = spool;
+            ArchiveInputStream<TarArchiveEntry> ais = f.createArchiveInputStream("tar", inStream))
+        {
+            for (TarArchiveEntry entry = (TarArchiveEntry) ais.getNextEntry(); entry != null; entry =
+                (TarArchiveEntry) ais.getNextEntry())
+            {
+                MessageDigest digest = DigestUtils.getSha256Digest();
+                long length = IOUtils.copy(new DigestInputStream(ais, digest), out);
+                entries.add(Triple.of(entry, length, Hex.encodeHexString(digest.digest())));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param entries the archive entries of the chunk along with the lengths and the hashes of their contents.
+     * @param contents the spooled contents of the entries.
+     * @param virtualVehicleHolder the holder object for the virtual vehicle and the chunk data read.
+     * @throws IOException thrown in case of errors.
+     */
+    private void storeChunkEntries(List<Triple<TarArchiveEntry, Long, String>> entries, InputStream contents,
+        VirtualVehicleHolder virtualVehicleHolder) throws IOException
+    {
+        for (Triple<TarArchiveEntry, Long, String> item : entries)
+        {
+            TarArchiveEntry entry = item.getLeft();
+            InputStream content = BoundedInputStream.builder()
+                .setInputStream(contents)
+                .setMaxCount(item.getMiddle())
+                .setPropagateClose(false)
+                .get();
+            String chunkName = entry.getName();
+
+            if (chunkName.startsWith("vv/"))
+            {
+                storeVirtualVehicleEntry(content, entry, virtualVehicleHolder);
+                logMigratedChunk(chunkName, virtualVehicleHolder.getVirtualVehicle(),
+                    virtualVehicleHolder.isLastChunk());
+            }
+            else if (chunkName.startsWith(STORAGE))
+            {
+                storeStorageEntry(content, item.getMiddle(), item.getRight(), entry,
+                    virtualVehicleHolder.getVirtualVehicle());
+                virtualVehicleHolder.setLastStorageName(chunkName);
+                logMigratedChunk(chunkName, virtualVehicleHolder.getVirtualVehicle(),
+                    virtualVehicleHolder.isLastChunk());
+            }
+            else if (chunkName.startsWith(STORAGE_REF))
+            {
+                storeStorageReference(content, entry, virtualVehicleHolder.getVirtualVehicle());
+                virtualVehicleHolder.setLastStorageName(STORAGE + chunkName.substring(STORAGE_REF.length()));
+                logMigratedChunk(chunkName, virtualVehicleHolder.getVirtualVehicle(),
+                    virtualVehicleHolder.isLastChunk());
+            }
+            // TODO message queue
+            else
+            {
+                throw new IOException("Can not store unknown type of entry " + chunkName);
+            }
+
+            IOUtils.skip(content, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Advance the receive window of the virtual vehicle by the chunk just stored. The window keeps chunks received out
+     * of order until all their predecessors have arrived. Must be called while holding the receive lock.
+     * 
+     * @param virtualVehicleHolder the holder object for the virtual vehicle and the chunk data read.
+     * @return true if all chunks of the migration have been received.
+     */
+    private boolean advanceReceiveWindow(VirtualVehicleHolder virtualVehicleHolder)
+    {
+        VirtualVehicle vv = virtualVehicleHolder.getVirtualVehicle();
+        MigrationReceiveWindow window = windows.getReceiveWindow(vv.getUuid());
+
+        Pair<Integer, String> position = window.advance(vv.getChunkNumber() != null ? vv.getChunkNumber() : -1,
+            vv.getChunkName(), virtualVehicleHolder.getChunkNumber(), virtualVehicleHolder.getLastStorageName(),
+            virtualVehicleHolder.isLastChunk());
+
+        int ackedChunkNumber = position.getLeft();
+        String ackedChunkName = position.getRight();
+
+        vv.setChunkNumber(ackedChunkNumber);
+        vv.setChunkName(ackedChunkName);
+        vv.setUpdateTime(timeService.newDate());
+        sessionManager.getSession().saveOrUpdate(vv);
+        sessionManager.commit();
+
+        virtualVehicleHolder.setAckedChunkNumber(ackedChunkNumber);
+        virtualVehicleHolder.setAckedChunkName(ackedChunkName);
+
+        boolean completed = window.isCompleted(ackedChunkNumber);
+        if (completed)
         {
-            String content = org.apache.commons.codec.binary.StringUtils.newStringUtf8(response.getContent());
-            LOG.error("Migration ACK failed! Virtual vehicle: {} ({}) {}", vv.getName(), vv.getUuid(), content);
-            updateStateAndCommit(vv, VirtualVehicleState.MIGRATION_INTERRUPTED_RCV, content);
+            windows.removeReceiveWindow(vv.getUuid());
         }
 
+        return completed;
     }
 
     /**
@@ -404,12 +812,20 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     @Override
     public void queueChunk(InputStream inputStream) throws IOException
     {
-        byte[] data = IOUtils.toByteArray(inputStream);
-        if (data.length == 0)
+        try
         {
-            throw new IOException("No data!");
+            storeChunk(inputStream);
+        }
+        catch (ArchiveException e)
+        {
+            sessionManager.abort();
+            throw new IOException(e);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            sessionManager.abort();
+            throw e;
         }
-        jobService.addJobIfNotExists(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, VvRteConstants.MIGRATION_RECEIVE, data);
     }
 
     /**
@@ -443,17 +859,16 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
      * @param virtualVehicleHolder the holder object for the virtual vehicle read.
      * @throws IOException thrown in case of errors.
      */
-    private boolean storeVirtualVehicleEntry(InputStream inStream, TarArchiveEntry entry,
+    private void storeVirtualVehicleEntry(InputStream inStream, TarArchiveEntry entry,
         VirtualVehicleHolder virtualVehicleHolder) throws IOException
     {
-        boolean lastChunk = false;
-
         if (DATA_VV_PROPERTIES.equals(entry.getName()))
         {
             Properties props = new Properties();
             props.load(inStream);
 
-            lastChunk |= Boolean.parseBoolean(props.getProperty(LAST_CHUNK, "false"));
+            virtualVehicleHolder.setChunkNumber((int) entry.getLongGroupId());
+            virtualVehicleHolder.setLastChunk(Boolean.parseBoolean(props.getProperty(LAST_CHUNK, "false")));
 
             VirtualVehicle vv = vvRepository.findVirtualVehicleByUUID(props.getProperty(UUID));
             if (vv == null)
@@ -485,8 +900,6 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
         {
             throw new IOException("Can not store unknown virtual vehicle entry " + entry.getName());
         }
-
-        return lastChunk;
     }
 
     /**
@@ -512,8 +925,17 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
 
         LOG.debug("pre-migration:  {} ({}) {}", vv.getName(), vv.getUuid(), vv.getState());
 
-        vv.setChunkNumber(Integer.parseInt(props.getProperty(CHUNK)));
+        if (vv.getState() != VirtualVehicleState.MIGRATING_RCV)
+        {
+            // A new migration to this real vehicle starts.
+            vv.setState(VirtualVehicleState.MIGRATING_RCV);
+            vv.setChunkNumber(-1);
+            vv.setChunkName(null);
+            windows.removeReceiveWindow(vv.getUuid());
+        }
+
         vv.setMigrationSource(rvRepository.findRealVehicleByName(props.getProperty(MIGRATION_SOURCE)));
+        vv.setUpdateTime(timeService.newDate());
         sessionManager.getSession().saveOrUpdate(vv);
 
         LOG.debug("post-migration: {} ({}) {}", vv.getName(), vv.getUuid(), vv.getState());
@@ -545,11 +967,13 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
             vv.setEndTime(new Date(Long.parseLong(endTime)));
         }
 
-        vv.setChunkNumber(Integer.parseInt(props.getProperty(CHUNK)));
+        vv.setChunkNumber(-1);
+        vv.setChunkName(null);
         vv.setMigrationDestination(null);
         vv.setMigrationSource(rvRepository.findRealVehicleByName(props.getProperty(MIGRATION_SOURCE)));
         vv.setUpdateTime(timeService.newDate());
         sessionManager.getSession().saveOrUpdate(vv);
+        windows.removeReceiveWindow(vv.getUuid());
         return vv;
     }
 
@@ -565,15 +989,54 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     }
 
     /**
-     * @param inStream the input stream containing a virtual vehicle chunk.
+     * @param inStream the input stream containing the content of the storage entry.
+     * @param length the length of the content in bytes.
+     * @param hash the SHA-256 hash of the content.
      * @param entry the previously read archive entry.
-     * @param virtualVehicleHolder the holder object for the virtual vehicle read.
+     * @param virtualVehicle the virtual vehicle read.
+     */
+    private void storeStorageEntry(InputStream inStream, long length, String hash, TarArchiveEntry entry,
+        VirtualVehicle virtualVehicle)
+    {
+        String name = entry.getName().substring(8, entry.getName().length());
+        storeStorageItem(virtualVehicle, name, entry.getModTime(), inStream, length, hash);
+    }
+
+    /**
+     * @param inStream the input stream containing a virtual vehicle chunk.
+     * @param entry the previously read archive entry referencing the content by its hash.
+     * @param virtualVehicle the virtual vehicle read.
      * @throws IOException thrown in case of errors.
      */
-    private void storeStorageEntry(InputStream inStream, TarArchiveEntry entry, VirtualVehicle virtualVehicle)
+    private void storeStorageReference(InputStream inStream, TarArchiveEntry entry, VirtualVehicle virtualVehicle)
         throws IOException
     {
-        String name = entry.getName().substring(8, entry.getName().length());
+        String name = entry.getName().substring(STORAGE_REF.length());
+        String hash = org.apache.commons.codec.binary.StringUtils.newStringUtf8(IOUtils.toByteArray(inStream));
+        byte[] content = vvRepository.findContentByHash(hash);
+
+        if (content == null)
+        {
+            throw new IOException("Unknown content hash " + hash + " of storage entry " + name);
+        }
+
+        storeStorageItem(virtualVehicle, name, entry.getModTime(), new ByteArrayInputStream(content), content.length,
+            hash);
+    }
+
+    /**
+     * Store a storage item. Flushing the session streams the content into the database.
+     * 
+     * @param virtualVehicle the virtual vehicle.
+     * @param name the name of the storage item.
+     * @param modificationTime the modification time of the storage item.
+     * @param content the stream delivering the content of the storage item.
+     * @param length the length of the content in bytes.
+     * @param hash the SHA-256 hash of the content.
+     */
+    private void storeStorageItem(VirtualVehicle virtualVehicle, String name, Date modificationTime,
+        InputStream content, long length, String hash)
+    {
         VirtualVehicleStorage item = vvRepository.findStorageItemByVirtualVehicleAndName(virtualVehicle, name);
 
         if (item == null)
@@ -583,10 +1046,12 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
             item.setVirtualVehicle(virtualVehicle);
         }
 
-        item.setModificationTime(entry.getModTime());
-        item.setContentAsByteArray(IOUtils.toByteArray(inStream));
+        item.setModificationTime(modificationTime);
+        item.setContentAsStream(content, length, hash);
 
         sessionManager.getSession().saveOrUpdate(item);
+        sessionManager.getSession().flush();
+        sessionManager.getSession().evict(item);
     }
 
     /**
@@ -595,6 +1060,11 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
     private static class VirtualVehicleHolder
     {
         private VirtualVehicle virtualVehicle;
+        private int chunkNumber;
+        private boolean lastChunk;
+        private String lastStorageName;
+        private int ackedChunkNumber = -1;
+        private String ackedChunkName;
 
         /**
          * @return the virtual vehicle.
@@ -611,5 +1081,85 @@ public class VirtualVehicleMigratorImpl implements VirtualVehicleMigrator
         {
             this.virtualVehicle = virtualVehicle;
         }
+
+        /**
+         * @return the number of the chunk read.
+         */
+        public int getChunkNumber()
+        {
+            return chunkNumber;
+        }
+
+        /**
+         * @param chunkNumber the number of the chunk read.
+         */
+        public void setChunkNumber(int chunkNumber)
+        {
+            this.chunkNumber = chunkNumber;
+        }
+
+        /**
+         * @return true if the chunk read is the last chunk of the migration.
+         */
+        public boolean isLastChunk()
+        {
+            return lastChunk;
+        }
+
+        /**
+         * @param lastChunk true if the chunk read is the last chunk of the migration.
+         */
+        public void setLastChunk(boolean lastChunk)
+        {
+            this.lastChunk = lastChunk;
+        }
+
+        /**
+         * @return the name of the last storage entry in the chunk read or null.
+         */
+        public String getLastStorageName()
+        {
+            return lastStorageName;
+        }
+
+        /**
+         * @param lastStorageName the name of the last storage entry in the chunk read.
+         */
+        public void setLastStorageName(String lastStorageName)
+        {
+            this.lastStorageName = lastStorageName;
+        }
+
+        /**
+         * @return the number of the last chunk received in sequence.
+         */
+        public int getAckedChunkNumber()
+        {
+            return ackedChunkNumber;
+        }
+
+        /**
+         * @param ackedChunkNumber the number of the last chunk received in sequence.
+         */
+        public void setAckedChunkNumber(int ackedChunkNumber)
+        {
+            this.ackedChunkNumber = ackedChunkNumber;
+        }
+
+        /**
+         * @return the name of the last storage entry received in sequence or null.
+         */
+        public String getAckedChunkName()
+        {
+            return ackedChunkName;
+        }
+
+        /**
+         * @param ackedChunkName the name of the last storage entry received in sequence.
+         */
+        public void setAckedChunkName(String ackedChunkName)
+        {
+            this.ackedChunkName = ackedChunkName;
+        }
     }
 }
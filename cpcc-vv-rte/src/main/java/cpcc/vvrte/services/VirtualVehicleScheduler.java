@@ -0,0 +1,49 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+/**
+ * Executes the workers of the virtual vehicles on a bounded number of threads.
+ */
+public interface VirtualVehicleScheduler
+{
+    /**
+     * Queue a worker for execution. Workers of the same virtual vehicle execute one after the other, workers of
+     * different virtual vehicles execute in round robin order.
+     *
+     * @param vehicleId the identification of the virtual vehicle.
+     * @param worker the worker to execute.
+     */
+    void submit(int vehicleId, Runnable worker);
+
+    /**
+     * @return the number of queued workers waiting for a free thread.
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the number of currently executing workers.
+     */
+    int getRunning();
+
+    /**
+     * @return the number of workers holding their thread longer than the long run threshold.
+     */
+    int getLongRunning();
+}
@@ -0,0 +1,216 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.core.services.jobs.JobQueueThreadFactory;
+import cpcc.vvrte.base.VvRteConstants;
+
+/**
+ * Virtual vehicle scheduler implementation.
+ * <p>
+ * The scheduler keeps a queue of waiting workers per virtual vehicle and a run queue of the virtual vehicles having
+ * waiting workers. A free thread takes the virtual vehicle at the head of the run queue and executes its oldest
+ * worker. Afterwards the virtual vehicle goes to the tail of the run queue, if it has more waiting workers.
+ * <p>
+ * Workers are not preempted. A virtual vehicle computing between two task calls holds its thread until it calls the
+ * next task or ends, because Rhino captures continuations only where a script calls a native function. As many such
+ * virtual vehicles as there are pool threads stall all other virtual vehicles, including resumed ones. The scheduler
+ * logs workers holding their thread longer than the long run threshold, at the latest when other workers wait for a
+ * thread.
+ */
+public class VirtualVehicleSchedulerImpl implements VirtualVehicleScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualVehicleSchedulerImpl.class);
+
+    private final ExecutorService executorService;
+    private final int numberOfThreads;
+    private final long longRunThreshold;
+    private final Map<Integer, Deque<Runnable>> waitingWorkers = new HashMap<>();
+    private final Deque<Integer> runQueue = new ArrayDeque<>();
+    private final Map<Integer, Long> runningVehicles = new HashMap<>();
+    private final Set<Integer> reportedVehicles = new HashSet<>();
+    private int queueDepth = 0;
+
+    /**
+     * @param shutdownHub the registry shutdown hub.
+     * @param numberOfThreads the number of pool threads.
+     * @param longRunThreshold the time in milliseconds after which a worker holding its thread is logged.
+     */
+    public VirtualVehicleSchedulerImpl(RegistryShutdownHub shutdownHub,
+        @Symbol(VvRteConstants.NUMBER_OF_VV_POOL_THREADS) int numberOfThreads,
+        @Symbol(VvRteConstants.VV_LONG_RUN_THRESHOLD) long longRunThreshold)
+    {
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+        this.longRunThreshold = TimeUnit.MILLISECONDS.toNanos(longRunThreshold);
+        this.executorService = Executors.newFixedThreadPool(this.numberOfThreads,
+            new JobQueueThreadFactory("VV Scheduler"));
+
+        Runnable shutdown = executorService::shutdownNow;
+        shutdownHub.addRegistryShutdownListener(shutdown);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void submit(int vehicleId, Runnable worker)
+    {
+        Deque<Runnable> workers = waitingWorkers.computeIfAbsent(vehicleId, id -> new ArrayDeque<>());
+        if (workers.isEmpty() && !runningVehicles.containsKey(vehicleId))
+        {
+            runQueue.add(vehicleId);
+        }
+
+        workers.add(worker);
+        ++queueDepth;
+
+        LOG.debug("Submitted worker of VV {}, queue depth is {}, {} running", vehicleId, queueDepth,
+            runningVehicles.size());
+
+        dispatch();
+
+        if (queueDepth > 0 && runningVehicles.size() >= numberOfThreads)
+        {
+            reportLongRuns();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getQueueDepth()
+    {
+        return queueDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getRunning()
+    {
+        return runningVehicles.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getLongRunning()
+    {
+        long now = System.nanoTime();
+        return (int) runningVehicles.values().stream().filter(start -> now - start > longRunThreshold).count();
+    }
+
+    /**
+     * Log the workers holding their thread longer than the long run threshold while other workers wait. Each long
+     * run is logged once.
+     */
+    private void reportLongRuns()
+    {
+        long now = System.nanoTime();
+
+        for (Map.Entry<Integer, Long> entry : runningVehicles.entrySet())
+        {
+            long duration = now - entry.getValue();
+
+            if (duration > longRunThreshold && reportedVehicles.add(entry.getKey()))
+            {
+                LOG.warn("Worker of VV {} holds a scheduler thread for {}ms, {} workers wait for a free thread.",
+                    entry.getKey(), TimeUnit.NANOSECONDS.toMillis(duration), queueDepth);
+            }
+        }
+    }
+
+    /**
+     * Hand waiting workers to free threads.
+     */
+    private void dispatch()
+    {
+        while (runningVehicles.size() < numberOfThreads && !runQueue.isEmpty())
+        {
+            Integer vehicleId = runQueue.poll();
+            Deque<Runnable> workers = waitingWorkers.get(vehicleId);
+            Runnable worker = workers.poll();
+
+            if (workers.isEmpty())
+            {
+                waitingWorkers.remove(vehicleId);
+            }
+
+            --queueDepth;
+            runningVehicles.put(vehicleId, System.nanoTime());
+            executorService.execute(() -> execute(vehicleId, worker));
+        }
+    }
+
+    /**
+     * @param vehicleId the identification of the virtual vehicle.
+     * @param worker the worker to execute.
+     */
+    private void execute(Integer vehicleId, Runnable worker)
+    {
+        try
+        {
+            worker.run();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Worker of VV {} failed.", vehicleId, e);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                long duration = System.nanoTime() - runningVehicles.remove(vehicleId);
+
+                if (duration > longRunThreshold)
+                {
+                    LOG.warn("Worker of VV {} held a scheduler thread for {}ms.",
+                        vehicleId, TimeUnit.NANOSECONDS.toMillis(duration));
+                }
+
+                reportedVehicles.remove(vehicleId);
+
+                if (waitingWorkers.containsKey(vehicleId))
+                {
+                    runQueue.add(vehicleId);
+                }
+
+                dispatch();
+            }
+        }
+    }
+}
@@ -21,14 +21,20 @@ package cpcc.vvrte.services;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cpcc.core.entities.Job;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.services.jobs.JobClass;
+import cpcc.core.services.jobs.JobPayloadStore;
 import cpcc.core.services.jobs.JobRunnable;
 import cpcc.core.services.jobs.JobRunnableFactory;
 import cpcc.vvrte.base.VvRteConstants;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.services.db.VvRteRepository;
 
 /**
  * VvRteJobRunnableFactory implementation.
@@ -37,43 +43,116 @@ public class VvRteJobRunnableFactory implements JobRunnableFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(VvRteJobRunnableFactory.class);
 
+    private static final int PRIORITY_HIGH = 10;
+    private static final int PRIORITY_LOW = -10;
+    private static final String MIGRATION_TYPE_CONTINUE = "migration-continue";
+
     /**
      * {@inheritDoc}
      */
     @Override
     public JobRunnable createRunnable(ServiceResources serviceResources, Job job)
     {
-        Map<String, String> parameters = new HashMap<>();
+        Map<String, String> parameters = parseParameters(job);
+        JobPayloadStore payloadStore = serviceResources.getService(JobPayloadStore.class);
 
-        for (String param : job.getParameters().trim().split("\\s*,\\s*"))
+        String mode = parameters.get("mode");
+
+        if (VvRteConstants.MIGRATION_MODE_SEND.equals(mode))
         {
-            String[] kv = param.split("=", 2);
-            parameters.put(kv[0], kv[1]);
+            return new MigrationSendJobRunnable(serviceResources, parameters, payloadStore.getData(job));
         }
 
+        if (VvRteConstants.MIGRATION_MODE_SEND_ACK.equals(mode))
+        {
+            return new MigrationSendAckJobRunnable(serviceResources, parameters, payloadStore.getData(job));
+        }
+
+        if (VvRteConstants.MIGRATION_MODE_RECEIVE.equals(mode))
+        {
+            return new MigrationReceiveJobRunnable(serviceResources, payloadStore.getPayloadStream(job));
+        }
+
+        if (VvRteConstants.STUCK_MIGRATIONS_MODE.equals(mode))
+        {
+            return new StuckMigrationsJobRunnable(serviceResources);
+        }
+
+        LOG.error("VvRteJobRunnableFactory: Can not create a runnable for mode {} parameters are {}", mode, parameters);
+        return null;
+    }
+
+    /**
+     * Continuations of running migrations, acknowledgments and received chunks are time critical, because the peer
+     * waits for them. They get a higher priority than new migrations. Jobs driving a migration to another real vehicle
+     * are capped per real vehicle, so that migrations to a slow real vehicle do not block migrations to other real
+     * vehicles. Acknowledgments and continuations are short and exempt from this cap, because the driving jobs hold
+     * their slots until their windows are sent and would otherwise delay the acknowledgments extending the windows.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public JobClass classify(ServiceResources serviceResources, Job job)
+    {
+        Map<String, String> parameters = parseParameters(job);
         String mode = parameters.get("mode");
 
         if (VvRteConstants.MIGRATION_MODE_SEND.equals(mode))
         {
-            return new MigrationSendJobRunnable(serviceResources, parameters, job.getData());
+            int vvId = NumberUtils.toInt(parameters.get("id"));
+
+            if (vvId == 0)
+            {
+                return new JobClass(MIGRATION_TYPE_CONTINUE, PRIORITY_HIGH, null);
+            }
+
+            VirtualVehicle vehicle = serviceResources.getService(VvRteRepository.class).findVirtualVehicleById(vvId);
+            String destination = vehicle != null ? toDestination(vehicle.getMigrationDestination()) : null;
+
+            return new JobClass(mode, JobClass.DEFAULT_PRIORITY, destination);
         }
 
         if (VvRteConstants.MIGRATION_MODE_SEND_ACK.equals(mode))
         {
-            return new MigrationSendAckJobRunnable(serviceResources, parameters, job.getData());
+            return new JobClass(mode, PRIORITY_HIGH, null);
         }
 
         if (VvRteConstants.MIGRATION_MODE_RECEIVE.equals(mode))
         {
-            return new MigrationReceiveJobRunnable(serviceResources, job.getData());
+            return new JobClass(mode, PRIORITY_HIGH, null);
         }
 
         if (VvRteConstants.STUCK_MIGRATIONS_MODE.equals(mode))
         {
-            return new StuckMigrationsJobRunnable(serviceResources);
+            return new JobClass(mode, PRIORITY_LOW, null);
         }
 
-        LOG.error("VvRteJobRunnableFactory: Can not create a runnable for mode {} parameters are {}", mode, parameters);
         return null;
     }
+
+    /**
+     * @param job the job.
+     * @return the job parameters.
+     */
+    private static Map<String, String> parseParameters(Job job)
+    {
+        Map<String, String> parameters = new HashMap<>();
+
+        for (String param : job.getParameters().trim().split("\\s*,\\s*"))
+        {
+            String[] kv = param.split("=", 2);
+            parameters.put(kv[0], kv[1]);
+        }
+
+        return parameters;
+    }
+
+    /**
+     * @param realVehicle the real vehicle.
+     * @return the destination name of the real vehicle.
+     */
+    private static String toDestination(RealVehicle realVehicle)
+    {
+        return realVehicle != null ? "rv=" + realVehicle.getId() : null;
+    }
 }
@@ -23,7 +23,6 @@ import java.util.Arrays;
 import org.apache.tapestry5.commons.Configuration;
 import org.apache.tapestry5.commons.MappedConfiguration;
 import org.apache.tapestry5.commons.OrderedConfiguration;
-import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ScopeConstants;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.annotations.Startup;
@@ -36,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import cpcc.com.services.CommunicationService;
 import cpcc.core.services.jobs.JobQueue;
 import cpcc.core.services.jobs.JobRepository;
+import cpcc.core.services.jobs.JobRetryPolicy;
 import cpcc.core.services.jobs.JobRunnableFactory;
 import cpcc.core.services.jobs.JobService;
 import cpcc.core.services.jobs.TimeService;
@@ -49,15 +49,22 @@ import cpcc.vvrte.services.db.VvRteRepositoryImpl;
 import cpcc.vvrte.services.js.BuiltInFunctions;
 import cpcc.vvrte.services.js.JavascriptService;
 import cpcc.vvrte.services.js.JavascriptServiceImpl;
+import cpcc.vvrte.services.js.SnapshotCodec;
+import cpcc.vvrte.services.js.SnapshotCodecImpl;
 import cpcc.vvrte.services.json.VvGeoJsonConverter;
 import cpcc.vvrte.services.json.VvGeoJsonConverterImpl;
 import cpcc.vvrte.services.ros.MessageConverter;
 import cpcc.vvrte.services.ros.MessageConverterImpl;
+import cpcc.vvrte.services.task.DistanceMatrixService;
+import cpcc.vvrte.services.task.DistanceMatrixServiceImpl;
 import cpcc.vvrte.services.task.GatedTspSchedulingAlgorithm;
+import cpcc.vvrte.services.task.InsertionSchedulingAlgorithm;
 import cpcc.vvrte.services.task.TaskAnalyzer;
 import cpcc.vvrte.services.task.TaskAnalyzerImpl;
 import cpcc.vvrte.services.task.TaskExecutionService;
 import cpcc.vvrte.services.task.TaskExecutionServiceImpl;
+import cpcc.vvrte.services.task.TaskRegistry;
+import cpcc.vvrte.services.task.TaskRegistryImpl;
 import cpcc.vvrte.services.task.TaskSchedulerService;
 import cpcc.vvrte.services.task.TaskSchedulerServiceImpl;
 
@@ -84,14 +91,22 @@ public final class VvRteModule
         binder.bind(VirtualVehicleMapper.class, VirtualVehicleMapperImpl.class).eagerLoad();
         binder.bind(VvRteRepository.class, VvRteRepositoryImpl.class).eagerLoad();
         binder.bind(JavascriptService.class, JavascriptServiceImpl.class).eagerLoad();
+        binder.bind(SnapshotCodec.class, SnapshotCodecImpl.class);
         binder.bind(TaskAnalyzer.class, TaskAnalyzerImpl.class).eagerLoad();
         binder.bind(TaskExecutionService.class, TaskExecutionServiceImpl.class).eagerLoad();
         binder.bind(TaskSchedulerService.class, TaskSchedulerServiceImpl.class).eagerLoad();
+        binder.bind(DistanceMatrixService.class, DistanceMatrixServiceImpl.class);
+        binder.bind(TaskRegistry.class, TaskRegistryImpl.class);
         binder.bind(VirtualVehicleMigrator.class, VirtualVehicleMigratorImpl.class).scope(ScopeConstants.PERTHREAD);
+        binder.bind(MigrationChunkSizer.class, MigrationChunkSizerImpl.class);
+        binder.bind(MigrationChunkWriter.class, MigrationChunkWriterImpl.class);
+        binder.bind(MigrationWindows.class, MigrationWindowsImpl.class);
+        binder.bind(VirtualVehicleScheduler.class, VirtualVehicleSchedulerImpl.class);
         binder.bind(VvGeoJsonConverter.class, VvGeoJsonConverterImpl.class);
         binder.bind(TaskRepository.class, TaskRepositoryImpl.class);
         binder.bind(DownloadService.class, DownloadServiceImpl.class);
         binder.bind(GatedTspSchedulingAlgorithm.class);
+        binder.bind(InsertionSchedulingAlgorithm.class);
     }
 
     /**
@@ -119,14 +134,74 @@ public final class VvRteModule
             VvRteConstants.NUMBER_OF_MIGRATION_POOL_THREADS, System.getProperty(
                 VvRteConstants.NUMBER_OF_MIGRATION_POOL_THREADS,
                 VvRteConstants.NUMBER_OF_MIGRATION_POOL_THREADS_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_MAX_JOBS_PER_DESTINATION, System.getProperty(
+                VvRteConstants.MIGRATION_MAX_JOBS_PER_DESTINATION,
+                VvRteConstants.MIGRATION_MAX_JOBS_PER_DESTINATION_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_MAX_RETRIES, System.getProperty(
+                VvRteConstants.MIGRATION_MAX_RETRIES,
+                VvRteConstants.MIGRATION_MAX_RETRIES_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_RETRY_BASE_DELAY, System.getProperty(
+                VvRteConstants.MIGRATION_RETRY_BASE_DELAY,
+                VvRteConstants.MIGRATION_RETRY_BASE_DELAY_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_RETRY_MAX_DELAY, System.getProperty(
+                VvRteConstants.MIGRATION_RETRY_MAX_DELAY,
+                VvRteConstants.MIGRATION_RETRY_MAX_DELAY_DEFAULT));
         configuration.add(
             VvRteConstants.MIGRATION_CHUNK_SIZE, System.getProperty(
                 VvRteConstants.MIGRATION_CHUNK_SIZE,
                 VvRteConstants.MIGRATION_CHUNK_SIZE_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_WINDOW_SIZE, System.getProperty(
+                VvRteConstants.MIGRATION_WINDOW_SIZE,
+                VvRteConstants.MIGRATION_WINDOW_SIZE_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_CHUNK_MIN_BYTES, System.getProperty(
+                VvRteConstants.MIGRATION_CHUNK_MIN_BYTES,
+                VvRteConstants.MIGRATION_CHUNK_MIN_BYTES_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_CHUNK_MAX_BYTES, System.getProperty(
+                VvRteConstants.MIGRATION_CHUNK_MAX_BYTES,
+                VvRteConstants.MIGRATION_CHUNK_MAX_BYTES_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_CHUNK_TARGET_TIME, System.getProperty(
+                VvRteConstants.MIGRATION_CHUNK_TARGET_TIME,
+                VvRteConstants.MIGRATION_CHUNK_TARGET_TIME_DEFAULT));
+        configuration.add(
+            VvRteConstants.MIGRATION_CACHE_RETENTION, System.getProperty(
+                VvRteConstants.MIGRATION_CACHE_RETENTION,
+                VvRteConstants.MIGRATION_CACHE_RETENTION_DEFAULT));
+        configuration.add(
+            VvRteConstants.NUMBER_OF_MIGRATION_WRITER_THREADS, System.getProperty(
+                VvRteConstants.NUMBER_OF_MIGRATION_WRITER_THREADS,
+                VvRteConstants.NUMBER_OF_MIGRATION_WRITER_THREADS_DEFAULT));
+        configuration.add(
+            VvRteConstants.NUMBER_OF_VV_POOL_THREADS, System.getProperty(
+                VvRteConstants.NUMBER_OF_VV_POOL_THREADS,
+                VvRteConstants.NUMBER_OF_VV_POOL_THREADS_DEFAULT));
+        configuration.add(
+            VvRteConstants.VV_LONG_RUN_THRESHOLD, System.getProperty(
+                VvRteConstants.VV_LONG_RUN_THRESHOLD,
+                VvRteConstants.VV_LONG_RUN_THRESHOLD_DEFAULT));
+        configuration.add(
+            VvRteConstants.SNAPSHOT_COMPRESSION_LEVEL, System.getProperty(
+                VvRteConstants.SNAPSHOT_COMPRESSION_LEVEL,
+                VvRteConstants.SNAPSHOT_COMPRESSION_LEVEL_DEFAULT));
         configuration.add(
             VvRteConstants.PROP_GTSP_MAX_TASKS, System.getProperty(
                 VvRteConstants.PROP_GTSP_MAX_TASKS,
                 VvRteConstants.PROP_GTSP_MAX_TASKS_DEFAULT));
+        configuration.add(
+            VvRteConstants.PROP_INSERTION_MAX_MOVES, System.getProperty(
+                VvRteConstants.PROP_INSERTION_MAX_MOVES,
+                VvRteConstants.PROP_INSERTION_MAX_MOVES_DEFAULT));
+        configuration.add(
+            VvRteConstants.PROP_GPS_DRIVEN_TASK_EXECUTION, System.getProperty(
+                VvRteConstants.PROP_GPS_DRIVEN_TASK_EXECUTION,
+                VvRteConstants.PROP_GPS_DRIVEN_TASK_EXECUTION_DEFAULT));
     }
 
     /**
@@ -142,15 +217,18 @@ public final class VvRteModule
      * @param executor the periodic executor service.
      * @param taskExecutionService the task executor service.
      * @param jobService the job service.
+     * @param taskRegistry the task registry.
      */
     @Startup
     public static void scheduleJobs(VvRteRepository vvRteRepo, PeriodicExecutor executor,
-        final TaskExecutionService taskExecutionService, final JobService jobService)
+        final TaskExecutionService taskExecutionService, final JobService jobService, final TaskRegistry taskRegistry)
     {
         vvRteRepo.resetVirtualVehicleStates();
 
         executor.addJob(new CronSchedule("* * * * * ?"), "VvRte Task execution.", taskExecutionService::executeTasks);
 
+        executor.addJob(new CronSchedule("0/5 * * * * ?"), "VvRte flush task registry.", taskRegistry::flush);
+
         executor.addJob(new CronSchedule("0,30 * * * * ?"), "VvRte handle stuck migrations.", () -> {
             LOG.debug("### Add job for stuck migrations.");
             jobService.addJobIfNotExists(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, VvRteConstants.STUCK_MIGRATIONS);
@@ -170,34 +248,52 @@ public final class VvRteModule
         communicationService.addConnector(
             VvRteConstants.MIGRATION_ACK_CONNECTOR,
             VvRteConstants.MIGRATION_ACK_PATH);
+
+        communicationService.addConnector(
+            VvRteConstants.MIGRATION_MANIFEST_CONNECTOR,
+            VvRteConstants.MIGRATION_MANIFEST_PATH);
     }
 
     /**
      * @param tes the task execution service instance.
      * @param vvl the virtual vehicle launcher instance.
+     * @param dms the distance matrix service instance.
+     * @param taskRegistry the task registry instance.
      */
     @Startup
-    public static void setupTaskExecutionService(TaskExecutionService tes, VirtualVehicleLauncher vvl)
+    public static void setupTaskExecutionService(TaskExecutionService tes, VirtualVehicleLauncher vvl,
+        DistanceMatrixService dms, TaskRegistry taskRegistry)
     {
         tes.addListener(vvl);
+        tes.addListener(dms);
+        tes.addListener(taskRegistry);
     }
 
     /**
      * @param jobService the job service instance.
-     * @param sessionManager the session manager instance.
      * @param timeService the time service.
      * @param jobRepository the job repository
      * @param numberOfPoolThreads the number of migration job queue pool threads.
+     * @param maxJobsPerDestination the maximum number of concurrent migration jobs per real vehicle.
+     * @param maxRetries the maximum number of retries of a failed migration job.
+     * @param retryBaseDelay the delay before the first retry of a failed migration job in milliseconds.
+     * @param retryMaxDelay the maximum delay before a retry of a failed migration job in milliseconds.
      */
     @Startup
-    public static void setupJobQueues(JobService jobService, HibernateSessionManager sessionManager,
-        TimeService timeService, JobRepository jobRepository,
-        @Symbol(VvRteConstants.NUMBER_OF_MIGRATION_POOL_THREADS) int numberOfPoolThreads)
+    public static void setupJobQueues(JobService jobService, TimeService timeService, JobRepository jobRepository,
+        @Symbol(VvRteConstants.NUMBER_OF_MIGRATION_POOL_THREADS) int numberOfPoolThreads,
+        @Symbol(VvRteConstants.MIGRATION_MAX_JOBS_PER_DESTINATION) int maxJobsPerDestination,
+        @Symbol(VvRteConstants.MIGRATION_MAX_RETRIES) int maxRetries,
+        @Symbol(VvRteConstants.MIGRATION_RETRY_BASE_DELAY) long retryBaseDelay,
+        @Symbol(VvRteConstants.MIGRATION_RETRY_MAX_DELAY) long retryMaxDelay)
     {
         JobRunnableFactory factory = new VvRteJobRunnableFactory();
 
-        jobService.addJobQueue(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, new JobQueue(
-            VvRteConstants.MIGRATION_JOB_QUEUE_NAME, sessionManager, timeService, Arrays.asList(factory),
-            numberOfPoolThreads));
+        JobQueue queue = new JobQueue(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, timeService, Arrays.asList(factory),
+            numberOfPoolThreads);
+        queue.setMaxJobsPerDestination(maxJobsPerDestination);
+        queue.setRetryPolicy(new JobRetryPolicy(maxRetries, retryBaseDelay, retryMaxDelay));
+
+        jobService.addJobQueue(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, queue);
     }
 }
@@ -18,6 +18,8 @@
 
 package cpcc.vvrte.services.db;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +85,9 @@ public interface VvRteRepository
     VirtualVehicle findVirtualVehicleByUUID(String uuid);
 
     /**
+     * Delete a virtual vehicle and its storage. The storage content is retained as storage blobs, so that it need not
+     * be transferred again when the virtual vehicle returns.
+     * 
      * @param vehicle the virtual vehicle to be deleted.
      */
     void deleteVirtualVehicleById(VirtualVehicle vehicle);
@@ -119,6 +124,45 @@ public interface VvRteRepository
      */
     List<VirtualVehicleStorage> findStorageItemsByVirtualVehicle(Integer id, String startName, int maxEntries);
 
+    /**
+     * @param id the virtual vehicle identification.
+     * @param startName the storage name to start with.
+     * @param maxEntries the maximum number of entries to return.
+     * @return the content sizes in bytes of the requested entries by name, in the order of their names, without
+     *         loading their content.
+     */
+    Map<String, Long> findStorageItemSizesByVirtualVehicle(Integer id, String startName, int maxEntries);
+
+    /**
+     * @param id the virtual vehicle identification.
+     * @param startName the name of the last storage entry of the previous chunk.
+     * @param maxEntries the maximum number of entries to return.
+     * @return the content hashes of the requested entries by name, in the order of their names, without loading their
+     *         content. The hash of an entry stored before content hashes were introduced is null.
+     */
+    Map<String, String> findStorageItemHashesByVirtualVehicle(Integer id, String startName, int maxEntries);
+
+    /**
+     * @param contentHashes the content hashes to look up.
+     * @return the given content hashes of which either a storage item or a retained storage blob holds the content.
+     */
+    Set<String> findKnownContentHashes(Collection<String> contentHashes);
+
+    /**
+     * Find the content of a storage item or of a retained storage blob by its hash. A retained blob found is marked as
+     * used.
+     * 
+     * @param contentHash the content hash.
+     * @return the content or null if not found.
+     */
+    byte[] findContentByHash(String contentHash);
+
+    /**
+     * @param date the point in time.
+     * @return the number of retained storage blobs deleted because they have not been used since the given date.
+     */
+    int deleteStorageBlobsUnusedSince(Date date);
+
     /**
      * @param id the virtual vehicle identification.
      * @return the requested entries, or null if not found.
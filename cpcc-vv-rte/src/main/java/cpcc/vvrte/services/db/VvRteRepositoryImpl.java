@@ -20,14 +20,18 @@ package cpcc.vvrte.services.db;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.slf4j.Logger;
@@ -38,6 +42,8 @@ import cpcc.vvrte.entities.TaskState;
 import cpcc.vvrte.entities.VirtualVehicle;
 import cpcc.vvrte.entities.VirtualVehicleState;
 import cpcc.vvrte.entities.VirtualVehicleStorage;
+import cpcc.vvrte.entities.VirtualVehicleStorageBlob;
+import cpcc.vvrte.services.task.TaskRegistry;
 
 /**
  * VvRteRepository implementation.
@@ -55,6 +61,8 @@ public class VvRteRepositoryImpl implements VvRteRepository
     private static final String MIGRATION_START_TIME = "migrationStartTime";
     private static final String STATE = "state";
     private static final String ID = "id";
+    private static final String HASHES = "hashes";
+    private static final int MAX_HASHES_PER_QUERY = 500;
 
     private static final String UPDATE_VIRTUAL_VEHICLE_STATE =
         "UPDATE VirtualVehicle SET state = :newState WHERE state = :oldState";
@@ -62,18 +70,21 @@ public class VvRteRepositoryImpl implements VvRteRepository
     private HibernateSessionManager sessionManager;
     private TaskRepository taskRepository;
     private TimeService timeService;
+    private TaskRegistry taskRegistry;
 
     /**
      * @param sessionManager the Hibernate session manager.
      * @param taskRepository the task repository instance.
      * @param timeService the time service.
+     * @param taskRegistry the task registry.
      */
     public VvRteRepositoryImpl(HibernateSessionManager sessionManager, TaskRepository taskRepository,
-        TimeService timeService)
+        TimeService timeService, TaskRegistry taskRegistry)
     {
         this.sessionManager = sessionManager;
         this.taskRepository = taskRepository;
         this.timeService = timeService;
+        this.taskRegistry = taskRegistry;
     }
 
     /**
@@ -267,18 +278,61 @@ public class VvRteRepositoryImpl implements VvRteRepository
         LOG.info("Deleting virtual vehicle {} ({}) {}",
             vehicle.getName(), vehicle.getUuid(), vehicle.getState());
 
+        retainStorageContent(vehicle.getId());
+
         sessionManager.getSession()
             .createQuery("DELETE FROM VirtualVehicleStorage WHERE virtualVehicle.id = :id")
             .setParameter(ID, vehicle.getId())
             .executeUpdate();
 
         taskRepository.unlinkTasksFromVirtualVehicleById(vehicle.getId());
+        taskRegistry.removeTasksOfVirtualVehicle(vehicle.getId());
 
         vehicle.setTask(null);
         sessionManager.getSession().update(vehicle);
         sessionManager.getSession().delete(vehicle);
     }
 
+    /**
+     * Copy the content of the storage items of a virtual vehicle to the retained storage blobs. The items are loaded
+     * one at a time and are evicted from the session afterwards.
+     * 
+     * @param id the virtual vehicle identification.
+     */
+    private void retainStorageContent(Integer id)
+    {
+        Date now = timeService.newDate();
+        String name = "";
+
+        for (List<VirtualVehicleStorage> items = findStorageItemsByVirtualVehicle(id, name, 1); !items.isEmpty();
+            items = findStorageItemsByVirtualVehicle(id, name, 1))
+        {
+            VirtualVehicleStorage item = items.get(0);
+            byte[] content = item.getContentAsByteArray();
+            name = item.getName();
+
+            if (content != null)
+            {
+                String hash = item.getContentHash() != null ? item.getContentHash() : DigestUtils.sha256Hex(content);
+                VirtualVehicleStorageBlob blob = sessionManager.getSession().get(VirtualVehicleStorageBlob.class, hash);
+
+                if (blob == null)
+                {
+                    blob = new VirtualVehicleStorageBlob();
+                    blob.setContentHash(hash);
+                    blob.setContent(content);
+                }
+
+                blob.setLastUsed(now);
+                sessionManager.getSession().saveOrUpdate(blob);
+                sessionManager.getSession().flush();
+                sessionManager.getSession().evict(blob);
+            }
+
+            sessionManager.getSession().evict(item);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -349,6 +403,127 @@ public class VvRteRepositoryImpl implements VvRteRepository
             .list();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> findStorageItemSizesByVirtualVehicle(Integer id, String startName, int maxEntries)
+    {
+        List<Object[]> rows = sessionManager.getSession()
+            .createQuery("SELECT s.name, length(s.content) FROM VirtualVehicleStorage s "
+                + "WHERE s.virtualVehicle.id = :id AND s.name > :name "
+                + "ORDER BY s.name", Object[].class)
+            .setParameter(ID, id)
+            .setParameter(NAME, startName)
+            .setMaxResults(maxEntries > 0 ? maxEntries : 1)
+            .list();
+
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (Object[] row : rows)
+        {
+            sizes.put((String) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0L);
+        }
+
+        return sizes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> findStorageItemHashesByVirtualVehicle(Integer id, String startName, int maxEntries)
+    {
+        List<Object[]> rows = sessionManager.getSession()
+            .createQuery("SELECT s.name, s.contentHash FROM VirtualVehicleStorage s "
+                + "WHERE s.virtualVehicle.id = :id AND s.name > :name "
+                + "ORDER BY s.name", Object[].class)
+            .setParameter(ID, id)
+            .setParameter(NAME, startName)
+            .setMaxResults(maxEntries > 0 ? maxEntries : 1)
+            .list();
+
+        Map<String, String> hashes = new LinkedHashMap<>();
+        for (Object[] row : rows)
+        {
+            hashes.put((String) row[0], (String) row[1]);
+        }
+
+        return hashes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> findKnownContentHashes(Collection<String> contentHashes)
+    {
+        List<String> hashes = new ArrayList<>(contentHashes);
+        Set<String> known = new HashSet<>();
+
+        for (int k = 0; k < hashes.size(); k += MAX_HASHES_PER_QUERY)
+        {
+            List<String> batch = hashes.subList(k, Math.min(k + MAX_HASHES_PER_QUERY, hashes.size()));
+
+            known.addAll(sessionManager.getSession()
+                .createQuery("SELECT DISTINCT s.contentHash FROM VirtualVehicleStorage s "
+                    + "WHERE s.contentHash IN (:hashes)", String.class)
+                .setParameterList(HASHES, batch)
+                .list());
+
+            known.addAll(sessionManager.getSession()
+                .createQuery("SELECT b.contentHash FROM VirtualVehicleStorageBlob b "
+                    + "WHERE b.contentHash IN (:hashes)", String.class)
+                .setParameterList(HASHES, batch)
+                .list());
+        }
+
+        return known;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] findContentByHash(String contentHash)
+    {
+        List<VirtualVehicleStorage> items = sessionManager.getSession()
+            .createQuery("FROM VirtualVehicleStorage s WHERE s.contentHash = :hash", VirtualVehicleStorage.class)
+            .setParameter("hash", contentHash)
+            .setMaxResults(1)
+            .list();
+
+        if (!items.isEmpty())
+        {
+            byte[] content = items.get(0).getContentAsByteArray();
+            sessionManager.getSession().evict(items.get(0));
+            return content;
+        }
+
+        VirtualVehicleStorageBlob blob = sessionManager.getSession().get(VirtualVehicleStorageBlob.class, contentHash);
+        if (blob == null)
+        {
+            return null;
+        }
+
+        blob.setLastUsed(timeService.newDate());
+        sessionManager.getSession().saveOrUpdate(blob);
+        sessionManager.getSession().flush();
+        sessionManager.getSession().evict(blob);
+        return blob.getContent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int deleteStorageBlobsUnusedSince(Date date)
+    {
+        return sessionManager.getSession()
+            .createQuery("DELETE FROM VirtualVehicleStorageBlob WHERE lastUsed < :date")
+            .setParameter("date", date)
+            .executeUpdate();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,13 +45,18 @@ public class JavascriptServiceImpl implements JavascriptService
 
     private ServiceResources serviceResources;
 
+    private SnapshotCodec snapshotCodec;
+
     /**
      * @param serviceResources the service resources.
      * @param functions the built-in functions to use.
+     * @param snapshotCodec the continuation snapshot codec.
      */
-    public JavascriptServiceImpl(ServiceResources serviceResources, BuiltInFunctions functions)
+    public JavascriptServiceImpl(ServiceResources serviceResources, BuiltInFunctions functions,
+        SnapshotCodec snapshotCodec)
     {
         this.serviceResources = serviceResources;
+        this.snapshotCodec = snapshotCodec;
 
         VvRteFunctions.setVvRte(functions);
         // VvRteFunctions.setStdOut(System.out);
@@ -75,7 +80,7 @@ public class JavascriptServiceImpl implements JavascriptService
     @Override
     public JavascriptWorker createWorker(VirtualVehicle vehicle, boolean useContinuation) throws IOException
     {
-        return new JavascriptWorker(vehicle, useContinuation, serviceResources, allowedClassesRegex);
+        return new JavascriptWorker(vehicle, useContinuation, serviceResources, allowedClassesRegex, snapshotCodec);
     }
 
     /**
@@ -99,7 +104,8 @@ public class JavascriptServiceImpl implements JavascriptService
         vehicle.setApiVersion(apiVersion);
         vehicle.setUuid(UUID.randomUUID().toString());
 
-        JavascriptWorker w = new JavascriptWorker(vehicle, false, serviceResources, allowedClassesRegex);
+        JavascriptWorker w =
+            new JavascriptWorker(vehicle, false, serviceResources, allowedClassesRegex, snapshotCodec);
 
         String completedScript = StringUtils.defaultIfBlank(w.getScript(), "");
 
@@ -108,7 +114,7 @@ public class JavascriptServiceImpl implements JavascriptService
 
         try
         {
-            return cx.compileString(completedScript, "<check>", 1, null) != null
+            return ScriptCache.getCompiledScript(cx, completedScript) != null
                 ? ArrayUtils.EMPTY_OBJECT_ARRAY
                 : new Object[]{0, 0, "Can not compile script!", ""};
         }
@@ -18,16 +18,11 @@
 
 package cpcc.vvrte.services.js;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
@@ -38,8 +33,6 @@ import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
-import org.mozilla.javascript.serialize.ScriptableInputStream;
-import org.mozilla.javascript.serialize.ScriptableOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,17 +44,17 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 /**
  * JavascriptWorker
  */
-public class JavascriptWorker extends Thread
+public class JavascriptWorker implements Runnable
 {
     private static final Logger LOG = LoggerFactory.getLogger(JavascriptWorker.class);
 
     private static final String DEFECTIVE_VV = "Defective: VV={} ({} / {})";
-    private static final String VVRTE_API_FORMAT = "vvrte-api-%1$03d.js";
 
     private ServiceResources serviceResources;
     private VirtualVehicleState workerState;
     private String script;
     private Set<String> allowedClassesRegex;
+    private SnapshotCodec snapshotCodec;
     private String result = null;
     private byte[] snapshot = null;
     private int scriptStartLine;
@@ -74,13 +67,15 @@ public class JavascriptWorker extends Thread
      * @param useContinuation true if the available continuation data should be applied.
      * @param serviceResources the service resources instance.
      * @param allowedClassesRegex the additionally allowed class names as a regular expression.
+     * @param snapshotCodec the continuation snapshot codec.
      * @throws IOException in case of errors.
      */
     public JavascriptWorker(VirtualVehicle vehicle, boolean useContinuation, ServiceResources serviceResources,
-        Set<String> allowedClassesRegex) throws IOException
+        Set<String> allowedClassesRegex, SnapshotCodec snapshotCodec) throws IOException
     {
         this.serviceResources = serviceResources;
         this.allowedClassesRegex = allowedClassesRegex;
+        this.snapshotCodec = snapshotCodec;
         this.vehicle = vehicle;
 
         workerState = VirtualVehicleState.INIT;
@@ -91,7 +86,7 @@ public class JavascriptWorker extends Thread
         }
         else
         {
-            String apiScript = loadApiScript();
+            String apiScript = ScriptCache.getApiScript(vehicle.getApiVersion());
             scriptStartLine = StringUtils.countMatches(apiScript, "\n") + 1;
 
             String code = vehicle.getCode();
@@ -110,6 +105,21 @@ public class JavascriptWorker extends Thread
         String name = Thread.currentThread().getName();
         Thread.currentThread().setName("Virtual Vehicle: " + vehicle.getName() + " (" + vehicle.getId() + ")");
 
+        try
+        {
+            runVehicle();
+        }
+        finally
+        {
+            Thread.currentThread().setName(name);
+        }
+    }
+
+    /**
+     * Run the virtual vehicle on the current thread.
+     */
+    private void runVehicle()
+    {
         HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
 
         applicationState = null;
@@ -126,27 +136,23 @@ public class JavascriptWorker extends Thread
 
         Context cx = Context.enter();
         cx.setOptimizationLevel(-1);
-        ScriptableObject scope = cx.initStandardObjects();
+        ScriptableObject scope = ScriptCache.newScope(cx);
         try
         {
             cx.setClassShutter(new SandboxClassShutter(Collections.emptySet(), allowedClassesRegex));
-            scope.defineFunctionProperties(VvRteFunctions.FUNCTIONS, VvRteFunctions.class, ScriptableObject.DONTENUM);
 
             Object resultObj;
             if (snapshot == null)
             {
-                Script compiledScript = cx.compileString(script, "<vehicle>", 1, null);
+                scope.defineProperty(ScriptCache.VEHICLE_UUID, vehicle.getUuid(),
+                    ScriptableObject.READONLY | ScriptableObject.DONTENUM);
+                Script compiledScript = ScriptCache.getCompiledScript(cx, script);
                 resultObj = cx.executeScriptWithContinuations(compiledScript, scope);
             }
             else
             {
-                try (ByteArrayInputStream bais = new ByteArrayInputStream(snapshot);
-                    ScriptableInputStream sis = new ScriptableInputStream(bais, scope))
-                {
-                    Scriptable globalScope = (Scriptable) sis.readObject();
-                    Object c = sis.readObject();
-                    resultObj = cx.resumeContinuation(c, globalScope, Boolean.TRUE);
-                }
+                Object[] decoded = snapshotCodec.decode(snapshot, scope);
+                resultObj = cx.resumeContinuation(decoded[1], (Scriptable) decoded[0], Boolean.TRUE);
             }
 
             result = Context.toString(resultObj);
@@ -160,14 +166,7 @@ public class JavascriptWorker extends Thread
             applicationState = (ApplicationState) cp.getApplicationState();
             try
             {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ScriptableOutputStream sos = new ScriptableOutputStream(baos, scope);
-                sos.excludeStandardObjectNames();
-                sos.writeObject(scope);
-                sos.writeObject(cp.getContinuation());
-                sos.close();
-                baos.close();
-                snapshot = baos.toByteArray();
+                snapshot = snapshotCodec.encode(scope, cp.getContinuation());
 
                 if (applicationState.isTask())
                 {
@@ -207,24 +206,7 @@ public class JavascriptWorker extends Thread
             Context.exit();
             sessionManager.commit();
             serviceResources.getService(PerthreadManager.class).cleanup();
-            Thread.currentThread().setName(name);
-        }
-    }
-
-    /**
-     * @throws IOException thrown in case of errors.
-     */
-    private String loadApiScript() throws IOException
-    {
-        int apiVersion = vehicle.getApiVersion();
-
-        InputStream apiStream = this.getClass().getResourceAsStream(String.format(VVRTE_API_FORMAT, apiVersion));
-        if (apiStream == null)
-        {
-            throw new IOException("Can not handle API version " + apiVersion);
         }
-
-        return IOUtils.toString(apiStream, StandardCharsets.UTF_8.name()).replace("%vehicleUUID%", vehicle.getUuid());
     }
 
     /**
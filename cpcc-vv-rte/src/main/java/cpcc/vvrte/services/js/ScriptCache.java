@@ -0,0 +1,165 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * Caches shared by all Javascript workers: the API scripts per API version, the compiled Virtual Vehicle scripts by
+ * content hash, and a sealed scope of standard objects.
+ */
+final class ScriptCache
+{
+    static final String SOURCE_NAME = "<vehicle>";
+    static final String VEHICLE_UUID = "vvRteVehicleUUID";
+
+    private static final String VVRTE_API_FORMAT = "vvrte-api-%1$03d.js";
+    private static final int MAX_COMPILED_SCRIPTS = 256;
+
+    private static final Map<Integer, String> API_SCRIPTS = new ConcurrentHashMap<>();
+
+    private static final Map<String, Script> COMPILED_SCRIPTS = Collections.synchronizedMap(
+        new LinkedHashMap<String, Script>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = -2001473640651226414L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Script> eldest)
+            {
+                return size() > MAX_COMPILED_SCRIPTS;
+            }
+        });
+
+    private static volatile ScriptableObject sharedScope;
+
+    private ScriptCache()
+    {
+        // Intentionally empty.
+    }
+
+    /**
+     * @param apiVersion the API version.
+     * @return the API script.
+     * @throws IOException in case of an unknown API version.
+     */
+    static String getApiScript(int apiVersion) throws IOException
+    {
+        String apiScript = API_SCRIPTS.get(apiVersion);
+        if (apiScript != null)
+        {
+            return apiScript;
+        }
+
+        try (InputStream apiStream =
+            ScriptCache.class.getResourceAsStream(String.format(VVRTE_API_FORMAT, apiVersion)))
+        {
+            if (apiStream == null)
+            {
+                throw new IOException("Can not handle API version " + apiVersion);
+            }
+
+            apiScript = IOUtils.toString(apiStream, StandardCharsets.UTF_8.name());
+        }
+
+        API_SCRIPTS.put(apiVersion, apiScript);
+        return apiScript;
+    }
+
+    /**
+     * Compile a script or take it from the cache. Compiled scripts do not depend on a scope and may be executed by
+     * several contexts at the same time.
+     *
+     * @param cx the current interpreter context.
+     * @param source the script source code.
+     * @return the compiled script.
+     */
+    static Script getCompiledScript(Context cx, String source)
+    {
+        String key = DigestUtils.sha256Hex(source);
+        Script script = COMPILED_SCRIPTS.get(key);
+
+        if (script == null)
+        {
+            script = cx.compileString(source, SOURCE_NAME, 1, null);
+            COMPILED_SCRIPTS.put(key, script);
+        }
+
+        return script;
+    }
+
+    /**
+     * @return the sealed scope of standard objects and built-in functions to be used as the prototype of the worker
+     *         scopes.
+     */
+    static ScriptableObject getSharedScope()
+    {
+        ScriptableObject scope = sharedScope;
+        if (scope != null)
+        {
+            return scope;
+        }
+
+        synchronized (ScriptCache.class)
+        {
+            if (sharedScope == null)
+            {
+                Context cx = Context.enter();
+                try
+                {
+                    cx.setOptimizationLevel(-1);
+                    scope = cx.initStandardObjects(null, true);
+                    scope.defineFunctionProperties(VvRteFunctions.FUNCTIONS, VvRteFunctions.class,
+                        ScriptableObject.DONTENUM);
+                    scope.sealObject();
+                    sharedScope = scope;
+                }
+                finally
+                {
+                    Context.exit();
+                }
+            }
+            return sharedScope;
+        }
+    }
+
+    /**
+     * @param cx the current interpreter context.
+     * @return a new empty scope having the shared scope as prototype.
+     */
+    static ScriptableObject newScope(Context cx)
+    {
+        ScriptableObject shared = getSharedScope();
+        ScriptableObject scope = (ScriptableObject) cx.newObject(shared);
+        scope.setPrototype(shared);
+        scope.setParentScope(null);
+        return scope;
+    }
+}
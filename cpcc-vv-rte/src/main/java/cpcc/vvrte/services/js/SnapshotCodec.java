@@ -0,0 +1,55 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import java.io.IOException;
+
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * Encodes and decodes the continuation snapshots of Virtual Vehicles.
+ */
+public interface SnapshotCodec
+{
+    /**
+     * Encode the scope and the continuation. The shared scope is detached from the scope while writing.
+     *
+     * @param scope the scope of the Virtual Vehicle.
+     * @param continuation the continuation.
+     * @return the encoded snapshot.
+     * @throws IOException thrown in case of errors.
+     */
+    byte[] encode(ScriptableObject scope, Object continuation) throws IOException;
+
+    /**
+     * Decode a snapshot. The shared scope becomes the prototype of the decoded scope.
+     *
+     * @param snapshot the encoded snapshot.
+     * @param scope a new scope of the Virtual Vehicle, used to resolve the excluded objects.
+     * @return the decoded scope and continuation.
+     * @throws IOException thrown in case of errors.
+     * @throws ClassNotFoundException thrown in case of errors.
+     */
+    Object[] decode(byte[] snapshot, ScriptableObject scope) throws IOException, ClassNotFoundException;
+
+    /**
+     * @return the size metrics of the snapshots encoded so far.
+     */
+    SnapshotMetrics getMetrics();
+}
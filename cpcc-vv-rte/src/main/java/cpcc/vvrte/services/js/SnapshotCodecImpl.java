@@ -0,0 +1,158 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.serialize.ScriptableInputStream;
+import org.mozilla.javascript.serialize.ScriptableOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.vvrte.base.VvRteConstants;
+
+/**
+ * SnapshotCodecImpl
+ * <p>
+ * An encoded snapshot starts with a magic number and the format version, followed by the deflated scope and
+ * continuation. The standard objects and the built-in functions of the shared scope are written as references by name
+ * and do not become part of the snapshot. Snapshots without the magic number are uncompressed snapshots of older
+ * versions and are still accepted.
+ * <p>
+ * Every interruption of a Virtual Vehicle encodes a snapshot, so the compression level defaults to the fastest one.
+ */
+public class SnapshotCodecImpl implements SnapshotCodec
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotCodecImpl.class);
+
+    static final byte[] MAGIC = {'V', 'V', 'S'};
+    static final byte FORMAT_VERSION = 1;
+
+    private final SnapshotMetrics metrics = new SnapshotMetrics();
+    private final int compressionLevel;
+
+    /**
+     * @param compressionLevel the deflater compression level of the snapshots.
+     */
+    public SnapshotCodecImpl(@Symbol(VvRteConstants.SNAPSHOT_COMPRESSION_LEVEL) int compressionLevel)
+    {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+        {
+            throw new IllegalArgumentException("Invalid snapshot compression level " + compressionLevel);
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SnapshotMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] encode(ScriptableObject scope, Object continuation) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MAGIC);
+        out.write(FORMAT_VERSION);
+
+        Scriptable sharedScope = scope.getPrototype();
+        Deflater deflater = new Deflater(compressionLevel);
+        CountingOutputStream counter = new CountingOutputStream(new DeflaterOutputStream(out, deflater, 8192));
+
+        try (ScriptableOutputStream sos = new ScriptableOutputStream(counter, scope))
+        {
+            sos.excludeStandardObjectNames();
+            for (String name : VvRteFunctions.FUNCTIONS)
+            {
+                sos.addExcludedName(name);
+            }
+
+            scope.setPrototype(null);
+            sos.writeObject(scope);
+            sos.writeObject(continuation);
+        }
+        finally
+        {
+            scope.setPrototype(sharedScope);
+            deflater.end();
+        }
+
+        byte[] snapshot = out.toByteArray();
+        metrics.recordSnapshot(counter.getByteCount(), snapshot.length);
+        LOG.debug("Snapshot is {} bytes long, {} bytes uncompressed.", snapshot.length, counter.getByteCount());
+
+        return snapshot;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[] decode(byte[] snapshot, ScriptableObject scope) throws IOException, ClassNotFoundException
+    {
+        InputStream in;
+
+        if (snapshot.length > MAGIC.length && Arrays.equals(MAGIC, Arrays.copyOf(snapshot, MAGIC.length)))
+        {
+            byte version = snapshot[MAGIC.length];
+            if (version != FORMAT_VERSION)
+            {
+                throw new IOException("Unsupported snapshot format version " + version);
+            }
+
+            int offset = MAGIC.length + 1;
+            in = new InflaterInputStream(new ByteArrayInputStream(snapshot, offset, snapshot.length - offset));
+        }
+        else
+        {
+            in = new ByteArrayInputStream(snapshot);
+        }
+
+        try (ScriptableInputStream sis = new ScriptableInputStream(in, scope))
+        {
+            Scriptable globalScope = (Scriptable) sis.readObject();
+            if (globalScope.getPrototype() == null)
+            {
+                globalScope.setPrototype(scope.getPrototype());
+            }
+
+            Object continuation = sis.readObject();
+            return new Object[]{globalScope, continuation};
+        }
+    }
+}
@@ -0,0 +1,75 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size metrics of the continuation snapshots written by the Javascript workers.
+ */
+public class SnapshotMetrics
+{
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+
+    /**
+     * @param rawSize the size of the serialized snapshot before compression.
+     * @param encodedSize the size of the encoded snapshot.
+     */
+    void recordSnapshot(long rawSize, long encodedSize)
+    {
+        snapshots.increment();
+        rawBytes.add(rawSize);
+        encodedBytes.add(encodedSize);
+    }
+
+    /**
+     * @return the number of snapshots written.
+     */
+    public long getSnapshots()
+    {
+        return snapshots.sum();
+    }
+
+    /**
+     * @return the total size of the snapshots before compression in bytes.
+     */
+    public long getRawBytes()
+    {
+        return rawBytes.sum();
+    }
+
+    /**
+     * @return the total size of the encoded snapshots in bytes.
+     */
+    public long getEncodedBytes()
+    {
+        return encodedBytes.sum();
+    }
+
+    /**
+     * @return the ratio of encoded to raw snapshot bytes.
+     */
+    public double getCompressionRatio()
+    {
+        long raw = rawBytes.sum();
+        return raw == 0 ? 0.0 : (double) encodedBytes.sum() / raw;
+    }
+}
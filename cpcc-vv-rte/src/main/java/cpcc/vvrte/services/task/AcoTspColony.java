@@ -0,0 +1,324 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * An ant colony TSP solver. Each iteration lets a colony of ants construct their tours in parallel and reinforces the
+ * best tour found so far in a max-min manner. All tours, visited flags and roulette wheels are preallocated per ant,
+ * so an iteration does not allocate. The best tour can optionally be polished by 2-opt moves, which assumes a
+ * symmetric cost matrix.
+ */
+public final class AcoTspColony
+{
+    /**
+     * The default number of ants per iteration.
+     */
+    public static final int DEFAULT_ANTS = 16;
+
+    /**
+     * The default maximum number of iterations.
+     */
+    public static final int DEFAULT_ITERATIONS = 250;
+
+    /**
+     * The default number of iterations without improvement after which the search stops.
+     */
+    public static final int DEFAULT_STAGNATION_LIMIT = 50;
+
+    private static final double EVAPORATION = 0.1;
+    private static final double MIN_PHEROMONE = 0.01;
+    private static final double EPSILON = 1E-9;
+
+    private final int ants;
+    private final int maxIterations;
+    private final int stagnationLimit;
+    private final boolean twoOpt;
+
+    /**
+     * Create a colony with default settings and 2-opt polishing enabled.
+     */
+    public AcoTspColony()
+    {
+        this(DEFAULT_ANTS, DEFAULT_ITERATIONS, DEFAULT_STAGNATION_LIMIT, true);
+    }
+
+    /**
+     * @param ants the number of ants per iteration.
+     * @param maxIterations the maximum number of iterations.
+     * @param stagnationLimit the number of iterations without improvement after which the search stops.
+     * @param twoOpt true if improved tours should be polished by 2-opt moves.
+     */
+    public AcoTspColony(int ants, int maxIterations, int stagnationLimit, boolean twoOpt)
+    {
+        this.ants = ants;
+        this.maxIterations = maxIterations;
+        this.stagnationLimit = stagnationLimit;
+        this.twoOpt = twoOpt;
+    }
+
+    /**
+     * @param costMatrix the cost matrix.
+     * @return the best tour found as indices into the cost matrix.
+     */
+    public int[] calculateBestTour(double[][] costMatrix)
+    {
+        if (costMatrix.length == 0 || costMatrix.length != costMatrix[0].length)
+        {
+            throw new IllegalStateException("Cost matrix heigth and width must be equal!");
+        }
+
+        int n = costMatrix.length;
+        int[] best = IntStream.range(0, n).toArray();
+
+        if (n < 4)
+        {
+            return best;
+        }
+
+        double[][] heuristic = new double[n][n];
+        double[][] pheromone = new double[n][n];
+        double[][] weight = new double[n][n];
+
+        for (int i = 0; i < n; ++i)
+        {
+            Arrays.fill(pheromone[i], 1.0);
+            for (int j = 0; j < n; ++j)
+            {
+                double eta = 1.0 / (1.0 + costMatrix[i][j]);
+                heuristic[i][j] = eta * eta;
+            }
+        }
+
+        int[][] tours = new int[ants][n];
+        boolean[][] visited = new boolean[ants][n];
+        double[][] wheels = new double[ants][n];
+        double[] lengths = new double[ants];
+
+        double bestLength = twoOpt ? polish(costMatrix, best) : tourLength(costMatrix, best);
+        int stagnation = 0;
+
+        for (int iteration = 0; iteration < maxIterations && stagnation < stagnationLimit; ++iteration)
+        {
+            updateWeights(weight, pheromone, heuristic);
+
+            IntStream.range(0, ants).parallel().forEach(
+                a -> lengths[a] = constructTour(costMatrix, weight, tours[a], visited[a], wheels[a]));
+
+            int iterationBest = 0;
+            for (int a = 1; a < ants; ++a)
+            {
+                if (lengths[a] < lengths[iterationBest])
+                {
+                    iterationBest = a;
+                }
+            }
+
+            if (lengths[iterationBest] < bestLength - EPSILON)
+            {
+                System.arraycopy(tours[iterationBest], 0, best, 0, n);
+                bestLength = twoOpt ? polish(costMatrix, best) : lengths[iterationBest];
+                stagnation = 0;
+            }
+            else
+            {
+                ++stagnation;
+            }
+
+            reinforce(pheromone, best);
+        }
+
+        return best;
+    }
+
+    /**
+     * @param weight the selection weights to update.
+     * @param pheromone the pheromone trails.
+     * @param heuristic the heuristic desirability of the edges.
+     */
+    private static void updateWeights(double[][] weight, double[][] pheromone, double[][] heuristic)
+    {
+        for (int i = 0; i < weight.length; ++i)
+        {
+            for (int j = 0; j < weight.length; ++j)
+            {
+                weight[i][j] = pheromone[i][j] * heuristic[i][j];
+            }
+        }
+    }
+
+    /**
+     * @param costMatrix the cost matrix.
+     * @param weight the selection weights.
+     * @param tour the array to store the tour in.
+     * @param visited the visited flags of the ant.
+     * @param wheel the roulette wheel of the ant.
+     * @return the length of the constructed tour.
+     */
+    private static double constructTour(double[][] costMatrix, double[][] weight, int[] tour, boolean[] visited,
+        double[] wheel)
+    {
+        int n = tour.length;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Arrays.fill(visited, false);
+        int current = random.nextInt(n);
+        tour[0] = current;
+        visited[current] = true;
+        double length = 0.0;
+
+        for (int step = 1; step < n; ++step)
+        {
+            double total = 0.0;
+            for (int city = 0; city < n; ++city)
+            {
+                if (!visited[city])
+                {
+                    total += weight[current][city];
+                }
+                wheel[city] = total;
+            }
+
+            double sought = random.nextDouble() * total;
+            int next = -1;
+            for (int city = 0; city < n; ++city)
+            {
+                if (!visited[city])
+                {
+                    next = city;
+                    if (wheel[city] >= sought)
+                    {
+                        break;
+                    }
+                }
+            }
+
+            tour[step] = next;
+            visited[next] = true;
+            length += costMatrix[current][next];
+            current = next;
+        }
+
+        return length + costMatrix[current][tour[0]];
+    }
+
+    /**
+     * Evaporate all trails and reinforce the edges of the best tour. Trails never drop below a minimum, so that no
+     * edge becomes impossible to choose.
+     * 
+     * @param pheromone the pheromone trails.
+     * @param best the best tour.
+     */
+    private static void reinforce(double[][] pheromone, int[] best)
+    {
+        for (double[] row : pheromone)
+        {
+            for (int j = 0; j < row.length; ++j)
+            {
+                row[j] = Math.max(MIN_PHEROMONE, (1.0 - EVAPORATION) * row[j]);
+            }
+        }
+
+        for (int k = 0, l = best.length; k < l; ++k)
+        {
+            int a = best[k];
+            int b = best[(k + 1) % l];
+            pheromone[a][b] += EVAPORATION;
+            pheromone[b][a] += EVAPORATION;
+        }
+    }
+
+    /**
+     * Apply improving 2-opt moves to the tour until there are none left.
+     * 
+     * @param costMatrix the cost matrix.
+     * @param tour the tour to improve in place.
+     * @return the length of the improved tour.
+     */
+    static double polish(double[][] costMatrix, int[] tour)
+    {
+        int n = tour.length;
+        boolean improved = true;
+
+        while (improved)
+        {
+            improved = false;
+
+            for (int i = 0; i < n - 2; ++i)
+            {
+                for (int j = i + 2; j < n; ++j)
+                {
+                    int a = tour[i];
+                    int b = tour[i + 1];
+                    int c = tour[j];
+                    int d = tour[(j + 1) % n];
+
+                    if (a == d)
+                    {
+                        continue;
+                    }
+
+                    double delta = costMatrix[a][c] + costMatrix[b][d] - costMatrix[a][b] - costMatrix[c][d];
+                    if (delta < -EPSILON)
+                    {
+                        reverse(tour, i + 1, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        return tourLength(costMatrix, tour);
+    }
+
+    /**
+     * @param tour the tour.
+     * @param from the first index of the segment to reverse.
+     * @param to the last index of the segment to reverse.
+     */
+    private static void reverse(int[] tour, int from, int to)
+    {
+        for (int i = from, j = to; i < j; ++i, --j)
+        {
+            int t = tour[i];
+            tour[i] = tour[j];
+            tour[j] = t;
+        }
+    }
+
+    /**
+     * @param costMatrix the cost matrix.
+     * @param tour the tour.
+     * @return the length of the closed tour.
+     */
+    static double tourLength(double[][] costMatrix, int[] tour)
+    {
+        double sum = 0.0;
+
+        for (int k = 0, l = tour.length; k < l; ++k)
+        {
+            sum += costMatrix[tour[k]][tour[(k + 1) % l]];
+        }
+
+        return sum;
+    }
+}
@@ -26,7 +26,7 @@ import cpcc.core.entities.PolarCoordinate;
 import cpcc.vvrte.entities.Task;
 
 /**
- * A TSP solver for {@code Task} lists.
+ * A TSP solver for {@code Task} lists based on the parallel ant colony of {@code AcoTspColony}.
  */
 public class AcoTspTasks extends AbstractTspSolver
 {
@@ -35,8 +35,23 @@ public class AcoTspTasks extends AbstractTspSolver
      */
     private static final int START_POINT_INDEX = 0;
 
-    private int iterations = 3000;
-    private int boost = 3;
+    private AcoTspColony colony;
+
+    /**
+     * Create a solver with the default colony settings.
+     */
+    public AcoTspTasks()
+    {
+        this(new AcoTspColony());
+    }
+
+    /**
+     * @param colony the ant colony to use.
+     */
+    public AcoTspTasks(AcoTspColony colony)
+    {
+        this.colony = colony;
+    }
 
     /**
      * Calculate the optimal path from a given list of positions.
@@ -54,60 +69,24 @@ public class AcoTspTasks extends AbstractTspSolver
         }
 
         double[][] costMatrix = setupCostMatrix(position, path);
+        int[] tour = colony.calculateBestTour(costMatrix);
 
-        List<Integer> bestPath = AcoTspSimple.calculateBestPath(costMatrix, iterations, boost);
-        bestPath = reorderPath(bestPath, START_POINT_INDEX, START_POINT_INDEX);
-
-        List<Task> r = new ArrayList<>();
-        for (Integer k : bestPath)
-        {
-            if (k - 1 >= 0 && k - 1 < path.size())
-            {
-                r.add(path.get(k - 1));
-            }
-        }
-
-        return r;
-
-        // return new AcoTspSolver().calculateBestPath(position, path);
-    }
-
-    /**
-     * Reorder a given path.
-     * 
-     * @param path the path to be reordered.
-     * @param first the index number of the element to be first element.
-     * @param last the index number of the element to be last element.
-     * @return the reordered path.
-     */
-    private static List<Integer> reorderPath(List<Integer> path, int first, int last)
-    {
-        int f = path.indexOf(first);
-        int l = path.indexOf(last);
-
-        if (f < 0)
+        int n = tour.length;
+        int start = 0;
+        while (tour[start] != START_POINT_INDEX)
         {
-            throw new IllegalStateException("First index " + first + " is not element of the given path "
-                + path.toString());
+            ++start;
         }
 
-        List<Integer> newPath = new ArrayList<>();
+        int step = costMatrix[START_POINT_INDEX][tour[(start + 1) % n]]
+            <= costMatrix[START_POINT_INDEX][tour[(start + n - 1) % n]] ? 1 : n - 1;
 
-        if (l + 1 == f)
+        List<Task> r = new ArrayList<>(n - 1);
+        for (int k = 1, i = (start + step) % n; k < n; ++k, i = (i + step) % n)
         {
-            for (int k = 0, len = path.size(); k < len; ++k)
-            {
-                newPath.add(path.get((k + f) % len));
-            }
-        }
-        else
-        {
-            for (int len = path.size(), k = len; k > 0; --k)
-            {
-                newPath.add(path.get((k + f) % len));
-            }
+            r.add(path.get(tour[i] - 1));
         }
 
-        return newPath;
+        return r;
     }
 }
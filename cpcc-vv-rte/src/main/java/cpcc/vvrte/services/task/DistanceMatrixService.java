@@ -0,0 +1,45 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.List;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * Distance matrix service interface. The service keeps the geodetic distances between all known tasks, so that
+ * rescheduling only calculates the distances of newly arrived tasks. Completed tasks are evicted on notification,
+ * tasks no longer asked for are evicted after a while.
+ */
+public interface DistanceMatrixService extends TaskCompletionListener
+{
+    /**
+     * @param position the current position of the real vehicle.
+     * @param tasks the list of tasks.
+     * @return the distance matrix. Index zero denotes the position and index {@code k + 1} denotes task {@code k} of
+     *         the task list.
+     */
+    double[][] getDistanceMatrix(PolarCoordinate position, List<Task> tasks);
+
+    /**
+     * @return the number of cached tasks.
+     */
+    int size();
+}
@@ -0,0 +1,285 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.utils.CartesianCoordinate;
+import cpcc.core.utils.GeodeticSystem;
+import cpcc.core.utils.WGS84;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * Distance matrix service implementation. Each known task occupies a slot. The ECEF coordinates of a task are
+ * converted once when the task arrives, and the distances to all other slots are stored in a primitive matrix that
+ * grows on demand. Slots of completed tasks are reused by later tasks. Tasks without an identifier are not cached.
+ * <p>
+ * Tasks may also vanish without a completion notification, e.g., if their virtual vehicle migrates away. Hence, slots
+ * not used by the last {@code MAX_IDLE_CALLS} distance matrices are evicted as well, so that the storage is bounded by
+ * the number of tasks currently scheduled rather than by all tasks ever seen.
+ */
+public class DistanceMatrixServiceImpl implements DistanceMatrixService
+{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_IDLE_CALLS = 32;
+
+    private GeodeticSystem gs = new WGS84();
+    private Map<Integer, Integer> slots = new HashMap<>();
+    private int capacity;
+    private int[] freeSlots;
+    private int freeCount;
+    private double[] polar;
+    private double[] ecef;
+    private double[] distances;
+    private long[] lastUsed;
+    private long calls;
+
+    /**
+     * Create an empty distance matrix.
+     */
+    public DistanceMatrixServiceImpl()
+    {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double[][] getDistanceMatrix(PolarCoordinate position, List<Task> tasks)
+    {
+        ++calls;
+
+        int n = tasks.size() + 1;
+        int[] index = new int[n];
+        double[] points = new double[3 * n];
+
+        toEcef(position, points, 0);
+
+        for (int k = 1; k < n; ++k)
+        {
+            Task task = tasks.get(k - 1);
+            index[k] = lookup(task);
+
+            if (index[k] >= 0)
+            {
+                lastUsed[index[k]] = calls;
+                System.arraycopy(ecef, 3 * index[k], points, 3 * k, 3);
+            }
+            else
+            {
+                toEcef(task.getPosition(), points, 3 * k);
+            }
+        }
+
+        double[][] matrix = new double[n][n];
+
+        for (int i = 0; i < n; ++i)
+        {
+            for (int j = i + 1; j < n; ++j)
+            {
+                double d = i > 0 && index[i] >= 0 && index[j] >= 0
+                    ? distances[index[i] * capacity + index[j]]
+                    : distance(points, 3 * i, points, 3 * j);
+
+                matrix[i][j] = d;
+                matrix[j][i] = d;
+            }
+        }
+
+        if (calls % MAX_IDLE_CALLS == 0)
+        {
+            evictIdleSlots();
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Free the slots not used by the last {@code MAX_IDLE_CALLS} distance matrices.
+     */
+    private void evictIdleSlots()
+    {
+        for (Iterator<Integer> it = slots.values().iterator(); it.hasNext();)
+        {
+            int slot = it.next();
+
+            if (calls - lastUsed[slot] >= MAX_IDLE_CALLS)
+            {
+                it.remove();
+                freeSlots[freeCount++] = slot;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int size()
+    {
+        return slots.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void notify(Task task)
+    {
+        if (task.getId() == null)
+        {
+            return;
+        }
+
+        Integer slot = slots.remove(task.getId());
+        if (slot != null)
+        {
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Find the slot of a task and add the task if it is unknown or if its position has changed.
+     * 
+     * @param task the task.
+     * @return the slot of the task or -1 if the task can not be cached.
+     */
+    private int lookup(Task task)
+    {
+        Integer id = task.getId();
+        if (id == null)
+        {
+            return -1;
+        }
+
+        PolarCoordinate p = task.getPosition();
+        Integer slot = slots.get(id);
+
+        if (slot != null)
+        {
+            int s = 3 * slot;
+            if (polar[s] == p.getLatitude() && polar[s + 1] == p.getLongitude() && polar[s + 2] == p.getAltitude())
+            {
+                return slot;
+            }
+
+            slots.remove(id);
+            freeSlots[freeCount++] = slot;
+        }
+
+        return add(id, p);
+    }
+
+    /**
+     * @param id the task identifier.
+     * @param position the task position.
+     * @return the slot of the new task.
+     */
+    private int add(Integer id, PolarCoordinate position)
+    {
+        if (freeCount == 0)
+        {
+            allocate(2 * capacity);
+        }
+
+        int slot = freeSlots[--freeCount];
+        polar[3 * slot] = position.getLatitude();
+        polar[3 * slot + 1] = position.getLongitude();
+        polar[3 * slot + 2] = position.getAltitude();
+        toEcef(position, ecef, 3 * slot);
+
+        for (Integer other : slots.values())
+        {
+            double d = distance(ecef, 3 * slot, ecef, 3 * other);
+            distances[slot * capacity + other] = d;
+            distances[other * capacity + slot] = d;
+        }
+
+        distances[slot * capacity + slot] = 0.0;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Grow the storage arrays to the new capacity and keep all existing entries.
+     * 
+     * @param newCapacity the new capacity.
+     */
+    private void allocate(int newCapacity)
+    {
+        double[] newDistances = new double[newCapacity * newCapacity];
+        for (int k = 0; k < capacity; ++k)
+        {
+            System.arraycopy(distances, k * capacity, newDistances, k * newCapacity, capacity);
+        }
+
+        polar = polar == null ? new double[3 * newCapacity] : Arrays.copyOf(polar, 3 * newCapacity);
+        lastUsed = lastUsed == null ? new long[newCapacity] : Arrays.copyOf(lastUsed, newCapacity);
+        ecef = ecef == null ? new double[3 * newCapacity] : Arrays.copyOf(ecef, 3 * newCapacity);
+        distances = newDistances;
+
+        int[] newFreeSlots = new int[newCapacity];
+        if (freeSlots != null)
+        {
+            System.arraycopy(freeSlots, 0, newFreeSlots, 0, freeCount);
+        }
+
+        for (int k = newCapacity - 1; k >= capacity; --k)
+        {
+            newFreeSlots[freeCount++] = k;
+        }
+
+        freeSlots = newFreeSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * @param position the position.
+     * @param target the target array.
+     * @param offset the offset in the target array.
+     */
+    private void toEcef(PolarCoordinate position, double[] target, int offset)
+    {
+        CartesianCoordinate c = gs.polarToRectangularCoordinates(position);
+        target[offset] = c.getX();
+        target[offset + 1] = c.getY();
+        target[offset + 2] = c.getZ();
+    }
+
+    /**
+     * @param a the first array.
+     * @param i the offset of the first point.
+     * @param b the second array.
+     * @param j the offset of the second point.
+     * @return the Euclidean distance of the two points.
+     */
+    private static double distance(double[] a, int i, double[] b, int j)
+    {
+        double dx = a[i] - b[j];
+        double dy = a[i + 1] - b[j + 1];
+        double dz = a[i + 2] - b[j + 2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
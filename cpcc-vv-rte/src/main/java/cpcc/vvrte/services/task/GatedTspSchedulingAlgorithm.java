@@ -20,11 +20,8 @@ package cpcc.vvrte.services.task;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeoutException;
 
 import org.apache.tapestry5.ioc.annotations.Symbol;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import cpcc.core.entities.PolarCoordinate;
 import cpcc.core.services.jobs.TimeService;
@@ -36,8 +33,6 @@ import cpcc.vvrte.entities.Task;
  */
 public class GatedTspSchedulingAlgorithm implements TaskSchedulingAlgorithm
 {
-    private static final Logger LOG = LoggerFactory.getLogger(GatedTspSchedulingAlgorithm.class);
-
     private TimeService timeService;
     private int maxTasks;
 
@@ -59,30 +54,15 @@ public class GatedTspSchedulingAlgorithm implements TaskSchedulingAlgorithm
     public boolean schedule(PolarCoordinate position, List<PolarCoordinate> depots, List<Task> scheduledTasks,
         List<Task> pendingTasks)
     {
-        if (!scheduledTasks.isEmpty())
+        if (!scheduledTasks.isEmpty() || maxTasks <= 0)
         {
             return false;
         }
 
-        int mt = maxTasks;
-
-        while (mt > 0)
-        {
-            List<Task> taskList = getTaskList(mt, pendingTasks);
-            try
-            {
-                scheduledTasks.addAll(new HeldKarpTspSolver(timeService).calculateBestPath(position, taskList));
-                shift(pendingTasks, taskList.size());
-                return true;
-            }
-            catch (TimeoutException e)
-            {
-                mt /= 2;
-                LOG.warn("Reducing GTSP path length from {} to {}", maxTasks, mt);
-            }
-        }
-
-        return false;
+        List<Task> taskList = getTaskList(maxTasks, pendingTasks);
+        scheduledTasks.addAll(new HeldKarpTspSolver(timeService).calculateBestPath(position, taskList));
+        shift(pendingTasks, taskList.size());
+        return true;
     }
 
     /**
@@ -18,14 +18,15 @@
 
 package cpcc.vvrte.services.task;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,17 @@ import cpcc.vvrte.entities.Task;
 /**
  * A TSP solver for {@code Task} lists. This is an adapted TSP Java implementation found on Stack Overflow.
  * 
+ * <p>
+ * The branch-and-bound search runs as fork/join tasks which share the best tour found so far as incumbent. The search
+ * starts with a nearest neighbor tour as incumbent and returns the incumbent when the calculation time is exhausted,
+ * i.e., the result is optimal only if the search completes in time.
+ * </p>
+ * 
+ * <p>
+ * By default the search runs in a fork/join pool of its own, so that a search using up its calculation time does not
+ * occupy the common pool, which parallel streams and the {@code AcoTspColony} share.
+ * </p>
+ * 
  * @see http://stackoverflow.com/questions/7159259/optimized-tsp-algorithms
  * @see http://www2.iwr.uni-heidelberg.de/groups/comopt/software/TSPLIB95/tsp
  */
@@ -46,21 +58,38 @@ public class HeldKarpTspSolver extends AbstractTspSolver
 
     private static final long MAX_CALCULATION_TIME = 10000;
 
+    private static final ForkJoinPool SEARCH_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+        HeldKarpTspSolver::newSearchThread, null, false);
+
     private TimeService timeService;
+    private ForkJoinPool pool;
+    private long maxCalculationTime;
 
     /**
      * @param timeService the time service.
      */
     public HeldKarpTspSolver(TimeService timeService)
+    {
+        this(timeService, SEARCH_POOL, MAX_CALCULATION_TIME);
+    }
+
+    /**
+     * @param timeService the time service.
+     * @param pool the fork/join pool to run the search in.
+     * @param maxCalculationTime the maximum calculation time in milliseconds.
+     */
+    public HeldKarpTspSolver(TimeService timeService, ForkJoinPool pool, long maxCalculationTime)
     {
         this.timeService = timeService;
+        this.pool = pool;
+        this.maxCalculationTime = maxCalculationTime;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public List<Task> calculateBestPath(PolarCoordinate position, List<Task> path) throws TimeoutException
+    public List<Task> calculateBestPath(PolarCoordinate position, List<Task> path)
     {
         if (path.size() < 2)
         {
@@ -95,94 +124,190 @@ public class HeldKarpTspSolver extends AbstractTspSolver
         return r;
     }
 
+    /**
+     * @param pool the search pool.
+     * @return a daemon worker thread of the search pool.
+     */
+    private static ForkJoinWorkerThread newSearchThread(ForkJoinPool pool)
+    {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("TSP-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
     /**
      * @param cost the cost matrix.
      * @return the best node.
-     * @throws TimeoutException in case of timeouts.
      */
-    private Node solve(double[][] cost) throws TimeoutException
+    private Node solve(double[][] cost)
     {
-        long start = timeService.currentTimeMillis();
-
-        int n = cost.length;
-        double[][] costWithPi = new double[n][n];
+        Search search = new Search(cost, timeService.currentTimeMillis() + maxCalculationTime);
 
-        Node bestNode = new Node(n, costWithPi, cost);
-        Node currentNode = new Node(n, costWithPi, cost);
+        Node root = new Node(cost.length, cost);
+        root.computeHeldKarp(search.getBound(), search.getCostWithPi());
 
-        currentNode.computeHeldKarp(bestNode.lowerBound);
+        pool.invoke(new BranchTask(search, root));
 
-        PriorityQueue<Node> pq = new PriorityQueue<>(11, new NodeComparator());
-
-        do
+        if (search.isTimedOut())
         {
-            do
-            {
-                checkForTimeout(start);
+            LOG.warn("TSP search for {} positions timed out after {}ms, using best tour found so far.",
+                cost.length, maxCalculationTime);
+        }
 
-                int i = -1;
+        return search.getIncumbent();
+    }
 
-                for (int j = 0; j < n; j++)
-                {
-                    if (currentNode.degree[j] > 2 && (i < 0 || currentNode.degree[j] < currentNode.degree[i]))
-                    {
-                        i = j;
-                    }
-                }
+    /**
+     * The state shared by all branch-and-bound tasks of one search.
+     */
+    private class Search
+    {
+        private final double[][] cost;
+        private final long deadline;
+        private final AtomicReference<Node> incumbent;
+        private final AtomicBoolean timedOut = new AtomicBoolean(false);
+        private final ThreadLocal<double[][]> costWithPi;
 
-                if (i < 0)
-                {
-                    if (currentNode.lowerBound < bestNode.lowerBound)
-                    {
-                        bestNode = currentNode;
-                    }
-                    break;
-                }
+        /**
+         * @param cost the cost matrix.
+         * @param deadline the time in milliseconds the search has to end at.
+         */
+        Search(double[][] cost, long deadline)
+        {
+            this.cost = cost;
+            this.deadline = deadline;
+            this.incumbent = new AtomicReference<>(Node.nearestNeighborTour(cost));
+            this.costWithPi = ThreadLocal.withInitial(() -> new double[cost.length][cost.length]);
+        }
 
-                PriorityQueue<Node> children = new PriorityQueue<>(11, new NodeComparator());
+        /**
+         * @return the per thread scratch matrix for the adjusted costs.
+         */
+        double[][] getCostWithPi()
+        {
+            return costWithPi.get();
+        }
 
-                addToChildren(n, bestNode, currentNode, i, children);
+        /**
+         * @return the cost of the best tour found so far.
+         */
+        double getBound()
+        {
+            return incumbent.get().lowerBound;
+        }
 
-                currentNode = children.poll();
-                pq.addAll(children);
+        /**
+         * @return the best tour found so far.
+         */
+        Node getIncumbent()
+        {
+            return incumbent.get();
+        }
 
-            } while (currentNode.lowerBound < bestNode.lowerBound);
+        /**
+         * @param tour a tour to replace the incumbent with if it is cheaper.
+         */
+        void offer(Node tour)
+        {
+            incumbent.accumulateAndGet(tour, (a, b) -> b.lowerBound < a.lowerBound ? b : a);
+        }
+
+        /**
+         * @return true if the calculation time is exhausted.
+         */
+        boolean isTimeUp()
+        {
+            if (timedOut.get())
+            {
+                return true;
+            }
 
-            currentNode = pq.poll();
+            if (timeService.currentTimeMillis() > deadline)
+            {
+                timedOut.set(true);
+                return true;
+            }
 
-        } while (currentNode != null && currentNode.lowerBound < bestNode.lowerBound);
+            return false;
+        }
 
-        return bestNode;
-    }
+        /**
+         * @return true if the search ended because the calculation time was exhausted.
+         */
+        boolean isTimedOut()
+        {
+            return timedOut.get();
+        }
 
-    /**
-     * @param start the start time in milliseconds.
-     * @throws TimeoutException in case of an time out.
-     */
-    private void checkForTimeout(long start) throws TimeoutException
-    {
-        if (timeService.currentTimeMillis() - start > MAX_CALCULATION_TIME)
+        /**
+         * @return the cost matrix.
+         */
+        double[][] getCost()
         {
-            throw new TimeoutException();
+            return cost;
         }
     }
 
     /**
-     * @param n the path length.
-     * @param bestNode the best node.
-     * @param currentNode the current node.
-     * @param i the index.
-     * @param children the queue of children.
+     * A branch-and-bound task. It follows the cheapest child of each node itself and forks the remaining children, so
+     * that idle workers can steal them.
      */
-    private void addToChildren(int n, Node bestNode, Node currentNode, int i, PriorityQueue<Node> children)
+    private static class BranchTask extends RecursiveAction
     {
-        children.add(currentNode.exclude(bestNode.lowerBound, i, currentNode.parent[i]));
+        private static final long serialVersionUID = 2400454569380436547L;
+
+        private final transient Search search;
+        private final transient Node node;
 
-        for (int j = 0; j < n; j++)
+        /**
+         * @param search the search state.
+         * @param node the node to branch on.
+         */
+        BranchTask(Search search, Node node)
         {
-            if (currentNode.parent[j] == i)
+            this.search = search;
+            this.node = node;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute()
+        {
+            List<BranchTask> forked = new ArrayList<>();
+            Node currentNode = node;
+
+            while (currentNode != null && currentNode.lowerBound < search.getBound() && !search.isTimeUp())
+            {
+                int i = currentNode.findBranchingIndex();
+
+                if (i < 0)
+                {
+                    search.offer(currentNode);
+                    break;
+                }
+
+                List<Node> children = currentNode.branch(i, search.getBound(), search.getCostWithPi());
+                children.sort((a, b) -> Double.compare(a.lowerBound, b.lowerBound));
+
+                for (Node child : children.subList(1, children.size()))
+                {
+                    if (child.lowerBound < search.getBound())
+                    {
+                        BranchTask task = new BranchTask(search, child);
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+
+                currentNode = children.get(0);
+            }
+
+            for (BranchTask task : forked)
             {
-                children.add(currentNode.exclude(bestNode.lowerBound, i, j));
+                task.join();
             }
         }
     }
@@ -193,7 +318,6 @@ public class HeldKarpTspSolver extends AbstractTspSolver
     private static class Node
     {
         private int n;
-        private double[][] costWithPi;
         private double[][] cost;
 
         private boolean[][] excluded;
@@ -203,16 +327,12 @@ public class HeldKarpTspSolver extends AbstractTspSolver
         private double lowerBound;
         private int[] degree;
         private int[] parent;
-        private int chk;
 
-        Node(int n, double[][] costWithPi, double[][] cost)
+        Node(int n, double[][] cost)
         {
             this.n = n;
-            this.costWithPi = costWithPi;
             this.cost = cost;
 
-            this.chk = 0;
-
             excluded = new boolean[n][n];
             pi = new double[n];
             lowerBound = Double.MAX_VALUE;
@@ -220,15 +340,95 @@ public class HeldKarpTspSolver extends AbstractTspSolver
             parent = new int[n];
         }
 
+        /**
+         * @param cost the cost matrix.
+         * @return the tour built by always visiting the nearest unvisited position next.
+         */
+        static Node nearestNeighborTour(double[][] cost)
+        {
+            int n = cost.length;
+            Node tour = new Node(n, cost);
+            boolean[] visited = new boolean[n];
+            visited[0] = true;
+
+            int current = 0;
+            tour.lowerBound = 0.0;
+
+            for (int k = 1; k < n; ++k)
+            {
+                int next = -1;
+                for (int j = 1; j < n; ++j)
+                {
+                    if (!visited[j] && (next < 0 || cost[current][j] < cost[current][next]))
+                    {
+                        next = j;
+                    }
+                }
+
+                visited[next] = true;
+                tour.parent[next] = current;
+                tour.lowerBound += cost[current][next];
+                current = next;
+            }
+
+            tour.parent[0] = current;
+            tour.lowerBound += cost[current][0];
+            Arrays.fill(tour.degree, 2);
+
+            return tour;
+        }
+
+        /**
+         * @return the index of the position with the least degree above two or -1 if this node is a tour.
+         */
+        int findBranchingIndex()
+        {
+            int i = -1;
+
+            for (int j = 0; j < n; j++)
+            {
+                if (degree[j] > 2 && (i < 0 || degree[j] < degree[i]))
+                {
+                    i = j;
+                }
+            }
+
+            return i;
+        }
+
+        /**
+         * @param i the index of the position to branch on.
+         * @param bestNodelowerBound the lower bound of the best node.
+         * @param costWithPi the scratch matrix for the adjusted costs.
+         * @return the child nodes.
+         */
+        List<Node> branch(int i, double bestNodelowerBound, double[][] costWithPi)
+        {
+            List<Node> children = new ArrayList<>();
+
+            children.add(exclude(bestNodelowerBound, i, parent[i], costWithPi));
+
+            for (int j = 0; j < n; j++)
+            {
+                if (parent[j] == i)
+                {
+                    children.add(exclude(bestNodelowerBound, i, j, costWithPi));
+                }
+            }
+
+            return children;
+        }
+
         /**
          * @param bestNodelowerBound the lower bound of the best node.
          * @param i node index one.
          * @param j node index two.
-         * @return
+         * @param costWithPi the scratch matrix for the adjusted costs.
+         * @return the child node with the edge between both nodes excluded.
          */
-        public Node exclude(double bestNodelowerBound, int i, int j)
+        Node exclude(double bestNodelowerBound, int i, int j, double[][] costWithPi)
         {
-            Node child = new Node(n, costWithPi, cost);
+            Node child = new Node(n, cost);
 
             child.excluded = excluded.clone();
             child.excluded[i] = excluded[i].clone();
@@ -236,21 +436,17 @@ public class HeldKarpTspSolver extends AbstractTspSolver
             child.excluded[i][j] = true;
             child.excluded[j][i] = true;
 
-            child.computeHeldKarp(bestNodelowerBound);
+            child.computeHeldKarp(bestNodelowerBound, costWithPi);
 
             return child;
         }
 
         /**
          * @param bestNodelowerBound the lower bound of the best node.
+         * @param costWithPi the scratch matrix for the adjusted costs.
          */
-        public void computeHeldKarp(double bestNodelowerBound)
+        void computeHeldKarp(double bestNodelowerBound, double[][] costWithPi)
         {
-            if (++chk > 1)
-            {
-                LOG.info("computeHeldKarp: {}", chk);
-            }
-
             lowerBound = Double.MIN_VALUE;
 
             double lambda = 0.1;
@@ -258,7 +454,7 @@ public class HeldKarpTspSolver extends AbstractTspSolver
             while (lambda > 1e-06)
             {
                 double previousLowerBound = lowerBound;
-                computeOneTree();
+                computeOneTree(costWithPi);
 
                 if (lowerBound >= bestNodelowerBound)
                 {
@@ -292,8 +488,10 @@ public class HeldKarpTspSolver extends AbstractTspSolver
 
         /**
          * Compute one tree.
+         * 
+         * @param costWithPi the scratch matrix for the adjusted costs.
          */
-        private void computeOneTree()
+        private void computeOneTree(double[][] costWithPi)
         {
             // compute adjusted costs
             lowerBound = 0.0;
@@ -338,24 +536,25 @@ public class HeldKarpTspSolver extends AbstractTspSolver
                 }
             }
 
-            addEdge(0, firstNeighbor);
+            addEdge(costWithPi, 0, firstNeighbor);
             Arrays.fill(parent, firstNeighbor);
             parent[firstNeighbor] = 0;
 
             // compute the minimum spanning tree on nodes 1..n-1
             double[] minCost = costWithPi[firstNeighbor].clone();
 
-            computeOneTreeHelper(minCost);
+            computeOneTreeHelper(costWithPi, minCost);
 
-            addEdge(0, secondNeighbor);
+            addEdge(costWithPi, 0, secondNeighbor);
             parent[0] = secondNeighbor;
             lowerBound = Math.rint(lowerBound);
         }
 
         /**
+         * @param costWithPi the adjusted costs.
          * @param minCost the minimum cost vector.
          */
-        private void computeOneTreeHelper(double[] minCost)
+        private void computeOneTreeHelper(double[][] costWithPi, double[] minCost)
         {
             for (int k = 2; k < n; k++)
             {
@@ -377,7 +576,7 @@ public class HeldKarpTspSolver extends AbstractTspSolver
                     }
                 }
 
-                addEdge(parent[i], i);
+                addEdge(costWithPi, parent[i], i);
 
                 for (int j = 1; j < n; j++)
                 {
@@ -391,29 +590,15 @@ public class HeldKarpTspSolver extends AbstractTspSolver
         }
 
         /**
+         * @param costWithPi the adjusted costs.
          * @param i node index one.
          * @param j node index two.
          */
-        private void addEdge(int i, int j)
+        private void addEdge(double[][] costWithPi, int i, int j)
         {
             lowerBound += costWithPi[i][j];
             degree[i]++;
             degree[j]++;
         }
     }
-
-    /**
-     * Node Comparator implementation.
-     */
-    private static class NodeComparator implements Comparator<Node>, Serializable
-    {
-        private static final long serialVersionUID = -8066243818129778631L;
-
-        @Override
-        public int compare(Node a, Node b)
-        {
-            return Double.compare(a.lowerBound, b.lowerBound);
-        }
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,262 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tapestry5.ioc.annotations.Symbol;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.vvrte.base.VvRteConstants;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * Incremental insertion scheduling algorithm implementation. Pending tasks are merged into the route of already
+ * scheduled tasks at the cheapest position, instead of waiting for the current route to complete. After each merge,
+ * the route is re-optimized by a bounded local search of 2-opt and Or-opt moves. The route is an open path starting
+ * at the current position of the real vehicle.
+ */
+public class InsertionSchedulingAlgorithm implements TaskSchedulingAlgorithm
+{
+    private static final int MAX_SEGMENT_LENGTH = 3;
+    private static final double EPSILON = 1E-6;
+
+    private DistanceMatrixService distanceMatrixService;
+    private int maxMoves;
+
+    /**
+     * @param distanceMatrixService the distance matrix service.
+     * @param maxMoves the maximum number of improving local search moves per scheduling run.
+     */
+    public InsertionSchedulingAlgorithm(DistanceMatrixService distanceMatrixService,
+        @Symbol(VvRteConstants.PROP_INSERTION_MAX_MOVES) int maxMoves)
+    {
+        this.distanceMatrixService = distanceMatrixService;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean schedule(PolarCoordinate position, List<PolarCoordinate> depotPositions, List<Task> scheduledTasks,
+        List<Task> pendingTasks)
+    {
+        if (pendingTasks.isEmpty())
+        {
+            return false;
+        }
+
+        if (position == null)
+        {
+            scheduledTasks.addAll(pendingTasks);
+            pendingTasks.clear();
+            return true;
+        }
+
+        List<Task> tasks = new ArrayList<>(scheduledTasks);
+        tasks.addAll(pendingTasks);
+        double[][] d = distanceMatrixService.getDistanceMatrix(position, tasks);
+
+        int n = tasks.size() + 1;
+        int[] path = new int[n];
+        int length = scheduledTasks.size() + 1;
+
+        for (int k = 0; k < length; ++k)
+        {
+            path[k] = k;
+        }
+
+        for (; length < n; ++length)
+        {
+            int index = findCheapestInsertion(d, path, length, length);
+            System.arraycopy(path, index, path, index + 1, length - index);
+            path[index] = length;
+        }
+
+        int moves = 0;
+        while (moves < maxMoves && (twoOptMove(d, path) || orOptMove(d, path)))
+        {
+            ++moves;
+        }
+
+        scheduledTasks.clear();
+        for (int k = 1; k < n; ++k)
+        {
+            scheduledTasks.add(tasks.get(path[k] - 1));
+        }
+        pendingTasks.clear();
+
+        return true;
+    }
+
+    /**
+     * @param d the distance matrix.
+     * @param path the open path starting at index zero.
+     * @param length the current length of the path.
+     * @param node the node to insert.
+     * @return the index in the path to insert the node at.
+     */
+    private static int findCheapestInsertion(double[][] d, int[] path, int length, int node)
+    {
+        int bestIndex = length;
+        double bestCost = d[path[length - 1]][node];
+
+        for (int k = 1; k < length; ++k)
+        {
+            int previous = path[k - 1];
+            int next = path[k];
+            double cost = d[previous][node] + d[node][next] - d[previous][next];
+
+            if (cost < bestCost)
+            {
+                bestCost = cost;
+                bestIndex = k;
+            }
+        }
+
+        return bestIndex;
+    }
+
+    /**
+     * Apply the first improving 2-opt move, i.e., reverse a segment of the path.
+     * 
+     * @param d the distance matrix.
+     * @param path the open path starting at index zero.
+     * @return true if a move has been applied.
+     */
+    static boolean twoOptMove(double[][] d, int[] path)
+    {
+        int n = path.length;
+
+        for (int i = 0; i < n - 2; ++i)
+        {
+            for (int j = i + 2; j < n; ++j)
+            {
+                int a = path[i];
+                int b = path[i + 1];
+                int c = path[j];
+                double delta = d[a][c] - d[a][b];
+
+                if (j + 1 < n)
+                {
+                    int e = path[j + 1];
+                    delta += d[b][e] - d[c][e];
+                }
+
+                if (delta < -EPSILON)
+                {
+                    reverse(path, i + 1, j);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Apply the first improving Or-opt move, i.e., move a segment of up to three positions to another place in the
+     * path.
+     * 
+     * @param d the distance matrix.
+     * @param path the open path starting at index zero.
+     * @return true if a move has been applied.
+     */
+    static boolean orOptMove(double[][] d, int[] path)
+    {
+        int n = path.length;
+
+        for (int len = 1; len <= MAX_SEGMENT_LENGTH; ++len)
+        {
+            for (int s = 1; s + len <= n; ++s)
+            {
+                int e = s + len - 1;
+                int prev = path[s - 1];
+                int first = path[s];
+                int last = path[e];
+                int next = e + 1 < n ? path[e + 1] : -1;
+
+                double removeGain = d[prev][first] + (next >= 0 ? d[last][next] - d[prev][next] : 0.0);
+
+                for (int k = 0; k < n; ++k)
+                {
+                    if (k >= s - 1 && k <= e)
+                    {
+                        continue;
+                    }
+
+                    int u = path[k];
+                    int v = k + 1 < n ? path[k + 1] : -1;
+                    double insertCost = d[u][first] + (v >= 0 ? d[last][v] - d[u][v] : 0.0);
+
+                    if (insertCost - removeGain < -EPSILON)
+                    {
+                        moveSegment(path, s, e, k);
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param path the path.
+     * @param from the first index of the segment to reverse.
+     * @param to the last index of the segment to reverse.
+     */
+    private static void reverse(int[] path, int from, int to)
+    {
+        for (int i = from, j = to; i < j; ++i, --j)
+        {
+            int t = path[i];
+            path[i] = path[j];
+            path[j] = t;
+        }
+    }
+
+    /**
+     * Move the segment between the indices s and e to the place after index k.
+     * 
+     * @param path the path.
+     * @param s the first index of the segment.
+     * @param e the last index of the segment.
+     * @param k the index to insert the segment after, outside of the segment.
+     */
+    private static void moveSegment(int[] path, int s, int e, int k)
+    {
+        int len = e - s + 1;
+        int[] segment = new int[len];
+        System.arraycopy(path, s, segment, 0, len);
+
+        if (k > e)
+        {
+            System.arraycopy(path, e + 1, path, s, k - e);
+            System.arraycopy(segment, 0, path, k - len + 1, len);
+        }
+        else
+        {
+            System.arraycopy(path, k + 1, path, k + 1 + len, s - k - 1);
+            System.arraycopy(segment, 0, path, k + 1, len);
+        }
+    }
+}
@@ -18,21 +18,27 @@
 
 package cpcc.vvrte.services.task;
 
-import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.hibernate.Session;
 import org.mozilla.javascript.NativeObject;
+import org.ros.message.MessageListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +46,7 @@ import cpcc.core.entities.PolarCoordinate;
 import cpcc.core.entities.RealVehicle;
 import cpcc.core.entities.SensorVisibility;
 import cpcc.core.services.RealVehicleRepository;
+import cpcc.core.services.jobs.JobQueueThreadFactory;
 import cpcc.core.services.jobs.TimeService;
 import cpcc.core.utils.GeodeticSystem;
 import cpcc.core.utils.RealVehicleUtils;
@@ -53,15 +60,19 @@ import cpcc.ros.sensors.AbstractSensorAdapter;
 import cpcc.ros.sensors.AltimeterAdapter;
 import cpcc.ros.sensors.SensorType;
 import cpcc.ros.services.RosNodeService;
+import cpcc.vvrte.base.VvRteConstants;
 import cpcc.vvrte.entities.Task;
 import cpcc.vvrte.entities.TaskState;
 import cpcc.vvrte.entities.VirtualVehicle;
-import cpcc.vvrte.services.db.TaskRepository;
 import cpcc.vvrte.services.ros.MessageConverter;
 import sensor_msgs.NavSatFix;
 
 /**
  * TaskExecutionServiceImpl
+ * <p>
+ * In GPS driven mode, the GPS receiver pushes each new position onto a queue. A worker thread checks the running task
+ * for completion on each position and writes to the database only if the task changes its state. The periodic
+ * {@link #executeTasks()} then only schedules new tasks while no task is running.
  */
 public class TaskExecutionServiceImpl implements TaskExecutionService
 {
@@ -84,6 +95,10 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
 
     private List<PolarCoordinate> depotPositions;
 
+    private boolean gpsDriven;
+    private Object lock = new Object();
+    private BlockingQueue<NavSatFix> positionUpdates = new LinkedBlockingQueue<>();
+
     /**
      * @param serviceResources the service resources.
      * @param scheduler the scheduler instance.
@@ -91,9 +106,13 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
      * @param conv the ROS message converter instance.
      * @param timeService the time service instance.
      * @param rvRepo the Real Vehicle repository instance.
+     * @param shutdownHub the registry shutdown hub.
+     * @param gpsDriven true if the GPS receiver drives the task execution.
      */
     public TaskExecutionServiceImpl(ServiceResources serviceResources, TaskSchedulerService scheduler,
-        RosNodeService rosNodeService, MessageConverter conv, TimeService timeService, RealVehicleRepository rvRepo)
+        RosNodeService rosNodeService, MessageConverter conv, TimeService timeService, RealVehicleRepository rvRepo,
+        RegistryShutdownHub shutdownHub,
+        @Symbol(VvRteConstants.PROP_GPS_DRIVEN_TASK_EXECUTION) boolean gpsDriven)
     {
         this.serviceResources = serviceResources;
         this.scheduler = scheduler;
@@ -103,6 +122,13 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
         this.rvRepo = rvRepo;
 
         init();
+
+        this.gpsDriven = gpsDriven && gpsReceiver != null;
+
+        if (this.gpsDriven)
+        {
+            startPositionUpdates(shutdownHub);
+        }
     }
 
     /**
@@ -135,18 +161,163 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
 
         myself = rvRepo.findOwnRealVehicle();
 
-        String areaOfOperation = myself != null ? myself.getAreaOfOperation() : "";
+        depotPositions = RealVehicleUtils
+            .getDepotPositions(myself)
+            .stream().map(x -> new PolarCoordinate(x.getLatitude(), x.getLongitude(), 0.0))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Subscribe to the GPS receiver and process its positions in a separate thread.
+     * 
+     * @param shutdownHub the registry shutdown hub.
+     */
+    private void startPositionUpdates(RegistryShutdownHub shutdownHub)
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new JobQueueThreadFactory("GPS Task Execution"));
+        MessageListener<NavSatFix> listener = positionUpdates::offer;
+        gpsReceiver.addPositionListener(listener);
+        executor.execute(this::processPositionUpdates);
+
+        Runnable shutdown = () -> {
+            gpsReceiver.removePositionListener(listener);
+            executor.shutdownNow();
+        };
+        shutdownHub.addRegistryShutdownListener(shutdown);
+    }
 
+    /**
+     * Process the queued GPS positions until the thread is interrupted. Positions that queued up while the previous
+     * position was processed are skipped in favor of the latest one.
+     */
+    private void processPositionUpdates()
+    {
         try
         {
-            depotPositions = RealVehicleUtils
-                .getDepotPositions(areaOfOperation)
-                .stream().map(x -> new PolarCoordinate(x.getLatitude(), x.getLongitude(), 0.0))
-                .collect(Collectors.toList());
+            while (!Thread.currentThread().isInterrupted())
+            {
+                NavSatFix fix = positionUpdates.take();
+                for (NavSatFix next = positionUpdates.poll(); next != null; next = positionUpdates.poll())
+                {
+                    fix = next;
+                }
+
+                try
+                {
+                    onPositionUpdate(fix);
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.error("Processing GPS position failed.", e);
+                }
+            }
         }
-        catch (IOException e)
+        catch (InterruptedException e)
         {
-            depotPositions = Collections.emptyList();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check the running task for completion at the new vehicle position. Only state changes are written to the
+     * database.
+     * 
+     * @param fix the new GPS position.
+     */
+    void onPositionUpdate(NavSatFix fix)
+    {
+        synchronized (lock)
+        {
+            if (currentRunningTask == null)
+            {
+                return;
+            }
+
+            PolarCoordinate vehiclePosition = toPolarCoordinate(fix);
+            double distance = gs.calculateDistance(currentRunningTask.getPosition(), vehiclePosition);
+            currentRunningTask.setDistanceToTarget(distance);
+
+            boolean started = currentRunningTask.getExecutionStart() == null;
+            boolean completed = distance < currentRunningTask.getTolerance();
+
+            if (!started && !completed)
+            {
+                return;
+            }
+
+            PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
+            HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
+
+            try
+            {
+                if (started)
+                {
+                    currentRunningTask.setExecutionStart(timeService.newDate());
+                }
+
+                if (completed)
+                {
+                    completeTask(currentRunningTask);
+                    logExecutionCompleted(currentRunningTask, distance);
+                }
+
+                store(sessionManager.getSession(), currentRunningTask);
+                sessionManager.commit();
+
+                if (completed)
+                {
+                    Task task = currentRunningTask;
+                    currentRunningTask = null;
+                    notify(task);
+                    scheduleNextTask(vehiclePosition, sessionManager);
+                }
+            }
+            finally
+            {
+                tm.cleanup();
+            }
+        }
+    }
+
+    /**
+     * Schedule the next task, if no task is running.
+     */
+    private void scheduleTasks()
+    {
+        synchronized (lock)
+        {
+            if (currentRunningTask != null)
+            {
+                return;
+            }
+
+            PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
+            HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
+
+            try
+            {
+                scheduleNextTask(getCurrentVehiclePosition(), sessionManager);
+            }
+            finally
+            {
+                tm.cleanup();
+            }
+        }
+    }
+
+    /**
+     * @param vehiclePosition the current vehicle position.
+     * @param sessionManager the Hibernate session manager.
+     */
+    private void scheduleNextTask(PolarCoordinate vehiclePosition, HibernateSessionManager sessionManager)
+    {
+        currentRunningTask = scheduler.schedule(vehiclePosition, depotPositions);
+
+        if (currentRunningTask != null)
+        {
+            logUnfinishedTasks();
+            wayPointController.setPosition(currentRunningTask.getPosition());
+            sessionManager.commit();
         }
     }
 
@@ -184,6 +355,12 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
     @Override
     public void executeTasks()
     {
+        if (gpsDriven)
+        {
+            scheduleTasks();
+            return;
+        }
+
         PerthreadManager tm = serviceResources.getService(PerthreadManager.class);
         HibernateSessionManager sessionManager = serviceResources.getService(HibernateSessionManager.class);
 
@@ -224,7 +401,7 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
                 completed = true;
             }
 
-            sessionManager.getSession().update(currentRunningTask);
+            store(sessionManager.getSession(), currentRunningTask);
 
             try
             {
@@ -253,7 +430,7 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
 
     private void logUnfinishedTasks()
     {
-        TaskRepository repo = serviceResources.getService(TaskRepository.class);
+        TaskRegistry repo = serviceResources.getService(TaskRegistry.class);
         LOG.info("Unfinished tasks: ;time;{};name;{};id;{};incompleteTasks;{}",
             System.currentTimeMillis(), myself.getName(), myself.getId(), repo.countAllIncompleteTasks());
     }
@@ -297,6 +474,15 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
             return null;
         }
 
+        return toPolarCoordinate(pos);
+    }
+
+    /**
+     * @param pos the GPS position.
+     * @return the vehicle position, including the altimeter value if available.
+     */
+    private PolarCoordinate toPolarCoordinate(NavSatFix pos)
+    {
         return new PolarCoordinate(pos.getLatitude(), pos.getLongitude(),
             altimeter != null ? altimeter.getValue().getData() : pos.getAltitude());
     }
@@ -325,6 +511,35 @@ public class TaskExecutionServiceImpl implements TaskExecutionService
         task.setSensorValues(sensorValues);
     }
 
+    /**
+     * Write the execution progress of a task. The task registry hands out copies of its tasks, hence the progress is
+     * transferred to the instance of the task in the current session.
+     * 
+     * @param session the current Hibernate session.
+     * @param task the task.
+     */
+    private static void store(Session session, Task task)
+    {
+        Task persistent = session.get(Task.class, task.getId());
+
+        if (persistent == null)
+        {
+            LOG.warn("Can not store progress of vanished task {}", task);
+            return;
+        }
+
+        persistent.setTaskState(task.getTaskState());
+        persistent.setOrder(task.getOrder());
+        persistent.setDistanceToTarget(task.getDistanceToTarget());
+        persistent.setExecutionStart(task.getExecutionStart());
+        persistent.setExecutionEnd(task.getExecutionEnd());
+
+        if (task.getTaskState() == TaskState.EXECUTED)
+        {
+            persistent.setSensorValues(task.getSensorValues());
+        }
+    }
+
     /**
      * @param task the completed task.
      */
@@ -0,0 +1,77 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.List;
+
+import cpcc.vvrte.entities.Task;
+
+/**
+ * Task registry interface. The registry keeps all incomplete tasks in memory and is the runtime source of truth for
+ * task scheduling. Changes of the task state and order are written back to the database in the background. The
+ * registry hands out copies of its tasks, so changes take effect only via {@link #update(Task)}.
+ */
+public interface TaskRegistry extends TaskCompletionListener
+{
+    /**
+     * @return the currently pending tasks ordered by creation time.
+     */
+    List<Task> getPendingTasks();
+
+    /**
+     * @return the tasks currently scheduled for execution in order.
+     */
+    List<Task> getScheduledTasks();
+
+    /**
+     * @return the task the execution service currently processes or null.
+     */
+    Task getCurrentRunningTask();
+
+    /**
+     * @return the number of incomplete tasks.
+     */
+    long countAllIncompleteTasks();
+
+    /**
+     * Add a task when the current transaction commits.
+     * 
+     * @param task the newly persisted task to add.
+     */
+    void addTask(Task task);
+
+    /**
+     * Record a change of the task state or order. The change is written back on the next flush.
+     * 
+     * @param task the changed task.
+     */
+    void update(Task task);
+
+    /**
+     * Remove the tasks of a Virtual Vehicle when the current transaction commits.
+     * 
+     * @param vehicleId the identification of the Virtual Vehicle whose tasks are to be removed.
+     */
+    void removeTasksOfVirtualVehicle(Integer vehicleId);
+
+    /**
+     * Write all pending task state and order changes to the database.
+     */
+    void flush();
+}
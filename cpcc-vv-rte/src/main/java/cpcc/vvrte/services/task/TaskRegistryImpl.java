@@ -0,0 +1,471 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cpcc.vvrte.entities.Task;
+import cpcc.vvrte.entities.TaskState;
+import cpcc.vvrte.services.db.TaskRepository;
+
+/**
+ * Task registry implementation. The registry loads the incomplete tasks from the database on first use. Afterwards,
+ * it keeps track of the state and order of each task as last written to the database and flushes only the tasks that
+ * have changed since. Tasks are added and removed when the transaction of the caller commits, so that an aborted
+ * transaction leaves the registry unchanged.
+ * <p>
+ * The registry keeps detached snapshots of the tasks and hands out copies of them. Hence, no task instance is shared
+ * between threads or Hibernate sessions, and callers apply their changes via {@link #update(Task)}.
+ */
+public class TaskRegistryImpl implements TaskRegistry
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TaskRegistryImpl.class);
+
+    private static final List<TaskState> ACTIVE_STATES =
+        Arrays.asList(TaskState.PENDING, TaskState.SCHEDULED, TaskState.RUNNING);
+
+    private static final String UPDATE_TASK = "UPDATE Task t SET t.taskState = :taskState, t.order = :taskOrder "
+        + "WHERE t.id = :id AND t.taskState IN (:activeStates)";
+
+    private TaskRepository taskRepository;
+    private HibernateSessionManager sessionManager;
+    private PerthreadManager perthreadManager;
+    private Map<Integer, Entry> entries = new LinkedHashMap<>();
+    private Set<Integer> dirty = new LinkedHashSet<>();
+    private boolean loaded = false;
+
+    /**
+     * @param taskRepository the task repository.
+     * @param sessionManager the Hibernate session manager.
+     * @param perthreadManager the per-thread manager.
+     */
+    public TaskRegistryImpl(TaskRepository taskRepository, HibernateSessionManager sessionManager,
+        PerthreadManager perthreadManager)
+    {
+        this.taskRepository = taskRepository;
+        this.sessionManager = sessionManager;
+        this.perthreadManager = perthreadManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<Task> getPendingTasks()
+    {
+        return findTasks(TaskState.PENDING, Comparator.comparing(Task::getCreationTime));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<Task> getScheduledTasks()
+    {
+        return findTasks(TaskState.SCHEDULED, Comparator.comparingInt(Task::getOrder));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Task getCurrentRunningTask()
+    {
+        load();
+
+        return entries.values().stream()
+            .filter(entry -> entry.state == TaskState.RUNNING)
+            .findFirst()
+            .map(Entry::copy)
+            .orElse(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long countAllIncompleteTasks()
+    {
+        load();
+        return entries.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addTask(Task task)
+    {
+        afterCommit(() -> add(task));
+    }
+
+    /**
+     * @param task the task to add.
+     */
+    private synchronized void add(Task task)
+    {
+        if (task.getId() == null)
+        {
+            LOG.warn("Ignoring task without identification: {}", task);
+            return;
+        }
+
+        load();
+        entries.put(task.getId(), new Entry(task));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void update(Task task)
+    {
+        load();
+
+        if (!ACTIVE_STATES.contains(task.getTaskState()))
+        {
+            remove(task.getId());
+            return;
+        }
+
+        Entry entry = entries.get(task.getId());
+        if (entry == null)
+        {
+            entry = new Entry(task);
+            entry.flushedState = null;
+            entries.put(task.getId(), entry);
+        }
+
+        entry.state = task.getTaskState();
+        entry.order = task.getOrder();
+
+        if (entry.isChanged())
+        {
+            dirty.add(task.getId());
+        }
+        else
+        {
+            dirty.remove(task.getId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void notify(Task task)
+    {
+        remove(task.getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeTasksOfVirtualVehicle(Integer vehicleId)
+    {
+        afterCommit(() -> removeTasks(vehicleId));
+    }
+
+    /**
+     * @param vehicleId the identification of the Virtual Vehicle whose tasks are to be removed.
+     */
+    private synchronized void removeTasks(Integer vehicleId)
+    {
+        List<Integer> ids = entries.values().stream()
+            .map(entry -> entry.task)
+            .filter(task -> task.getVehicle() != null && vehicleId.equals(task.getVehicle().getId()))
+            .map(Task::getId)
+            .collect(Collectors.toList());
+
+        ids.stream().forEach(this::remove);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush()
+    {
+        List<Change> changes = snapshotChanges();
+
+        if (changes.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            Session session = sessionManager.getSession();
+            List<Change> flushed = new ArrayList<>();
+
+            for (Change change : changes)
+            {
+                int count = session.createQuery(UPDATE_TASK)
+                    .setParameter("taskState", change.state)
+                    .setParameter("taskOrder", change.order)
+                    .setParameter("id", change.id)
+                    .setParameterList("activeStates", ACTIVE_STATES)
+                    .executeUpdate();
+
+                if (count > 0)
+                {
+                    flushed.add(change);
+                }
+            }
+
+            sessionManager.commit();
+            markFlushed(flushed);
+
+            LOG.debug("Flushed {} of {} changed tasks.", flushed.size(), changes.size());
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Can not flush task registry.", e);
+            sessionManager.abort();
+        }
+        finally
+        {
+            perthreadManager.cleanup();
+        }
+    }
+
+    /**
+     * Apply a change when the current transaction commits, or at once if there is no transaction.
+     * 
+     * @param change the change to apply.
+     */
+    private void afterCommit(Runnable change)
+    {
+        Transaction transaction = sessionManager.getSession().getTransaction();
+
+        if (transaction == null || !transaction.isActive())
+        {
+            change.run();
+            return;
+        }
+
+        transaction.registerSynchronization(new Synchronization()
+        {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void beforeCompletion()
+            {
+                // Intentionally empty.
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void afterCompletion(int status)
+            {
+                if (status == Status.STATUS_COMMITTED)
+                {
+                    change.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return a copy of the state and order of all changed tasks.
+     */
+    private synchronized List<Change> snapshotChanges()
+    {
+        return dirty.stream()
+            .map(entries::get)
+            .map(entry -> new Change(entry.task.getId(), entry.state, entry.order))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param flushed the flushed task states and orders.
+     */
+    private synchronized void markFlushed(List<Change> flushed)
+    {
+        for (Change change : flushed)
+        {
+            Entry entry = entries.get(change.id);
+            if (entry == null)
+            {
+                continue;
+            }
+
+            entry.flushedState = change.state;
+            entry.flushedOrder = change.order;
+
+            if (!entry.isChanged())
+            {
+                dirty.remove(change.id);
+            }
+        }
+    }
+
+    /**
+     * @param state the task state.
+     * @param comparator the comparator defining the task order.
+     * @return copies of the tasks in the given state.
+     */
+    private List<Task> findTasks(TaskState state, Comparator<Task> comparator)
+    {
+        load();
+
+        return entries.values().stream()
+            .filter(entry -> entry.state == state)
+            .map(Entry::copy)
+            .sorted(comparator)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param id the identification of the task to remove.
+     */
+    private void remove(Integer id)
+    {
+        entries.remove(id);
+        dirty.remove(id);
+    }
+
+    /**
+     * Load the incomplete tasks from the database, if not done already.
+     */
+    private void load()
+    {
+        if (loaded)
+        {
+            return;
+        }
+
+        for (Task task : taskRepository.findAllIncompleteTasks())
+        {
+            entries.put(task.getId(), new Entry(task));
+        }
+
+        loaded = true;
+        LOG.info("Loaded {} incomplete tasks.", entries.size());
+    }
+
+    /**
+     * A registered task together with its current state and order and the state and order last written to the
+     * database.
+     */
+    private static class Entry
+    {
+        private final Task task;
+        private TaskState state;
+        private int order;
+        private TaskState flushedState;
+        private int flushedOrder;
+
+        /**
+         * @param task the task as currently persisted.
+         */
+        Entry(Task task)
+        {
+            this.task = copyOf(task);
+            this.state = task.getTaskState();
+            this.order = task.getOrder();
+            this.flushedState = state;
+            this.flushedOrder = order;
+        }
+
+        /**
+         * @return a copy of the task in its current state and order.
+         */
+        Task copy()
+        {
+            Task copy = copyOf(task);
+            copy.setTaskState(state);
+            copy.setOrder(order);
+            return copy;
+        }
+
+        /**
+         * @return true if the state or order of the task differs from the database.
+         */
+        boolean isChanged()
+        {
+            return state != flushedState || order != flushedOrder;
+        }
+
+        /**
+         * @param task the task to copy.
+         * @return a detached copy of the task, which holds its sensors in a list of its own.
+         */
+        private static Task copyOf(Task task)
+        {
+            Task copy = new Task();
+            copy.setId(task.getId());
+            copy.setPosition(task.getPosition());
+            copy.setTaskState(task.getTaskState());
+            copy.setOrder(task.getOrder());
+            copy.setTolerance(task.getTolerance());
+            copy.setDistanceToTarget(task.getDistanceToTarget());
+            copy.setCreationTime(task.getCreationTime());
+            copy.setExecutionStart(task.getExecutionStart());
+            copy.setExecutionEnd(task.getExecutionEnd());
+            copy.getSensors().addAll(task.getSensors());
+            copy.setVehicle(task.getVehicle());
+            return copy;
+        }
+    }
+
+    /**
+     * The state and order of a task to be written to the database.
+     */
+    private static class Change
+    {
+        private final int id;
+        private final TaskState state;
+        private final int order;
+
+        /**
+         * @param id the task identification.
+         * @param state the task state.
+         * @param order the task order.
+         */
+        Change(int id, TaskState state, int order)
+        {
+            this.id = id;
+            this.state = state;
+            this.order = order;
+        }
+    }
+}
@@ -23,16 +23,13 @@ import java.util.List;
 
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.apache.tapestry5.ioc.annotations.Symbol;
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cpcc.core.entities.PolarCoordinate;
-import cpcc.core.utils.UpdateConsumer;
 import cpcc.vvrte.base.VvRteConstants;
 import cpcc.vvrte.entities.Task;
 import cpcc.vvrte.entities.TaskState;
-import cpcc.vvrte.services.db.TaskRepository;
 
 /**
  * Task Scheduler Service Implementation.
@@ -42,20 +39,18 @@ public class TaskSchedulerServiceImpl implements TaskSchedulerService
     private static final Logger LOG = LoggerFactory.getLogger(TaskSchedulerServiceImpl.class);
 
     private TaskSchedulingAlgorithm algorithm = null;
-    private Session session;
-    private TaskRepository taskRepository;
+    private TaskRegistry taskRegistry;
     private ServiceResources serviceResources;
 
     /**
      * @param scheduler the task scheduling algorithm.
-     * @param session the database session.
-     * @param taskRepository the task repository.
+     * @param taskRegistry the task registry.
+     * @param serviceResources the service resources.
      */
-    public TaskSchedulerServiceImpl(@Symbol(VvRteConstants.PROP_SCHEDULER_CLASS_NAME) String scheduler, Session session,
-        TaskRepository taskRepository, ServiceResources serviceResources)
+    public TaskSchedulerServiceImpl(@Symbol(VvRteConstants.PROP_SCHEDULER_CLASS_NAME) String scheduler,
+        TaskRegistry taskRegistry, ServiceResources serviceResources)
     {
-        this.session = session;
-        this.taskRepository = taskRepository;
+        this.taskRegistry = taskRegistry;
         this.serviceResources = serviceResources;
 
         try
@@ -80,14 +75,14 @@ public class TaskSchedulerServiceImpl implements TaskSchedulerService
             return null;
         }
 
-        Task currentRunningTask = taskRepository.getCurrentRunningTask();
+        Task currentRunningTask = taskRegistry.getCurrentRunningTask();
         if (currentRunningTask != null)
         {
             return currentRunningTask;
         }
 
-        List<Task> scheduledTasks = new ArrayList<>(taskRepository.getScheduledTasks());
-        List<Task> pendingTasks = new ArrayList<>(taskRepository.getPendingTasks());
+        List<Task> scheduledTasks = new ArrayList<>(taskRegistry.getScheduledTasks());
+        List<Task> pendingTasks = new ArrayList<>(taskRegistry.getPendingTasks());
 
         if (!pendingTasks.isEmpty() && algorithm.schedule(position, depotPositions, scheduledTasks, pendingTasks))
         {
@@ -107,7 +102,7 @@ public class TaskSchedulerServiceImpl implements TaskSchedulerService
         currentRunningTask = scheduledTasks.get(0);
         currentRunningTask.setOrder(0);
         currentRunningTask.setTaskState(TaskState.RUNNING);
-        scheduledTasks.stream().forEach(new UpdateConsumer<>(session));
+        scheduledTasks.stream().forEach(taskRegistry::update);
         return currentRunningTask;
     }
 
@@ -73,7 +73,7 @@ VV.task.execute = function(taskParams, callback)
 		valid : false,
 		repeat : true,
 		sensorValues : [],
-		vehicleUUID : '%vehicleUUID%',
+		vehicleUUID : vvRteVehicleUUID,
 	};
 
 	while (helper.repeat)
@@ -0,0 +1,62 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.entities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class VirtualVehicleStorageBlobTest
+{
+    private VirtualVehicleStorageBlob sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        sut = new VirtualVehicleStorageBlob();
+    }
+
+    static Stream<Arguments> valuesDataProvider()
+    {
+        return Stream.of(
+            arguments("0123", new byte[]{1, 2, 3}, new Date(1000)),
+            arguments("4567", new byte[0], new Date(2000)),
+            arguments("89ab", null, null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("valuesDataProvider")
+    void shouldSetAndGetValues(String contentHash, byte[] content, Date lastUsed)
+    {
+        sut.setContentHash(contentHash);
+        sut.setContent(content);
+        sut.setLastUsed(lastUsed);
+
+        assertThat(sut.getContentHash()).isEqualTo(contentHash);
+        assertThat(sut.getContent()).isEqualTo(content);
+        assertThat(sut.getLastUsed()).isEqualTo(lastUsed);
+    }
+}
@@ -22,11 +22,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.stream.Stream;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
 import org.hibernate.internal.util.SerializationHelper;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -125,4 +131,60 @@ class VirtualVehicleStorageTest
 
         assertThat(actual).isNotNull().isEqualTo(required);
     }
+
+    @ParameterizedTest
+    @MethodSource("valuesDataProvider")
+    void shouldHashContent(Integer id, VirtualVehicle virtualVehicle, String name, ScriptableObject content)
+    {
+        byte[] required = SerializationHelper.serialize(content);
+
+        sut.setContent(content);
+
+        assertThat(sut.getContentHash()).isNotNull().isEqualTo(DigestUtils.sha256Hex(required));
+
+        sut.setContentAsByteArray(new byte[]{1, 2, 3});
+
+        assertThat(sut.getContentHash()).isEqualTo(DigestUtils.sha256Hex(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void shouldNotHashMissingContent()
+    {
+        sut.setContentAsByteArray(null);
+
+        assertThat(sut.getContentHash()).isNull();
+        assertThat(sut.getContentAsStream()).isNull();
+        assertThat(sut.getContentLength()).isZero();
+    }
+
+    @Test
+    void shouldSetAndGetContentAsStream() throws IOException
+    {
+        byte[] content = {1, 2, 3, 4};
+
+        sut.setContentAsStream(new ByteArrayInputStream(content), content.length, "0123");
+
+        assertThat(sut.getContentHash()).isEqualTo("0123");
+        assertThat(sut.getContentLength()).isEqualTo(4L);
+
+        try (InputStream stream = sut.getContentAsStream())
+        {
+            assertThat(IOUtils.toByteArray(stream)).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void shouldStreamContentSetAsByteArray() throws IOException
+    {
+        sut.setContentAsByteArray(new byte[]{5, 6, 7});
+
+        assertThat(sut.getContentLength()).isEqualTo(3L);
+
+        try (InputStream stream = sut.getContentAsStream())
+        {
+            assertThat(IOUtils.toByteArray(stream)).isEqualTo(new byte[]{5, 6, 7});
+        }
+
+        assertThat(sut.getContentAsByteArray()).isEqualTo(new byte[]{5, 6, 7});
+    }
 }
@@ -8,6 +8,7 @@ import java.util.Date;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -266,4 +267,12 @@ class VirtualVehicleTest
         assertThat(sut.getTask()).isEqualTo(task);
         assertThat(sut.isSelected()).isEqualTo(selected);
     }
+
+    @Test
+    void shouldStoreAndRetrieveChunkName()
+    {
+        sut.setChunkName("storage/storage3");
+
+        assertThat(sut.getChunkName()).isEqualTo("storage/storage3");
+    }
 }
\ No newline at end of file
@@ -37,6 +37,7 @@ import cpcc.core.services.opts.Token;
 import cpcc.ros.base.AbstractRosAdapter;
 import cpcc.vvrte.services.db.VvRteRepository;
 import cpcc.vvrte.services.task.TaskAnalyzer;
+import cpcc.vvrte.services.task.TaskRegistry;
 import cpcc.vvrte.utils.JavaScriptUtils;
 
 class BuiltInFunctionsTest
@@ -50,6 +51,7 @@ class BuiltInFunctionsTest
     private VvRteRepository vvRteRepo;
     private QueryManager qm;
     private HibernateSessionManager sessionManager;
+    private TaskRegistry taskRegistry;
     private List<SensorDefinition> activeSensors;
     private List<SensorDefinition> visibleSensors;
     private SensorDefinition sensor1;
@@ -138,7 +140,9 @@ class BuiltInFunctionsTest
 
         sessionManager = mock(HibernateSessionManager.class);
 
-        sut = new BuiltInFunctionsImpl(opts, mapper, taskAnalyzer, vvRteRepo, qm, sessionManager);
+        taskRegistry = mock(TaskRegistry.class);
+
+        sut = new BuiltInFunctionsImpl(opts, mapper, taskAnalyzer, vvRteRepo, qm, sessionManager, taskRegistry);
     }
 
     @Test
@@ -0,0 +1,137 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import cpcc.core.entities.RealVehicle;
+
+class MigrationChunkSizerTest
+{
+    private static final long MIN_BYTES = 1000L;
+    private static final long MAX_BYTES = 1000000L;
+
+    private RealVehicle rv1;
+    private RealVehicle rv2;
+    private MigrationChunkSizerImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        rv1 = mock(RealVehicle.class);
+        when(rv1.getName()).thenReturn("rv1");
+
+        rv2 = mock(RealVehicle.class);
+        when(rv2.getName()).thenReturn("rv2");
+
+        sut = new MigrationChunkSizerImpl(MIN_BYTES, MAX_BYTES, 2000L);
+    }
+
+    /**
+     * Transfer chunks of the current budget size over a link.
+     * 
+     * @param rtt the round trip time of the link in seconds.
+     * @param throughput the throughput of the link in bytes per second.
+     * @param transfers the number of chunks to transfer.
+     */
+    private void transfer(double rtt, double throughput, int transfers)
+    {
+        for (int k = 0; k < transfers; ++k)
+        {
+            long bytes = sut.getChunkBudget(rv1);
+            sut.recordTransfer(rv1, bytes, (long) ((rtt + bytes / throughput) * 1.0E9));
+        }
+    }
+
+    @Test
+    void shouldStartWithMinimumBudget()
+    {
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(MIN_BYTES);
+        assertThat(sut.getChunkBudget(rv2)).isEqualTo(MIN_BYTES);
+    }
+
+    @Test
+    void shouldAtMostDoubleBudgetPerTransfer()
+    {
+        transfer(0.0, 1.0E9, 1);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(2 * MIN_BYTES);
+
+        transfer(0.0, 1.0E9, 1);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(4 * MIN_BYTES);
+
+        transfer(0.0, 1.0E9, 20);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(MAX_BYTES);
+        assertThat(sut.getChunkBudget(rv2)).isEqualTo(MIN_BYTES);
+    }
+
+    static Stream<Arguments> linkDataProvider()
+    {
+        return Stream.of(
+            arguments(0.1, 100000.0, 190000L),
+            arguments(0.5, 200000.0, 400000L),
+            arguments(1.0, 100000.0, 400000L),
+            arguments(0.01, 20000.0, 39800L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("linkDataProvider")
+    void shouldAdaptBudgetToLink(double rtt, double throughput, long expected)
+    {
+        transfer(rtt, throughput, 30);
+
+        assertThat(sut.getChunkBudget(rv1)).isCloseTo(expected, within(expected / 100));
+    }
+
+    @Test
+    void shouldHalveBudgetOnFailure()
+    {
+        transfer(0.0, 1.0E9, 3);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(8 * MIN_BYTES);
+
+        sut.recordFailure(rv1);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(4 * MIN_BYTES);
+
+        sut.recordFailure(rv1);
+        sut.recordFailure(rv1);
+        sut.recordFailure(rv1);
+        assertThat(sut.getChunkBudget(rv1)).isEqualTo(MIN_BYTES);
+    }
+
+    @Test
+    void shouldShrinkBudgetOnSlowerLink()
+    {
+        transfer(0.1, 100000.0, 30);
+        assertThat(sut.getChunkBudget(rv1)).isCloseTo(190000L, within(1900L));
+
+        transfer(0.1, 10000.0, 30);
+        assertThat(sut.getChunkBudget(rv1)).isCloseTo(19000L, within(190L));
+    }
+}
@@ -0,0 +1,84 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MigrationReceiveWindowTest
+ */
+class MigrationReceiveWindowTest
+{
+    private MigrationReceiveWindow sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        sut = new MigrationReceiveWindow();
+    }
+
+    @Test
+    void shouldAcknowledgeChunksReceivedInSequence()
+    {
+        assertThat(sut.advance(-1, null, 0, "storage/a", false)).isEqualTo(Pair.of(0, "storage/a"));
+        assertThat(sut.advance(0, "storage/a", 1, "storage/b", false)).isEqualTo(Pair.of(1, "storage/b"));
+        assertThat(sut.getPendingChunkCount()).isZero();
+        assertThat(sut.isCompleted(1)).isFalse();
+    }
+
+    @Test
+    void shouldHoldOutOfOrderChunksUntilTheirPredecessorsArrive()
+    {
+        assertThat(sut.advance(-1, null, 2, "storage/c", false)).isEqualTo(Pair.of(-1, null));
+        assertThat(sut.advance(-1, null, 1, "storage/b", false)).isEqualTo(Pair.of(-1, null));
+        assertThat(sut.getPendingChunkCount()).isEqualTo(2);
+
+        assertThat(sut.advance(-1, null, 0, "storage/a", false)).isEqualTo(Pair.of(2, "storage/c"));
+        assertThat(sut.getPendingChunkCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepStorageNameOfChunksWithoutStorageEntries()
+    {
+        assertThat(sut.advance(-1, null, 1, null, false)).isEqualTo(Pair.of(-1, null));
+        assertThat(sut.advance(-1, null, 0, "storage/a", false)).isEqualTo(Pair.of(1, "storage/a"));
+    }
+
+    @Test
+    void shouldIgnoreChunksReceivedAgain()
+    {
+        assertThat(sut.advance(-1, null, 0, "storage/a", false)).isEqualTo(Pair.of(0, "storage/a"));
+        assertThat(sut.advance(0, "storage/a", 0, "storage/a", false)).isEqualTo(Pair.of(0, "storage/a"));
+        assertThat(sut.getPendingChunkCount()).isZero();
+    }
+
+    @Test
+    void shouldCompleteAfterLastChunkReceivedOutOfOrder()
+    {
+        assertThat(sut.advance(-1, null, 1, "storage/b", true)).isEqualTo(Pair.of(-1, null));
+        assertThat(sut.isCompleted(-1)).isFalse();
+
+        assertThat(sut.advance(-1, null, 0, "storage/a", false)).isEqualTo(Pair.of(1, "storage/b"));
+        assertThat(sut.isCompleted(1)).isTrue();
+    }
+}
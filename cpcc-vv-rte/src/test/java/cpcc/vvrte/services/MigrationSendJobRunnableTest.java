@@ -0,0 +1,232 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static com.googlecode.catchexception.CatchException.catchException;
+import static com.googlecode.catchexception.CatchException.caughtException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.ServiceResources;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.com.services.CommunicationResponse;
+import cpcc.com.services.CommunicationResponse.Status;
+import cpcc.com.services.CommunicationService;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.services.jobs.TimeService;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.entities.VirtualVehicleState;
+import cpcc.vvrte.services.db.VvRteRepository;
+
+/**
+ * MigrationSendJobRunnableTest
+ */
+class MigrationSendJobRunnableTest
+{
+    private ServiceResources serviceResources;
+    private CommunicationService com;
+    private VirtualVehicle vehicle;
+    private List<CompletableFuture<CommunicationResponse>> transfers;
+    private MigrationWindows windows;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        vehicle = new VirtualVehicle();
+        vehicle.setId(1);
+        vehicle.setUuid(UUID.randomUUID().toString());
+        vehicle.setName("vv1");
+        vehicle.setState(VirtualVehicleState.FINISHED);
+        vehicle.setMigrationSource(mock(RealVehicle.class));
+        vehicle.setMigrationDestination(mock(RealVehicle.class));
+
+        VvRteRepository vvRepository = mock(VvRteRepository.class);
+        when(vvRepository.findVirtualVehicleById(1)).thenReturn(vehicle);
+        when(vvRepository.findVirtualVehicleByUUID(vehicle.getUuid())).thenReturn(vehicle);
+
+        CommunicationResponse notOk = new CommunicationResponse();
+        notOk.setStatus(Status.NOT_OK);
+        notOk.setContent(new byte[0]);
+
+        transfers = Collections.synchronizedList(new ArrayList<>());
+
+        com = mock(CommunicationService.class);
+        when(com.transferAsync(any(RealVehicle.class), anyString(), any(byte[].class)))
+            .thenReturn(CompletableFuture.completedFuture(notOk));
+        when(com.transferAsync(any(RealVehicle.class), anyString(), any(InputStream.class))).thenAnswer(invocation -> {
+            CompletableFuture<CommunicationResponse> transfer = new CompletableFuture<>();
+            transfers.add(transfer);
+            return transfer;
+        });
+
+        VirtualVehicleMigrator migrator = mock(VirtualVehicleMigrator.class);
+        when(migrator.getWindowSize()).thenReturn(3);
+        when(migrator.createManifest(any(VirtualVehicle.class))).thenReturn(new byte[0]);
+        doAnswer(invocation -> {
+            VirtualVehicle vv = invocation.getArgument(0);
+            vv.setChunkName("storage-" + invocation.getArgument(2));
+            invocation.getArgument(4, OutputStream.class).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(migrator).writeChunk(any(VirtualVehicle.class), any(), anyInt(), anyLong(), any(OutputStream.class));
+
+        MigrationChunkSizer chunkSizer = mock(MigrationChunkSizer.class);
+        when(chunkSizer.getChunkBudget(any(RealVehicle.class))).thenReturn(1000L);
+
+        MigrationChunkWriter chunkWriter = Runnable::run;
+        windows = new MigrationWindowsImpl();
+
+        HibernateSessionManager sessionManager = mock(HibernateSessionManager.class);
+        when(sessionManager.getSession()).thenReturn(mock(Session.class));
+
+        TimeService timeService = mock(TimeService.class);
+        when(timeService.newDate()).thenAnswer(invocation -> new Date());
+
+        serviceResources = mock(ServiceResources.class);
+        when(serviceResources.getService(VvRteRepository.class)).thenReturn(vvRepository);
+        when(serviceResources.getService(CommunicationService.class)).thenReturn(com);
+        when(serviceResources.getService(VirtualVehicleMigrator.class)).thenReturn(migrator);
+        when(serviceResources.getService(MigrationChunkSizer.class)).thenReturn(chunkSizer);
+        when(serviceResources.getService(MigrationChunkWriter.class)).thenReturn(chunkWriter);
+        when(serviceResources.getService(MigrationWindows.class)).thenReturn(windows);
+        when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(sessionManager);
+        when(serviceResources.getService(TimeService.class)).thenReturn(timeService);
+    }
+
+    @Test
+    void shouldKeepWindowOfChunksInFlight()
+    {
+        CompletableFuture<Void> migration =
+            new MigrationSendJobRunnable(serviceResources, Collections.singletonMap("id", "1"), null).start();
+
+        assertThat(transfers).hasSize(3);
+        assertThat(migration).isNotDone();
+        assertThat(vehicle.getState()).isEqualTo(VirtualVehicleState.MIGRATING_SND);
+        assertThat(vehicle.getChunkNumber()).isEqualTo(2);
+
+        String ack = "{\"uuid\":\"" + vehicle.getUuid() + "\",\"chunk\":1,\"name\":\"storage-1\"}";
+        CompletableFuture<Void> acknowledgement = new MigrationSendJobRunnable(serviceResources,
+            Collections.singletonMap("id", "0"), ack.getBytes(StandardCharsets.UTF_8)).start();
+
+        assertThat(acknowledgement).isDone();
+        assertThat(transfers).hasSize(5);
+        assertThat(migration).isNotDone();
+
+        CommunicationResponse ok = new CommunicationResponse();
+        ok.setStatus(Status.OK);
+        ok.setContent(new byte[0]);
+
+        new ArrayList<>(transfers).forEach(transfer -> transfer.complete(ok));
+
+        assertThat(migration).isDone();
+        assertThat(transfers).hasSize(5);
+        assertThat(vehicle.getChunkNumber()).isEqualTo(4);
+        assertThat(vehicle.getChunkName()).isEqualTo("storage-4");
+        assertThat(windows.enterSendWindow(vehicle.getUuid(), false, -1, null, 3)).isNotNull();
+    }
+
+    @Test
+    void shouldAdvanceWindowByCumulativeAcknowledgements()
+    {
+        CompletableFuture<Void> migration =
+            new MigrationSendJobRunnable(serviceResources, Collections.singletonMap("id", "1"), null).start();
+
+        assertThat(transfers).hasSize(3);
+
+        String ack2 = "{\"uuid\":\"" + vehicle.getUuid() + "\",\"chunk\":2,\"name\":\"storage-2\"}";
+        String ack1 = "{\"uuid\":\"" + vehicle.getUuid() + "\",\"chunk\":1,\"name\":\"storage-1\"}";
+
+        new MigrationSendJobRunnable(serviceResources, Collections.singletonMap("id", "0"),
+            ack2.getBytes(StandardCharsets.UTF_8)).start();
+
+        assertThat(transfers).hasSize(6);
+        assertThat(vehicle.getChunkNumber()).isEqualTo(5);
+
+        new MigrationSendJobRunnable(serviceResources, Collections.singletonMap("id", "0"),
+            ack1.getBytes(StandardCharsets.UTF_8)).start();
+
+        assertThat(transfers).hasSize(6);
+
+        CommunicationResponse ok = new CommunicationResponse();
+        ok.setStatus(Status.OK);
+        ok.setContent(new byte[0]);
+
+        new ArrayList<>(transfers).forEach(transfer -> transfer.complete(ok));
+
+        assertThat(migration).isDone();
+        assertThat(transfers).hasSize(6);
+        assertThat(vehicle.getChunkNumber()).isEqualTo(5);
+        assertThat(vehicle.getChunkName()).isEqualTo("storage-5");
+    }
+
+    @Test
+    void shouldFailMigrationOnTransferError()
+    {
+        MigrationSendJobRunnable sut =
+            new MigrationSendJobRunnable(serviceResources, Collections.singletonMap("id", "1"), null);
+        CompletableFuture<Void> migration = sut.start();
+
+        assertThat(transfers).hasSize(3);
+
+        CommunicationResponse ok = new CommunicationResponse();
+        ok.setStatus(Status.OK);
+        ok.setContent(new byte[0]);
+
+        transfers.get(0).complete(ok);
+        transfers.get(1).completeExceptionally(new IOException("link down"));
+
+        assertThat(migration).isNotDone();
+        assertThat(vehicle.getState()).isEqualTo(VirtualVehicleState.MIGRATION_INTERRUPTED_SND);
+
+        transfers.get(2).complete(ok);
+
+        assertThat(transfers).hasSize(3);
+        assertThat(migration).isCompletedExceptionally();
+        assertThat(sut.executionSucceeded()).isFalse();
+
+        catchException(() -> migration.join());
+
+        assertThat((Throwable) caughtException())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(IOException.class);
+
+        assertThat(windows.enterSendWindow(vehicle.getUuid(), false, -1, null, 3)).isNotNull();
+    }
+}
@@ -0,0 +1,120 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MigrationWindowsTest
+ */
+class MigrationWindowsTest
+{
+    private static final String UUID = "4f5c1d2e-0000-4000-8000-000000000001";
+
+    private MigrationWindowsImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        sut = new MigrationWindowsImpl();
+    }
+
+    @Test
+    void shouldLetOneJobDriveTheMigration()
+    {
+        MigrationSendWindow window = sut.enterSendWindow(UUID, false, -1, null, 3);
+
+        assertThat(window).isNotNull();
+        assertThat(sut.enterSendWindow(UUID, false, -1, null, 3)).isNull();
+        assertThat(sut.enterSendWindow("other", false, -1, null, 3)).isNotNull().isNotSameAs(window);
+    }
+
+    @Test
+    void shouldRecordLatestCumulativeAcknowledgement()
+    {
+        MigrationSendWindow window = sut.enterSendWindow(UUID, false, -1, null, 3);
+
+        assertThat(sut.enterSendWindow(UUID, true, 2, "storage/c", 3)).isNull();
+        assertThat(sut.enterSendWindow(UUID, true, 1, "storage/b", 3)).isNull();
+
+        assertThat(sut.takeAcknowledgement(UUID, window)).isEqualTo(Pair.of(2, "storage/c"));
+        assertThat(sut.takeAcknowledgement(UUID, window)).isNull();
+    }
+
+    @Test
+    void shouldDiscardSendWindowWhenNoAcknowledgementIsPending()
+    {
+        MigrationSendWindow window = sut.enterSendWindow(UUID, false, -1, null, 3);
+
+        assertThat(sut.takeAcknowledgement(UUID, window)).isNull();
+
+        MigrationSendWindow next = sut.enterSendWindow(UUID, true, 0, "storage/a", 3);
+        assertThat(next).isNotNull().isNotSameAs(window);
+    }
+
+    @Test
+    void shouldDiscardSendWindowAndHeldContentsOnFailure()
+    {
+        MigrationSendWindow window = sut.enterSendWindow(UUID, false, -1, null, 3);
+        sut.setHeldContentHashes(UUID, Collections.singleton("0123"));
+
+        sut.leaveSendWindow(UUID, window);
+
+        assertThat(sut.getHeldContentHashes(UUID)).isEmpty();
+        assertThat(sut.enterSendWindow(UUID, false, -1, null, 3)).isNotNull().isNotSameAs(window);
+    }
+
+    @Test
+    void shouldKeepAndClearHeldContentHashes()
+    {
+        assertThat(sut.getHeldContentHashes(UUID)).isEmpty();
+
+        sut.setHeldContentHashes(UUID, Collections.singleton("0123"));
+        assertThat(sut.getHeldContentHashes(UUID)).containsExactly("0123");
+
+        sut.setHeldContentHashes(UUID, Collections.emptySet());
+        assertThat(sut.getHeldContentHashes(UUID)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepReceiveWindowUntilRemoved()
+    {
+        sut.getReceiveLock().lock();
+        try
+        {
+            MigrationReceiveWindow window = sut.getReceiveWindow(UUID);
+
+            assertThat(sut.getReceiveWindow(UUID)).isSameAs(window);
+
+            sut.removeReceiveWindow(UUID);
+
+            assertThat(sut.getReceiveWindow(UUID)).isNotSameAs(window);
+        }
+        finally
+        {
+            sut.getReceiveLock().unlock();
+        }
+    }
+}
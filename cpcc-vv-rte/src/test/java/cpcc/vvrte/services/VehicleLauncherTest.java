@@ -21,6 +21,7 @@ package cpcc.vvrte.services;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -113,7 +114,6 @@ class VehicleLauncherTest
 
         final JavascriptWorker worker = mock(JavascriptWorker.class);
         when(worker.getApplicationState()).thenReturn(null);
-        worker.setName("Worker 01");
 
         doAnswer(new Answer<Object>()
         {
@@ -132,7 +132,17 @@ class VehicleLauncherTest
                 jobListener.notify(worker, VirtualVehicleState.RUNNING);
                 return null;
             }
-        }).when(worker).start();
+        }).when(worker).run();
+
+        VirtualVehicleScheduler scheduler = mock(VirtualVehicleScheduler.class);
+        doAnswer(new Answer<Object>()
+        {
+            public Object answer(InvocationOnMock invocation)
+            {
+                ((Runnable) invocation.getArgument(1)).run();
+                return null;
+            }
+        }).when(scheduler).submit(anyInt(), any(Runnable.class));
 
         session = mock(Session.class);
         sessionManager = mock(HibernateSessionManager.class);
@@ -165,6 +175,7 @@ class VehicleLauncherTest
         when(serviceResources.getService(Messages.class)).thenReturn(messages);
         when(serviceResources.getService(TaskRepository.class)).thenReturn(taskRepository);
         when(serviceResources.getService(JobService.class)).thenReturn(jobService);
+        when(serviceResources.getService(VirtualVehicleScheduler.class)).thenReturn(scheduler);
 
         launcher = new VirtualVehicleLauncherImpl(serviceResources);
     }
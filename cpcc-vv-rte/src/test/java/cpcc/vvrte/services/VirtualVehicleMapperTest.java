@@ -48,7 +48,9 @@ import cpcc.core.entities.SensorDefinition;
 import cpcc.core.entities.SensorType;
 import cpcc.core.entities.SensorVisibility;
 import cpcc.core.services.QueryManager;
+import cpcc.core.services.RealVehicleIndexImpl;
 import cpcc.core.services.RealVehicleRepository;
+import cpcc.core.services.jobs.TimeService;
 import cpcc.vvrte.base.VirtualVehicleMappingDecision;
 import cpcc.vvrte.entities.Task;
 
@@ -87,6 +89,7 @@ class VirtualVehicleMapperTest
     private QueryManager qm;
     private VirtualVehicleMapperImpl sut;
     private RealVehicleRepository realVehicleRepository;
+    private TimeService timeService;
 
     @BeforeEach
     void setUp() throws JsonParseException, JsonMappingException, IOException
@@ -96,23 +99,27 @@ class VirtualVehicleMapperTest
         SensorDefinition co2Sensor = buildCo2Sensor();
 
         gs01 = mock(RealVehicle.class);
+        when(gs01.getId()).thenReturn(1);
         when(gs01.toString()).thenReturn(GS_01);
         when(gs01.getName()).thenReturn(GS_01);
         when(gs01.getType()).thenReturn(RealVehicleType.GROUND_STATION);
 
         realVehicle1 = mock(RealVehicle.class);
+        when(realVehicle1.getId()).thenReturn(2);
         when(realVehicle1.toString()).thenReturn(REAL_VEHICLE_ONE_NAME);
         when(realVehicle1.getName()).thenReturn(REAL_VEHICLE_ONE_NAME);
         when(realVehicle1.getAreaOfOperation()).thenReturn(AREA_OF_OPERATION_RV1);
         when(realVehicle1.getSensors()).thenReturn(Arrays.asList(altimeter, barometer, co2Sensor));
 
         realVehicle2 = mock(RealVehicle.class);
+        when(realVehicle2.getId()).thenReturn(3);
         when(realVehicle2.toString()).thenReturn(REAL_VEHICLE_TWO_NAME);
         when(realVehicle2.getName()).thenReturn(REAL_VEHICLE_TWO_NAME);
         when(realVehicle2.getAreaOfOperation()).thenReturn(AREA_OF_OPERATION_RV2);
         when(realVehicle2.getSensors()).thenReturn(Arrays.asList(altimeter, barometer, co2Sensor));
 
         realVehicle3 = mock(RealVehicle.class);
+        when(realVehicle3.getId()).thenReturn(4);
         when(realVehicle3.toString()).thenReturn(REAL_VEHICLE_THREE_NAME);
         when(realVehicle3.getName()).thenReturn(REAL_VEHICLE_THREE_NAME);
         when(realVehicle3.getAreaOfOperation()).thenReturn(AREA_OF_OPERATION_RV2);
@@ -142,8 +149,14 @@ class VirtualVehicleMapperTest
         when(realVehicleRepository.findOwnRealVehicle()).thenReturn(realVehicle1);
         when(realVehicleRepository.findAllActiveRealVehiclesExceptOwn())
             .thenReturn(Arrays.asList(gs01, realVehicle2, realVehicle3));
+        when(realVehicleRepository.findAllActiveRealVehicles())
+            .thenReturn(Arrays.asList(gs01, realVehicle1, realVehicle2, realVehicle3));
+
+        timeService = mock(TimeService.class);
+        when(timeService.currentTimeMillis()).thenReturn(1000L);
 
-        sut = new VirtualVehicleMapperImpl(realVehicleRepository);
+        sut = new VirtualVehicleMapperImpl(realVehicleRepository,
+            new RealVehicleIndexImpl(realVehicleRepository, timeService));
     }
 
     static Stream<Arguments> tasksThatCauseMigrationDataProvider()
@@ -174,7 +187,7 @@ class VirtualVehicleMapperTest
 
         assertThat(decision).isNotNull();
         assertThat(decision.isMigration()).isTrue();
-        assertThat(decision.getRealVehicles()).containsExactly(gs01);
+        assertThat(decision.getRealVehicles()).extracting(RealVehicle::getId).containsExactly(gs01.getId());
     }
 
     static Stream<Arguments> tasksThatNotCauseMigrationDataProvider()
@@ -265,7 +278,7 @@ class VirtualVehicleMapperTest
 
         assertThat(decision).isNotNull();
         assertThat(decision.isMigration()).isTrue();
-        assertThat(decision.getRealVehicles()).containsExactly(gs01);
+        assertThat(decision.getRealVehicles()).extracting(RealVehicle::getId).containsExactly(gs01.getId());
     }
 
     static Stream<Arguments> tasksThatCauseMigrationBecauseOfPositionDataProvider()
@@ -303,7 +316,8 @@ class VirtualVehicleMapperTest
         assertThat(decision.getRealVehicles())
             .overridingErrorMessage("Expected migration to real vehicle %s", rvName2.getValue())
             .isNotNull()
-            .containsExactly(realVehicle2);
+            .extracting(RealVehicle::getId)
+            .containsExactly(realVehicle2.getId());
         assertThat(decision.getRealVehicles().get(0).getName()).isNotNull().isEqualTo(rvName2.getValue());
     }
 
@@ -313,7 +327,8 @@ class VirtualVehicleMapperTest
         RealVehicleRepository realVehicleRepository2 = mock(RealVehicleRepository.class);
         Task task = mock(Task.class);
 
-        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(realVehicleRepository2);
+        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(realVehicleRepository2,
+            new RealVehicleIndexImpl(realVehicleRepository2, timeService));
         localSut.findMappingDecision(task);
 
         verifyNoInteractions(task);
@@ -330,7 +345,8 @@ class VirtualVehicleMapperTest
 
         Task task = mock(Task.class);
 
-        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(realVehicleRepository2);
+        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(realVehicleRepository2,
+            new RealVehicleIndexImpl(realVehicleRepository2, timeService));
         VirtualVehicleMappingDecision actual = localSut.findMappingDecision(task);
 
         assertThat(actual.isMigration()).isTrue();
@@ -351,7 +367,8 @@ class VirtualVehicleMapperTest
 
         Task task = mock(Task.class);
 
-        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(rvRepo2);
+        VirtualVehicleMapperImpl localSut = new VirtualVehicleMapperImpl(rvRepo2,
+            new RealVehicleIndexImpl(rvRepo2, timeService));
         VirtualVehicleMappingDecision actual = localSut.findMappingDecision(task);
 
         assertThat(actual.isMigration()).isTrue();
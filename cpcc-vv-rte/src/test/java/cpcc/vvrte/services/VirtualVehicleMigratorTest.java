@@ -22,23 +22,33 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
@@ -47,9 +57,12 @@ import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
+import org.apache.tapestry5.json.JSONArray;
+import org.apache.tapestry5.json.JSONObject;
 import org.hibernate.Session;
 import org.hibernate.internal.util.SerializationHelper;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -66,6 +79,7 @@ import cpcc.core.entities.RealVehicle;
 import cpcc.core.services.RealVehicleRepository;
 import cpcc.core.services.jobs.JobService;
 import cpcc.core.services.jobs.TimeService;
+import cpcc.vvrte.base.VvRteConstants;
 import cpcc.vvrte.entities.VirtualVehicle;
 import cpcc.vvrte.entities.VirtualVehicleState;
 import cpcc.vvrte.entities.VirtualVehicleStorage;
@@ -93,6 +107,7 @@ class VirtualVehicleMigratorTest
     private int vvIds = 1000;
     private TimeService timeService;
     private RealVehicleRepository rvRepository;
+    private MigrationWindows windows;
 
     @BeforeEach
     void setUp() throws Exception
@@ -101,12 +116,27 @@ class VirtualVehicleMigratorTest
         jobService = mock(JobService.class);
         timeService = mock(TimeService.class);
         rvRepository = mock(RealVehicleRepository.class);
+        windows = new MigrationWindowsImpl();
 
         session = mock(Session.class);
         sessionManager = mock(HibernateSessionManager.class);
         when(sessionManager.getSession()).thenReturn(session);
 
         repo = mock(VvRteRepository.class);
+        when(repo.findStorageItemSizesByVirtualVehicle(anyInt(), anyString(), anyInt()))
+            .thenAnswer(invocation -> repo.findStorageItemsByVirtualVehicle(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2))
+                .stream()
+                .collect(Collectors.toMap(VirtualVehicleStorage::getName,
+                    x -> (long) x.getContentAsByteArray().length, (a, b) -> a, LinkedHashMap::new)));
+        when(repo.findStorageItemHashesByVirtualVehicle(anyInt(), anyString(), anyInt()))
+            .thenAnswer(invocation -> {
+                Map<String, String> hashes = new LinkedHashMap<>();
+                repo.findStorageItemsByVirtualVehicle(
+                    invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2))
+                    .forEach(x -> hashes.put(x.getName(), x.getContentHash()));
+                return hashes;
+            });
 
         setUpVv1();
         setUpVv2();
@@ -118,6 +148,8 @@ class VirtualVehicleMigratorTest
         com = mock(CommunicationService.class);
         when(com.transfer(any(RealVehicle.class), anyString(), any(byte[].class))).thenReturn(response);
         when(com.transfer(eq(null), anyString(), any(byte[].class))).thenReturn(response);
+        when(com.transferAsync(any(), anyString(), any(byte[].class)))
+            .thenReturn(CompletableFuture.completedFuture(response));
 
         //        serviceResources = mock(ServiceResources.class);
         //        when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(sessionManager);
@@ -136,8 +168,9 @@ class VirtualVehicleMigratorTest
         when(serviceResources.getService(TimeService.class)).thenReturn(timeService);
         when(serviceResources.getService(RealVehicleRepository.class)).thenReturn(rvRepository);
         when(serviceResources.getService(CommunicationService.class)).thenReturn(com);
+        when(serviceResources.getService(MigrationWindows.class)).thenReturn(windows);
 
-        sut = new VirtualVehicleMigratorImpl(serviceResources, 1000);
+        sut = new VirtualVehicleMigratorImpl(serviceResources, 1000, 4, 86400000L);
     }
 
     void setUpVv1()
@@ -177,7 +210,7 @@ class VirtualVehicleMigratorTest
         when(storage1.getModificationTime()).thenReturn(modificationTime1);
         when(storage1.getName()).thenReturn("storage1");
         when(storage1.getContent()).thenReturn(scriptableObject1);
-        when(storage1.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject1));
+        mockContent(storage1, SerializationHelper.serialize(scriptableObject1));
 
         ScriptableObject scriptableObject2 = new NativeObject();
         scriptableObject2.put("A", scriptableObject2, "A");
@@ -194,7 +227,7 @@ class VirtualVehicleMigratorTest
         when(storage2.getModificationTime()).thenReturn(modificationTime2);
         when(storage2.getName()).thenReturn("storage2");
         when(storage2.getContent()).thenReturn(scriptableObject2);
-        when(storage2.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject2));
+        mockContent(storage2, SerializationHelper.serialize(scriptableObject2));
 
         ScriptableObject scriptableObject3 = new NativeObject();
         scriptableObject3.put("f", scriptableObject3, "FFF");
@@ -209,7 +242,7 @@ class VirtualVehicleMigratorTest
         when(storage3.getModificationTime()).thenReturn(modificationTime3);
         when(storage3.getName()).thenReturn("storage3");
         when(storage3.getContent()).thenReturn(scriptableObject3);
-        when(storage3.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject3));
+        mockContent(storage3, SerializationHelper.serialize(scriptableObject3));
 
         ScriptableObject scriptableObject4 = null;
 
@@ -219,7 +252,7 @@ class VirtualVehicleMigratorTest
         when(storage4.getModificationTime()).thenReturn(modificationTime4);
         when(storage4.getName()).thenReturn("storage4");
         when(storage4.getContent()).thenReturn(scriptableObject4);
-        when(storage4.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject4));
+        mockContent(storage4, SerializationHelper.serialize(scriptableObject4));
 
         when(repo.findVirtualVehicleById(vv1.getId())).thenReturn(vv1);
         when(repo.findStorageItemsByVirtualVehicle(eq(vv1.getId()), eq((String) null), eq(1)))
@@ -287,7 +320,7 @@ class VirtualVehicleMigratorTest
         when(storage1.getModificationTime()).thenReturn(modificationTime1);
         when(storage1.getName()).thenReturn("storage1");
         when(storage1.getContent()).thenReturn(scriptableObject1);
-        when(storage1.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject1));
+        mockContent(storage1, SerializationHelper.serialize(scriptableObject1));
 
         ScriptableObject scriptableObject2 = new NativeObject();
         scriptableObject2.put("X", scriptableObject2, "Y");
@@ -302,7 +335,7 @@ class VirtualVehicleMigratorTest
         when(storage2.getModificationTime()).thenReturn(modificationTime2);
         when(storage2.getName()).thenReturn("storage2");
         when(storage2.getContent()).thenReturn(scriptableObject2);
-        when(storage2.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject2));
+        mockContent(storage2, SerializationHelper.serialize(scriptableObject2));
 
         ScriptableObject scriptableObject3 = new NativeObject();
         scriptableObject3.put("f", scriptableObject3, "FFF");
@@ -320,7 +353,7 @@ class VirtualVehicleMigratorTest
         when(storage3.getModificationTime()).thenReturn(modificationTime3);
         when(storage3.getName()).thenReturn("storage3");
         when(storage3.getContent()).thenReturn(scriptableObject3);
-        when(storage3.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject3));
+        mockContent(storage3, SerializationHelper.serialize(scriptableObject3));
 
         ScriptableObject scriptableObject4 = null;
 
@@ -330,7 +363,7 @@ class VirtualVehicleMigratorTest
         when(storage4.getModificationTime()).thenReturn(modificationTime4);
         when(storage4.getName()).thenReturn("storage4");
         when(storage4.getContent()).thenReturn(scriptableObject4);
-        when(storage4.getContentAsByteArray()).thenReturn(SerializationHelper.serialize(scriptableObject4));
+        mockContent(storage4, SerializationHelper.serialize(scriptableObject4));
 
         when(repo.findVirtualVehicleById(vv2.getId())).thenReturn(vv2);
         when(repo.findStorageItemsByVirtualVehicle(eq(vv2.getId()), eq((String) null), eq(1)))
@@ -411,6 +444,12 @@ class VirtualVehicleMigratorTest
                 else if (o instanceof VirtualVehicleStorage)
                 {
                     VirtualVehicleStorage s = (VirtualVehicleStorage) o;
+                    byte[] content = s.getContentAsByteArray();
+                    if (content != null)
+                    {
+                        // Read the content once, as flushing the session does.
+                        s.setContentAsStream(new ByteArrayInputStream(content), content.length, s.getContentHash());
+                    }
                     virtualVehicleStorageMap.put(s.getName(), s);
                 }
                 else
@@ -723,6 +762,13 @@ class VirtualVehicleMigratorTest
         os.closeArchiveEntry();
     }
 
+    private static void mockContent(VirtualVehicleStorage storage, byte[] content)
+    {
+        when(storage.getContentAsByteArray()).thenReturn(content);
+        when(storage.getContentAsStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        when(storage.getContentLength()).thenReturn((long) content.length);
+    }
+
     static Stream<Arguments> unknownEntryTypeDataProvider()
     {
         return Stream.of(
@@ -884,6 +930,8 @@ class VirtualVehicleMigratorTest
                             break;
                     }
 
+                    assertThat(storage.getContentHash())
+                        .isEqualTo(DigestUtils.sha256Hex(storage.getContentAsByteArray()));
                     assertThat(storage.getModificationTime()).isNotEqualTo(new Date(n * 1000));
                     assertThat(storage.getVirtualVehicle()).isEqualTo(vv);
                 }
@@ -1007,4 +1055,292 @@ class VirtualVehicleMigratorTest
             verifyChunk(params, factory, chunkNumber, chunk);
         }
     }
+
+    @Test
+    void shouldStoreChunkWhileReceivingIt() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        byte[] chunk = sut.findChunk(vv1, null, 0);
+
+        sut.queueChunk(new ByteArrayInputStream(chunk));
+
+        assertThat(virtualVehicleMap).containsKey(vv1.getUuid());
+        assertThat(virtualVehicleStorageMap).containsOnlyKeys("storage1", "storage2", "storage3", "storage4");
+        verify(jobService, never()).addJobIfNotExists(anyString(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    void shouldAcknowledgeChunkAsynchronously() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        byte[] chunk = sut.findChunk(vv1, null, 0);
+
+        sut.queueChunk(new ByteArrayInputStream(chunk));
+
+        verify(com).transferAsync(any(), eq(VvRteConstants.MIGRATION_ACK_CONNECTOR), any(byte[].class));
+        verify(com, never()).transfer(any(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    void shouldRejectEmptyChunk()
+    {
+        try
+        {
+            sut.queueChunk(new ByteArrayInputStream(new byte[0]));
+
+            failBecauseExceptionWasNotThrown(IOException.class);
+        }
+        catch (IOException e)
+        {
+            assertThat(e).hasMessage("No data!");
+        }
+
+        verify(sessionManager).abort();
+    }
+
+    static Stream<Arguments> byteBudgetDataProvider()
+    {
+        return Stream.of(
+            arguments(1L, new String[]{"storage/storage1"}, "storage/storage1"),
+            arguments(700L, new String[]{"storage/storage1"}, "storage/storage1"),
+            arguments(1600L, new String[]{"storage/storage1", "storage/storage2"}, "storage/storage2"),
+            arguments(Long.MAX_VALUE,
+                new String[]{"storage/storage1", "storage/storage2", "storage/storage3", "storage/storage4"},
+                "storage/storage4"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("byteBudgetDataProvider")
+    void shouldLimitChunkToByteBudget(long maxBytes, String[] expectedEntries, String expectedChunkName)
+        throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        sut.writeChunk(vv2, null, 1, maxBytes, baos);
+
+        List<String> names = new ArrayList<>();
+        ArchiveStreamFactory factory = new ArchiveStreamFactory("UTF-8");
+        try (ArchiveInputStream<TarArchiveEntry> inStream =
+            factory.createArchiveInputStream("tar", new ByteArrayInputStream(baos.toByteArray())))
+        {
+            for (TarArchiveEntry entry = readEntry(inStream); entry != null; entry = readEntry(inStream))
+            {
+                if (entry.getName().startsWith("storage/"))
+                {
+                    names.add(entry.getName());
+                }
+            }
+        }
+
+        assertThat(names).containsExactly(expectedEntries);
+        verify(vv2).setChunkName(expectedChunkName);
+        verify(vv2, never()).setState(VirtualVehicleState.MIGRATION_COMPLETED_SND);
+    }
+
+    @Test
+    void shouldWriteReferencesForHeldContents() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        VirtualVehicleStorage storage1 = repo.findStorageItemsByVirtualVehicle(VV_ID2, "", 1).get(0);
+        String hash1 = DigestUtils.sha256Hex(storage1.getContentAsByteArray());
+        when(storage1.getContentHash()).thenReturn(hash1);
+
+        windows.setHeldContentHashes(vv2.getUuid(), Collections.singleton(hash1));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        sut.writeChunk(vv2, null, 1, 1504L, baos);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        ArchiveStreamFactory factory = new ArchiveStreamFactory("UTF-8");
+        try (ArchiveInputStream<TarArchiveEntry> inStream =
+            factory.createArchiveInputStream("tar", new ByteArrayInputStream(baos.toByteArray())))
+        {
+            for (TarArchiveEntry entry = readEntry(inStream); entry != null; entry = readEntry(inStream))
+            {
+                if (entry.getName().startsWith("storage"))
+                {
+                    entries.put(entry.getName(), IOUtils.toByteArray(inStream));
+                }
+            }
+        }
+
+        assertThat(entries).containsOnlyKeys("storage-ref/storage1", "storage/storage2", "storage/storage3");
+        assertThat(new String(entries.get("storage-ref/storage1"), StandardCharsets.UTF_8)).isEqualTo(hash1);
+        verify(vv2).setChunkName("storage/storage3");
+    }
+
+    @Test
+    void shouldWriteContentsAfterHeldContentsHaveBeenCleared() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        VirtualVehicleStorage storage1 = repo.findStorageItemsByVirtualVehicle(VV_ID2, "", 1).get(0);
+        String hash1 = DigestUtils.sha256Hex(storage1.getContentAsByteArray());
+        when(storage1.getContentHash()).thenReturn(hash1);
+
+        windows.setHeldContentHashes(vv2.getUuid(), Collections.singleton(hash1));
+        windows.setHeldContentHashes(vv2.getUuid(), Collections.emptySet());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        sut.writeChunk(vv2, null, 1, 1504L, baos);
+
+        List<String> names = new ArrayList<>();
+        ArchiveStreamFactory factory = new ArchiveStreamFactory("UTF-8");
+        try (ArchiveInputStream<TarArchiveEntry> inStream =
+            factory.createArchiveInputStream("tar", new ByteArrayInputStream(baos.toByteArray())))
+        {
+            for (TarArchiveEntry entry = readEntry(inStream); entry != null; entry = readEntry(inStream))
+            {
+                if (entry.getName().startsWith("storage"))
+                {
+                    names.add(entry.getName());
+                }
+            }
+        }
+
+        assertThat(names).containsExactly("storage/storage1");
+        verify(repo, never()).findStorageItemHashesByVirtualVehicle(anyInt(), anyString(), anyInt());
+    }
+
+    @Test
+    void shouldStoreReferencedContents() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        VirtualVehicleStorage storage1 = repo.findStorageItemsByVirtualVehicle(VV_ID1, "", 1).get(0);
+        byte[] content1 = storage1.getContentAsByteArray();
+        String hash1 = DigestUtils.sha256Hex(content1);
+        when(storage1.getContentHash()).thenReturn(hash1);
+        when(repo.findContentByHash(hash1)).thenReturn(content1);
+
+        windows.setHeldContentHashes(vv1.getUuid(), Collections.singleton(hash1));
+        byte[] chunk = sut.findChunk(vv1, null, 0);
+
+        sut.queueChunk(new ByteArrayInputStream(chunk));
+
+        assertThat(virtualVehicleStorageMap).containsOnlyKeys("storage1", "storage2", "storage3", "storage4");
+        assertThat(virtualVehicleStorageMap.get("storage1").getContentAsByteArray()).isEqualTo(content1);
+        assertThat(virtualVehicleStorageMap.get("storage1").getContentHash()).isEqualTo(hash1);
+        verify(repo).findContentByHash(hash1);
+    }
+
+    @Test
+    void shouldRejectReferencesToUnknownContents() throws IOException, ArchiveException
+    {
+        sut.setChunkSize(4);
+
+        VirtualVehicleStorage storage1 = repo.findStorageItemsByVirtualVehicle(VV_ID1, "", 1).get(0);
+        when(storage1.getContentHash()).thenReturn("0123");
+
+        windows.setHeldContentHashes(vv1.getUuid(), Collections.singleton("0123"));
+        byte[] chunk = sut.findChunk(vv1, null, 0);
+
+        try
+        {
+            sut.queueChunk(new ByteArrayInputStream(chunk));
+
+            failBecauseExceptionWasNotThrown(IOException.class);
+        }
+        catch (IOException e)
+        {
+            assertThat(e).hasMessage("Unknown content hash 0123 of storage entry storage1");
+        }
+
+        verify(sessionManager).abort();
+    }
+
+    @Test
+    void shouldCreateManifestAndStoreMissingContentHashes()
+    {
+        sut.setChunkSize(4);
+
+        VirtualVehicleStorage storage1 = repo.findStorageItemsByVirtualVehicle(VV_ID2, "", 1).get(0);
+        when(storage1.getContentHash()).thenReturn("0123");
+
+        VirtualVehicleStorage storage2 = new VirtualVehicleStorage();
+        storage2.setName("storage2");
+        storage2.setContentAsByteArray(new byte[]{1, 2, 3});
+        when(repo.findStorageItemByVirtualVehicleAndName(vv2, "storage2")).thenReturn(storage2);
+
+        JSONObject manifest = new JSONObject(new String(sut.createManifest(vv2), StandardCharsets.UTF_8));
+
+        assertThat(manifest.getString("uuid")).isEqualTo(vv2.getUuid());
+        assertThat(manifest.getJSONArray("hashes"))
+            .containsExactly("0123", DigestUtils.sha256Hex(new byte[]{1, 2, 3}));
+        verify(session).saveOrUpdate(storage2);
+        verify(session).flush();
+    }
+
+    static Stream<Arguments> manifestDataProvider()
+    {
+        return Stream.of(
+            arguments(null, null, null, false),
+            arguments(VirtualVehicleState.MIGRATING_RCV, "meh!", 2, true),
+            arguments(VirtualVehicleState.MIGRATING_RCV, "meh!", -1, false),
+            arguments(VirtualVehicleState.MIGRATING_RCV, "other", 2, false),
+            arguments(VirtualVehicleState.MIGRATION_COMPLETED_RCV, "meh!", 2, false));
+    }
+
+    @ParameterizedTest
+    @MethodSource("manifestDataProvider")
+    void shouldAnswerManifest(VirtualVehicleState state, String source, Integer chunkNumber, boolean resume)
+        throws IOException
+    {
+        String uuid = "d6a3c3f0-9d5e-4cb4-8f4a-5f7c0b3f4a11";
+
+        if (state != null)
+        {
+            RealVehicle rv = mock(RealVehicle.class);
+            when(rv.getName()).thenReturn(source);
+
+            VirtualVehicle vv = mock(VirtualVehicle.class);
+            when(vv.getUuid()).thenReturn(uuid);
+            when(vv.getState()).thenReturn(state);
+            when(vv.getMigrationSource()).thenReturn(rv);
+            when(vv.getChunkNumber()).thenReturn(chunkNumber);
+            when(vv.getChunkName()).thenReturn("storage/storage2");
+            virtualVehicleMap.put(uuid, vv);
+        }
+
+        when(repo.findKnownContentHashes(anyCollection())).thenReturn(Collections.singleton("4567"));
+
+        JSONObject manifest = new JSONObject("uuid", uuid, "source", "meh!", "hashes", new JSONArray("0123", "4567"));
+
+        byte[] result = sut.answerManifest(new ByteArrayInputStream(
+            manifest.toCompactString().getBytes(StandardCharsets.UTF_8)));
+
+        JSONObject answer = new JSONObject(new String(result, StandardCharsets.UTF_8));
+
+        assertThat(answer.getString("uuid")).isEqualTo(uuid);
+        assertThat(answer.getJSONArray("hashes")).containsExactly("4567");
+        assertThat(answer.has("chunk")).isEqualTo(resume);
+
+        if (resume)
+        {
+            assertThat(answer.getInt("chunk")).isEqualTo(chunkNumber);
+            assertThat(answer.getString("name")).isEqualTo("storage/storage2");
+        }
+
+        verify(repo).findKnownContentHashes(Arrays.asList("0123", "4567"));
+        verify(repo).deleteStorageBlobsUnusedSince(any(Date.class));
+    }
+
+    @Test
+    void shouldRejectEmptyManifest()
+    {
+        try
+        {
+            sut.answerManifest(new ByteArrayInputStream(new byte[0]));
+
+            failBecauseExceptionWasNotThrown(IOException.class);
+        }
+        catch (IOException e)
+        {
+            assertThat(e).hasMessage("No data!");
+        }
+    }
 }
@@ -0,0 +1,174 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * VirtualVehicleSchedulerTest
+ */
+class VirtualVehicleSchedulerTest
+{
+    private RegistryShutdownHub shutdownHub;
+    private VirtualVehicleSchedulerImpl sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        shutdownHub = mock(RegistryShutdownHub.class);
+        sut = new VirtualVehicleSchedulerImpl(shutdownHub, 2, 10000L);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(shutdownHub, atLeastOnce()).addRegistryShutdownListener(captor.capture());
+        captor.getAllValues().forEach(Runnable::run);
+    }
+
+    @Test
+    void shouldBoundNumberOfRunningWorkers() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int k = 0; k < 4; ++k)
+        {
+            sut.submit(k, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                await(release);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sut.getRunning()).isEqualTo(2);
+        assertThat(sut.getQueueDepth()).isEqualTo(2);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldExecuteWorkersOfOneVehicleSequentiallyAndVehiclesRoundRobin() throws InterruptedException
+    {
+        sut = new VirtualVehicleSchedulerImpl(shutdownHub, 1, 10000L);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        sut.submit(99, () -> await(release));
+        sut.submit(1, () -> record(order, "1a", done));
+        sut.submit(1, () -> record(order, "1b", done));
+        sut.submit(1, () -> record(order, "1c", done));
+        sut.submit(2, () -> record(order, "2a", done));
+        sut.submit(3, () -> record(order, "3a", done));
+
+        assertThat(sut.getQueueDepth()).isEqualTo(5);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("1a", "2a", "3a", "1b", "1c");
+    }
+
+    @Test
+    void shouldTellLongRunningWorkers() throws InterruptedException
+    {
+        sut = new VirtualVehicleSchedulerImpl(shutdownHub, 1, 0L);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        sut.submit(1, () -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        });
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(5);
+
+        sut.submit(2, done::countDown);
+
+        assertThat(sut.getLongRunning()).isEqualTo(1);
+        assertThat(sut.getQueueDepth()).isEqualTo(1);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldSurviveFailingWorker() throws InterruptedException
+    {
+        CountDownLatch done = new CountDownLatch(1);
+
+        sut.submit(1, () -> {
+            throw new IllegalStateException("failing worker");
+        });
+        sut.submit(1, done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void record(List<String> order, String name, CountDownLatch done)
+    {
+        order.add(name);
+        done.countDown();
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.tapestry5.ioc.ServiceResources;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.Job;
+import cpcc.core.entities.RealVehicle;
+import cpcc.core.services.jobs.JobClass;
+import cpcc.vvrte.base.VvRteConstants;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.services.db.VvRteRepository;
+
+/**
+ * VvRteJobRunnableFactoryTest
+ */
+class VvRteJobRunnableFactoryTest
+{
+    private ServiceResources serviceResources;
+    private VvRteJobRunnableFactory sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        RealVehicle destination = new RealVehicle();
+        destination.setId(7);
+
+        VirtualVehicle vehicle = new VirtualVehicle();
+        vehicle.setId(1);
+        vehicle.setMigrationDestination(destination);
+
+        VvRteRepository vvRepository = mock(VvRteRepository.class);
+        when(vvRepository.findVirtualVehicleById(1)).thenReturn(vehicle);
+
+        serviceResources = mock(ServiceResources.class);
+        when(serviceResources.getService(VvRteRepository.class)).thenReturn(vvRepository);
+
+        sut = new VvRteJobRunnableFactory();
+    }
+
+    private static Job job(String parameters)
+    {
+        Job job = new Job();
+        job.setParameters(parameters);
+        return job;
+    }
+
+    @Test
+    void shouldCapMigrationsPerDestination()
+    {
+        JobClass actual = sut.classify(serviceResources, job(String.format(VvRteConstants.MIGRATION_FORMAT_SEND, 1)));
+
+        assertThat(actual.getType()).isEqualTo(VvRteConstants.MIGRATION_MODE_SEND);
+        assertThat(actual.getPriority()).isEqualTo(JobClass.DEFAULT_PRIORITY);
+        assertThat(actual.getDestination()).isEqualTo("rv=7");
+    }
+
+    @Test
+    void shouldExemptContinuationsFromDestinationCap()
+    {
+        JobClass actual = sut.classify(serviceResources, job(VvRteConstants.MIGRATION_CONTINUE));
+
+        assertThat(actual.getPriority()).isGreaterThan(JobClass.DEFAULT_PRIORITY);
+        assertThat(actual.getDestination()).isNull();
+    }
+
+    @Test
+    void shouldExemptAcknowledgementsFromDestinationCap()
+    {
+        JobClass actual = sut.classify(serviceResources,
+            job(String.format(VvRteConstants.MIGRATION_FORMAT_SEND_ACK, 1)));
+
+        assertThat(actual.getType()).isEqualTo(VvRteConstants.MIGRATION_MODE_SEND_ACK);
+        assertThat(actual.getPriority()).isGreaterThan(JobClass.DEFAULT_PRIORITY);
+        assertThat(actual.getDestination()).isNull();
+    }
+}
@@ -35,7 +35,6 @@ import java.util.stream.Stream;
 import org.apache.tapestry5.commons.Configuration;
 import org.apache.tapestry5.commons.MappedConfiguration;
 import org.apache.tapestry5.commons.OrderedConfiguration;
-import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.ServiceBindingOptions;
 import org.apache.tapestry5.ioc.services.cron.CronSchedule;
@@ -57,14 +56,20 @@ import cpcc.vvrte.services.db.VvRteRepositoryImpl;
 import cpcc.vvrte.services.js.BuiltInFunctions;
 import cpcc.vvrte.services.js.JavascriptService;
 import cpcc.vvrte.services.js.JavascriptServiceImpl;
+import cpcc.vvrte.services.js.SnapshotCodec;
+import cpcc.vvrte.services.js.SnapshotCodecImpl;
 import cpcc.vvrte.services.json.VvGeoJsonConverter;
 import cpcc.vvrte.services.json.VvGeoJsonConverterImpl;
 import cpcc.vvrte.services.ros.MessageConverter;
 import cpcc.vvrte.services.ros.MessageConverterImpl;
+import cpcc.vvrte.services.task.DistanceMatrixService;
+import cpcc.vvrte.services.task.DistanceMatrixServiceImpl;
 import cpcc.vvrte.services.task.TaskAnalyzer;
 import cpcc.vvrte.services.task.TaskAnalyzerImpl;
 import cpcc.vvrte.services.task.TaskExecutionService;
 import cpcc.vvrte.services.task.TaskExecutionServiceImpl;
+import cpcc.vvrte.services.task.TaskRegistry;
+import cpcc.vvrte.services.task.TaskRegistryImpl;
 import cpcc.vvrte.services.task.TaskSchedulerService;
 import cpcc.vvrte.services.task.TaskSchedulerServiceImpl;
 
@@ -94,10 +99,16 @@ class VvRteModuleTest
         when(binder.bind(VirtualVehicleMapper.class, VirtualVehicleMapperImpl.class)).thenReturn(options);
         when(binder.bind(VvRteRepository.class, VvRteRepositoryImpl.class)).thenReturn(options);
         when(binder.bind(JavascriptService.class, JavascriptServiceImpl.class)).thenReturn(options);
+        when(binder.bind(SnapshotCodec.class, SnapshotCodecImpl.class)).thenReturn(options);
         when(binder.bind(TaskAnalyzer.class, TaskAnalyzerImpl.class)).thenReturn(options);
         when(binder.bind(TaskExecutionService.class, TaskExecutionServiceImpl.class)).thenReturn(options);
         when(binder.bind(TaskSchedulerService.class, TaskSchedulerServiceImpl.class)).thenReturn(options);
+        when(binder.bind(DistanceMatrixService.class, DistanceMatrixServiceImpl.class)).thenReturn(options);
+        when(binder.bind(TaskRegistry.class, TaskRegistryImpl.class)).thenReturn(options);
         when(binder.bind(VirtualVehicleMigrator.class, VirtualVehicleMigratorImpl.class)).thenReturn(options);
+        when(binder.bind(MigrationChunkSizer.class, MigrationChunkSizerImpl.class)).thenReturn(options);
+        when(binder.bind(MigrationChunkWriter.class, MigrationChunkWriterImpl.class)).thenReturn(options);
+        when(binder.bind(MigrationWindows.class, MigrationWindowsImpl.class)).thenReturn(options);
         when(binder.bind(VvGeoJsonConverter.class, VvGeoJsonConverterImpl.class)).thenReturn(options);
 
         VvRteModule.bind(binder);
@@ -108,11 +119,18 @@ class VvRteModuleTest
         verify(binder).bind(VirtualVehicleMapper.class, VirtualVehicleMapperImpl.class);
         verify(binder).bind(VvRteRepository.class, VvRteRepositoryImpl.class);
         verify(binder).bind(JavascriptService.class, JavascriptServiceImpl.class);
+        verify(binder).bind(SnapshotCodec.class, SnapshotCodecImpl.class);
         verify(binder).bind(TaskAnalyzer.class, TaskAnalyzerImpl.class);
         verify(binder).bind(TaskExecutionService.class, TaskExecutionServiceImpl.class);
         verify(binder).bind(TaskSchedulerService.class, TaskSchedulerServiceImpl.class);
+        verify(binder).bind(DistanceMatrixService.class, DistanceMatrixServiceImpl.class);
+        verify(binder).bind(TaskRegistry.class, TaskRegistryImpl.class);
         verify(binder).bind(VirtualVehicleMigrator.class, VirtualVehicleMigratorImpl.class);
+        verify(binder).bind(MigrationChunkSizer.class, MigrationChunkSizerImpl.class);
+        verify(binder).bind(MigrationChunkWriter.class, MigrationChunkWriterImpl.class);
+        verify(binder).bind(MigrationWindows.class, MigrationWindowsImpl.class);
         verify(binder).bind(VvGeoJsonConverter.class, VvGeoJsonConverterImpl.class);
+        verify(binder).bind(VirtualVehicleScheduler.class, VirtualVehicleSchedulerImpl.class);
         verify(options, times(9)).eagerLoad();
     }
 
@@ -166,27 +184,31 @@ class VvRteModuleTest
         PeriodicExecutor executor = mock(PeriodicExecutor.class);
         TaskExecutionService taskExecutionService = mock(TaskExecutionService.class);
         JobService jobService = mock(JobService.class);
+        TaskRegistry taskRegistry = mock(TaskRegistry.class);
 
-        VvRteModule.scheduleJobs(vvRteRepo, executor, taskExecutionService, jobService);
+        VvRteModule.scheduleJobs(vvRteRepo, executor, taskExecutionService, jobService, taskRegistry);
 
         ArgumentCaptor<Runnable> argument = ArgumentCaptor.forClass(Runnable.class);
 
-        verify(executor, times(2)).addJob(any(CronSchedule.class), anyString(), argument.capture());
+        verify(executor, times(3)).addJob(any(CronSchedule.class), anyString(), argument.capture());
 
         argument.getAllValues().stream().forEach(x -> x.run());
 
         verify(taskExecutionService).executeTasks();
+        verify(taskRegistry).flush();
         verify(jobService).addJobIfNotExists(VvRteConstants.MIGRATION_JOB_QUEUE_NAME, VvRteConstants.STUCK_MIGRATIONS);
     }
 
     @Test
-    void shouldAddMigrationConnectorToCommunicationService()
+    void shouldAddMigrationConnectorsToCommunicationService()
     {
         CommunicationService communicationService = mock(CommunicationService.class);
 
         VvRteModule.setupCommunicationService(communicationService);
 
         verify(communicationService).addConnector(eq(VvRteConstants.MIGRATION_CONNECTOR), anyString());
+        verify(communicationService).addConnector(eq(VvRteConstants.MIGRATION_ACK_CONNECTOR), anyString());
+        verify(communicationService).addConnector(eq(VvRteConstants.MIGRATION_MANIFEST_CONNECTOR), anyString());
     }
 
     @Test
@@ -194,21 +216,24 @@ class VvRteModuleTest
     {
         TaskExecutionService tes = mock(TaskExecutionService.class);
         VirtualVehicleLauncher vvl = mock(VirtualVehicleLauncher.class);
+        DistanceMatrixService dms = mock(DistanceMatrixService.class);
+        TaskRegistry taskRegistry = mock(TaskRegistry.class);
 
-        VvRteModule.setupTaskExecutionService(tes, vvl);
+        VvRteModule.setupTaskExecutionService(tes, vvl, dms, taskRegistry);
 
         verify(tes).addListener(vvl);
+        verify(tes).addListener(dms);
+        verify(tes).addListener(taskRegistry);
     }
 
     @Test
     void shouldSetupJobQueues()
     {
         JobService jobService = mock(JobService.class);
-        HibernateSessionManager sessionManager = mock(HibernateSessionManager.class);
         TimeService timeService = mock(TimeService.class);
         JobRepository jobRepository = mock(JobRepository.class);
 
-        VvRteModule.setupJobQueues(jobService, sessionManager, timeService, jobRepository, 10);
+        VvRteModule.setupJobQueues(jobService, timeService, jobRepository, 10, 2, 5, 1000L, 30000L);
 
         verify(jobService).addJobQueue(eq(VvRteConstants.MIGRATION_JOB_QUEUE_NAME), any(JobQueue.class));
     }
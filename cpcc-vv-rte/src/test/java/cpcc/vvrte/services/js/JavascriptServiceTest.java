@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
@@ -65,10 +66,13 @@ class JavascriptServiceTest
     private PerthreadManager perthreadManager;
     private HibernateSessionManager sessionManager;
     private ServiceResources serviceResources;
+    private SnapshotCodec snapshotCodec;
 
     @BeforeEach
     void setUp()
     {
+        snapshotCodec = new SnapshotCodecImpl(Deflater.BEST_SPEED);
+
         perthreadManager = mock(PerthreadManager.class);
         sessionManager = mock(HibernateSessionManager.class);
 
@@ -86,7 +90,7 @@ class JavascriptServiceTest
         vv.setApiVersion(1);
         vv.setUuid("27369070-a042-11e5-a35d-0f12a6b8b54e");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         JavascriptWorker sut = jss.createWorker(vv, false);
         MyWorkerStateListener workerListener = new MyWorkerStateListener();
         sut.addStateListener(workerListener);
@@ -110,7 +114,7 @@ class JavascriptServiceTest
         vv.setApiVersion(1);
         vv.setUuid("599b7ada-a042-11e5-98b1-9767a13e60f2");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         JavascriptWorker sut = jss.createWorker(vv, false);
         sut.run();
 
@@ -131,7 +135,7 @@ class JavascriptServiceTest
         vv.setApiVersion(1000);
         vv.setUuid("599bf294-a042-11e5-a552-abf9c5301b8b");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
 
         try
         {
@@ -151,7 +155,7 @@ class JavascriptServiceTest
     void shouldHandleVvRte() throws IOException, InterruptedException
     {
         MyBuiltInFunctions functions = new MyBuiltInFunctions();
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, functions);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, functions, snapshotCodec);
         jss.addAllowedClassRegex("cpcc.vvrte.services.js.JavascriptServiceTest\\$MyBuiltInFunctions");
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -201,7 +205,7 @@ class JavascriptServiceTest
     void shouldHandleVvStorage() throws IOException
     {
         MyBuiltInFunctions functions = new MyBuiltInFunctions();
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, functions);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, functions, snapshotCodec);
         jss.addAllowedClassRegex("cpcc.vvrte.services.js.JavascriptServiceTest\\$MyBuiltInFunctions");
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -255,7 +259,7 @@ class JavascriptServiceTest
         vv.setApiVersion(1);
         vv.setUuid("599d4f4a-a042-11e5-a1d0-474802529ab0");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         JavascriptWorker sut = jss.createWorker(vv, false);
         sut.run();
         assertThat(sut.getWorkerState()).isNotNull().isEqualTo(VirtualVehicleState.DEFECTIVE);
@@ -268,7 +272,7 @@ class JavascriptServiceTest
     @MethodSource("emptyScriptDataProvider")
     void shouldCompileEmptyScript(String script) throws IOException
     {
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
 
         Object[] result = jss.codeVerification(script, 1);
 
@@ -287,10 +291,13 @@ class JavascriptServiceTest
         vv.setContinuation(null);
         vv.setUuid("599d9932-a042-11e5-911b-f785d3884ce0");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        String threadName = Thread.currentThread().getName();
+
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         JavascriptWorker sut = jss.createWorker(vv, true);
         sut.run();
         assertThat(sut.getWorkerState()).isNotNull().isEqualTo(VirtualVehicleState.DEFECTIVE);
+        assertThat(Thread.currentThread().getName()).isEqualTo(threadName);
 
         verify(sessionManager, times(3)).commit();
         verify(perthreadManager).cleanup();
@@ -307,7 +314,7 @@ class JavascriptServiceTest
         vv.setApiVersion(1);
         vv.setUuid("599ddad2-a042-11e5-ab97-e3af3b4f34e8");
 
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         JavascriptWorker sut = jss.createWorker(vv, false);
         assertThat(sut.getScript()).isNotNull().endsWith(script + "\n})();");
 
@@ -319,7 +326,7 @@ class JavascriptServiceTest
     void shouldNotCompileErroneousScript() throws IOException
     {
         String script = "var x = 0;\nx x x";
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
         Object[] result = jss.codeVerification(script, 1);
         assertThat(result).isNotNull().hasSize(4);
 
@@ -341,7 +348,7 @@ class JavascriptServiceTest
     void shouldCompileProperScript() throws IOException
     {
         String script = "function f(x){return x+1} f(7)";
-        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null);
+        JavascriptService jss = new JavascriptServiceImpl(serviceResources, null, snapshotCodec);
 
         Object[] result = jss.codeVerification(script, 1);
 
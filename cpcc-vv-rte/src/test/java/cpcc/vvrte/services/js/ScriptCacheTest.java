@@ -0,0 +1,116 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * ScriptCacheTest
+ */
+class ScriptCacheTest
+{
+    @Test
+    void shouldHavePrivateConstructor() throws Exception
+    {
+        Constructor<ScriptCache> cnt = ScriptCache.class.getDeclaredConstructor();
+        assertThat(Modifier.isPrivate(cnt.getModifiers())).isTrue();
+        cnt.setAccessible(true);
+        cnt.newInstance();
+    }
+
+    @Test
+    void shouldCacheApiScript() throws IOException
+    {
+        String apiScript = ScriptCache.getApiScript(1);
+
+        assertThat(apiScript).isNotEmpty().contains(ScriptCache.VEHICLE_UUID);
+        assertThat(ScriptCache.getApiScript(1)).isSameAs(apiScript);
+    }
+
+    @Test
+    void shouldRejectUnknownApiVersion()
+    {
+        assertThatThrownBy(() -> ScriptCache.getApiScript(1000))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Can not handle API version 1000");
+    }
+
+    @Test
+    void shouldCacheCompiledScriptsByContent()
+    {
+        Context cx = Context.enter();
+        try
+        {
+            cx.setOptimizationLevel(-1);
+
+            Script script1 = ScriptCache.getCompiledScript(cx, "function f(x){return x+1} f(7)");
+            Script script2 = ScriptCache.getCompiledScript(cx, new String("function f(x){return x+1} f(7)"));
+            Script script3 = ScriptCache.getCompiledScript(cx, "function f(x){return x+2} f(7)");
+
+            assertThat(script2).isSameAs(script1);
+            assertThat(script3).isNotSameAs(script1);
+
+            assertThat(Context.toNumber(script1.exec(cx, ScriptCache.newScope(cx)))).isEqualTo(8.0);
+            assertThat(Context.toNumber(script1.exec(cx, ScriptCache.newScope(cx)))).isEqualTo(8.0);
+        }
+        finally
+        {
+            Context.exit();
+        }
+    }
+
+    @Test
+    void shouldShareSealedStandardObjects()
+    {
+        Context cx = Context.enter();
+        try
+        {
+            cx.setOptimizationLevel(-1);
+
+            ScriptableObject scope1 = ScriptCache.newScope(cx);
+            ScriptableObject scope2 = ScriptCache.newScope(cx);
+
+            assertThat(scope1.getPrototype()).isSameAs(ScriptCache.getSharedScope()).isSameAs(scope2.getPrototype());
+            assertThat(ScriptCache.getSharedScope().isSealed()).isTrue();
+
+            cx.evaluateString(scope1, "var x = 10;", "<test>", 1, null);
+
+            assertThat(Context.toNumber(scope1.get("x", scope1))).isEqualTo(10.0);
+            assertThat(scope2.has("x", scope2)).isFalse();
+
+            assertThatThrownBy(() -> cx.evaluateString(scope1, "Array.prototype.foo = 1;", "<test>", 1, null))
+                .isInstanceOf(EvaluatorException.class);
+        }
+        finally
+        {
+            Context.exit();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.js;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.serialize.ScriptableOutputStream;
+
+/**
+ * SnapshotCodecTest
+ */
+class SnapshotCodecTest
+{
+    private static final String SCRIPT =
+        "var counter = 42; var text = 'abcdefghijklmnopqrstuvwxyz';"
+            + "function f(x) { return x + counter; }"
+            + "var list = []; for (var k = 0; k < 100; ++k) { list.push(text); }";
+
+    private Context cx;
+    private SnapshotCodec sut;
+
+    @BeforeEach
+    void setUp()
+    {
+        sut = new SnapshotCodecImpl(Deflater.BEST_SPEED);
+        cx = Context.enter();
+        cx.setOptimizationLevel(-1);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        Context.exit();
+    }
+
+    @Test
+    void shouldRejectInvalidCompressionLevel()
+    {
+        assertThatThrownBy(() -> new SnapshotCodecImpl(10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid snapshot compression level 10");
+    }
+
+    @Test
+    void shouldEncodeAndDecodeSnapshot() throws IOException, ClassNotFoundException
+    {
+        ScriptableObject scope = ScriptCache.newScope(cx);
+        cx.evaluateString(scope, SCRIPT, "<test>", 1, null);
+
+        byte[] snapshot = sut.encode(scope, "continuation");
+
+        assertThat(Arrays.copyOf(snapshot, 4)).containsExactly('V', 'V', 'S', SnapshotCodecImpl.FORMAT_VERSION);
+        assertThat(scope.getPrototype()).isSameAs(ScriptCache.getSharedScope());
+
+        assertThat(sut.getMetrics().getSnapshots()).isEqualTo(1);
+        assertThat(sut.getMetrics().getEncodedBytes()).isEqualTo(snapshot.length);
+        assertThat(sut.getMetrics().getRawBytes()).isGreaterThan(snapshot.length);
+        assertThat(sut.getMetrics().getCompressionRatio()).isGreaterThan(0.0).isLessThan(1.0);
+
+        Object[] decoded = sut.decode(snapshot, ScriptCache.newScope(cx));
+
+        assertDecodedScope((Scriptable) decoded[0]);
+        assertThat(decoded[1]).isEqualTo("continuation");
+    }
+
+    @Test
+    void shouldDecodeSnapshotsOfAnyCompressionLevel() throws IOException, ClassNotFoundException
+    {
+        ScriptableObject scope = ScriptCache.newScope(cx);
+        cx.evaluateString(scope, SCRIPT, "<test>", 1, null);
+
+        byte[] snapshot = new SnapshotCodecImpl(Deflater.BEST_COMPRESSION).encode(scope, "continuation");
+
+        Object[] decoded = sut.decode(snapshot, ScriptCache.newScope(cx));
+
+        assertDecodedScope((Scriptable) decoded[0]);
+        assertThat(decoded[1]).isEqualTo("continuation");
+    }
+
+    @Test
+    void shouldDecodeUncompressedSnapshot() throws IOException, ClassNotFoundException
+    {
+        ScriptableObject scope = cx.initStandardObjects();
+        scope.defineFunctionProperties(VvRteFunctions.FUNCTIONS, VvRteFunctions.class, ScriptableObject.DONTENUM);
+        cx.evaluateString(scope, SCRIPT, "<test>", 1, null);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ScriptableOutputStream sos = new ScriptableOutputStream(baos, scope))
+        {
+            sos.excludeStandardObjectNames();
+            sos.writeObject(scope);
+            sos.writeObject("continuation");
+        }
+
+        Object[] decoded = sut.decode(baos.toByteArray(), ScriptCache.newScope(cx));
+
+        assertDecodedScope((Scriptable) decoded[0]);
+        assertThat(decoded[1]).isEqualTo("continuation");
+    }
+
+    @Test
+    void shouldRejectUnknownFormatVersion()
+    {
+        byte[] snapshot = {'V', 'V', 'S', 99, 0, 0, 0};
+
+        assertThatThrownBy(() -> sut.decode(snapshot, ScriptCache.newScope(cx)))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Unsupported snapshot format version 99");
+    }
+
+    private void assertDecodedScope(Scriptable decodedScope)
+    {
+        assertThat(Context.toNumber(decodedScope.get("counter", decodedScope))).isEqualTo(42.0);
+        assertThat(Context.toNumber(cx.evaluateString(decodedScope, "f(8)", "<test>", 1, null))).isEqualTo(50.0);
+        assertThat(Context.toNumber(cx.evaluateString(decodedScope, "list.length", "<test>", 1, null)))
+            .isEqualTo(100.0);
+        assertThat(cx.evaluateString(decodedScope, "typeof getVvRte", "<test>", 1, null)).isEqualTo("function");
+    }
+}
@@ -0,0 +1,126 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * AcoTspColonyTest implementation.
+ */
+class AcoTspColonyTest
+{
+    private static double[][] randomCostMatrix(int n, long seed)
+    {
+        Random random = new Random(seed);
+        double[][] xy = new double[n][2];
+        for (double[] p : xy)
+        {
+            p[0] = 1000.0 * random.nextDouble();
+            p[1] = 1000.0 * random.nextDouble();
+        }
+
+        double[][] cost = new double[n][n];
+        for (int i = 0; i < n; ++i)
+        {
+            for (int j = 0; j < n; ++j)
+            {
+                cost[i][j] = Math.rint(Math.hypot(xy[i][0] - xy[j][0], xy[i][1] - xy[j][1]));
+            }
+        }
+
+        return cost;
+    }
+
+    private static double bruteForce(double[][] cost, int previous, boolean[] visited, int remaining)
+    {
+        if (remaining == 0)
+        {
+            return cost[previous][0];
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int j = 1; j < cost.length; ++j)
+        {
+            if (!visited[j])
+            {
+                visited[j] = true;
+                best = Math.min(best, cost[previous][j] + bruteForce(cost, j, visited, remaining - 1));
+                visited[j] = false;
+            }
+        }
+
+        return best;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 5, 6, 7})
+    void shouldFindOptimalTourForSmallProblems(int n)
+    {
+        double[][] cost = randomCostMatrix(n, 4711L + n);
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+
+        int[] actual = new AcoTspColony().calculateBestTour(cost);
+
+        assertThat(actual).containsExactlyInAnyOrder(IntStream.range(0, n).toArray());
+        assertThat(AcoTspColony.tourLength(cost, actual)).isEqualTo(bruteForce(cost, 0, visited, n - 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 50, 200})
+    void shouldReturnPermutationOfAllPositions(int n)
+    {
+        double[][] cost = randomCostMatrix(n, 815L + n);
+
+        int[] actual = new AcoTspColony(8, 20, 5, false).calculateBestTour(cost);
+
+        assertThat(actual).containsExactlyInAnyOrder(IntStream.range(0, n).toArray());
+    }
+
+    @Test
+    void shouldNotMakeToursLongerByPolishing()
+    {
+        double[][] cost = randomCostMatrix(100, 42L);
+        int[] tour = IntStream.range(0, 100).toArray();
+        double before = AcoTspColony.tourLength(cost, tour);
+
+        double after = AcoTspColony.polish(cost, tour);
+
+        assertThat(after).isLessThan(before).isEqualTo(AcoTspColony.tourLength(cost, tour));
+        assertThat(Arrays.stream(tour).sorted().toArray()).isEqualTo(IntStream.range(0, 100).toArray());
+    }
+
+    @Test
+    void shouldRejectNonSquareCostMatrix()
+    {
+        Throwable thrown = catchThrowable(() -> new AcoTspColony().calculateBestTour(new double[2][3]));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class)
+            .hasMessage("Cost matrix heigth and width must be equal!");
+    }
+}
@@ -0,0 +1,149 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.utils.GeodeticSystem;
+import cpcc.core.utils.WGS84;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * DistanceMatrixServiceTest implementation.
+ */
+class DistanceMatrixServiceTest
+{
+    private GeodeticSystem gs = new WGS84();
+    private DistanceMatrixServiceImpl sut;
+    private PolarCoordinate position;
+
+    @BeforeEach
+    void setUp()
+    {
+        sut = new DistanceMatrixServiceImpl();
+        position = new PolarCoordinate(47.0, 13.0, 5.0);
+    }
+
+    private static Task task(Integer id, double latitude, double longitude)
+    {
+        Task task = new Task();
+        task.setId(id);
+        task.setPosition(new PolarCoordinate(latitude, longitude, 5.0));
+        return task;
+    }
+
+    private void assertDistances(double[][] actual, List<Task> tasks)
+    {
+        assertThat(actual).hasNumberOfRows(tasks.size() + 1);
+
+        for (int i = 0; i <= tasks.size(); ++i)
+        {
+            PolarCoordinate a = i == 0 ? position : tasks.get(i - 1).getPosition();
+            for (int j = 0; j <= tasks.size(); ++j)
+            {
+                PolarCoordinate b = j == 0 ? position : tasks.get(j - 1).getPosition();
+                assertThat(actual[i][j]).isCloseTo(gs.calculateDistance(a, b), within(1E-6));
+            }
+        }
+    }
+
+    @Test
+    void shouldCalculateGeodeticDistances()
+    {
+        List<Task> tasks = Arrays.asList(task(1, 47.1, 13.0), task(2, 47.2, 13.3), task(null, 47.3, 13.1));
+
+        double[][] actual = sut.getDistanceMatrix(position, tasks);
+
+        assertDistances(actual, tasks);
+        assertThat(sut.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGrowAndEvictCompletedTasks()
+    {
+        List<Task> tasks = new ArrayList<>();
+        for (int k = 0; k < 40; ++k)
+        {
+            tasks.add(task(k, 47.0 + 0.01 * k, 13.0 + 0.02 * (k % 7)));
+        }
+
+        assertDistances(sut.getDistanceMatrix(position, tasks), tasks);
+        assertThat(sut.size()).isEqualTo(40);
+
+        for (int k = 0; k < 10; ++k)
+        {
+            sut.notify(tasks.remove(0));
+        }
+        sut.notify(task(null, 47.0, 13.0));
+
+        assertThat(sut.size()).isEqualTo(30);
+
+        for (int k = 100; k < 110; ++k)
+        {
+            tasks.add(task(k, 46.9 - 0.01 * k, 12.9));
+        }
+
+        assertDistances(sut.getDistanceMatrix(position, tasks), tasks);
+        assertThat(sut.size()).isEqualTo(40);
+    }
+
+    @Test
+    void shouldEvictTasksVanishedWithoutNotification()
+    {
+        Task taskA = task(1, 47.1, 13.0);
+        sut.getDistanceMatrix(position, Arrays.asList(taskA, task(2, 47.2, 13.3), task(3, 47.3, 13.1)));
+
+        assertThat(sut.size()).isEqualTo(3);
+
+        for (int k = 0; k < 64; ++k)
+        {
+            sut.getDistanceMatrix(position, Arrays.asList(taskA));
+        }
+
+        assertThat(sut.size()).isEqualTo(1);
+
+        List<Task> tasks = Arrays.asList(taskA, task(4, 46.9, 12.9), task(5, 47.4, 13.2));
+
+        assertDistances(sut.getDistanceMatrix(position, tasks), tasks);
+        assertThat(sut.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRecalculateMovedTasks()
+    {
+        Task taskA = task(1, 47.1, 13.0);
+        Task taskB = task(2, 47.2, 13.0);
+        sut.getDistanceMatrix(position, Arrays.asList(taskA, taskB));
+
+        Task movedB = task(2, 47.5, 13.5);
+        List<Task> tasks = Arrays.asList(taskA, movedB);
+
+        assertDistances(sut.getDistanceMatrix(position, tasks), tasks);
+        assertThat(sut.size()).isEqualTo(2);
+    }
+}
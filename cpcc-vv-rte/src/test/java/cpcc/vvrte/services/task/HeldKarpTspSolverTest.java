@@ -0,0 +1,142 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.core.services.jobs.TimeService;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * HeldKarpTspSolverTest implementation.
+ */
+class HeldKarpTspSolverTest
+{
+    private static final PolarCoordinate POSITION = new PolarCoordinate(47.4, 13.2, 5.0);
+
+    private TimeService timeService;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp()
+    {
+        timeService = mock(TimeService.class);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        pool.shutdownNow();
+    }
+
+    private static List<Task> randomTasks(int count, long seed)
+    {
+        Random random = new Random(seed);
+        List<Task> tasks = new ArrayList<>();
+
+        for (int k = 0; k < count; ++k)
+        {
+            Task task = new Task();
+            task.setPosition(new PolarCoordinate(47.0 + random.nextDouble(), 13.0 + random.nextDouble(), 5.0));
+            tasks.add(task);
+        }
+
+        return tasks;
+    }
+
+    private static double tourCost(double[][] cost, List<Task> path, List<Task> tour)
+    {
+        double sum = 0.0;
+        int previous = 0;
+
+        for (Task task : tour)
+        {
+            int current = path.indexOf(task) + 1;
+            sum += cost[previous][current];
+            previous = current;
+        }
+
+        return sum + cost[previous][0];
+    }
+
+    private static double bruteForce(double[][] cost, int previous, boolean[] visited, int remaining)
+    {
+        if (remaining == 0)
+        {
+            return cost[previous][0];
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int j = 1; j < cost.length; ++j)
+        {
+            if (!visited[j])
+            {
+                visited[j] = true;
+                best = Math.min(best, cost[previous][j] + bruteForce(cost, j, visited, remaining - 1));
+                visited[j] = false;
+            }
+        }
+
+        return best;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 5, 7, 9})
+    void shouldFindOptimalTour(int count)
+    {
+        List<Task> path = randomTasks(count, 4711L + count);
+        HeldKarpTspSolver sut = new HeldKarpTspSolver(timeService, pool, 10000);
+
+        List<Task> actual = sut.calculateBestPath(POSITION, path);
+
+        double[][] cost = sut.setupCostMatrix(POSITION, path);
+        double optimum = bruteForce(cost, 0, new boolean[cost.length], count);
+
+        assertThat(actual).hasSize(count).containsExactlyInAnyOrderElementsOf(path);
+        assertThat(tourCost(cost, path, actual)).isEqualTo(optimum);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 20})
+    void shouldReturnBestTourSoFarOnTimeout(int count)
+    {
+        when(timeService.currentTimeMillis()).thenReturn(0L, 1000L);
+
+        List<Task> path = randomTasks(count, 815L + count);
+        HeldKarpTspSolver sut = new HeldKarpTspSolver(timeService, pool, 10);
+
+        List<Task> actual = sut.calculateBestPath(POSITION, path);
+
+        assertThat(actual).hasSize(count).containsExactlyInAnyOrderElementsOf(path);
+    }
+}
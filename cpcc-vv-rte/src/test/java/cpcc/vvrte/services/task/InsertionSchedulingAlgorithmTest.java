@@ -0,0 +1,180 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.vvrte.entities.Task;
+
+/**
+ * InsertionSchedulingAlgorithmTest implementation.
+ */
+class InsertionSchedulingAlgorithmTest
+{
+    private InsertionSchedulingAlgorithm sut;
+    private List<PolarCoordinate> depots;
+    private PolarCoordinate position;
+
+    @BeforeEach
+    void setUp()
+    {
+        depots = new ArrayList<>();
+        position = new PolarCoordinate(47.0, 13.0, 5.0);
+        sut = new InsertionSchedulingAlgorithm(new DistanceMatrixServiceImpl(), 200);
+    }
+
+    private static Task mockTask(String name, double latitude, double longitude)
+    {
+        Task task = mock(Task.class);
+        when(task.getPosition()).thenReturn(new PolarCoordinate(latitude, longitude, 5.0));
+        when(task.toString()).thenReturn(name);
+        return task;
+    }
+
+    @Test
+    void shouldNotChangeScheduleWithoutPendingTasks()
+    {
+        Task taskA = mockTask("taskA", 47.1, 13.0);
+        List<Task> scheduledTasks = new ArrayList<>(Arrays.asList(taskA));
+
+        boolean actual = sut.schedule(position, depots, scheduledTasks, new ArrayList<>());
+
+        assertThat(actual).describedAs("Scheduling result").isFalse();
+        assertThat(scheduledTasks).containsExactly(taskA);
+    }
+
+    @Test
+    void shouldAppendPendingTasksWithoutPosition()
+    {
+        Task taskA = mockTask("taskA", 47.1, 13.0);
+        Task taskB = mockTask("taskB", 47.2, 13.0);
+        List<Task> scheduledTasks = new ArrayList<>(Arrays.asList(taskA));
+        List<Task> pendingTasks = new ArrayList<>(Arrays.asList(taskB));
+
+        boolean actual = sut.schedule(null, depots, scheduledTasks, pendingTasks);
+
+        assertThat(actual).describedAs("Scheduling result").isTrue();
+        assertThat(scheduledTasks).containsExactly(taskA, taskB);
+        assertThat(pendingTasks).isEmpty();
+    }
+
+    @Test
+    void shouldMergePendingTasksIntoRunningRoute()
+    {
+        Task taskA = mockTask("taskA", 47.1, 13.0);
+        Task taskB = mockTask("taskB", 47.2, 13.0);
+        Task taskC = mockTask("taskC", 47.3, 13.0);
+        Task taskD = mockTask("taskD", 47.4, 13.0);
+        Task taskE = mockTask("taskE", 47.5, 13.0);
+
+        List<Task> scheduledTasks = new ArrayList<>(Arrays.asList(taskA, taskC, taskE));
+        List<Task> pendingTasks = new ArrayList<>(Arrays.asList(taskD, taskB));
+
+        boolean actual = sut.schedule(position, depots, scheduledTasks, pendingTasks);
+
+        assertThat(actual).describedAs("Scheduling result").isTrue();
+        assertThat(scheduledTasks).containsExactly(taskA, taskB, taskC, taskD, taskE);
+        assertThat(pendingTasks).isEmpty();
+    }
+
+    @Test
+    void shouldImproveRouteByLocalSearch()
+    {
+        Task taskA = mockTask("taskA", 47.1, 13.0);
+        Task taskB = mockTask("taskB", 47.2, 13.0);
+        Task taskC = mockTask("taskC", 47.3, 13.0);
+        Task taskD = mockTask("taskD", 47.4, 13.0);
+
+        List<Task> scheduledTasks = new ArrayList<>(Arrays.asList(taskD, taskB, taskC));
+        List<Task> pendingTasks = new ArrayList<>(Arrays.asList(taskA));
+
+        boolean actual = sut.schedule(position, depots, scheduledTasks, pendingTasks);
+
+        assertThat(actual).describedAs("Scheduling result").isTrue();
+        assertThat(scheduledTasks).containsExactly(taskA, taskB, taskC, taskD);
+    }
+
+    @Test
+    void shouldKeepRouteWithoutMoves()
+    {
+        sut = new InsertionSchedulingAlgorithm(new DistanceMatrixServiceImpl(), 0);
+
+        Task taskA = mockTask("taskA", 47.1, 13.0);
+        Task taskB = mockTask("taskB", 47.2, 13.0);
+        Task taskD = mockTask("taskD", 47.4, 13.0);
+
+        List<Task> scheduledTasks = new ArrayList<>(Arrays.asList(taskD, taskB));
+        List<Task> pendingTasks = new ArrayList<>(Collections.singletonList(taskA));
+
+        sut.schedule(position, depots, scheduledTasks, pendingTasks);
+
+        assertThat(scheduledTasks).containsExactly(taskA, taskD, taskB);
+    }
+
+    @Test
+    void shouldApplyTwoOptMove()
+    {
+        double[][] d = line(0, 1, 2, 3, 4);
+        int[] path = {0, 1, 3, 2, 4};
+
+        assertThat(InsertionSchedulingAlgorithm.twoOptMove(d, path)).isTrue();
+        assertThat(path).containsExactly(0, 1, 2, 3, 4);
+        assertThat(InsertionSchedulingAlgorithm.twoOptMove(d, path)).isFalse();
+    }
+
+    @Test
+    void shouldApplyOrOptMove()
+    {
+        double[][] d = line(0, 1, 2, 3, 4);
+        int[] path = {0, 4, 1, 2, 3};
+
+        assertThat(InsertionSchedulingAlgorithm.orOptMove(d, path)).isTrue();
+
+        while (InsertionSchedulingAlgorithm.orOptMove(d, path))
+        {
+            // apply all improving moves.
+        }
+
+        assertThat(path).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    private static double[][] line(double... x)
+    {
+        double[][] d = new double[x.length][x.length];
+        for (int i = 0; i < x.length; ++i)
+        {
+            for (int j = 0; j < x.length; ++j)
+            {
+                d[i][j] = Math.abs(x[i] - x[j]);
+            }
+        }
+        return d;
+    }
+}
@@ -22,6 +22,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.offset;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +36,7 @@ import java.util.Map;
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.ioc.ServiceResources;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -54,7 +57,6 @@ import cpcc.ros.sensors.AltimeterAdapter;
 import cpcc.ros.sensors.SensorType;
 import cpcc.ros.services.RosNodeService;
 import cpcc.vvrte.entities.Task;
-import cpcc.vvrte.services.db.TaskRepository;
 import cpcc.vvrte.services.ros.MessageConverter;
 import sensor_msgs.NavSatFix;
 import std_msgs.Float32;
@@ -94,8 +96,9 @@ class TaskExecutionServiceTest
     private MessageConverter conv;
     private TimeService timeService;
     private RealVehicleRepository rvRepo;
-    private TaskRepository taskRepository;
+    private TaskRegistry taskRegistry;
     private RealVehicle hostingRv;
+    private RegistryShutdownHub shutdownHub;
 
     /**
      * Test setup.
@@ -215,15 +218,18 @@ class TaskExecutionServiceTest
         rvRepo = mock(RealVehicleRepository.class);
         when(rvRepo.findOwnRealVehicle()).thenReturn(hostingRv);
 
-        taskRepository = mock(TaskRepository.class);
-        when(taskRepository.countAllIncompleteTasks()).thenReturn(0L);
+        taskRegistry = mock(TaskRegistry.class);
+        when(taskRegistry.countAllIncompleteTasks()).thenReturn(0L);
 
         serviceResources = mock(ServiceResources.class);
         when(serviceResources.getService(PerthreadManager.class)).thenReturn(threadManager);
         when(serviceResources.getService(HibernateSessionManager.class)).thenReturn(sessionManager);
-        when(serviceResources.getService(TaskRepository.class)).thenReturn(taskRepository);
+        when(serviceResources.getService(TaskRegistry.class)).thenReturn(taskRegistry);
 
-        sut = new TaskExecutionServiceImpl(serviceResources, scheduler, rosNodeService, conv, timeService, rvRepo);
+        shutdownHub = mock(RegistryShutdownHub.class);
+
+        sut = new TaskExecutionServiceImpl(serviceResources, scheduler, rosNodeService, conv, timeService, rvRepo,
+            shutdownHub, false);
     }
 
     /**
@@ -317,4 +323,81 @@ class TaskExecutionServiceTest
         verify(sessionManager).commit();
         verify(threadManager).cleanup();
     }
+
+    @Test
+    void shouldExecuteTasksOnGpsPositionUpdates()
+    {
+        TaskExecutionServiceImpl gpsSut = new TaskExecutionServiceImpl(serviceResources, scheduler, rosNodeService,
+            conv, timeService, rvRepo, shutdownHub, true);
+
+        ArgumentCaptor<Runnable> shutdownListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(shutdownHub).addRegistryShutdownListener(shutdownListener.capture());
+        verify(gps).addPositionListener(any());
+
+        TaskCompletionListener listener = mock(TaskCompletionListener.class);
+        gpsSut.addListener(listener);
+
+        when(scheduler.schedule(any(), any())).thenReturn(taskB);
+
+        gpsSut.onPositionUpdate(position);
+        verify(scheduler, never()).schedule(any(), any());
+
+        gpsSut.executeTasks();
+        gpsSut.executeTasks();
+
+        verify(scheduler, times(1)).schedule(any(), any());
+        verify(wpc).setPosition(posB);
+        verify(sessionManager, times(1)).commit();
+
+        Task storedB = mock(Task.class);
+        when(taskB.getId()).thenReturn(2);
+        when(session.get(Task.class, 2)).thenReturn(storedB);
+
+        gpsSut.onPositionUpdate(position);
+
+        verify(taskB).setExecutionStart(any());
+        verify(storedB).setExecutionStart(any());
+        verify(session, never()).update(any());
+        verify(sessionManager, times(2)).commit();
+
+        when(taskB.getExecutionStart()).thenReturn(new Date(6L));
+        gpsSut.onPositionUpdate(position);
+
+        verify(sessionManager, times(2)).commit();
+        verify(listener, never()).notify(any());
+
+        shutdownListener.getValue().run();
+        verify(gps).removePositionListener(any());
+    }
+
+    @Test
+    void shouldCompleteTaskOnGpsPositionUpdate()
+    {
+        TaskExecutionServiceImpl gpsSut = new TaskExecutionServiceImpl(serviceResources, scheduler, rosNodeService,
+            conv, timeService, rvRepo, shutdownHub, true);
+
+        TaskCompletionListener listener = mock(TaskCompletionListener.class);
+        gpsSut.addListener(listener);
+
+        Task storedA = mock(Task.class);
+        when(taskA.getId()).thenReturn(1);
+        when(taskA.getExecutionStart()).thenReturn(new Date(5L));
+        when(session.get(Task.class, 1)).thenReturn(storedA);
+        when(scheduler.schedule(any(), any())).thenReturn(taskA, taskC);
+
+        gpsSut.executeTasks();
+        gpsSut.onPositionUpdate(position);
+
+        verify(taskA).setExecutionEnd(any());
+        verify(storedA).setExecutionEnd(any());
+        verify(session, never()).update(any());
+        verify(listener).notify(taskA);
+        verify(wpc).setPosition(posC);
+        verify(scheduler, times(2)).schedule(any(), any());
+        verify(sessionManager, times(3)).commit();
+
+        ArgumentCaptor<Runnable> shutdownListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(shutdownHub).addRegistryShutdownListener(shutdownListener.capture());
+        shutdownListener.getValue().run();
+    }
 }
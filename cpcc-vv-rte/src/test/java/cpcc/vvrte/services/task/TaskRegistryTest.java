@@ -0,0 +1,290 @@
+// This code is part of the CPCC-NG project.
+//
+// Copyright (c) 2026 Clemens Krainer <clemens.krainer@gmail.com>
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software Foundation,
+// Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+
+package cpcc.vvrte.services.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cpcc.core.entities.PolarCoordinate;
+import cpcc.vvrte.entities.Task;
+import cpcc.vvrte.entities.TaskState;
+import cpcc.vvrte.entities.VirtualVehicle;
+import cpcc.vvrte.services.db.TaskRepository;
+
+/**
+ * TaskRegistryTest implementation.
+ */
+class TaskRegistryTest
+{
+    private TaskRepository taskRepository;
+    private HibernateSessionManager sessionManager;
+    private PerthreadManager perthreadManager;
+    private Session session;
+    private Query<?> query;
+    private List<Synchronization> synchronizations;
+    private TaskRegistryImpl sut;
+    private Task taskA;
+    private Task taskB;
+    private Task taskC;
+
+    @BeforeEach
+    void setUp()
+    {
+        taskA = task(1, TaskState.RUNNING, 0, 10L);
+        taskB = task(2, TaskState.SCHEDULED, 1, 20L);
+        taskC = task(3, TaskState.PENDING, 0, 30L);
+
+        taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findAllIncompleteTasks()).thenReturn(Arrays.asList(taskC, taskB, taskA));
+
+        query = mock(Query.class, RETURNS_SELF);
+        when(query.executeUpdate()).thenReturn(1);
+
+        synchronizations = new ArrayList<>();
+
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.isActive()).thenReturn(true);
+        doAnswer(invocation -> synchronizations.add(invocation.getArgument(0)))
+            .when(transaction).registerSynchronization(any(Synchronization.class));
+
+        session = mock(Session.class);
+        when(session.createQuery(anyString())).thenAnswer(invocation -> query);
+        when(session.getTransaction()).thenReturn(transaction);
+
+        sessionManager = mock(HibernateSessionManager.class);
+        when(sessionManager.getSession()).thenReturn(session);
+
+        perthreadManager = mock(PerthreadManager.class);
+
+        sut = new TaskRegistryImpl(taskRepository, sessionManager, perthreadManager);
+    }
+
+    private static Task task(int id, TaskState state, int order, long creationTime)
+    {
+        Task task = new Task();
+        task.setId(id);
+        task.setTaskState(state);
+        task.setOrder(order);
+        task.setCreationTime(new Date(creationTime));
+        return task;
+    }
+
+    private void completeTransaction(int status)
+    {
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        synchronizations.clear();
+    }
+
+    @Test
+    void shouldLoadIncompleteTasksOnce()
+    {
+        assertThat(sut.getCurrentRunningTask().getId()).isEqualTo(1);
+        assertThat(sut.getScheduledTasks()).extracting(Task::getId).containsExactly(2);
+        assertThat(sut.getPendingTasks()).extracting(Task::getId).containsExactly(3);
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(3);
+
+        verify(taskRepository, times(1)).findAllIncompleteTasks();
+    }
+
+    @Test
+    void shouldOrderPendingAndScheduledTasks()
+    {
+        Task taskD = task(4, TaskState.PENDING, 0, 5L);
+        Task taskE = task(5, TaskState.SCHEDULED, 0, 50L);
+        sut.addTask(taskD);
+        sut.addTask(taskE);
+
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(3);
+
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(sut.getPendingTasks()).extracting(Task::getId).containsExactly(4, 3);
+        assertThat(sut.getScheduledTasks()).extracting(Task::getId).containsExactly(5, 2);
+    }
+
+    @Test
+    void shouldNotFlushUnchangedTasks()
+    {
+        sut.update(taskB);
+        sut.flush();
+
+        verifyNoInteractions(session);
+        verify(sessionManager, never()).commit();
+    }
+
+    @Test
+    void shouldFlushChangedTasksOnly()
+    {
+        taskC.setTaskState(TaskState.SCHEDULED);
+        taskC.setOrder(2);
+        sut.update(taskC);
+        sut.update(taskB);
+
+        sut.flush();
+
+        verify(session, times(1)).createQuery(anyString());
+        verify(query).setParameter("taskState", TaskState.SCHEDULED);
+        verify(query).setParameter("taskOrder", 2);
+        verify(query).setParameter("id", 3);
+        verify(sessionManager).commit();
+        verify(perthreadManager).cleanup();
+
+        sut.flush();
+
+        verify(session, times(1)).createQuery(anyString());
+    }
+
+    @Test
+    void shouldRetryFlushOfMissingTasks()
+    {
+        when(query.executeUpdate()).thenReturn(0, 1);
+
+        taskC.setTaskState(TaskState.SCHEDULED);
+        sut.update(taskC);
+
+        sut.flush();
+        sut.flush();
+        sut.flush();
+
+        verify(session, times(2)).createQuery(anyString());
+    }
+
+    @Test
+    void shouldAbortFailedFlush()
+    {
+        when(query.executeUpdate()).thenThrow(new IllegalStateException("failed"));
+
+        taskC.setTaskState(TaskState.SCHEDULED);
+        sut.update(taskC);
+        sut.flush();
+
+        verify(sessionManager).abort();
+        verify(perthreadManager).cleanup();
+    }
+
+    @Test
+    void shouldRemoveCompletedTasks()
+    {
+        taskB.setTaskState(TaskState.RUNNING);
+        sut.update(taskB);
+
+        taskA.setTaskState(TaskState.EXECUTED);
+        sut.notify(taskA);
+
+        assertThat(sut.getCurrentRunningTask().getId()).isEqualTo(2);
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(2);
+
+        taskB.setTaskState(TaskState.EXECUTED);
+        sut.update(taskB);
+        sut.flush();
+
+        assertThat(sut.getCurrentRunningTask()).isNull();
+        verifyNoInteractions(session);
+    }
+
+    @Test
+    void shouldRemoveTasksOfVirtualVehicle()
+    {
+        VirtualVehicle vehicle = new VirtualVehicle();
+        vehicle.setId(7);
+        taskB.setVehicle(vehicle);
+        taskC.setVehicle(vehicle);
+
+        sut.removeTasksOfVirtualVehicle(7);
+
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(3);
+
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(1);
+        assertThat(sut.getCurrentRunningTask().getId()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandOutCopiesOfTasks()
+    {
+        taskA.setPosition(new PolarCoordinate(47.0, 13.0, 10.0));
+
+        Task running = sut.getCurrentRunningTask();
+
+        assertThat(running).isNotSameAs(taskA);
+        assertThat(running.getPosition()).isSameAs(taskA.getPosition());
+        assertThat(running.getCreationTime()).isEqualTo(taskA.getCreationTime());
+
+        running.setTaskState(TaskState.EXECUTED);
+        taskB.setTaskState(TaskState.RUNNING);
+
+        assertThat(sut.getCurrentRunningTask().getId()).isEqualTo(1);
+        assertThat(sut.getCurrentRunningTask().getTaskState()).isEqualTo(TaskState.RUNNING);
+        assertThat(sut.getScheduledTasks()).extracting(Task::getId).containsExactly(2);
+
+        sut.update(running);
+
+        assertThat(sut.getCurrentRunningTask()).isNull();
+    }
+
+    @Test
+    void shouldIgnoreTasksWithoutIdentification()
+    {
+        sut.addTask(new Task());
+        completeTransaction(Status.STATUS_COMMITTED);
+
+        assertThat(sut.countAllIncompleteTasks()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldIgnoreChangesOfAbortedTransactions()
+    {
+        VirtualVehicle vehicle = new VirtualVehicle();
+        vehicle.setId(7);
+        taskB.setVehicle(vehicle);
+
+        sut.addTask(task(4, TaskState.PENDING, 0, 5L));
+        sut.removeTasksOfVirtualVehicle(7);
+        completeTransaction(Status.STATUS_ROLLEDBACK);
+
+        assertThat(sut.getPendingTasks()).extracting(Task::getId).containsExactly(3);
+        assertThat(sut.getScheduledTasks()).extracting(Task::getId).containsExactly(2);
+    }
+}
@@ -19,8 +19,10 @@
 package cpcc.vvrte.services.task;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -32,7 +34,6 @@ import java.util.Date;
 import java.util.List;
 
 import org.apache.tapestry5.ioc.ServiceResources;
-import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
@@ -42,7 +43,6 @@ import cpcc.core.services.jobs.TimeService;
 import cpcc.vvrte.base.VvRteConstants;
 import cpcc.vvrte.entities.Task;
 import cpcc.vvrte.entities.TaskState;
-import cpcc.vvrte.services.db.TaskRepository;
 
 /**
  * TaskSchedulerServiceTest
@@ -65,8 +65,7 @@ class TaskSchedulerServiceTest
     private ArrayList<Task> pendingTasks;
 
     private TaskSchedulerServiceImpl sut;
-    private Session session;
-    private TaskRepository taskRepository;
+    private TaskRegistry taskRegistry;
     private ServiceResources serviceResources;
 
     private List<PolarCoordinate> depotList;
@@ -135,11 +134,9 @@ class TaskSchedulerServiceTest
         pendingTasks = new ArrayList<Task>();
         assertThat(pendingTasks).isNotNull().isEmpty();
 
-        session = mock(Session.class);
-
-        taskRepository = mock(TaskRepository.class);
-        when(taskRepository.getScheduledTasks()).thenReturn(scheduledTasks);
-        when(taskRepository.getPendingTasks()).thenReturn(pendingTasks);
+        taskRegistry = mock(TaskRegistry.class);
+        when(taskRegistry.getScheduledTasks()).thenReturn(scheduledTasks);
+        when(taskRegistry.getPendingTasks()).thenReturn(pendingTasks);
 
         timeService = mock(TimeService.class);
         when(timeService.currentTimeMillis()).thenReturn(System.currentTimeMillis());
@@ -150,8 +147,8 @@ class TaskSchedulerServiceTest
         when(serviceResources.getService(GatedTspSchedulingAlgorithm.class)).thenReturn(algorithm);
         when(serviceResources.getService(ReverseScheduler.class)).thenReturn(new ReverseScheduler());
 
-        sut = new TaskSchedulerServiceImpl(VvRteConstants.PROP_SCHEDULER_CLASS_NAME_DEFAULT, session,
-            taskRepository, serviceResources);
+        sut = new TaskSchedulerServiceImpl(VvRteConstants.PROP_SCHEDULER_CLASS_NAME_DEFAULT, taskRegistry,
+            serviceResources);
 
         assertThat(sut).isNotNull();
     }
@@ -160,23 +157,23 @@ class TaskSchedulerServiceTest
     void shouldHaveDefaultSchedulingAlgorithm()
     {
         pendingTasks.addAll(Arrays.asList(taskA, taskB, taskC, taskD));
-        when(taskRepository.getCurrentRunningTask()).thenReturn(null);
+        when(taskRegistry.getCurrentRunningTask()).thenReturn(null);
 
         Task actual = sut.schedule(rvPosition, depotList);
 
         assertThat(actual).isNotNull();
 
-        verify(session).update(taskA);
-        verify(session).update(taskB);
-        verify(session).update(taskC);
-        verify(session).update(taskD);
+        verify(taskRegistry).update(taskA);
+        verify(taskRegistry).update(taskB);
+        verify(taskRegistry).update(taskC);
+        verify(taskRegistry).update(taskD);
     }
 
     @Test
     void shouldNotRescheduleTasksIfNoneIsPending()
     {
         scheduledTasks.addAll(Arrays.asList(taskA, taskB, taskC, taskD));
-        when(taskRepository.getCurrentRunningTask()).thenReturn(null);
+        when(taskRegistry.getCurrentRunningTask()).thenReturn(null);
 
         Task actual = sut.schedule(rvPosition, depotList);
 
@@ -184,11 +181,11 @@ class TaskSchedulerServiceTest
 
         verify(taskA).setOrder(0);
         verify(taskA).setTaskState(TaskState.RUNNING);
-        verify(session).update(taskA);
+        verify(taskRegistry).update(taskA);
 
-        verify(taskRepository).getCurrentRunningTask();
-        verify(taskRepository).getScheduledTasks();
-        verify(taskRepository).getPendingTasks();
+        verify(taskRegistry).getCurrentRunningTask();
+        verify(taskRegistry).getScheduledTasks();
+        verify(taskRegistry).getPendingTasks();
 
     }
 
@@ -196,7 +193,7 @@ class TaskSchedulerServiceTest
     void shouldLoadSchedulingAlgorithm() throws Exception
     {
         pendingTasks.addAll(Arrays.asList(taskA, taskB, taskC, taskD));
-        when(taskRepository.getCurrentRunningTask()).thenReturn(null);
+        when(taskRegistry.getCurrentRunningTask()).thenReturn(null);
 
         sut.setAlgorithm(ReverseScheduler.class.getName());
 
@@ -204,7 +201,7 @@ class TaskSchedulerServiceTest
 
         assertThat(actual).isSameAs(taskD);
 
-        InOrder io = inOrder(taskA, taskB, taskC, taskD, session);
+        InOrder io = inOrder(taskA, taskB, taskC, taskD, taskRegistry);
 
         io.verify(taskD).setOrder(1);
         io.verify(taskD).setTaskState(TaskState.SCHEDULED);
@@ -221,10 +218,10 @@ class TaskSchedulerServiceTest
         io.verify(taskD).setOrder(0);
         io.verify(taskD).setTaskState(TaskState.RUNNING);
 
-        io.verify(session).update(taskD);
-        io.verify(session).update(taskC);
-        io.verify(session).update(taskB);
-        io.verify(session).update(taskA);
+        io.verify(taskRegistry).update(taskD);
+        io.verify(taskRegistry).update(taskC);
+        io.verify(taskRegistry).update(taskB);
+        io.verify(taskRegistry).update(taskA);
     }
 
     @Test
@@ -233,18 +230,18 @@ class TaskSchedulerServiceTest
         scheduledTasks.addAll(Arrays.asList(taskB));
         pendingTasks.addAll(Arrays.asList(taskC, taskD));
 
-        when(taskRepository.getCurrentRunningTask()).thenReturn(taskA);
+        when(taskRegistry.getCurrentRunningTask()).thenReturn(taskA);
 
         Task actual = sut.schedule(rvPosition, depotList);
 
         assertThat(actual).isSameAs(taskA);
 
-        verify(taskRepository).getCurrentRunningTask();
+        verify(taskRegistry).getCurrentRunningTask();
         verifyNoInteractions(taskA);
         verifyNoInteractions(taskB);
         verifyNoInteractions(taskC);
         verifyNoInteractions(taskD);
-        verifyNoInteractions(session);
+        verify(taskRegistry, never()).update(any());
     }
 
     @Test
@@ -254,10 +251,10 @@ class TaskSchedulerServiceTest
 
         assertThat(actual).isNull();
 
-        verify(taskRepository).getCurrentRunningTask();
-        verify(taskRepository).getScheduledTasks();
-        verify(taskRepository).getPendingTasks();
-        verifyNoInteractions(session);
+        verify(taskRegistry).getCurrentRunningTask();
+        verify(taskRegistry).getScheduledTasks();
+        verify(taskRegistry).getPendingTasks();
+        verify(taskRegistry, never()).update(any());
     }
 
     @Test
@@ -266,10 +263,10 @@ class TaskSchedulerServiceTest
         pendingTasks.addAll(Arrays.asList(taskA, taskB));
         scheduledTasks.addAll(Arrays.asList(taskC, taskD));
 
-        when(taskRepository.getCurrentRunningTask()).thenReturn(null);
+        when(taskRegistry.getCurrentRunningTask()).thenReturn(null);
 
         TaskSchedulerServiceImpl scheduler2 = new TaskSchedulerServiceImpl("cpcc.notExistingAlgorithmImpl",
-            session, taskRepository, serviceResources);
+            taskRegistry, serviceResources);
 
         Task actual = scheduler2.schedule(rvPosition, depotList);
 
@@ -279,8 +276,7 @@ class TaskSchedulerServiceTest
         verifyNoInteractions(taskB);
         verifyNoInteractions(taskC);
         verifyNoInteractions(taskD);
-        verifyNoInteractions(session);
-        verifyNoInteractions(taskRepository);
+        verifyNoInteractions(taskRegistry);
     }
 
     /**